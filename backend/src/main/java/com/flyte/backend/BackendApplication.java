@@ -4,10 +4,12 @@ import java.util.TimeZone;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing; // <--- Import this
+import org.springframework.scheduling.annotation.EnableScheduling;
 import jakarta.annotation.PostConstruct;
 
 @SpringBootApplication
 @EnableJpaAuditing // <--- ADD THIS LINE
+@EnableScheduling
 public class BackendApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,21 @@
+package com.flyte.backend.DTO.Message;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessagePage {
+    // Newest first, same order as the old unpaginated endpoints
+    private List<MessageView> messages;
+
+    // Pass as ?before= to load older messages. Null when there is nothing older.
+    private String beforeCursor;
+
+    // Pass as ?after= to load newer messages. Null when the page is empty.
+    private String afterCursor;
+}
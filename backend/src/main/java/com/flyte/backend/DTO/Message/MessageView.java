@@ -0,0 +1,43 @@
+package com.flyte.backend.DTO.Message;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import com.flyte.backend.enums.MediaType;
+import com.flyte.backend.model.Message;
+import com.flyte.backend.model.User;
+
+/**
+ * What clients get for a message: ids instead of the Room/User entity graph.
+ * Built straight from JPQL constructor expressions on the read side, so
+ * history pages never hydrate Message, Room or User entities.
+ */
+public record MessageView(
+        UUID id,
+        UUID roomId,
+        long seq, // per-room position; consecutive unless a send was rolled back
+        UUID userId,
+        String senderName, // nickname when set, otherwise the account name
+        String messageText,
+        String messageHTML,
+        MediaType mediaType,
+        String mediaLink,
+        Instant createdAt,
+        Instant updatedAt) {
+
+    public static MessageView from(Message message) {
+        User sender = message.getUser();
+        return new MessageView(
+                message.getId(),
+                message.getRoomId(),
+                message.getSeq(),
+                sender.getId(),
+                sender.getNickname() != null ? sender.getNickname() : sender.getName(),
+                message.getMessageText(),
+                message.getMessageHTML(),
+                message.getMediaType(),
+                message.getMediaLink(),
+                message.getCreatedAt(),
+                message.getUpdatedAt());
+    }
+}
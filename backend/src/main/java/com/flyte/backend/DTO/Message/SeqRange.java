@@ -0,0 +1,9 @@
+package com.flyte.backend.DTO.Message;
+
+import java.util.UUID;
+
+/**
+ * Messages of one room with afterSeq < seq <= maxSeq.
+ */
+public record SeqRange(UUID roomId, long afterSeq, long maxSeq) {
+}
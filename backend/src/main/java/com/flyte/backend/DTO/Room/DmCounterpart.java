@@ -0,0 +1,9 @@
+package com.flyte.backend.DTO.Room;
+
+import java.util.UUID;
+
+import com.flyte.backend.model.User;
+
+// The other participant of a DM room, as seen by the user listing their rooms
+public record DmCounterpart(UUID roomId, User user) {
+}
@@ -0,0 +1,18 @@
+package com.flyte.backend.DTO.Room;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import com.flyte.backend.enums.RoomType;
+
+// One room list row; unreadCount is the room's last seq minus the user's read cursor
+public record InboxEntryView(
+        UUID roomId,
+        RoomType roomType,
+        String displayName,
+        String lastMessagePreview,
+        String lastSenderName,
+        Instant lastActivityAt,
+        long lastSeq,
+        long unreadCount) {
+}
@@ -0,0 +1,18 @@
+package com.flyte.backend.DTO.Room;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxPage {
+    // Most recently active first
+    private List<InboxEntryView> entries;
+
+    // Pass as ?before= for the next page. Null when there is nothing more.
+    private String beforeCursor;
+}
@@ -0,0 +1,11 @@
+package com.flyte.backend.DTO.Room;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.enums.RoomType;
+
+// One participant of a room as loaded into RoomMembershipIndex, with the room's fields it needs
+public record MemberStatus(UUID userId, ConnectionStatus status, RoomType roomType, Instant roomExpiryTime) {
+}
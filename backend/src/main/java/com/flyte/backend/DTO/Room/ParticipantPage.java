@@ -0,0 +1,18 @@
+package com.flyte.backend.DTO.Room;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticipantPage {
+    // Ordered by user id
+    private List<ParticipantView> participants;
+
+    // Pass as ?after= for the next page. Null when there is nothing more.
+    private String afterCursor;
+}
@@ -0,0 +1,10 @@
+package com.flyte.backend.DTO.Room;
+
+import java.util.UUID;
+
+import com.flyte.backend.enums.ConnectionStatus;
+
+// One row of a room's participant list: just what the member list shows, not the whole User
+public record ParticipantView(UUID userId, String nickname, String name, String profilePictureUrl,
+        ConnectionStatus status) {
+}
@@ -0,0 +1,8 @@
+package com.flyte.backend.DTO.Room;
+
+import java.util.List;
+import java.util.UUID;
+
+// Pushed to /topic/room/{roomId}/presence at most once per broadcast interval, with what changed since the last one
+public record PresenceUpdate(UUID roomId, int onlineCount, List<UUID> cameOnline, List<UUID> wentOffline) {
+}
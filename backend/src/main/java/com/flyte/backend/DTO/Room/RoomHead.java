@@ -0,0 +1,7 @@
+package com.flyte.backend.DTO.Room;
+
+import java.util.UUID;
+
+// A room's newest committed seq (room_stats.last_seq), 0 while it has no messages
+public record RoomHead(UUID roomId, long lastSeq) {
+}
@@ -0,0 +1,6 @@
+package com.flyte.backend.DTO.Room;
+
+import java.util.UUID;
+
+public record RoomMember(UUID roomId, UUID userId) {
+}
@@ -0,0 +1,8 @@
+package com.flyte.backend.DTO.Room;
+
+import java.util.Set;
+import java.util.UUID;
+
+// Who is online in a room right now; clients load it once and then follow PresenceUpdate pushes
+public record RoomPresence(UUID roomId, int onlineCount, Set<UUID> onlineUserIds) {
+}
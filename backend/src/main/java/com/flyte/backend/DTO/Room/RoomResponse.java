@@ -1,5 +1,6 @@
 package com.flyte.backend.DTO.Room;
 
+import java.time.Instant;
 import java.util.UUID;
 
 import com.flyte.backend.enums.RoomType;
@@ -15,6 +16,8 @@ public class RoomResponse {
     public String description;
     private RoomType type;
     private UserResponse otherUser;
+    // Clients order their room list by this
+    private Instant lastMessageTimestamp;
 
     public RoomResponse(Room room) {
         this.id = room.getId();
@@ -22,5 +25,6 @@ public class RoomResponse {
         this.description = room.getDescription();
         this.type = room.getType();
         this.otherUser = null;
+        this.lastMessageTimestamp = room.getLastMessageTimestamp();
     }
 }
@@ -2,12 +2,19 @@ package com.flyte.backend.DTO.Room;
 
 import java.util.List;
 
-import com.flyte.backend.model.Message;
+import com.flyte.backend.DTO.Message.MessageView;
 
 import lombok.Data;
 
 @Data
 public class RoomWithMessages {
     private RoomResponse room;
-    private List<Message> messages;
+    private List<MessageView> messages;
+
+    // Set by POST /api/sync: the room's newest seq; acknowledge it once every message up to it is stored
+    private Long headSeq;
+
+    // Older messages exist below the oldest one returned; page them with ?before=<oldest seq>.
+    // For POST /api/sync they are unseen, so page them before acknowledging headSeq
+    private boolean hasMore;
 }
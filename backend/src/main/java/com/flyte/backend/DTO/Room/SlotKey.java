@@ -0,0 +1,22 @@
+package com.flyte.backend.DTO.Room;
+
+import com.flyte.backend.enums.RoomType;
+
+// Identity of a journey room in slot_rooms. Lounges are shared by everyone in the slot,
+// so only FLIGHT rooms carry a flight number
+public record SlotKey(RoomType roomType, String location, String slot, String flightNumber) {
+
+    public static SlotKey source(String source, String sourceSlot) {
+        return new SlotKey(RoomType.SOURCE, source, sourceSlot, "");
+    }
+
+    public static SlotKey destination(String destination, String destinationSlot) {
+        return new SlotKey(RoomType.DESTINATION, destination, destinationSlot, "");
+    }
+
+    public static SlotKey flight(String flightNumber, String source, String sourceSlot, String destination,
+            String destinationSlot) {
+        return new SlotKey(RoomType.FLIGHT, source + "-" + destination, sourceSlot + "-" + destinationSlot,
+                flightNumber == null ? "" : flightNumber);
+    }
+}
@@ -0,0 +1,16 @@
+package com.flyte.backend.DTO.Sync;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.flyte.backend.DTO.Message.MessageView;
+
+/**
+ * Pushed messages of one room, oldest first. A client that holds everything
+ * up to 'afterSeq' applies them and moves its position for the room to
+ * 'position'. When its position is lower than 'afterSeq', or 'afterSeq' is
+ * null (continuity unknown, e.g. after a server restart), it applies them and
+ * then catches the room up through POST /api/sync.
+ */
+public record SyncMessagesDelta(UUID roomId, Long afterSeq, long position, List<MessageView> messages) {
+}
@@ -0,0 +1,25 @@
+package com.flyte.backend.DTO.Sync;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Body of POST /api/sync and POST /api/sync/ack.
+ */
+@Data
+public class SyncRequest {
+
+    @NotNull(message = "User ID is required")
+    private UUID userId;
+
+    // Positions are acknowledged per device; clients that leave it out share one set
+    private String deviceId;
+
+    // roomId -> last seq the client holds. For sync, rooms left out fall back to the last acknowledged
+    // position; for ack, the positions to acknowledge.
+    private Map<UUID, Long> rooms = new HashMap<>();
+}
@@ -0,0 +1,21 @@
+package com.flyte.backend.DTO.Sync;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.flyte.backend.DTO.Room.RoomWithMessages;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponse {
+    // Only rooms whose head moved past the client's position, plus rooms new to the client
+    private List<RoomWithMessages> rooms;
+
+    // Rooms the client sent that the user no longer has (left, expired or deleted)
+    private List<UUID> removedRoomIds;
+}
@@ -0,0 +1,8 @@
+package com.flyte.backend.DTO.Sync;
+
+import com.flyte.backend.DTO.Room.RoomResponse;
+import com.flyte.backend.enums.ConnectionStatus;
+
+// A room that appeared in the user's list, or a DM whose status changed; 'room' is named for the recipient
+public record SyncRoomDelta(RoomResponse room, ConnectionStatus status) {
+}
@@ -0,0 +1,6 @@
+package com.flyte.backend.DTO.Sync;
+
+import java.util.UUID;
+
+public record SyncRoomRemoved(UUID roomId) {
+}
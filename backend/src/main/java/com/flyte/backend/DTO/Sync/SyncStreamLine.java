@@ -0,0 +1,21 @@
+package com.flyte.backend.DTO.Sync;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Room.RoomResponse;
+
+/**
+ * One line of GET /api/sync/getSyncData/stream: either {"room": ...} or
+ * {"message": ...}. A room line comes before the first message of that room.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SyncStreamLine(RoomResponse room, MessageView message) {
+
+    public static SyncStreamLine of(RoomResponse room) {
+        return new SyncStreamLine(room, null);
+    }
+
+    public static SyncStreamLine of(MessageView message) {
+        return new SyncStreamLine(null, message);
+    }
+}
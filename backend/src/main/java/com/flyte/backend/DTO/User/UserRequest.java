@@ -19,4 +19,7 @@ public class UserRequest {
     public String nickname;
 
     public String phoneNumber;
+
+    // The signing-in device's sync checkpoint id (see SyncService); optional
+    public String deviceId;
 }
@@ -0,0 +1,100 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Room.RoomMember;
+import com.flyte.backend.repository.InboxBatchRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps inbox_entries current from the message write path without a write
+ * per message.
+ *
+ * A message updates every member's inbox row, so writing it inside the send
+ * transaction would make senders in a busy room queue on those rows, as they
+ * once did on rooms.last_message_timestamp (see {@link RoomActivityTracker}).
+ * Senders only keep the newest message per room here, plus their own read
+ * cursor: sending a message means having read the room up to it. A scheduled
+ * flush writes both with one JDBC batch each; inboxes trail the messages by
+ * at most flush-interval-ms. Deleted rooms are dropped through
+ * {@link #forget}; a flush that still races the delete finds no rows to
+ * update.
+ */
+@Component
+public class InboxTracker {
+
+    private final ConcurrentHashMap<UUID, MessageView> pendingMessages = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<RoomMember, Long> pendingReads = new ConcurrentHashMap<>();
+    private final InboxBatchRepository inboxBatchRepository;
+
+    public InboxTracker(InboxBatchRepository inboxBatchRepository, MeterRegistry meterRegistry) {
+        this.inboxBatchRepository = inboxBatchRepository;
+        Gauge.builder("flyte.inbox.pending", pendingMessages, Map::size)
+                .description("Rooms whose newest message is not in the inbox yet").register(meterRegistry);
+    }
+
+    /** Call after the message's transaction has committed. */
+    public void record(MessageView message) {
+        pendingMessages.merge(message.roomId(), message, InboxTracker::newest);
+        pendingReads.merge(new RoomMember(message.roomId(), message.userId()), message.seq(), Math::max);
+    }
+
+    /** Drops everything pending for a deleted room. */
+    public void forget(UUID roomId) {
+        pendingMessages.remove(roomId);
+        pendingReads.keySet().removeIf(member -> member.roomId().equals(roomId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.inbox.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        flushMessages();
+        flushReads();
+    }
+
+    private void flushMessages() {
+        if (pendingMessages.isEmpty()) {
+            return;
+        }
+        Map<UUID, MessageView> snapshot = new HashMap<>(pendingMessages);
+        try {
+            inboxBatchRepository.advanceRooms(snapshot.values());
+        } catch (RuntimeException e) {
+            // Keep everything pending; the next run retries
+            System.err.println("Failed to flush inbox entries for " + snapshot.size() + " rooms: " + e.getMessage());
+            return;
+        }
+        // Only drop entries nobody advanced while we were writing
+        snapshot.forEach(pendingMessages::remove);
+    }
+
+    private void flushReads() {
+        if (pendingReads.isEmpty()) {
+            return;
+        }
+        Map<RoomMember, Long> snapshot = new HashMap<>(pendingReads);
+        try {
+            inboxBatchRepository.advanceReadCursors(snapshot);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to flush read cursors for " + snapshot.size() + " members: " + e.getMessage());
+            return;
+        }
+        snapshot.forEach(pendingReads::remove);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static MessageView newest(MessageView a, MessageView b) {
+        return b.seq() > a.seq() ? b : a;
+    }
+}
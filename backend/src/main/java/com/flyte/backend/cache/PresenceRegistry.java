@@ -0,0 +1,167 @@
+package com.flyte.backend.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Who is online, per STOMP session and per room. Fed by PresenceService from
+ * the session events; nothing here touches the database. A client that goes
+ * silent is disconnected by the broker's heartbeat check, which ends its
+ * session here like any other disconnect.
+ *
+ * A user is online in a room while at least one of their sessions is
+ * subscribed to the room's topic, so a second device does not count twice
+ * and closing one of them does not take the user offline. Per-room state is
+ * only changed inside a compute() on that room's key: ConcurrentHashMap
+ * locks one bin for it, so rooms never wait on each other and readers never
+ * lock at all.
+ *
+ * Every online/offline transition of a user in a room is also kept as the
+ * room's pending change, latest state per user, until {@link #drainChanges}
+ * hands it out; a join and leave in between collapse into one entry.
+ */
+@Component
+public class PresenceRegistry {
+
+    private final ConcurrentHashMap<String, SessionState> sessions = new ConcurrentHashMap<>();
+    // room -> user -> number of the user's subscriptions to the room
+    private final ConcurrentHashMap<UUID, ConcurrentHashMap<UUID, Integer>> rooms = new ConcurrentHashMap<>();
+    // user -> number of open sessions
+    private final ConcurrentHashMap<UUID, Integer> users = new ConcurrentHashMap<>();
+    // room -> user -> online, since the last drain; inner maps are only written inside compute() on their room
+    private final ConcurrentHashMap<UUID, Map<UUID, Boolean>> changes = new ConcurrentHashMap<>();
+
+    public PresenceRegistry(MeterRegistry meterRegistry) {
+        Gauge.builder("flyte.presence.sessions", sessions, Map::size)
+                .description("Open STOMP sessions of signed-in users").register(meterRegistry);
+        Gauge.builder("flyte.presence.rooms", rooms, Map::size)
+                .description("Rooms with at least one user online").register(meterRegistry);
+    }
+
+    public void connect(String sessionId, UUID userId) {
+        if (sessions.putIfAbsent(sessionId, new SessionState(userId)) == null) {
+            users.merge(userId, 1, Integer::sum);
+        }
+    }
+
+    /** Drops the session and every room subscription it still had. */
+    public void disconnect(String sessionId) {
+        SessionState session = sessions.remove(sessionId);
+        if (session == null) {
+            return;
+        }
+        for (String subscriptionId : session.subscriptions.keySet()) {
+            release(session, subscriptionId);
+        }
+        users.computeIfPresent(session.userId, (id, count) -> count == 1 ? null : count - 1);
+    }
+
+    /** Counts the session as present in the room until it unsubscribes or disconnects. */
+    public void subscribe(String sessionId, String subscriptionId, UUID roomId) {
+        SessionState session = sessions.get(sessionId);
+        if (session == null || session.subscriptions.putIfAbsent(subscriptionId, roomId) != null) {
+            return;
+        }
+        rooms.compute(roomId, (id, online) -> {
+            if (online == null) {
+                online = new ConcurrentHashMap<>();
+            }
+            if (online.merge(session.userId, 1, Integer::sum) == 1) {
+                recordChange(roomId, session.userId, true);
+            }
+            return online;
+        });
+        if (sessions.get(sessionId) != session) {
+            // Disconnected meanwhile; whichever of the two removes the subscription releases it
+            release(session, subscriptionId);
+        }
+    }
+
+    public void unsubscribe(String sessionId, String subscriptionId) {
+        SessionState session = sessions.get(sessionId);
+        if (session != null) {
+            release(session, subscriptionId);
+        }
+    }
+
+    public boolean isOnline(UUID userId) {
+        return users.containsKey(userId);
+    }
+
+    public int onlineCount(UUID roomId) {
+        Map<UUID, Integer> online = rooms.get(roomId);
+        return online == null ? 0 : online.size();
+    }
+
+    public Set<UUID> onlineUsers(UUID roomId) {
+        Map<UUID, Integer> online = rooms.get(roomId);
+        return online == null ? Set.of() : Set.copyOf(online.keySet());
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Takes the pending changes of every room: room -> user -> true when they
+     * came online, false when they went offline. A change made while this runs
+     * lands either in this result or in the next one.
+     */
+    public Map<UUID, Map<UUID, Boolean>> drainChanges() {
+        Map<UUID, Map<UUID, Boolean>> drained = new HashMap<>();
+        for (UUID roomId : changes.keySet()) {
+            // remove() and recordChange's compute() on the same key exclude each other,
+            // so nothing writes to this map once it is out
+            Map<UUID, Boolean> roomChanges = changes.remove(roomId);
+            if (roomChanges != null) {
+                drained.put(roomId, roomChanges);
+            }
+        }
+        return drained;
+    }
+
+    private void release(SessionState session, String subscriptionId) {
+        UUID roomId = session.subscriptions.remove(subscriptionId);
+        if (roomId != null) {
+            leave(roomId, session.userId);
+        }
+    }
+
+    private void leave(UUID roomId, UUID userId) {
+        rooms.computeIfPresent(roomId, (id, online) -> {
+            Integer left = online.computeIfPresent(userId, (user, count) -> count == 1 ? null : count - 1);
+            if (left == null) {
+                recordChange(roomId, userId, false);
+            }
+            // An empty room goes away; the next subscriber starts a new map under the same lock
+            return online.isEmpty() ? null : online;
+        });
+    }
+
+    private void recordChange(UUID roomId, UUID userId, boolean online) {
+        changes.compute(roomId, (id, roomChanges) -> {
+            if (roomChanges == null) {
+                roomChanges = new HashMap<>();
+            }
+            roomChanges.put(userId, online);
+            return roomChanges;
+        });
+    }
+
+    private static final class SessionState {
+        private final UUID userId;
+        // subscription id -> room; a session can subscribe to the same room more than once
+        private final ConcurrentHashMap<String, UUID> subscriptions = new ConcurrentHashMap<>();
+
+        SessionState(UUID userId) {
+            this.userId = userId;
+        }
+    }
+}
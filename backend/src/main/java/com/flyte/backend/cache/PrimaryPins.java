@@ -0,0 +1,122 @@
+package com.flyte.backend.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Users whose data changed in the last pin-seconds, whose read-only
+ * transactions stay on the primary (ReplicaRoutingDataSource). A replica may
+ * not have the change yet, and the writer would not see their own write.
+ * UserChangeVersions pins everyone whose room list ETag a change moves, so
+ * their next polls read both the tag and the body where the change already
+ * is; pin-seconds must stay above the replica's usual lag.
+ *
+ * The two cases are kept apart because they reach different instances:
+ * <ul>
+ * <li>A user pinned by their own HTTP request gets the pin back in the
+ * {@value #HEADER} response header (epoch millis it lasts until). The client
+ * sends it on its following requests, so the pin holds on whichever instance
+ * serves the next read, without sticky routing.</li>
+ * <li>Pins of other users (room members after a message) live in this
+ * process only. Another instance may serve those members from the replica,
+ * but reads their tag there too, so a lagging body never carries a newer
+ * tag.</li>
+ * </ul>
+ * The header only ever moves its sender's own reads to the primary, so it
+ * is taken as sent. Does nothing when no replica is configured.
+ */
+@Component
+public class PrimaryPins {
+
+    public static final String HEADER = "X-Primary-Until";
+
+    private final boolean enabled;
+    private final long pinNanos;
+    private final long pinMillis;
+    private final ConcurrentHashMap<UUID, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    public PrimaryPins(@Value("${app.datasource.replica.url:}") String replicaUrl,
+            @Value("${app.datasource.replica.pin-seconds:5}") long pinSeconds) {
+        this.enabled = !replicaUrl.isBlank();
+        this.pinNanos = Duration.ofSeconds(pinSeconds).toNanos();
+        this.pinMillis = Duration.ofSeconds(pinSeconds).toMillis();
+    }
+
+    public void pin(UUID userId) {
+        if (!enabled) {
+            return;
+        }
+        pinnedUntil.put(userId, System.nanoTime() + pinNanos);
+        // Wall clock, as the value is read back by other instances
+        HttpServletResponse response = currentResponse();
+        if (response != null && !response.isCommitted() && userId.equals(currentUserId())) {
+            response.setHeader(HEADER, Long.toString(System.currentTimeMillis() + pinMillis));
+        }
+    }
+
+    public boolean isPinned(UUID userId) {
+        Long until = pinnedUntil.get(userId);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    /** Whether the authenticated user is pinned here, or sent a pin that has not run out yet. */
+    public boolean isCurrentUserPinned() {
+        UUID userId = currentUserId();
+        if (userId != null && isPinned(userId)) {
+            return true;
+        }
+        HttpServletRequest request = currentRequest();
+        String header = request == null ? null : request.getHeader(HEADER);
+        if (header == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(header) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.pin-sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        pinnedUntil.values().removeIf(until -> until - now <= 0);
+    }
+
+    // JwtAuthenticationFilter authenticates requests as their user id
+    private static UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(authentication.getName());
+        } catch (IllegalArgumentException e) {
+            // Anonymous or another kind of principal
+            return null;
+        }
+    }
+
+    // Null off the request thread: STOMP handlers, schedulers, the ingest pipeline
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet ? servlet.getRequest() : null;
+    }
+
+    private static HttpServletResponse currentResponse() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet ? servlet.getResponse() : null;
+    }
+}
@@ -0,0 +1,400 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.DTO.Message.MessageView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps the last N messages of each active room in memory.
+ *
+ * Writes are appended after commit from this instance's message write
+ * paths. A room's buffer only answers reads once it has been anchored by a
+ * repository read (the first "latest page" miss), because until then it
+ * cannot know whether older messages exist in the database. Every read method
+ * returns null when the buffer does not fully cover the requested range, and
+ * the caller falls back to the repository.
+ *
+ * Buffers are ordered by seq, and seqs of a room have no gaps. Messages
+ * written through another instance never reach this buffer, so reads that end
+ * at the room's head take its headSeq (room_stats.last_seq, capped at
+ * RoomSequencer.visibleLimit): a buffer that does not hold it, or whose range
+ * skips a seq, is behind. It then stops answering until the next latest-page
+ * miss reseeds it.
+ *
+ * Memory is bounded by max-rooms x per-room messages. Rooms that are idle or
+ * past their expiry time are evicted by a periodic sweep.
+ */
+@Component
+public class RecentMessageCache {
+
+    private final ConcurrentHashMap<UUID, RoomBuffer> rooms = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final int maxRooms;
+    private final Duration idleTimeout;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public RecentMessageCache(MeterRegistry meterRegistry,
+            @Value("${app.cache.recent-messages.per-room:50}") int capacity,
+            @Value("${app.cache.recent-messages.max-rooms:2000}") int maxRooms,
+            @Value("${app.cache.recent-messages.idle-timeout-minutes:30}") long idleTimeoutMinutes) {
+        this.capacity = capacity;
+        this.maxRooms = maxRooms;
+        this.idleTimeout = Duration.ofMinutes(idleTimeoutMinutes);
+
+        this.hits = Counter.builder("flyte.recent_messages.requests").tag("result", "hit")
+                .description("Message reads served from the in-memory buffer").register(meterRegistry);
+        this.misses = Counter.builder("flyte.recent_messages.requests").tag("result", "miss")
+                .description("Message reads that fell back to the database").register(meterRegistry);
+        this.evictions = Counter.builder("flyte.recent_messages.evictions").register(meterRegistry);
+        Gauge.builder("flyte.recent_messages.rooms", rooms, Map::size).register(meterRegistry);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // ===================================================================================
+    // WRITE PATH
+    // ===================================================================================
+
+    /** Call after the message's transaction has committed. */
+    public void append(MessageView message, Instant roomExpiryTime) {
+        if (isExpired(roomExpiryTime, Instant.now())) {
+            return;
+        }
+        RoomBuffer buffer = rooms.get(message.roomId());
+        if (buffer == null) {
+            if (rooms.size() >= maxRooms) {
+                // Full: don't start buffering new rooms until the sweep frees space
+                return;
+            }
+            buffer = rooms.computeIfAbsent(message.roomId(), id -> new RoomBuffer(capacity, roomExpiryTime));
+        }
+        buffer.expiryTime = roomExpiryTime;
+        buffer.insert(message);
+    }
+
+    /**
+     * Anchors a room's buffer with the newest rows read from the repository.
+     * The room's expiry time is picked up from the next append.
+     *
+     * @param newestFirst rows as returned by the latest-page query
+     * @param exhaustive  true when the query returned fewer rows than asked for,
+     *                    i.e. the room has nothing older
+     */
+    public void seed(UUID roomId, List<MessageView> newestFirst, boolean exhaustive) {
+        if (!rooms.containsKey(roomId) && rooms.size() >= maxRooms) {
+            evictLeastRecentlyUsed();
+        }
+        rooms.computeIfAbsent(roomId, id -> new RoomBuffer(capacity, null)).seed(newestFirst, exhaustive);
+    }
+
+    public void evict(UUID roomId) {
+        if (rooms.remove(roomId) != null) {
+            evictions.increment();
+        }
+    }
+
+    // ===================================================================================
+    // READ PATH (null = not covered, go to the repository)
+    // ===================================================================================
+
+    /** Newest 'limit' messages up to headSeq, newest first. */
+    public List<MessageView> latest(UUID roomId, int limit, long headSeq) {
+        return record(withBuffer(roomId, buffer -> buffer.latest(limit, headSeq)));
+    }
+
+    /** Up to 'limit' messages before 'beforeSeq', newest first. */
+    public List<MessageView> before(UUID roomId, long beforeSeq, int limit) {
+        return record(withBuffer(roomId, buffer -> buffer.before(beforeSeq, limit)));
+    }
+
+    /** Up to 'limit' messages after 'afterSeq' and up to headSeq, oldest first. */
+    public List<MessageView> after(UUID roomId, long afterSeq, int limit, long headSeq) {
+        return record(withBuffer(roomId, buffer -> buffer.after(afterSeq, limit, headSeq)));
+    }
+
+    /** Every message created after 'since' and up to headSeq, newest first. */
+    public List<MessageView> since(UUID roomId, Instant since, long headSeq) {
+        return record(withBuffer(roomId, buffer -> buffer.since(since, headSeq)));
+    }
+
+    /** The room's complete history, newest first, if it fits in the buffer. */
+    public List<MessageView> all(UUID roomId) {
+        return record(withBuffer(roomId, RoomBuffer::all));
+    }
+
+    private List<MessageView> withBuffer(UUID roomId, Function<RoomBuffer, List<MessageView>> read) {
+        RoomBuffer buffer = rooms.get(roomId);
+        return buffer == null ? null : read.apply(buffer);
+    }
+
+    private List<MessageView> record(List<MessageView> result) {
+        if (result == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    // ===================================================================================
+    // EVICTION
+    // ===================================================================================
+
+    @Scheduled(fixedDelayString = "${app.cache.recent-messages.sweep-interval-ms:60000}")
+    public void sweep() {
+        Instant now = Instant.now();
+        Instant idleCutoff = now.minus(idleTimeout);
+        rooms.forEach((roomId, buffer) -> {
+            if (isExpired(buffer.expiryTime, now) || buffer.lastAccess.isBefore(idleCutoff)) {
+                evict(roomId);
+            }
+        });
+    }
+
+    private void evictLeastRecentlyUsed() {
+        // Drop the coldest ~10% in one go so this scan stays rare
+        int toEvict = Math.max(1, maxRooms / 10);
+        rooms.entrySet().stream()
+                .sorted(Comparator.comparing(entry -> entry.getValue().lastAccess))
+                .limit(toEvict)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(this::evict);
+    }
+
+    private static boolean isExpired(Instant expiryTime, Instant now) {
+        return expiryTime != null && now.isAfter(expiryTime);
+    }
+
+    /**
+     * Fixed-size ring of one room's newest messages, oldest at 'start'.
+     * All access is synchronized on the buffer; rooms are independent.
+     */
+    static final class RoomBuffer {
+        private final MessageView[] slots;
+        private volatile Instant expiryTime;
+        private int start;
+        private int size;
+
+        // Seeded from the database at least once
+        private boolean anchored;
+        // The buffer holds the room's whole history
+        private boolean exhaustive;
+        private volatile Instant lastAccess = Instant.now();
+
+        RoomBuffer(int capacity, Instant expiryTime) {
+            this.slots = new MessageView[capacity];
+            this.expiryTime = expiryTime;
+        }
+
+        synchronized void insert(MessageView message) {
+            lastAccess = Instant.now();
+            for (int i = size - 1; i >= 0; i--) {
+                if (get(i).id().equals(message.id())) {
+                    return;
+                }
+            }
+
+            // Commits arrive almost in seq order, so this usually stops immediately
+            int pos = size;
+            while (pos > 0 && get(pos - 1).seq() > message.seq()) {
+                pos--;
+            }
+
+            if (size == slots.length) {
+                exhaustive = false;
+                if (pos == 0) {
+                    // Older than everything we keep
+                    return;
+                }
+                // Drop the oldest to make room
+                start = (start + 1) % slots.length;
+                size--;
+                pos--;
+            }
+            for (int i = size; i > pos; i--) {
+                set(i, get(i - 1));
+            }
+            set(pos, message);
+            size++;
+        }
+
+        synchronized void seed(List<MessageView> newestFirst, boolean exhaustiveFromDb) {
+            List<MessageView> buffered = snapshotAscending();
+            long seededUpTo = newestFirst.isEmpty() ? 0 : newestFirst.get(0).seq();
+            start = 0;
+            size = 0;
+            exhaustive = exhaustiveFromDb;
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                insert(newestFirst.get(i));
+            }
+            // Keep anything appended while the seed query was running; older entries may have gaps
+            for (MessageView message : buffered) {
+                if (message.seq() > seededUpTo) {
+                    insert(message);
+                }
+            }
+            anchored = true;
+        }
+
+        synchronized List<MessageView> latest(int limit, long headSeq) {
+            lastAccess = Instant.now();
+            if (!anchored) {
+                return null;
+            }
+            return current(newestUpTo(headSeq, limit), headSeq);
+        }
+
+        synchronized List<MessageView> before(long beforeSeq, int limit) {
+            lastAccess = Instant.now();
+            if (!anchored) {
+                return null;
+            }
+            List<MessageView> result = newestUpTo(beforeSeq - 1, limit);
+            // Older history is never written to, so it only has to start at the cursor and have no gaps
+            if (result != null && !result.isEmpty() && (result.get(0).seq() != beforeSeq - 1 || !gapFree(result))) {
+                return null;
+            }
+            return result;
+        }
+
+        synchronized List<MessageView> after(long afterSeq, int limit, long headSeq) {
+            lastAccess = Instant.now();
+            // The window must reach back to the message right after afterSeq, otherwise some may be missing
+            if (!anchored || (!exhaustive && (size == 0 || get(0).seq() > afterSeq + 1))) {
+                return null;
+            }
+            List<MessageView> result = new ArrayList<>();
+            for (int i = 0; i < size && result.size() < limit && get(i).seq() <= headSeq; i++) {
+                if (get(i).seq() > afterSeq) {
+                    result.add(get(i));
+                }
+            }
+            if (!gapFree(result) || (!result.isEmpty() && result.get(0).seq() != afterSeq + 1)) {
+                return stale();
+            }
+            // A page cut short by 'limit' ends before the head anyway
+            return result.size() == limit || holds(headSeq) || headSeq <= afterSeq ? result : stale();
+        }
+
+        synchronized List<MessageView> since(Instant since, long headSeq) {
+            lastAccess = Instant.now();
+            if (!anchored || (!exhaustive && (size == 0 || get(0).createdAt().isAfter(since)))) {
+                return null;
+            }
+            // Seq order and createdAt order can differ by a few concurrent sends, so check every entry
+            List<MessageView> upToHead = new ArrayList<>();
+            List<MessageView> result = new ArrayList<>();
+            for (int i = size - 1; i >= 0; i--) {
+                if (get(i).seq() <= headSeq) {
+                    upToHead.add(get(i));
+                    if (get(i).createdAt().isAfter(since)) {
+                        result.add(get(i));
+                    }
+                }
+            }
+            return holds(headSeq) && gapFree(upToHead) ? result : stale();
+        }
+
+        synchronized List<MessageView> all() {
+            lastAccess = Instant.now();
+            if (!anchored || !exhaustive) {
+                return null;
+            }
+            return newestFirst(size - 1, size);
+        }
+
+        // 'result' ends at the room's head and has no gaps, or the buffer is behind the database
+        private List<MessageView> current(List<MessageView> result, long headSeq) {
+            if (result == null) {
+                return null;
+            }
+            boolean reachesHead = result.isEmpty() ? headSeq == 0 : result.get(0).seq() == headSeq;
+            return reachesHead && gapFree(result) ? result : stale();
+        }
+
+        // Stops answering until the next seed
+        private List<MessageView> stale() {
+            anchored = false;
+            return null;
+        }
+
+        // Whether the buffer holds 'seq'; 0 stands for "no messages" and is always held
+        private boolean holds(long seq) {
+            if (seq == 0) {
+                return true;
+            }
+            for (int i = size - 1; i >= 0 && get(i).seq() >= seq; i--) {
+                if (get(i).seq() == seq) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Neighbours differ by exactly one seq, in either order
+        private static boolean gapFree(List<MessageView> messages) {
+            for (int i = 1; i < messages.size(); i++) {
+                if (Math.abs(messages.get(i).seq() - messages.get(i - 1).seq()) != 1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Up to 'limit' entries with seq <= maxSeq, newest first; null when older ones may be missing
+        private List<MessageView> newestUpTo(long maxSeq, int limit) {
+            int end = size;
+            while (end > 0 && get(end - 1).seq() > maxSeq) {
+                end--;
+            }
+            if (end < limit && !exhaustive) {
+                return null;
+            }
+            return newestFirst(end - 1, Math.min(limit, end));
+        }
+
+        private List<MessageView> newestFirst(int fromIndex, int count) {
+            List<MessageView> result = new ArrayList<>(count);
+            for (int i = fromIndex; i > fromIndex - count; i--) {
+                result.add(get(i));
+            }
+            return result;
+        }
+
+        private List<MessageView> snapshotAscending() {
+            List<MessageView> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(get(i));
+            }
+            return result;
+        }
+
+        private MessageView get(int index) {
+            return slots[(start + index) % slots.length];
+        }
+
+        private void set(int index, MessageView message) {
+            slots[(start + index) % slots.length] = message;
+        }
+    }
+}
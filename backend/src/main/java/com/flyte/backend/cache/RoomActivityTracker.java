@@ -0,0 +1,84 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.model.Room;
+import com.flyte.backend.repository.MessageBatchRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds each room's newest message timestamp until the next flush.
+ *
+ * Bumping rooms.last_message_timestamp inside every message transaction made
+ * all senders in a busy room queue on the same row lock. Senders now only
+ * merge into this map. A scheduled flush writes all pending rooms in one JDBC
+ * batch, and the UPDATE can only move a value forward. Readers that order
+ * rooms should use {@link #lastMessageTimestamp(Room)} so unflushed activity
+ * still counts.
+ */
+@Component
+public class RoomActivityTracker {
+
+    private final ConcurrentHashMap<UUID, Instant> pending = new ConcurrentHashMap<>();
+    private final MessageBatchRepository messageBatchRepository;
+
+    public RoomActivityTracker(MessageBatchRepository messageBatchRepository, MeterRegistry meterRegistry) {
+        this.messageBatchRepository = messageBatchRepository;
+        Gauge.builder("flyte.room_activity.pending", pending, Map::size)
+                .description("Rooms whose last message timestamp is not flushed yet").register(meterRegistry);
+    }
+
+    /** Call after the message's transaction has committed. */
+    public void record(UUID roomId, Instant messageCreatedAt) {
+        pending.merge(roomId, messageCreatedAt, RoomActivityTracker::latest);
+    }
+
+    /** The room's stored timestamp, or a newer one that hasn't been flushed yet. */
+    public Instant lastMessageTimestamp(Room room) {
+        Instant unflushed = pending.get(room.getId());
+        Instant stored = room.getLastMessageTimestamp();
+        if (unflushed == null) {
+            return stored;
+        }
+        return stored == null ? unflushed : latest(stored, unflushed);
+    }
+
+    /** Drops a deleted room's unflushed timestamp. */
+    public void forget(UUID roomId) {
+        pending.remove(roomId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rooms.activity-flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<UUID, Instant> snapshot = new HashMap<>(pending);
+        try {
+            messageBatchRepository.touchRooms(snapshot);
+        } catch (RuntimeException e) {
+            // Keep everything pending; the next run retries
+            System.err.println("Failed to flush activity for " + snapshot.size() + " rooms: " + e.getMessage());
+            return;
+        }
+        // Only drop entries nobody advanced while we were writing
+        snapshot.forEach(pending::remove);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        return b.isAfter(a) ? b : a;
+    }
+}
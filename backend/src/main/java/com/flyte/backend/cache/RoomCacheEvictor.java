@@ -0,0 +1,54 @@
+package com.flyte.backend.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * The one place that knows every per-room cache of this instance. Code that
+ * deletes rooms calls {@link #roomsDeleted} after commit instead of evicting
+ * caches one by one, so a cache added later cannot be missed on one of the
+ * delete paths.
+ */
+@Component
+public class RoomCacheEvictor {
+
+    private final RecentMessageCache recentMessageCache;
+    private final RoomStatsTracker roomStatsTracker;
+    private final RoomSequencer roomSequencer;
+    private final RoomMembershipIndex roomMembershipIndex;
+    private final RoomActivityTracker roomActivityTracker;
+    private final SlotRoomCache slotRoomCache;
+    private final InboxTracker inboxTracker;
+
+    public RoomCacheEvictor(RecentMessageCache recentMessageCache,
+            RoomStatsTracker roomStatsTracker,
+            RoomSequencer roomSequencer,
+            RoomMembershipIndex roomMembershipIndex,
+            RoomActivityTracker roomActivityTracker,
+            SlotRoomCache slotRoomCache,
+            InboxTracker inboxTracker) {
+        this.recentMessageCache = recentMessageCache;
+        this.roomStatsTracker = roomStatsTracker;
+        this.roomSequencer = roomSequencer;
+        this.roomMembershipIndex = roomMembershipIndex;
+        this.roomActivityTracker = roomActivityTracker;
+        this.slotRoomCache = slotRoomCache;
+        this.inboxTracker = inboxTracker;
+    }
+
+    /** Call after the transaction that deleted the rooms has committed. */
+    public void roomsDeleted(Collection<UUID> roomIds) {
+        for (UUID roomId : roomIds) {
+            recentMessageCache.evict(roomId);
+            // room_stats rows are removed by the FK cascade
+            roomStatsTracker.forget(roomId);
+            roomSequencer.forget(roomId);
+            roomMembershipIndex.invalidate(roomId);
+            roomActivityTracker.forget(roomId);
+            inboxTracker.forget(roomId);
+        }
+        slotRoomCache.evictRooms(roomIds);
+    }
+}
@@ -0,0 +1,186 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.DTO.Room.MemberStatus;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.repository.RoomParticipantRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Room -> members and their ConnectionStatus, so the send path and the
+ * message fan-out check membership without a query per message.
+ *
+ * A room is loaded with one query the first time it is asked for. Writers
+ * that add, remove or change a participant call {@link #invalidate} after
+ * commit and the next read reloads it. A load that overlaps an invalidation
+ * is answered but not kept, since it may have read the old rows.
+ *
+ * Invalidations only reach this instance, so a room is also reloaded once it
+ * is ttl-seconds old, however often it is read: a change made through another
+ * instance shows up here within that time. Sends to group rooms are
+ * authorized from the index ({@link #senderStatusOf}), so a member removed
+ * through another instance may keep posting for up to that long. DM status
+ * must hold at once and is read from the participant row.
+ *
+ * Memory is bounded by max-rooms. Rooms past their ttl or expiry time are
+ * dropped by a periodic sweep; while the index is full, rooms that are not
+ * in it are answered from the database without being added.
+ */
+@Component
+public class RoomMembershipIndex {
+
+    private final ConcurrentHashMap<UUID, RoomMembers> rooms = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final RoomParticipantRepository roomParticipantRepository;
+    private final int maxRooms;
+    private final Duration ttl;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public RoomMembershipIndex(RoomParticipantRepository roomParticipantRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.room-members.max-rooms:5000}") int maxRooms,
+            @Value("${app.cache.room-members.ttl-seconds:60}") long ttlSeconds) {
+        this.roomParticipantRepository = roomParticipantRepository;
+        this.maxRooms = maxRooms;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+
+        this.hits = Counter.builder("flyte.room_members.requests").tag("result", "hit")
+                .description("Membership checks answered from memory").register(meterRegistry);
+        this.misses = Counter.builder("flyte.room_members.requests").tag("result", "miss")
+                .description("Membership checks that loaded the room from the database").register(meterRegistry);
+        Gauge.builder("flyte.room_members.rooms", rooms, Map::size).register(meterRegistry);
+    }
+
+    /** The user's status in the room, or null when they are not a participant. */
+    public ConnectionStatus statusOf(UUID roomId, UUID userId) {
+        return members(roomId).statuses().get(userId);
+    }
+
+    public boolean isMember(UUID roomId, UUID userId) {
+        return statusOf(roomId, userId) != null;
+    }
+
+    /**
+     * Like {@link #statusOf}, read from the participant row, for checks that
+     * let a user write to the room. A cached room that disagrees is dropped.
+     */
+    public ConnectionStatus currentStatusOf(UUID roomId, UUID userId) {
+        ConnectionStatus status = roomParticipantRepository.findStatusByRoomIdAndUserId(roomId, userId).orElse(null);
+        RoomMembers cached = rooms.get(roomId);
+        if (cached != null && cached.statuses().get(userId) != status) {
+            invalidate(roomId);
+        }
+        return status;
+    }
+
+    /**
+     * The status that decides whether the user may send to the room. Group
+     * rooms answer from the index; DMs, and a user the index does not list
+     * (who may have just joined through another instance), read the
+     * participant row.
+     */
+    public ConnectionStatus senderStatusOf(UUID roomId, UUID userId) {
+        RoomMembers room = members(roomId);
+        ConnectionStatus status = room.statuses().get(userId);
+        if (status == null || room.type() == RoomType.DM) {
+            return currentStatusOf(roomId, userId);
+        }
+        return status;
+    }
+
+    /** The room's type, or null when it has no participants. */
+    public RoomType roomType(UUID roomId) {
+        return members(roomId).type();
+    }
+
+    /** Every participant of the room, whatever their status. */
+    public Set<UUID> memberIds(UUID roomId) {
+        return members(roomId).statuses().keySet();
+    }
+
+    /** Call after a transaction that changed the room's participants has committed. */
+    public void invalidate(UUID roomId) {
+        invalidations.incrementAndGet();
+        rooms.remove(roomId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.room-members.sweep-interval-ms:60000}")
+    public void sweep() {
+        Instant now = Instant.now();
+        Instant loadedCutoff = now.minus(ttl);
+        rooms.values().removeIf(room -> room.loadedAt.isBefore(loadedCutoff)
+                || (room.expiryTime() != null && !room.expiryTime().isAfter(now)));
+    }
+
+    RoomMembers members(UUID roomId) {
+        RoomMembers cached = rooms.get(roomId);
+        if (cached != null && cached.loadedAt.isAfter(Instant.now().minus(ttl))) {
+            hits.increment();
+            return cached;
+        }
+        if (cached != null) {
+            rooms.remove(roomId, cached);
+        }
+        misses.increment();
+        long seen = invalidations.get();
+        RoomMembers loaded = load(roomId);
+        if (invalidations.get() == seen && rooms.size() < maxRooms) {
+            RoomMembers raced = rooms.putIfAbsent(roomId, loaded);
+            return raced != null ? raced : loaded;
+        }
+        return loaded;
+    }
+
+    private RoomMembers load(UUID roomId) {
+        List<MemberStatus> rows = roomParticipantRepository.findMemberStatusesByRoomId(roomId);
+        Map<UUID, ConnectionStatus> statuses = new HashMap<>(rows.size() * 2);
+        rows.forEach(row -> statuses.put(row.userId(), row.status()));
+        MemberStatus first = rows.isEmpty() ? null : rows.get(0);
+        // Map.copyOf keeps keys and values in one flat array, without an entry object per member
+        return new RoomMembers(Map.copyOf(statuses),
+                first == null ? null : first.roomType(),
+                first == null ? null : first.roomExpiryTime());
+    }
+
+    static final class RoomMembers {
+        private final Map<UUID, ConnectionStatus> statuses;
+        private final RoomType type;
+        private final Instant expiryTime;
+        private final Instant loadedAt = Instant.now();
+
+        RoomMembers(Map<UUID, ConnectionStatus> statuses, RoomType type, Instant expiryTime) {
+            this.statuses = statuses;
+            this.type = type;
+            this.expiryTime = expiryTime;
+        }
+
+        Map<UUID, ConnectionStatus> statuses() {
+            return statuses;
+        }
+
+        RoomType type() {
+            return type;
+        }
+
+        Instant expiryTime() {
+            return expiryTime;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.repository.MessageRepository;
+import com.flyte.backend.repository.RoomStatsBatchRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out each room's message sequence numbers (messages.seq).
+ *
+ * Numbers come from room_stats.last_seq, incremented inside the inserting
+ * transaction. That holds the room's stats row lock until the transaction
+ * ends, so every instance draws from the same counter, seqs of a room commit
+ * in order and a rollback hands its numbers back. The first time this
+ * instance allocates in a room, the room's messages are checked for the
+ * number: a stored message at or past it means last_seq fell behind, and
+ * the send fails instead of writing a duplicate. last_seq is never lowered,
+ * so once a room has passed, later sends to it skip that query.
+ *
+ * Committing in order is not enough for what this instance does after
+ * commit: the AfterCommit callbacks that feed RecentMessageCache and
+ * SyncPushService may still run out of order. Allocations are therefore
+ * tracked here until their transaction has completed, and
+ * {@link #visibleLimit} keeps readers of those buffers below any of them.
+ */
+@Component
+public class RoomSequencer {
+
+    // room -> first seq of each allocation whose transaction has not completed yet
+    private final ConcurrentHashMap<UUID, TreeSet<Long>> inFlight = new ConcurrentHashMap<>();
+    // Rooms whose last_seq was found ahead of their messages
+    private final Set<UUID> checkedRooms = ConcurrentHashMap.newKeySet();
+    private final RoomStatsBatchRepository roomStatsBatchRepository;
+    private final MessageRepository messageRepository;
+
+    public RoomSequencer(RoomStatsBatchRepository roomStatsBatchRepository,
+            MessageRepository messageRepository,
+            MeterRegistry meterRegistry) {
+        this.roomStatsBatchRepository = roomStatsBatchRepository;
+        this.messageRepository = messageRepository;
+        Gauge.builder("flyte.room_sequencer.rooms", inFlight, Map::size).register(meterRegistry);
+        Gauge.builder("flyte.room_sequencer.checked_rooms", checkedRooms, Set::size).register(meterRegistry);
+    }
+
+    /** Allocates the room's next seq and counts the message in room_stats. See {@link #allocate}. */
+    public long next(UUID roomId) {
+        return allocate(roomId, 1);
+    }
+
+    /**
+     * Allocates 'count' consecutive seqs of the room and returns the first.
+     * Must be called inside the transaction that inserts the messages. Callers
+     * allocating for several rooms in one transaction go in Postgres' uuid
+     * order, so two of them never wait on each other's rows.
+     */
+    public long allocate(UUID roomId, int count) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Message sequence numbers must be allocated inside a transaction");
+        }
+        long first = roomStatsBatchRepository.allocateSeqs(roomId, count) - count + 1;
+        if (!checkedRooms.contains(roomId)) {
+            if (messageRepository.existsByRoom_IdAndSeqGreaterThanEqual(roomId, first)) {
+                throw new IllegalStateException("room_stats.last_seq of room " + roomId + " is behind its messages; "
+                        + "refusing to reuse seq " + first);
+            }
+            checkedRooms.add(roomId);
+        }
+
+        inFlight.compute(roomId, (id, seqs) -> {
+            if (seqs == null) {
+                seqs = new TreeSet<>();
+            }
+            seqs.add(first);
+            return seqs;
+        });
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Spring calls every afterCommit() of the transaction, AfterCommit callbacks included, before this
+                inFlight.computeIfPresent(roomId, (id, seqs) -> {
+                    seqs.remove(first);
+                    return seqs.isEmpty() ? null : seqs;
+                });
+            }
+        });
+        return first;
+    }
+
+    /** Drops a deleted room; an allocation still completing for it no longer holds readers back. */
+    public void forget(UUID roomId) {
+        inFlight.remove(roomId);
+        checkedRooms.remove(roomId);
+    }
+
+    /**
+     * Highest seq readers of this instance's buffers may return for the room:
+     * just below the oldest allocation here whose transaction has not
+     * completed, or Long.MAX_VALUE when there is none. Read it before
+     * querying, so numbers allocated while the query runs are excluded too.
+     */
+    public long visibleLimit(UUID roomId) {
+        return capToVisible(roomId, Long.MAX_VALUE);
+    }
+
+    /** Lowers 'seq' to the room's visible limit. */
+    public long capToVisible(UUID roomId, long seq) {
+        // compute() keeps the set from changing while it is read
+        long[] limit = { seq };
+        inFlight.computeIfPresent(roomId, (id, seqs) -> {
+            limit[0] = Math.min(seq, seqs.first() - 1);
+            return seqs;
+        });
+        return limit[0];
+    }
+}
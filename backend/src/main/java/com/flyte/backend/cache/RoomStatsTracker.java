@@ -0,0 +1,137 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.repository.RoomStatsBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the room_stats row of each room (see RoomStats) in step with the
+ * room, without a write to that row per join.
+ *
+ * - participant_count: joins and leaves record a +1/-1 delta here after
+ *   commit. The scheduled {@link #flush} adds each room's delta to the row
+ *   with one batched upsert, so joins to a busy lounge do not queue on it.
+ *   Readers add {@link #pendingParticipants} to the stored value.
+ * - message_count and last_seq: not tracked here. RoomSequencer writes both
+ *   in each send's own transaction.
+ *
+ * The hourly {@link #reconcile} recounts all three columns from the
+ * participants and messages tables and repairs any drift, such as a
+ * participant delta lost in a crash.
+ */
+@Component
+public class RoomStatsTracker {
+
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    private final ConcurrentHashMap<UUID, Long> pendingParticipants = new ConcurrentHashMap<>();
+    private final RoomStatsBatchRepository roomStatsBatchRepository;
+    private final int reconcileChunkSize;
+    private final Counter repaired;
+
+    public RoomStatsTracker(RoomStatsBatchRepository roomStatsBatchRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.rooms.stats.reconcile-chunk-size:500}") int reconcileChunkSize) {
+        this.roomStatsBatchRepository = roomStatsBatchRepository;
+        this.reconcileChunkSize = reconcileChunkSize;
+        this.repaired = Counter.builder("flyte.room_stats.repaired")
+                .description("Room stats rows corrected by reconciliation").register(meterRegistry);
+    }
+
+    /** Call after the transaction that added or removed participants has committed. */
+    public void addParticipants(UUID roomId, long delta) {
+        pendingParticipants.merge(roomId, delta, Long::sum);
+    }
+
+    /** Participant delta recorded for the room but not yet in room_stats. */
+    public long pendingParticipants(UUID roomId) {
+        return pendingParticipants.getOrDefault(roomId, 0L);
+    }
+
+    /** Drops a deleted room's pending delta. */
+    public void forget(UUID roomId) {
+        pendingParticipants.remove(roomId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rooms.stats.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (pendingParticipants.isEmpty()) {
+            return;
+        }
+        Map<UUID, Long> batch = new HashMap<>();
+        for (UUID roomId : pendingParticipants.keySet()) {
+            Long delta = pendingParticipants.remove(roomId);
+            if (delta != null && delta != 0) {
+                batch.put(roomId, delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            roomStatsBatchRepository.addParticipantCounts(batch);
+        } catch (RuntimeException e) {
+            batch.forEach(this::addParticipants);
+            System.err.println("Failed to flush participant counts for " + batch.size() + " rooms: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recounts every room from the messages and participants tables, chunk
+     * by chunk. Runs under the same lock as flush(). Sends to a chunk's rooms
+     * wait while it is recounted, so message counts come out exact. Pending
+     * participant deltas of a chunk are dropped just before it is recounted,
+     * since the recount already includes those rows; a join recorded between
+     * the two steps is counted twice until the next run.
+     */
+    @Scheduled(initialDelayString = "${app.rooms.stats.reconcile-initial-delay-ms:60000}",
+            fixedDelayString = "${app.rooms.stats.reconcile-interval-ms:3600000}")
+    public synchronized void reconcile() {
+        int fixed = 0;
+        UUID after = FIRST_ID;
+        try {
+            List<UUID> chunk;
+            do {
+                chunk = roomStatsBatchRepository.findRoomIdsAfter(after, reconcileChunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                Map<UUID, Long> droppedParticipants = new HashMap<>();
+                for (UUID roomId : chunk) {
+                    Long participantDelta = pendingParticipants.remove(roomId);
+                    if (participantDelta != null) {
+                        droppedParticipants.put(roomId, participantDelta);
+                    }
+                }
+                try {
+                    fixed += roomStatsBatchRepository.reconcileMessageCounts(chunk);
+                } catch (RuntimeException e) {
+                    droppedParticipants.forEach(this::addParticipants);
+                    throw e;
+                }
+                after = chunk.get(chunk.size() - 1);
+            } while (chunk.size() == reconcileChunkSize);
+        } catch (RuntimeException e) {
+            System.err.println("Room stats reconciliation stopped after room " + after + ": " + e.getMessage());
+        }
+        repaired.increment(fixed);
+        if (fixed > 0) {
+            System.out.println("Room stats reconciliation repaired " + fixed + " rooms");
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
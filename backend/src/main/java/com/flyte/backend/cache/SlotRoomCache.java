@@ -0,0 +1,87 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.DTO.Room.SlotKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SlotKey -> room id for the slot rooms journeys were recently booked into,
+ * so the next booking of a busy slot skips the slot_rooms lookup.
+ *
+ * Entries are only added after the transaction that found or created the
+ * room has committed. Deleted rooms are dropped through
+ * {@link #evictRooms}, but only on the instance that deleted them, so
+ * callers still load the room by id and evict the key when it is gone. Entries are dropped once their room has expired,
+ * and nothing new is added while the cache holds max-entries keys.
+ */
+@Component
+public class SlotRoomCache {
+
+    private final ConcurrentHashMap<SlotKey, CachedRoom> rooms = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public SlotRoomCache(MeterRegistry meterRegistry,
+            @Value("${app.cache.slot-rooms.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("flyte.slot_rooms.requests").tag("result", "hit")
+                .description("Slot room lookups answered from memory").register(meterRegistry);
+        this.misses = Counter.builder("flyte.slot_rooms.requests").tag("result", "miss")
+                .description("Slot room lookups that went to slot_rooms").register(meterRegistry);
+        Gauge.builder("flyte.slot_rooms.cached", rooms, Map::size).register(meterRegistry);
+    }
+
+    /** The room id cached for the key, or null. */
+    public UUID get(SlotKey key) {
+        CachedRoom cached = rooms.get(key);
+        if (cached == null || cached.isExpired(Instant.now())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.roomId();
+    }
+
+    /** Call after the transaction that found or created the room has committed. */
+    public void put(SlotKey key, UUID roomId, Instant expiryTime) {
+        if (rooms.size() < maxEntries || rooms.containsKey(key)) {
+            rooms.put(key, new CachedRoom(roomId, expiryTime));
+        }
+    }
+
+    public void evict(SlotKey key) {
+        rooms.remove(key);
+    }
+
+    /** Drops every key that maps to one of the deleted rooms. */
+    public void evictRooms(Collection<UUID> roomIds) {
+        Set<UUID> deleted = new HashSet<>(roomIds);
+        rooms.values().removeIf(room -> deleted.contains(room.roomId()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.slot-rooms.sweep-interval-ms:300000}")
+    public void sweep() {
+        Instant now = Instant.now();
+        rooms.values().removeIf(room -> room.isExpired(now));
+    }
+
+    private record CachedRoom(UUID roomId, Instant expiryTime) {
+        boolean isExpired(Instant now) {
+            return expiryTime != null && !expiryTime.isAfter(now);
+        }
+    }
+}
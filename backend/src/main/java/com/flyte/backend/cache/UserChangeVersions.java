@@ -0,0 +1,129 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.repository.UserRepository;
+import com.flyte.backend.util.AfterCommit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A per-user tag that moves whenever anything in the user's room list or
+ * sync data may have changed. The room list and sync endpoints hand it out
+ * as an ETag, so a poll carrying the current tag is answered with 304.
+ *
+ * The tag is read from the database (UserRepository.findChangeTag), so a
+ * change made through any instance moves it everywhere:
+ * <ul>
+ * <li>a message moves its room's head, and so the sum of heads in the tag;</li>
+ * <li>an expired room drops out of the user's room count;</li>
+ * <li>joining or leaving a room, a DM request being sent, accepted or
+ * rejected, and a sync reset bump the user's stored version, in the same
+ * transaction as the change.</li>
+ * </ul>
+ * Tags are cached here for cache-ms as a read-through copy, so polls within
+ * that time cost no query. Changes committed through this instance drop the
+ * copies of everyone they touch; one made elsewhere shows up once the copy
+ * runs out. Read the tag before building a response: a change landing in
+ * between then costs one extra full response instead of being hidden. The
+ * tag is read in a read-only transaction, which goes wherever the body's
+ * read-only transaction goes, and bumped users are pinned to the primary
+ * (PrimaryPins) so they read their own change.
+ */
+@Component
+public class UserChangeVersions {
+
+    // A tag read at readAt, or with a null tag, a change made at readAt
+    private record CachedTag(String tag, long readAt) {
+    }
+
+    private final ConcurrentHashMap<UUID, CachedTag> tags = new ConcurrentHashMap<>();
+    private final UserRepository userRepository;
+    private final RoomMembershipIndex roomMembershipIndex;
+    private final PrimaryPins primaryPins;
+    private final TransactionTemplate readTransaction;
+    private final long cacheNanos;
+
+    public UserChangeVersions(UserRepository userRepository, RoomMembershipIndex roomMembershipIndex,
+            PrimaryPins primaryPins, PlatformTransactionManager transactionManager,
+            @Value("${app.sync.change-tag-cache-ms:1000}") long cacheMillis) {
+        this.userRepository = userRepository;
+        this.roomMembershipIndex = roomMembershipIndex;
+        this.primaryPins = primaryPins;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.cacheNanos = Duration.ofMillis(cacheMillis).toNanos();
+    }
+
+    public String etag(UUID userId) {
+        long start = System.nanoTime();
+        CachedTag cached = tags.get(userId);
+        if (cached != null && cached.tag() != null && start - cached.readAt() < cacheNanos) {
+            return cached.tag();
+        }
+        String tag = readTransaction.execute(status -> userRepository.findChangeTag(userId,
+                ConnectionStatus.NOT_CONNECTED.name(), Instant.now())).orElse("0");
+        // A change dropped after the read started may not be in it; that drop must win
+        tags.compute(userId, (id, current) -> current != null && current.readAt() - start > 0
+                ? current
+                : new CachedTag(tag, start));
+        return tag;
+    }
+
+    public void bump(UUID userId) {
+        bumpAll(List.of(userId));
+    }
+
+    /**
+     * Moves the users' stored versions inside the caller's transaction, or a
+     * transaction of its own when there is none.
+     */
+    public void bumpAll(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        // Pinned first: a poll that sees the new version must not be served by the replica
+        userIds.forEach(primaryPins::pin);
+        userRepository.incrementChangeVersions(userIds);
+        forget(userIds);
+        // Again once committed: a poll in between still read the old version
+        AfterCommit.run(() -> forget(userIds));
+    }
+
+    /**
+     * Drops the cached tags of every participant of the rooms after their
+     * heads moved; members come from RoomMembershipIndex. Call after commit.
+     */
+    public void roomsChanged(Collection<UUID> roomIds) {
+        for (UUID roomId : roomIds) {
+            try {
+                Collection<UUID> memberIds = roomMembershipIndex.memberIds(roomId);
+                memberIds.forEach(primaryPins::pin);
+                forget(memberIds);
+            } catch (RuntimeException e) {
+                // Runs after commit, where throwing would fail a write that already happened
+                System.err.println("Failed to drop change tags for room " + roomId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.sync.change-tag-sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        tags.values().removeIf(cached -> now - cached.readAt() >= cacheNanos);
+    }
+
+    private void forget(Collection<UUID> userIds) {
+        long now = System.nanoTime();
+        userIds.forEach(userId -> tags.put(userId, new CachedTag(null, now)));
+    }
+}
@@ -0,0 +1,49 @@
+package com.flyte.backend.config;
+
+import com.flyte.backend.cache.PrimaryPins;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions (@Transactional(readOnly = true), or a
+ * read-only TransactionTemplate) to the replica and everything else to the
+ * primary. Reads of a user pinned by {@link PrimaryPins}, here or through the
+ * pin header their client sends back, stay on the primary.
+ *
+ * Only usable behind a LazyConnectionDataSourceProxy (see {@link #wrap}): the
+ * transaction managers take their connection before the read-only flag is
+ * published, and the proxy defers the real checkout to the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final PrimaryPins primaryPins;
+
+    private ReplicaRoutingDataSource(PrimaryPins primaryPins) {
+        this.primaryPins = primaryPins;
+    }
+
+    public static DataSource wrap(DataSource primary, DataSource replica, PrimaryPins primaryPins) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryPins);
+        routing.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.PRIMARY;
+        }
+        return primaryPins.isCurrentUserPinned() ? Target.PRIMARY : Target.REPLICA;
+    }
+}
@@ -1,22 +1,36 @@
 package com.flyte.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
 import com.flyte.backend.security.AuthChannelInterceptor;
+import com.flyte.backend.security.RoomSubscriptionInterceptor;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private AuthChannelInterceptor authChannelInterceptor;
-
-    public WebSocketConfig(AuthChannelInterceptor authChannelInterceptor) {
+    private final RoomSubscriptionInterceptor roomSubscriptionInterceptor;
+    private final TaskScheduler messageBrokerTaskScheduler;
+    private final long heartbeatMillis;
+
+    // Lazy: the broker's scheduler is defined by the configuration this class is part of
+    public WebSocketConfig(AuthChannelInterceptor authChannelInterceptor,
+            RoomSubscriptionInterceptor roomSubscriptionInterceptor,
+            @Lazy TaskScheduler messageBrokerTaskScheduler,
+            @Value("${app.presence.heartbeat-ms:10000}") long heartbeatMillis) {
         this.authChannelInterceptor = authChannelInterceptor;
+        this.roomSubscriptionInterceptor = roomSubscriptionInterceptor;
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+        this.heartbeatMillis = heartbeatMillis;
     }
 
     @Override
@@ -30,7 +44,11 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         // Prefix for server-to-client messages (broadcasts)
-        registry.enableSimpleBroker("/topic");
+        // Heartbeats both ways: a client that stops sending them is disconnected, which is what
+        // takes it out of PresenceRegistry when its connection dies without a close
+        registry.enableSimpleBroker("/topic")
+                .setHeartbeatValue(new long[] { heartbeatMillis, heartbeatMillis })
+                .setTaskScheduler(messageBrokerTaskScheduler);
 
         // Prefix for client-to-server messages (handled by @MessageMapping)
         registry.setApplicationDestinationPrefixes("/app");
@@ -38,7 +56,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        // Register our custom interceptor
-        registration.interceptors(authChannelInterceptor);
+        // Register our custom interceptors; authentication first, so room subscriptions see the user
+        registration.interceptors(authChannelInterceptor, roomSubscriptionInterceptor);
     }
 }
\ No newline at end of file
@@ -63,6 +63,7 @@ public class AuthController {
             userRequest.setEmail(email);
             userRequest.setName(name);
             userRequest.setProfilePictureUrl(pictureUrl);
+            userRequest.setDeviceId(payload.get("deviceId"));
 
             UserResponse userResponse = userService.findOrCreateUser(userRequest);
 
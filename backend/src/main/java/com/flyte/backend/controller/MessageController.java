@@ -5,9 +5,9 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 
 import com.flyte.backend.service.MessageService;
-import com.flyte.backend.model.Message;
 import com.flyte.backend.DTO.Message.CreateMessageRequest;
-import java.util.List;
+import com.flyte.backend.DTO.Message.MessagePage;
+import com.flyte.backend.DTO.Message.MessageView;
 import java.util.UUID;
 
 @RestController
@@ -21,21 +21,37 @@ public class MessageController {
     }
 
     @PostMapping("/create")
-    public ResponseEntity<Message> createMessage(@Valid @RequestBody CreateMessageRequest request) {
-        Message message = messageService.createMessage(request);
+    public ResponseEntity<MessageView> createMessage(@Valid @RequestBody CreateMessageRequest request) {
+        MessageView message = messageService.createMessage(request);
         return ResponseEntity.ok(message);
     }
 
+    // Seq paginated history: no cursor = latest page, 'before' = older, 'after' = newer.
+    // Cursors are message seqs, so after=<last seq held> also fills a gap in what a client received
     @GetMapping("/room/{roomId}")
-    public ResponseEntity<List<Message>> getMessagesByRoom(@PathVariable UUID roomId) {
-        List<Message> messages = messageService.getMessagesByRoom(roomId);
-        return ResponseEntity.ok(messages);
+    public ResponseEntity<?> getMessagesByRoom(@PathVariable UUID roomId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            MessagePage page = messageService.getMessagesByRoom(roomId, before, after, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Message>> getMessagesByUser(@PathVariable UUID userId) {
-        List<Message> messages = messageService.getMessagesByUser(userId);
-        return ResponseEntity.ok(messages);
+    public ResponseEntity<?> getMessagesByUser(@PathVariable UUID userId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            MessagePage page = messageService.getMessagesByUser(userId, before, after, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/room/{roomId}/count")
@@ -0,0 +1,30 @@
+package com.flyte.backend.controller;
+
+import com.flyte.backend.DTO.Room.RoomPresence;
+import com.flyte.backend.service.PresenceService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/presence")
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    public PresenceController(PresenceService presenceService) {
+        this.presenceService = presenceService;
+    }
+
+    // Who is online in the room now; changes after this arrive on /topic/room/{roomId}/presence.
+    // 403 unless the caller is a participant of the room
+    @GetMapping("/rooms/{roomId}")
+    public ResponseEntity<RoomPresence> getRoomPresence(@PathVariable UUID roomId, Principal principal) {
+        return ResponseEntity.ok(presenceService.getRoomPresence(roomId, principal));
+    }
+}
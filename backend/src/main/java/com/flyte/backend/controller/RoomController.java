@@ -1,9 +1,14 @@
 package com.flyte.backend.controller;
 
+import com.flyte.backend.DTO.Room.InboxPage;
+import com.flyte.backend.DTO.Room.ParticipantPage;
 import com.flyte.backend.DTO.Room.RoomRequest;
 import com.flyte.backend.DTO.Room.RoomResponse;
 import com.flyte.backend.DTO.Room.RoomWithMessages;
+import com.flyte.backend.cache.UserChangeVersions;
 import com.flyte.backend.model.User;
+import com.flyte.backend.service.InboxService;
+import com.flyte.backend.service.ParticipantService;
 import com.flyte.backend.service.RoomService;
 
 import java.util.List;
@@ -11,6 +16,7 @@ import java.util.UUID;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import jakarta.validation.Valid;
 
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,9 +27,16 @@ import org.springframework.web.bind.annotation.RequestParam;
 public class RoomController {
 
     private final RoomService roomService;
+    private final InboxService inboxService;
+    private final ParticipantService participantService;
+    private final UserChangeVersions userChangeVersions;
 
-    public RoomController(RoomService roomService) {
+    public RoomController(RoomService roomService, InboxService inboxService, ParticipantService participantService,
+            UserChangeVersions userChangeVersions) {
         this.roomService = roomService;
+        this.inboxService = inboxService;
+        this.participantService = participantService;
+        this.userChangeVersions = userChangeVersions;
     }
 
     @PostMapping("/create")
@@ -42,18 +55,73 @@ public class RoomController {
         }
     }
 
+    // Same ETag as /api/sync/getSyncData: 304 until something in the user's rooms changes.
+    // Each room carries its newest messagesPerRoom messages; hasMore rooms page the rest through /api/messages
     @GetMapping("/getRoomsAndMessagesByUserId")
-    public ResponseEntity<List<RoomWithMessages>> getRoomsAndMessagesByUserId(@RequestParam UUID userId) {
-        List<RoomWithMessages> response = roomService.getRoomsAndMessagesByUserId(userId);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<?> getRoomsAndMessagesByUserId(@RequestParam UUID userId,
+            @RequestParam(required = false) Integer messagesPerRoom, WebRequest request) {
+        if (request.checkNotModified(userChangeVersions.etag(userId))) {
+            return null;
+        }
+        try {
+            List<RoomWithMessages> response = roomService.getRoomsAndMessagesByUserId(userId, messagesPerRoom);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
+    // The room list without messages: one row per room with its last message and unread count,
+    // most recently active first. Pass beforeCursor back as 'before' for the next page
+    @GetMapping("/inbox")
+    public ResponseEntity<?> getInbox(@RequestParam UUID userId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            InboxPage page = inboxService.getInbox(userId, before, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Marks the room read up to 'seq' for the user; unread counts are measured from here
+    @PostMapping("/{roomId}/read")
+    public ResponseEntity<?> markRead(@PathVariable UUID roomId, @RequestParam UUID userId,
+            @RequestParam long seq) {
+        try {
+            inboxService.markRead(userId, roomId, seq);
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Every participant as a full User; large rooms should page through /{roomId}/participants instead
     @GetMapping("/getParticipantsInRoom")
     public ResponseEntity<List<User>> getParticipantsInRoom(@RequestParam UUID roomId) {
         List<User> participants = roomService.getParticipantsInRoom(roomId);
         return ResponseEntity.ok(participants);
     }
 
+    // One page of participants with only what the member list shows. Pass afterCursor back as 'after'
+    @GetMapping("/{roomId}/participants")
+    public ResponseEntity<?> getParticipants(@PathVariable UUID roomId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            ParticipantPage page = participantService.getParticipants(roomId, after, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{roomId}/participants/count")
+    public ResponseEntity<Long> getParticipantCount(@PathVariable UUID roomId) {
+        return ResponseEntity.ok(participantService.getParticipantCount(roomId));
+    }
+
     @DeleteMapping("/delete/{roomId}/{userId}")
     public ResponseEntity<Void> deleteRoom(@PathVariable UUID roomId, @PathVariable UUID userId) {
         roomService.deleteRoom(roomId, userId);
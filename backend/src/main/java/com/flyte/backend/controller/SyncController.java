@@ -2,9 +2,16 @@
 package com.flyte.backend.controller;
 
 import com.flyte.backend.DTO.Room.RoomWithMessages;
+import com.flyte.backend.DTO.Sync.SyncRequest;
+import com.flyte.backend.DTO.Sync.SyncResponse;
+import com.flyte.backend.cache.UserChangeVersions;
 import com.flyte.backend.service.SyncService;
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -14,13 +21,69 @@ import java.util.UUID;
 public class SyncController {
 
     private final SyncService syncService;
+    private final UserChangeVersions userChangeVersions;
 
-    public SyncController(SyncService syncService) {
+    public SyncController(SyncService syncService, UserChangeVersions userChangeVersions) {
         this.syncService = syncService;
+        this.userChangeVersions = userChangeVersions;
     }
 
+    // 304 while the ETag the client sends is still the user's current change version.
+    // messagesPerRoom bounds a first sync; older history is paged through /api/messages
     @GetMapping("/getSyncData")
-    public ResponseEntity<List<RoomWithMessages>> getSyncData(@RequestParam UUID userId) {
-        return ResponseEntity.ok(syncService.getSyncData(userId));
+    public ResponseEntity<?> getSyncData(@RequestParam UUID userId, @RequestParam(required = false) String deviceId,
+            @RequestParam(required = false) Integer messagesPerRoom, WebRequest request) {
+        // Taken before the query, so a change that lands meanwhile still moves the client's next tag
+        if (request.checkNotModified(userChangeVersions.etag(userId))) {
+            return null;
+        }
+        try {
+            // checkNotModified has already set the ETag header
+            List<RoomWithMessages> response = syncService.getSyncData(userId, deviceId, messagesPerRoom);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // NDJSON variant of getSyncData for long histories: lines are written while rows are read
+    @GetMapping(value = "/getSyncData/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSyncData(@RequestParam UUID userId,
+            @RequestParam(required = false) String deviceId) {
+        StreamingResponseBody body = out -> syncService.streamSyncData(userId, deviceId, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Rooms whose head moved past the positions the client sent (or last acknowledged)
+    @PostMapping
+    public ResponseEntity<?> sync(@Valid @RequestBody SyncRequest request) {
+        try {
+            SyncResponse response = syncService.sync(request.getUserId(), request.getDeviceId(), request.getRooms());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Commit positions once the client has stored what sync returned
+    @PostMapping("/ack")
+    public ResponseEntity<?> acknowledge(@Valid @RequestBody SyncRequest request) {
+        try {
+            syncService.acknowledge(request.getUserId(), request.getDeviceId(), request.getRooms());
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Restarts sync for one device, e.g. after it cleared its local data; other devices are untouched
+    @PostMapping("/reset")
+    public ResponseEntity<?> reset(@Valid @RequestBody SyncRequest request) {
+        try {
+            syncService.resetSyncTime(request.getUserId(), request.getDeviceId());
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 }
\ No newline at end of file
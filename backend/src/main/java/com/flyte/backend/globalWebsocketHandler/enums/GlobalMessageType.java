@@ -2,5 +2,10 @@ package com.flyte.backend.globalWebsocketHandler.enums;
 
 public enum GlobalMessageType {
     CHAT_NOTIFICATION,
-    FRIEND_REQUEST_NOTIFICATION
+    FRIEND_REQUEST_NOTIFICATION,
+    // Sync deltas pushed by SyncPushService
+    SYNC_ROOM_ADDED,
+    SYNC_ROOM_STATUS_CHANGED,
+    SYNC_ROOM_REMOVED,
+    SYNC_MESSAGES
 }
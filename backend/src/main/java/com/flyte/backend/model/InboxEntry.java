@@ -0,0 +1,71 @@
+package com.flyte.backend.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import com.flyte.backend.enums.RoomType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * One row of a user's inbox: what the room list shows for one membership,
+ * keyed by the participant it belongs to. Inserted through JPA when the
+ * participant is created (InboxService); the message columns are then moved
+ * forward with plain SQL by InboxTracker.
+ */
+@Data
+@Entity
+@Table(name = "inbox_entries")
+public class InboxEntry {
+
+    @Id
+    @Column(name = "participant_id")
+    private UUID participantId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "participant_id", foreignKey = @ForeignKey(name = "fk_inbox_entries_participant"))
+    @OnDelete(action = OnDeleteAction.CASCADE) // Goes away with the membership
+    private RoomParticipant participant;
+
+    // Copied from the participant so a user's inbox is one index range
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "room_id", nullable = false)
+    private UUID roomId;
+
+    @Column(name = "room_type", nullable = false)
+    private RoomType roomType;
+
+    // The other member's name for DMs, the room name otherwise
+    @Column(name = "display_name", nullable = false)
+    private String displayName;
+
+    @Column(name = "last_message_preview")
+    private String lastMessagePreview;
+
+    @Column(name = "last_sender_name")
+    private String lastSenderName;
+
+    @Column(name = "last_activity_at", nullable = false)
+    private Instant lastActivityAt;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+
+    @Column(name = "expiry_time")
+    private Instant expiryTime;
+}
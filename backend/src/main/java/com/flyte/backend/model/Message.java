@@ -10,6 +10,7 @@ import com.flyte.backend.enums.MediaType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.ForeignKey;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -19,7 +20,13 @@ import lombok.EqualsAndHashCode;
 @Data
 @Entity
 @EqualsAndHashCode(callSuper = true)
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        // Keyset pagination: (created_at, id) is the cursor within a room / user
+        @Index(name = "idx_messages_room_created", columnList = "room_id, created_at, id"),
+        // Room pages and gap fills walk the per-room sequence
+        @Index(name = "ux_messages_room_seq", columnList = "room_id, seq, created_at", unique = true),
+        @Index(name = "idx_messages_user_created", columnList = "user_id, created_at, id")
+})
 public class Message extends BaseEntity {
 
     @ManyToOne
@@ -27,6 +34,10 @@ public class Message extends BaseEntity {
     @OnDelete(action = OnDeleteAction.CASCADE)
     private Room room;
 
+    // Position within the room, allocated from room_stats.last_seq by RoomSequencer
+    @Column(nullable = false)
+    private Long seq;
+
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(name = "fk_user_id"), referencedColumnName = "id")
     private User user;
@@ -30,4 +30,8 @@ public class Room extends BaseEntity {
 
     @Column(name = "last_message_timestamp", nullable = true)
     private Instant lastMessageTimestamp;
+
+    // DmKey of the two members, DM rooms only
+    @Column(name = "dm_key", length = 73, updatable = false)
+    private String dmKey;
 }
@@ -39,4 +39,9 @@ public class RoomParticipant extends BaseEntity {
     @Enumerated(EnumType.STRING)
     private ConnectionStatus status = ConnectionStatus.CONNECTED; // Default to CONNECTED for backward compatibility
 
+    // Newest seq of the room this user has read. Only moved forward by
+    // RoomParticipantRepository.advanceLastReadSeq and the inbox flush, never by saving the entity
+    @Column(name = "last_read_seq", nullable = false, updatable = false)
+    private long lastReadSeq;
+
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.flyte.backend.model;
+
+import java.util.UUID;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Per-room counters, one row per room, keyed by the room id.
+ * Written with plain SQL upserts (RoomStatsBatchRepository); JPA only reads it.
+ */
+@Data
+@Entity
+@Table(name = "room_stats")
+public class RoomStats {
+
+    @Id
+    @Column(name = "room_id")
+    private UUID roomId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_id", foreignKey = @ForeignKey(name = "fk_room_stats_room"))
+    @OnDelete(action = OnDeleteAction.CASCADE) // Stats go away with the room
+    private Room room;
+
+    @Column(name = "message_count", nullable = false)
+    private long messageCount;
+
+    // Newest seq committed in the room; sync compares it with client positions
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+
+    @Column(name = "participant_count", nullable = false)
+    private long participantCount;
+}
@@ -0,0 +1,52 @@
+package com.flyte.backend.model;
+
+import java.util.UUID;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import com.flyte.backend.enums.RoomType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * The journey room of a slot (SlotKey), keyed by the room id and unique per
+ * key. Written with a plain SQL insert-or-nothing (SlotRoomRepository); JPA
+ * only reads it.
+ */
+@Data
+@Entity
+@Table(name = "slot_rooms")
+public class SlotRoom {
+
+    @Id
+    @Column(name = "room_id")
+    private UUID roomId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_id", foreignKey = @ForeignKey(name = "fk_slot_rooms_room"))
+    @OnDelete(action = OnDeleteAction.CASCADE) // Registration goes away with the room
+    private Room room;
+
+    @Column(name = "room_type", nullable = false)
+    private RoomType roomType;
+
+    @Column(nullable = false)
+    private String location;
+
+    @Column(nullable = false)
+    private String slot;
+
+    @Column(name = "flight_number", nullable = false)
+    private String flightNumber;
+}
@@ -8,7 +8,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import jakarta.persistence.ForeignKey;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.OneToOne;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.UniqueConstraint;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import jakarta.persistence.Column;
@@ -16,14 +17,19 @@ import jakarta.persistence.Column;
 @Data
 @EqualsAndHashCode(callSuper = true) // Ensures BaseEntity fields are included
 @Entity
-@Table(name = "sync_time")
+@Table(name = "sync_time", uniqueConstraints = @UniqueConstraint(name = "uq_sync_time_user_device",
+        columnNames = { "user_id", "device_id" }))
 public class SyncTime extends BaseEntity {
 
-    @OneToOne
+    @ManyToOne
     @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(name = "fk_user_id"), referencedColumnName = "id")
     @OnDelete(action = OnDeleteAction.CASCADE)
     private User user;
 
+    // One checkpoint per device of the user; '' for clients that don't send a device id
+    @Column(name = "device_id", nullable = false)
+    private String deviceId = "";
+
     @Column(nullable = false)
     private Instant syncTime;
 
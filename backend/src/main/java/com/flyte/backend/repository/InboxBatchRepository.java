@@ -0,0 +1,51 @@
+package com.flyte.backend.repository;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Room.RoomMember;
+
+/**
+ * The inbox flush (InboxTracker). Both statements only move values forward,
+ * so a late or repeated batch never undoes a newer one.
+ */
+@Repository
+public class InboxBatchRepository {
+
+    // Every member's entry of the room, through idx_inbox_entries_room
+    private static final String ADVANCE_ROOM_SQL = "UPDATE inbox_entries SET last_seq = ?, last_activity_at = ?, " +
+            "last_message_preview = ?, last_sender_name = ? WHERE room_id = ? AND last_seq < ?";
+
+    // Through the (room_id, user_id) unique constraint
+    private static final String ADVANCE_READ_SQL = "UPDATE dm_participants SET last_read_seq = ? " +
+            "WHERE room_id = ? AND user_id = ? AND last_read_seq < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InboxBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Makes each message the last one of its room, unless the room already has a newer one. */
+    public void advanceRooms(Collection<MessageView> lastMessages) {
+        List<Object[]> args = new ArrayList<>(lastMessages.size());
+        for (MessageView message : lastMessages) {
+            args.add(new Object[] { message.seq(), message.createdAt().atOffset(ZoneOffset.UTC), message.messageText(),
+                    message.senderName(), message.roomId(), message.seq() });
+        }
+        jdbcTemplate.batchUpdate(ADVANCE_ROOM_SQL, args);
+    }
+
+    public void advanceReadCursors(Map<RoomMember, Long> lastReadSeqs) {
+        List<Object[]> args = new ArrayList<>(lastReadSeqs.size());
+        lastReadSeqs.forEach((member, seq) -> args.add(new Object[] { seq, member.roomId(), member.userId(), seq }));
+        jdbcTemplate.batchUpdate(ADVANCE_READ_SQL, args);
+    }
+}
@@ -0,0 +1,59 @@
+package com.flyte.backend.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.flyte.backend.DTO.Room.InboxEntryView;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.model.InboxEntry;
+
+@Repository
+public interface InboxEntryRepository extends JpaRepository<InboxEntry, UUID> {
+
+    String VIEW_SELECT = "SELECT new com.flyte.backend.DTO.Room.InboxEntryView(e.roomId, e.roomType, e.displayName, " +
+            "e.lastMessagePreview, e.lastSenderName, e.lastActivityAt, e.lastSeq, " +
+            "CASE WHEN e.lastSeq > p.lastReadSeq THEN e.lastSeq - p.lastReadSeq ELSE 0 END) " +
+            "FROM InboxEntry e JOIN e.participant p ";
+
+    // Same rooms as RoomParticipantRepository.findActiveRoomsByUserIdAndStatusExcept
+    String VISIBLE = "WHERE e.userId = :userId AND p.status <> :hiddenStatus " +
+            "AND (e.expiryTime IS NULL OR e.expiryTime > :now) ";
+
+    // --- Pages walk idx_inbox_entries_user_activity; the participant is one primary key probe per row ---
+
+    // First page of a user's inbox
+    @Query(VIEW_SELECT + VISIBLE + "ORDER BY e.lastActivityAt DESC, e.roomId DESC")
+    List<InboxEntryView> findInboxPageLatest(@Param("userId") UUID userId,
+            @Param("hiddenStatus") ConnectionStatus hiddenStatus,
+            @Param("now") Instant now,
+            Limit limit);
+
+    // Rooms last active before the (activityAt, roomId) cursor
+    @Query(VIEW_SELECT + VISIBLE + "AND (e.lastActivityAt < :activityAt " +
+            "OR (e.lastActivityAt = :activityAt AND e.roomId < :roomId)) " +
+            "ORDER BY e.lastActivityAt DESC, e.roomId DESC")
+    List<InboxEntryView> findInboxPageBefore(@Param("userId") UUID userId,
+            @Param("hiddenStatus") ConnectionStatus hiddenStatus,
+            @Param("now") Instant now,
+            @Param("activityAt") Instant activityAt,
+            @Param("roomId") UUID roomId,
+            Limit limit);
+
+    // DMs are listed under the other member's name, so a rename reaches their inboxes
+    @Modifying
+    @Query("UPDATE InboxEntry e SET e.displayName = :name " +
+            "WHERE e.roomType = :type AND e.userId <> :userId AND e.roomId IN " +
+            "(SELECT p.room.id FROM RoomParticipant p WHERE p.user.id = :userId)")
+    int renameDmCounterpart(@Param("userId") UUID userId,
+            @Param("name") String name,
+            @Param("type") RoomType type);
+}
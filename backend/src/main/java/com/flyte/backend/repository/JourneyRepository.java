@@ -2,8 +2,12 @@ package com.flyte.backend.repository;
 
 import com.flyte.backend.model.Journey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -43,4 +47,14 @@ public interface JourneyRepository extends JpaRepository<Journey, UUID> {
             String destination, String destinationSlot);
 
     List<Journey> findByUserId(UUID userId);
-}
\ No newline at end of file
+
+    // Journeys hold non-null FKs to their three rooms, so they must go before the rooms. Only journeys whose
+    // three rooms are all past the cutoff are deleted; a room that one of the others still needs fails the
+    // room delete instead of taking the journey with it
+    @Modifying
+    @Query("DELETE FROM Journey j WHERE (j.sourceRoom.id IN :roomIds OR j.destinationRoom.id IN :roomIds " +
+            "OR j.flightRoom.id IN :roomIds) " +
+            "AND NOT EXISTS (SELECT 1 FROM Room r WHERE (r.id = j.sourceRoom.id OR r.id = j.destinationRoom.id " +
+            "OR r.id = j.flightRoom.id) AND (r.expiryTime IS NULL OR r.expiryTime >= :cutoff))")
+    int deleteExpiredByAnyRoomIdIn(@Param("roomIds") List<UUID> roomIds, @Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,67 @@
+package com.flyte.backend.repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.flyte.backend.model.Message;
+
+/**
+ * Plain JDBC writes for the batched chat ingest path and the room activity flush.
+ * JPA would issue one statement per row; these go out as a single JDBC batch.
+ * Column names follow the Hibernate naming strategy used for {@link Message}.
+ */
+@Repository
+public class MessageBatchRepository {
+
+    private static final String INSERT_MESSAGE_SQL = "INSERT INTO messages " +
+            "(id, created_at, updated_at, room_id, seq, user_id, message_text, messagehtml, media_type, media_link) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Only ever moves the timestamp forward, so batches can't undo each other
+    private static final String TOUCH_ROOM_SQL = "UPDATE rooms SET last_message_timestamp = ? " +
+            "WHERE id = ? AND (last_message_timestamp IS NULL OR last_message_timestamp < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MessageBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Messages must already carry their id, seq and timestamps
+    public void insertAll(List<Message> messages) {
+        jdbcTemplate.batchUpdate(INSERT_MESSAGE_SQL, messages, messages.size(), (ps, message) -> {
+            ps.setObject(1, message.getId());
+            ps.setObject(2, toOffsetDateTime(message.getCreatedAt()));
+            ps.setObject(3, toOffsetDateTime(message.getUpdatedAt()));
+            ps.setObject(4, message.getRoom().getId());
+            ps.setLong(5, message.getSeq());
+            ps.setObject(6, message.getUser().getId());
+            ps.setString(7, message.getMessageText());
+            ps.setString(8, message.getMessageHTML());
+            // MediaType is mapped as an ordinal column
+            ps.setShort(9, (short) message.getMediaType().ordinal());
+            ps.setString(10, message.getMediaLink());
+        });
+    }
+
+    public void touchRooms(Map<UUID, Instant> lastMessageByRoom) {
+        List<Object[]> args = new ArrayList<>(lastMessageByRoom.size());
+        lastMessageByRoom.forEach((roomId, timestamp) -> {
+            OffsetDateTime value = toOffsetDateTime(timestamp);
+            args.add(new Object[] { value, roomId, value });
+        });
+        jdbcTemplate.batchUpdate(TOUCH_ROOM_SQL, args);
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,53 @@
+package com.flyte.backend.repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * DDL for the monthly partitions of the messages table (see V3__partition_messages.sql).
+ * Partition names are built by MessagePartitionMaintainer from a fixed pattern,
+ * never from user input.
+ */
+@Repository
+public class MessagePartitionRepository {
+
+    private static final String LIST_PARTITIONS_SQL = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'messages'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MessagePartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class);
+    }
+
+    public void createPartition(String name, Instant from, Instant to) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF messages " +
+                "FOR VALUES FROM ('" + toOffsetDateTime(from) + "') TO ('" + toOffsetDateTime(to) + "')");
+    }
+
+    public boolean hasMessages(String name) {
+        Boolean any = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + name + ")", Boolean.class);
+        return Boolean.TRUE.equals(any);
+    }
+
+    public void detachAndDropPartition(String name) {
+        // Detach first so the parent's lock is held only briefly; the drop then touches the detached table alone
+        jdbcTemplate.execute("ALTER TABLE messages DETACH PARTITION " + name);
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
@@ -1,28 +1,94 @@
 package com.flyte.backend.repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.flyte.backend.DTO.Message.MessageView;
 import com.flyte.backend.model.Message;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, UUID> {
 
-    // Find messages by room ID
-    List<Message> findByRoom_IdOrderByCreatedAtDesc(UUID roomId);
-
-    // Find messages by user ID
-    List<Message> findByUser_IdOrderByCreatedAtDesc(UUID userId);
+    // Shared projection: fills MessageView straight from the row, without loading entities
+    String VIEW_SELECT = "SELECT new com.flyte.backend.DTO.Message.MessageView(" +
+            "m.id, m.room.id, m.seq, u.id, COALESCE(u.nickname, u.name), m.messageText, m.messageHTML, " +
+            "m.mediaType, m.mediaLink, m.createdAt, m.updatedAt) " +
+            "FROM Message m JOIN m.user u ";
 
     // Count total messages in a room
     Long countByRoom_Id(UUID roomId);
 
-    // Groups messages by Room ID, then sorts internally by time
-    List<Message> findByRoom_IdInOrderByCreatedAtDesc(List<UUID> roomIds);
-
     // Find messages in specific rooms created after a certain time
-    List<Message> findByRoom_IdInAndCreatedAtGreaterThanOrderByCreatedAtDesc(List<UUID> roomIds, java.time.Instant since);
-}
\ No newline at end of file
+    @Query(VIEW_SELECT + "WHERE m.room.id IN :roomIds AND m.createdAt > :since ORDER BY m.createdAt DESC")
+    List<MessageView> findViewsByRoomIdsSince(@Param("roomIds") List<UUID> roomIds,
+            @Param("since") Instant since);
+
+    // RoomSequencer's guard: a stored message at or past a freshly allocated seq means room_stats fell behind
+    boolean existsByRoom_IdAndSeqGreaterThanEqual(UUID roomId, Long seq);
+
+    // --- Room pages walk the per-room sequence (ux_messages_room_seq) ---
+    // maxSeq is RoomSequencer.visibleLimit: nothing past a seq whose commit this instance is still handling
+
+    // Latest page of a room
+    @Query(VIEW_SELECT + "WHERE m.room.id = :roomId AND m.seq <= :maxSeq ORDER BY m.seq DESC")
+    List<MessageView> findRoomPageLatest(@Param("roomId") UUID roomId,
+            @Param("maxSeq") long maxSeq,
+            Limit limit);
+
+    // Messages in a room before 'beforeSeq', newest first; old history, so a replica may serve it
+    @Transactional(readOnly = true)
+    @Query(VIEW_SELECT + "WHERE m.room.id = :roomId AND m.seq < :beforeSeq ORDER BY m.seq DESC")
+    List<MessageView> findRoomPageBefore(@Param("roomId") UUID roomId,
+            @Param("beforeSeq") long beforeSeq,
+            Limit limit);
+
+    // Messages in a room after 'afterSeq', oldest first; also fills a gap a client detected
+    @Query(VIEW_SELECT + "WHERE m.room.id = :roomId AND m.seq > :afterSeq AND m.seq <= :maxSeq " +
+            "ORDER BY m.seq ASC")
+    List<MessageView> findRoomPageAfter(@Param("roomId") UUID roomId,
+            @Param("afterSeq") long afterSeq,
+            @Param("maxSeq") long maxSeq,
+            Limit limit);
+
+    // --- Keyset pagination over a user's messages (idx_messages_user_created) ---
+
+    // Latest page of a user's messages
+    @Query(VIEW_SELECT + "WHERE u.id = :userId ORDER BY m.createdAt DESC, m.id DESC")
+    List<MessageView> findUserPageLatest(@Param("userId") UUID userId, Limit limit);
+
+    // Messages by a user strictly older than the cursor, newest first
+    @Query(VIEW_SELECT + "WHERE u.id = :userId " +
+            "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<MessageView> findUserPageBefore(@Param("userId") UUID userId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") UUID id,
+            Limit limit);
+
+    // Messages by a user strictly newer than the cursor, oldest first
+    @Query(VIEW_SELECT + "WHERE u.id = :userId " +
+            "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) " +
+            "ORDER BY m.createdAt ASC, m.id ASC")
+    List<MessageView> findUserPageAfter(@Param("userId") UUID userId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") UUID id,
+            Limit limit);
+
+    // --- ExpiredRoomReaper ---
+
+    // Up to 'limit' messages of the rooms, found through idx_messages_room_created and deleted by primary key,
+    // so one statement never holds more than that many row locks
+    @Modifying
+    @Query(value = "DELETE FROM messages WHERE (id, created_at) IN (SELECT id, created_at FROM messages " +
+            "WHERE room_id IN (:roomIds) LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByRoomIdIn(@Param("roomIds") List<UUID> roomIds, @Param("limit") int limit);
+}
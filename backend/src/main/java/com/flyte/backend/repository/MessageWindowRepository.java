@@ -0,0 +1,111 @@
+package com.flyte.backend.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Message.SeqRange;
+import com.flyte.backend.enums.MediaType;
+
+/**
+ * Multi-room message reads that JPQL can't express: bounded windows per room
+ * through a LATERAL join over ux_messages_room_seq, and a cursor that hands
+ * rows over one at a time. Column names follow the Hibernate naming strategy
+ * used for the Message entity.
+ */
+@Repository
+public class MessageWindowRepository {
+
+    private static final String VIEW_COLUMNS = "m.id, m.room_id, m.seq, u.id AS user_id, " +
+            "COALESCE(u.nickname, u.name) AS sender_name, m.message_text, m.messagehtml, m.media_type, " +
+            "m.media_link, m.created_at, m.updated_at " +
+            "FROM messages m JOIN users u ON u.id = m.user_id ";
+
+    // Newest 'limit' messages of each range, grouped by room, newest first within a room
+    private static final String NEWEST_IN_RANGES_SQL = "SELECT w.* " +
+            "FROM unnest(?::uuid[], ?::bigint[], ?::bigint[]) AS r(room_id, after_seq, max_seq) " +
+            "CROSS JOIN LATERAL (SELECT " + VIEW_COLUMNS +
+            "WHERE m.room_id = r.room_id AND m.seq > r.after_seq AND m.seq <= r.max_seq " +
+            "ORDER BY m.seq DESC LIMIT ?) w " +
+            "ORDER BY w.room_id, w.seq DESC";
+
+    // Grouped by room and in seq order, so a stream can announce each room once
+    private static final String STREAM_SINCE_SQL = "SELECT " + VIEW_COLUMNS +
+            "WHERE m.room_id = ANY (?) AND m.created_at > ? ORDER BY m.room_id, m.seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MessageWindowRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<MessageView> findNewestInRanges(List<SeqRange> ranges, int limit) {
+        if (ranges.isEmpty()) {
+            return List.of();
+        }
+        UUID[] roomIds = new UUID[ranges.size()];
+        Long[] afterSeqs = new Long[ranges.size()];
+        Long[] maxSeqs = new Long[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            roomIds[i] = ranges.get(i).roomId();
+            afterSeqs[i] = ranges.get(i).afterSeq();
+            maxSeqs[i] = ranges.get(i).maxSeq();
+        }
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(NEWEST_IN_RANGES_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", roomIds));
+            ps.setArray(2, con.createArrayOf("bigint", afterSeqs));
+            ps.setArray(3, con.createArrayOf("bigint", maxSeqs));
+            ps.setInt(4, limit);
+            return ps;
+        }, (rs, rowNum) -> toView(rs));
+    }
+
+    /**
+     * Hands every message of the rooms created after 'since' to 'action' as it
+     * is read, fetchSize rows per round trip. Must run inside a transaction:
+     * Postgres only honours the fetch size with autocommit off, and would
+     * otherwise buffer the whole result in the driver.
+     */
+    public void streamSince(List<UUID> roomIds, Instant since, int fetchSize, Consumer<MessageView> action) {
+        if (roomIds.isEmpty()) {
+            return;
+        }
+        RowCallbackHandler handler = rs -> action.accept(toView(rs));
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(STREAM_SINCE_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", roomIds.toArray()));
+            ps.setObject(2, since.atOffset(ZoneOffset.UTC));
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, handler);
+    }
+
+    private static MessageView toView(ResultSet rs) throws SQLException {
+        // MediaType is mapped as an ordinal column
+        MediaType mediaType = MediaType.values()[rs.getShort("media_type")];
+        return new MessageView(
+                rs.getObject("id", UUID.class),
+                rs.getObject("room_id", UUID.class),
+                rs.getLong("seq"),
+                rs.getObject("user_id", UUID.class),
+                rs.getString("sender_name"),
+                rs.getString("message_text"),
+                rs.getString("messagehtml"),
+                mediaType,
+                rs.getString("media_link"),
+                rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+                rs.getObject("updated_at", OffsetDateTime.class).toInstant());
+    }
+}
@@ -1,15 +1,27 @@
 package com.flyte.backend.repository;
 
+import com.flyte.backend.DTO.Room.DmCounterpart;
+import com.flyte.backend.DTO.Room.MemberStatus;
+import com.flyte.backend.DTO.Room.ParticipantView;
+import com.flyte.backend.DTO.Room.RoomHead;
+import com.flyte.backend.DTO.Room.RoomMember;
 import com.flyte.backend.enums.RoomType;
 import com.flyte.backend.model.Room;
 import com.flyte.backend.model.RoomParticipant;
 import com.flyte.backend.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.Optional;
 
@@ -27,8 +39,8 @@ public interface RoomParticipantRepository extends JpaRepository<RoomParticipant
         // 3. Security Check
         boolean existsByRoomIdAndUserId(UUID roomId, UUID userId);
 
-        // 4. Leave Group (Requires Transactional at Service level usually)
-        void deleteByRoomIdAndUserId(UUID roomId, UUID userId);
+        // 4. Leave Group (Requires Transactional at Service level usually); returns the rows removed
+        long deleteByRoomIdAndUserId(UUID roomId, UUID userId);
 
         // Delete all participants by room ID
         void deleteByRoomId(UUID roomId);
@@ -37,10 +49,13 @@ public interface RoomParticipantRepository extends JpaRepository<RoomParticipant
         @Query("SELECT rp.user FROM RoomParticipant rp WHERE rp.room.id = :roomId")
         List<User> findUsersByRoomId(@Param("roomId") UUID roomId);
 
-        // 6. Get actual Room objects for a user
-        @Query("SELECT rp.room FROM RoomParticipant rp WHERE rp.user.id = :userId AND rp.status != :status")
-        List<Room> findRoomsByUserIdAndStatusExcept(@Param("userId") UUID userId,
-                        @Param("status") ConnectionStatus status);
+        // 6. Get actual Room objects for a user, skipping rooms that have expired
+        @Query("SELECT rp.room FROM RoomParticipant rp " +
+                        "WHERE rp.user.id = :userId AND rp.status != :status " +
+                        "AND (rp.room.expiryTime IS NULL OR rp.room.expiryTime > :now)")
+        List<Room> findActiveRoomsByUserIdAndStatusExcept(@Param("userId") UUID userId,
+                        @Param("status") ConnectionStatus status,
+                        @Param("now") Instant now);
 
         // 7. Find everyone else in the room (List version)
         @Query("SELECT rp.user FROM RoomParticipant rp WHERE rp.room.id = :roomId AND rp.user.id != :userId")
@@ -55,16 +70,78 @@ public interface RoomParticipantRepository extends JpaRepository<RoomParticipant
                         @Param("userId") UUID userId,
                         @Param("type") RoomType type);
 
-        @Query("SELECT rp1.room FROM RoomParticipant rp1 " +
-                        "JOIN RoomParticipant rp2 ON rp1.room.id = rp2.room.id " +
-                        "WHERE rp1.user.id = :userId1 " +
-                        "AND rp2.user.id = :userId2 " +
-                        "AND rp1.room.type = :type")
-        List<Room> findRoomForUsers(@Param("userId1") UUID userId1,
-                        @Param("userId2") UUID userId2,
+        // 9. Other participant of many DMs at once, so room lists don't query per DM
+        @Query("SELECT new com.flyte.backend.DTO.Room.DmCounterpart(rp.room.id, u) FROM RoomParticipant rp " +
+                        "JOIN rp.user u " +
+                        "WHERE rp.room.id IN :roomIds " +
+                        "AND u.id != :userId " +
+                        "AND rp.room.type = :type")
+        List<DmCounterpart> findOtherParticipantsInRooms(@Param("roomIds") Collection<UUID> roomIds,
+                        @Param("userId") UUID userId,
                         @Param("type") RoomType type);
 
+        // roomId -> the other user, for whichever of 'roomIds' are DMs
+        default Map<UUID, User> findDmCounterparts(Collection<UUID> roomIds, UUID userId) {
+                if (roomIds.isEmpty()) {
+                        return Map.of();
+                }
+                Map<UUID, User> counterparts = new HashMap<>();
+                for (DmCounterpart counterpart : findOtherParticipantsInRooms(roomIds, userId, RoomType.DM)) {
+                        counterparts.put(counterpart.roomId(), counterpart.user());
+                }
+                return counterparts;
+        }
+
+        // 10. Members of rooms, for bumping their change versions (UserChangeVersions)
+        @Query("SELECT rp.user.id FROM RoomParticipant rp WHERE rp.room.id IN :roomIds")
+        List<UUID> findUserIdsByRoomIdIn(@Param("roomIds") Collection<UUID> roomIds);
+
+        // 11. Members of rooms to push sync deltas to (SyncPushService), one row per room and user
+        @Query("SELECT new com.flyte.backend.DTO.Room.RoomMember(rp.room.id, rp.user.id) FROM RoomParticipant rp " +
+                        "WHERE rp.room.id IN :roomIds AND rp.status <> :excludedStatus")
+        List<RoomMember> findMembersByRoomIdIn(@Param("roomIds") Collection<UUID> roomIds,
+                        @Param("excludedStatus") ConnectionStatus excludedStatus);
+
+        // Both associations are eager; fetching them here avoids a select per row
+        @EntityGraph(attributePaths = { "room", "user" })
         List<RoomParticipant> findByUserIdAndStatus(UUID userId, ConnectionStatus status);
 
         Optional<RoomParticipant> findByRoomIdAndUserId(UUID roomId, UUID userId);
+
+        // 12. Everyone in a room with their status, for RoomMembershipIndex
+        @Query("SELECT new com.flyte.backend.DTO.Room.MemberStatus(rp.user.id, rp.status, r.type, r.expiryTime) " +
+                        "FROM RoomParticipant rp JOIN rp.room r WHERE r.id = :roomId")
+        List<MemberStatus> findMemberStatusesByRoomId(@Param("roomId") UUID roomId);
+
+        // 13. Read cursor for unread counts; never moves back, so out-of-order acks are harmless
+        @Modifying
+        @Query("UPDATE RoomParticipant rp SET rp.lastReadSeq = :seq " +
+                        "WHERE rp.room.id = :roomId AND rp.user.id = :userId AND rp.lastReadSeq < :seq")
+        int advanceLastReadSeq(@Param("roomId") UUID roomId,
+                        @Param("userId") UUID userId,
+                        @Param("seq") long seq);
+
+        // 14. One page of a room's participants, keyset on user id over the (room_id, user_id) unique index
+        @Query("SELECT new com.flyte.backend.DTO.Room.ParticipantView(u.id, u.nickname, u.name, " +
+                        "u.profilePictureUrl, rp.status) FROM RoomParticipant rp JOIN rp.user u " +
+                        "WHERE rp.room.id = :roomId AND rp.user.id > :afterUserId ORDER BY rp.user.id")
+        List<ParticipantView> findParticipantPage(@Param("roomId") UUID roomId,
+                        @Param("afterUserId") UUID afterUserId,
+                        Limit limit);
+
+        long countByRoomId(UUID roomId);
+
+        // 15. Same rooms as #6 with their heads only, so positional sync can skip loading rooms nothing moved in
+        @Query("SELECT new com.flyte.backend.DTO.Room.RoomHead(r.id, COALESCE(s.lastSeq, 0L)) " +
+                        "FROM RoomParticipant rp JOIN rp.room r LEFT JOIN RoomStats s ON s.roomId = r.id " +
+                        "WHERE rp.user.id = :userId AND rp.status != :status " +
+                        "AND (r.expiryTime IS NULL OR r.expiryTime > :now)")
+        List<RoomHead> findActiveRoomHeadsByUserIdAndStatusExcept(@Param("userId") UUID userId,
+                        @Param("status") ConnectionStatus status,
+                        @Param("now") Instant now);
+
+        // 16. One participant's status over the (room_id, user_id) unique index, for write checks
+        @Query("SELECT rp.status FROM RoomParticipant rp WHERE rp.room.id = :roomId AND rp.user.id = :userId")
+        Optional<ConnectionStatus> findStatusByRoomIdAndUserId(@Param("roomId") UUID roomId,
+                        @Param("userId") UUID userId);
 }
\ No newline at end of file
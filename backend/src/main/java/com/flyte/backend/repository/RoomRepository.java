@@ -7,7 +7,11 @@ import java.util.List;
 import java.util.UUID;
 import java.time.Instant;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -19,4 +23,39 @@ public interface RoomRepository extends JpaRepository<Room, UUID> {
     List<Room> findByExpiryTimeGreaterThan(Instant time);
 
     List<Room> findByTypeAndExpiryTimeGreaterThan(RoomType type, Instant time);
+
+    // --- ExpiredRoomReaper ---
+
+    // Oldest expiries first, served by idx_rooms_type_expiry. A room stays while any journey pointing at it
+    // has a room that is not past the cutoff yet; the journey lookups use the V4 indexes
+    @Query("SELECT r.id FROM Room r WHERE r.type IN :types AND r.expiryTime < :cutoff " +
+            "AND NOT EXISTS (SELECT 1 FROM Journey j JOIN j.sourceRoom s JOIN j.destinationRoom d " +
+            "JOIN j.flightRoom f WHERE (s.id = r.id OR d.id = r.id OR f.id = r.id) " +
+            "AND (s.expiryTime IS NULL OR s.expiryTime >= :cutoff OR d.expiryTime IS NULL " +
+            "OR d.expiryTime >= :cutoff OR f.expiryTime IS NULL OR f.expiryTime >= :cutoff)) " +
+            "ORDER BY r.expiryTime")
+    List<UUID> findExpiredRoomIds(@Param("types") List<RoomType> types, @Param("cutoff") Instant cutoff, Limit limit);
+
+    // Participants and room_stats go with the room through ON DELETE CASCADE; so would messages, but the
+    // reaper removes those in chunks first (MessageRepository.deleteChunkByRoomIdIn)
+    @Modifying
+    @Query("DELETE FROM Room r WHERE r.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") List<UUID> ids);
+
+    // --- DM rooms, served by ux_rooms_dm_key ---
+
+    Optional<Room> findByDmKey(String dmKey);
+
+    // Creates the DM room unless the pair already has one. A concurrent insert of the same key
+    // blocks here until the other transaction ends, then inserts nothing; returns the rows inserted.
+    @Modifying
+    @Query(value = "INSERT INTO rooms (id, created_at, updated_at, name, type, dm_key) "
+            + "VALUES (:id, now(), now(), :name, :type, :dmKey) ON CONFLICT (dm_key) DO NOTHING",
+            nativeQuery = true)
+    int insertDmRoomIfAbsent(@Param("id") UUID id, @Param("name") String name, @Param("type") int type,
+            @Param("dmKey") String dmKey);
+
+    // Transaction-scoped, so it is released on commit or rollback
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("key") long key);
 }
\ No newline at end of file
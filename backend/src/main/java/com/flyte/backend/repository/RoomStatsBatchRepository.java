@@ -0,0 +1,91 @@
+package com.flyte.backend.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Upserts into room_stats. Deltas are added to the stored counters, so
+ * concurrent writers never overwrite each other.
+ */
+@Repository
+public class RoomStatsBatchRepository {
+
+    // Takes the room's stats row lock until the inserting transaction ends: seqs are handed out and
+    // committed in order, and a rollback undoes the increment. A missing row means the room has no messages yet
+    private static final String ALLOCATE_SEQS_SQL = "INSERT INTO room_stats (room_id, message_count, last_seq) " +
+            "VALUES (?, ?, ?) ON CONFLICT (room_id) DO UPDATE SET " +
+            "message_count = room_stats.message_count + EXCLUDED.message_count, " +
+            "last_seq = room_stats.last_seq + EXCLUDED.last_seq RETURNING last_seq";
+
+    private static final String ADD_PARTICIPANT_COUNT_SQL = "INSERT INTO room_stats (room_id, message_count, " +
+            "participant_count) SELECT id, 0, ? FROM rooms WHERE id = ? " +
+            "ON CONFLICT (room_id) DO UPDATE " +
+            "SET participant_count = room_stats.participant_count + EXCLUDED.participant_count";
+
+    private static final String ROOM_IDS_AFTER_SQL = "SELECT id FROM rooms WHERE id > ? ORDER BY id LIMIT ?";
+
+    // Holds back senders to the chunk's rooms while it is recounted, so no allocation commits in between
+    private static final String LOCK_STATS_SQL = "SELECT room_id FROM room_stats WHERE room_id = ANY (?) " +
+            "ORDER BY room_id FOR UPDATE";
+
+    // Recounts a chunk of rooms from the messages and participants tables; only rows that drifted are written.
+    // last_seq is never lowered: clients may already hold positions up to it
+    private static final String RECONCILE_MESSAGE_COUNTS_SQL = "INSERT INTO room_stats " +
+            "(room_id, message_count, last_seq, participant_count) " +
+            "SELECT r.id, (SELECT COUNT(*) FROM messages m WHERE m.room_id = r.id), " +
+            "(SELECT COALESCE(MAX(m.seq), 0) FROM messages m WHERE m.room_id = r.id), " +
+            "(SELECT COUNT(*) FROM dm_participants p WHERE p.room_id = r.id) FROM rooms r WHERE r.id = ANY (?) " +
+            "ON CONFLICT (room_id) DO UPDATE SET message_count = EXCLUDED.message_count, " +
+            "last_seq = GREATEST(room_stats.last_seq, EXCLUDED.last_seq), " +
+            "participant_count = EXCLUDED.participant_count " +
+            "WHERE room_stats.message_count <> EXCLUDED.message_count OR room_stats.last_seq < EXCLUDED.last_seq " +
+            "OR room_stats.participant_count <> EXCLUDED.participant_count";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RoomStatsBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Counts 'count' new messages in the room and reserves their seqs, which
+     * end at the returned value. Must run inside the inserting transaction.
+     */
+    public long allocateSeqs(UUID roomId, int count) {
+        return jdbcTemplate.queryForObject(ALLOCATE_SEQS_SQL, Long.class, roomId, count, count);
+    }
+
+    public void addParticipantCounts(Map<UUID, Long> deltaByRoom) {
+        List<Object[]> args = new ArrayList<>(deltaByRoom.size());
+        deltaByRoom.forEach((roomId, delta) -> args.add(new Object[] { delta, roomId }));
+        jdbcTemplate.batchUpdate(ADD_PARTICIPANT_COUNT_SQL, args);
+    }
+
+    public List<UUID> findRoomIdsAfter(UUID afterId, int limit) {
+        return jdbcTemplate.queryForList(ROOM_IDS_AFTER_SQL, UUID.class, afterId, limit);
+    }
+
+    /** @return how many rooms had a wrong (or missing) counter */
+    @Transactional
+    public int reconcileMessageCounts(List<UUID> roomIds) {
+        jdbcTemplate.query(con -> withRoomIds(con, LOCK_STATS_SQL, roomIds), rs -> {
+            // Only the row locks matter
+        });
+        return jdbcTemplate.update(con -> withRoomIds(con, RECONCILE_MESSAGE_COUNTS_SQL, roomIds));
+    }
+
+    private static PreparedStatement withRoomIds(Connection con, String sql, List<UUID> roomIds) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql);
+        ps.setArray(1, con.createArrayOf("uuid", roomIds.toArray()));
+        return ps;
+    }
+}
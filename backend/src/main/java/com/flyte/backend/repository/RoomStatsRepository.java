@@ -0,0 +1,23 @@
+package com.flyte.backend.repository;
+
+import com.flyte.backend.model.RoomStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RoomStatsRepository extends JpaRepository<RoomStats, UUID> {
+
+    @Query("SELECT s.messageCount FROM RoomStats s WHERE s.roomId = :roomId")
+    Optional<Long> findMessageCountByRoomId(@Param("roomId") UUID roomId);
+
+    @Query("SELECT s.lastSeq FROM RoomStats s WHERE s.roomId = :roomId")
+    Optional<Long> findLastSeqByRoomId(@Param("roomId") UUID roomId);
+
+    @Query("SELECT s.participantCount FROM RoomStats s WHERE s.roomId = :roomId")
+    Optional<Long> findParticipantCountByRoomId(@Param("roomId") UUID roomId);
+}
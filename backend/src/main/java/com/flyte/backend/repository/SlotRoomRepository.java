@@ -0,0 +1,46 @@
+package com.flyte.backend.repository;
+
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.model.SlotRoom;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SlotRoomRepository extends JpaRepository<SlotRoom, UUID> {
+
+    // Served by uq_slot_rooms_key
+    @Query("SELECT s.room FROM SlotRoom s WHERE s.roomType = :roomType AND s.location = :location " +
+            "AND s.slot = :slot AND s.flightNumber = :flightNumber")
+    Optional<Room> findRoom(@Param("roomType") RoomType roomType,
+            @Param("location") String location,
+            @Param("slot") String slot,
+            @Param("flightNumber") String flightNumber);
+
+    // Claims the key and creates its room in one statement, or does nothing when the key is taken.
+    // A concurrent claim of the same key blocks here until the other transaction ends; returns the rooms inserted.
+    // The foreign key is checked at the end of the statement, after both rows exist
+    @Modifying
+    @Query(value = "WITH claimed AS (" +
+            "INSERT INTO slot_rooms (room_id, room_type, location, slot, flight_number) " +
+            "VALUES (:roomId, :roomType, :location, :slot, :flightNumber) " +
+            "ON CONFLICT (room_type, location, slot, flight_number) DO NOTHING RETURNING room_id) " +
+            "INSERT INTO rooms (id, created_at, updated_at, name, description, type, expiry_time) " +
+            "SELECT room_id, now(), now(), :name, :description, :roomType, :expiryTime FROM claimed",
+            nativeQuery = true)
+    int insertRoomIfAbsent(@Param("roomId") UUID roomId,
+            @Param("roomType") int roomType,
+            @Param("location") String location,
+            @Param("slot") String slot,
+            @Param("flightNumber") String flightNumber,
+            @Param("name") String name,
+            @Param("description") String description,
+            @Param("expiryTime") Instant expiryTime);
+}
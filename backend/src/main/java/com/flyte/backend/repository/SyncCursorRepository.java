@@ -0,0 +1,58 @@
+package com.flyte.backend.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Acknowledged sync positions (sync_cursors, see V6__sync_cursors.sql): the
+ * last seq per room a user's device has confirmed receiving (V7 keys them by
+ * device). Plain SQL, since rows are only ever read as a whole map or
+ * advanced with an upsert.
+ */
+@Repository
+public class SyncCursorRepository {
+
+    private static final String FIND_BY_DEVICE_SQL = "SELECT room_id, last_seq FROM sync_cursors " +
+            "WHERE user_id = ? AND device_id = ?";
+
+    // Only moves forward, so a late or repeated ack can't rewind a newer one.
+    // Selecting from rooms skips rooms deleted since the client saw them instead of failing the FK
+    private static final String ADVANCE_SQL =
+            "INSERT INTO sync_cursors (user_id, device_id, room_id, last_seq, updated_at) " +
+            "SELECT ?, ?, id, ?, now() FROM rooms WHERE id = ? " +
+            "ON CONFLICT (user_id, device_id, room_id) DO UPDATE " +
+            "SET last_seq = EXCLUDED.last_seq, updated_at = EXCLUDED.updated_at " +
+            "WHERE sync_cursors.last_seq < EXCLUDED.last_seq";
+
+    private static final String DELETE_BY_DEVICE_SQL = "DELETE FROM sync_cursors WHERE user_id = ? AND device_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SyncCursorRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Map<UUID, Long> findByUserIdAndDeviceId(UUID userId, String deviceId) {
+        Map<UUID, Long> positions = new HashMap<>();
+        RowCallbackHandler collect = rs -> positions.put(rs.getObject("room_id", UUID.class), rs.getLong("last_seq"));
+        jdbcTemplate.query(FIND_BY_DEVICE_SQL, collect, userId, deviceId);
+        return positions;
+    }
+
+    public void advance(UUID userId, String deviceId, Map<UUID, Long> lastSeqByRoom) {
+        List<Object[]> args = new ArrayList<>(lastSeqByRoom.size());
+        lastSeqByRoom.forEach((roomId, seq) -> args.add(new Object[] { userId, deviceId, seq, roomId }));
+        jdbcTemplate.batchUpdate(ADVANCE_SQL, args);
+    }
+
+    public void deleteByUserIdAndDeviceId(UUID userId, String deviceId) {
+        jdbcTemplate.update(DELETE_BY_DEVICE_SQL, userId, deviceId);
+    }
+}
@@ -9,5 +9,5 @@ import java.util.UUID;
 
 @Repository
 public interface SyncTimeRepository extends JpaRepository<SyncTime, UUID> {
-    Optional<SyncTime> findByUserId(UUID userId);
+    Optional<SyncTime> findByUserIdAndDeviceId(UUID userId, String deviceId);
 }
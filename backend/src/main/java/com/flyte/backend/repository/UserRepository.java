@@ -1,11 +1,18 @@
 package com.flyte.backend.repository;
 
 import com.flyte.backend.model.User;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
@@ -16,4 +23,23 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByPhoneNumber(String phoneNumber);
 
     boolean existsByNickname(String nickname);
+
+    // change_version isn't mapped on User, so saving a stale entity can never move it back.
+    // Joins the caller's transaction, so the new version commits with the change it stands for
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET change_version = change_version + 1 WHERE id IN (:userIds)", nativeQuery = true)
+    int incrementChangeVersions(@Param("userIds") Collection<UUID> userIds);
+
+    // The ETag of the user's rooms (UserChangeVersions): the stored version, how many rooms the user is active
+    // in and the sum of their heads. Messages and expiries move the last two without writing to users
+    @Query(value = "SELECT u.change_version || '-' || COUNT(r.id) || '-' || COALESCE(SUM(s.last_seq), 0) " +
+            "FROM users u " +
+            "LEFT JOIN dm_participants p ON p.user_id = u.id AND p.status <> :excludedStatus " +
+            "LEFT JOIN rooms r ON r.id = p.room_id AND (r.expiry_time IS NULL OR r.expiry_time > :now) " +
+            "LEFT JOIN room_stats s ON s.room_id = r.id " +
+            "WHERE u.id = :userId GROUP BY u.change_version", nativeQuery = true)
+    Optional<String> findChangeTag(@Param("userId") UUID userId,
+            @Param("excludedStatus") String excludedStatus,
+            @Param("now") Instant now);
 }
\ No newline at end of file
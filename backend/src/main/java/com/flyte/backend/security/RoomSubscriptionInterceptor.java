@@ -0,0 +1,80 @@
+package com.flyte.backend.security;
+
+import com.flyte.backend.cache.RoomMembershipIndex;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * Lets only a room's participants SUBSCRIBE to '/topic/room/{id}' and
+ * everything under it (presence included). Runs after AuthChannelInterceptor,
+ * which sets the session's user on CONNECT. A refused frame is answered with
+ * a STOMP ERROR and never reaches the broker.
+ */
+@Component
+public class RoomSubscriptionInterceptor implements ChannelInterceptor {
+
+    private static final String ROOM_TOPIC_PREFIX = "/topic/room/";
+
+    private final RoomMembershipIndex roomMembershipIndex;
+
+    public RoomSubscriptionInterceptor(RoomMembershipIndex roomMembershipIndex) {
+        this.roomMembershipIndex = roomMembershipIndex;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            return message;
+        }
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(ROOM_TOPIC_PREFIX)) {
+            return message;
+        }
+
+        UUID roomId = roomIdOf(destination);
+        UUID userId = userIdOf(accessor.getUser());
+        if (roomId == null || userId == null || !isMember(roomId, userId)) {
+            throw new AccessDeniedException("Not a participant of the room of " + destination);
+        }
+        return message;
+    }
+
+    // The index may not list a user who just joined through another instance; only a refusal reads the row
+    private boolean isMember(UUID roomId, UUID userId) {
+        return roomMembershipIndex.isMember(roomId, userId)
+                || roomMembershipIndex.currentStatusOf(roomId, userId) != null;
+    }
+
+    // '/topic/room/{id}' or '/topic/room/{id}/...'
+    static UUID roomIdOf(String destination) {
+        String rest = destination.substring(ROOM_TOPIC_PREFIX.length());
+        int slash = rest.indexOf('/');
+        try {
+            return UUID.fromString(slash < 0 ? rest : rest.substring(0, slash));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // AuthChannelInterceptor authenticates with the user id as the principal name
+    private static UUID userIdOf(Principal user) {
+        if (user == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(user.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -2,12 +2,13 @@ package com.flyte.backend.service;
 
 import com.flyte.backend.DTO.Chat.ClientMessage;
 import com.flyte.backend.DTO.Message.CreateMessageRequest;
-import com.flyte.backend.model.Message;
-import com.flyte.backend.repository.RoomParticipantRepository;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.DTO.Message.MessageView;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.UUID;
 
@@ -16,28 +17,43 @@ public class ChatService {
 
     private final MessageService messageService;
     private final SimpMessageSendingOperations messagingTemplate;
-    private final RoomParticipantRepository roomParticipantRepository;
+    private final RoomMembershipIndex roomMembershipIndex;
     private final NotificationService notificationService; // Inject the new service
+    private final MessageIngestPipeline ingestPipeline;
 
     public ChatService(MessageService messageService,
             SimpMessageSendingOperations messagingTemplate,
-            RoomParticipantRepository roomParticipantRepository,
-            NotificationService notificationService) {
+            RoomMembershipIndex roomMembershipIndex,
+            NotificationService notificationService,
+            MessageIngestPipeline ingestPipeline) {
         this.messageService = messageService;
         this.messagingTemplate = messagingTemplate;
-        this.roomParticipantRepository = roomParticipantRepository;
+        this.roomMembershipIndex = roomMembershipIndex;
         this.notificationService = notificationService;
+        this.ingestPipeline = ingestPipeline;
     }
 
-    @Transactional
+    // Not @Transactional: createMessage commits on its own, so the room's seq lock (RoomSequencer) is released
+    // before the broadcast and the push fan-out below, instead of each sender waiting out the previous one's
     public void processAndBroadcastMessage(ClientMessage request, String roomId) {
         UUID roomUuid = UUID.fromString(roomId);
 
-        // 1. SECURITY: Check if user is actually in the room
-        if (!roomParticipantRepository.existsByRoomIdAndUserId(roomUuid, request.getUserId())) {
+        // 1. SECURITY: Check if user is actually in the room. Once: group rooms answer from memory,
+        // DMs read the participant row, and createMessage reuses the answer
+        ConnectionStatus status = roomMembershipIndex.senderStatusOf(roomUuid, request.getUserId());
+        if (status == null) {
             throw new AccessDeniedException("User is not a participant of this room");
         }
 
+        if (ingestPipeline.isEnabled()) {
+            // Batched mode: validate here, persist + broadcast happen after the batch commits
+            if (roomMembershipIndex.roomType(roomUuid) == RoomType.DM && status != ConnectionStatus.CONNECTED) {
+                throw new IllegalStateException("You can only send messages when connected.");
+            }
+            ingestPipeline.submit(roomUuid, request);
+            return;
+        }
+
         // 2. Save Message
         CreateMessageRequest messageReq = new CreateMessageRequest();
         messageReq.setUserId(request.getUserId());
@@ -47,9 +63,9 @@ public class ChatService {
         messageReq.setMediaType(request.getMediaType());
         messageReq.setMediaLink(request.getMediaLink());
 
-        Message savedMessage = messageService.createMessage(messageReq);
+        MessageView savedMessage = messageService.createMessage(messageReq, status);
 
-        // 3. REAL-TIME: Broadcast to the open chat window (Fast)
+        // 3. REAL-TIME: Broadcast to the open chat window (Fast); the message is committed by now
         messagingTemplate.convertAndSend("/topic/room/" + roomId, savedMessage);
 
         // 4. NOTIFICATION: Send background alerts (Async via separate service)
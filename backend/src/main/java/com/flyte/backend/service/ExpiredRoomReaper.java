@@ -0,0 +1,168 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.cache.RoomCacheEvictor;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.repository.JourneyRepository;
+import com.flyte.backend.repository.MessageRepository;
+import com.flyte.backend.repository.RoomRepository;
+import com.flyte.backend.util.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Deletes expired journey rooms (SOURCE, DESTINATION, FLIGHT) together with
+ * their journeys, participants and messages. DMs never expire and are left alone.
+ *
+ * A journey points at three rooms that expire at different times, so a room
+ * is only picked once every room of every journey pointing at it is past the
+ * grace period; the journey then goes with it. Until then the room is kept,
+ * along with the journey the traveller may still be on.
+ *
+ * Work is done in small batches with a pause in between. A batch first
+ * deletes its rooms' messages message-chunk-size rows per transaction, then
+ * the journeys and rooms in one more, so no transaction holds many row locks
+ * or cascades into a room's whole history. Every transaction first takes a
+ * transaction-scoped advisory lock; when another instance holds it, this run
+ * stops and leaves the work to that instance. Once the rooms are gone, every
+ * per-room cache is cleared through RoomCacheEvictor.
+ */
+@Service
+public class ExpiredRoomReaper {
+
+    // Arbitrary, but must be the same on every instance
+    static final long ADVISORY_LOCK_KEY = 0x466c7974_65526561L;
+
+    private static final List<RoomType> REAPED_TYPES = List.of(RoomType.SOURCE, RoomType.DESTINATION, RoomType.FLIGHT);
+
+    private final RoomRepository roomRepository;
+    private final JourneyRepository journeyRepository;
+    private final MessageRepository messageRepository;
+    private final RoomCacheEvictor roomCacheEvictor;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int messageChunkSize;
+    private final int maxBatchesPerRun;
+    private final long pauseMs;
+    private final Duration grace;
+
+    private final Counter roomsDeleted;
+    private final Counter journeysDeleted;
+    private final Counter messagesDeleted;
+    private final Counter lockContended;
+    private final Timer batchTimer;
+
+    public ExpiredRoomReaper(RoomRepository roomRepository,
+            JourneyRepository journeyRepository,
+            MessageRepository messageRepository,
+            RoomCacheEvictor roomCacheEvictor,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.rooms.reaper.batch-size:50}") int batchSize,
+            @Value("${app.rooms.reaper.message-chunk-size:5000}") int messageChunkSize,
+            @Value("${app.rooms.reaper.max-batches-per-run:20}") int maxBatchesPerRun,
+            @Value("${app.rooms.reaper.pause-ms:200}") long pauseMs,
+            @Value("${app.rooms.reaper.grace-minutes:60}") long graceMinutes) {
+        this.roomRepository = roomRepository;
+        this.journeyRepository = journeyRepository;
+        this.messageRepository = messageRepository;
+        this.roomCacheEvictor = roomCacheEvictor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.messageChunkSize = messageChunkSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pauseMs = pauseMs;
+        this.grace = Duration.ofMinutes(graceMinutes);
+
+        this.roomsDeleted = Counter.builder("flyte.reaper.rooms_deleted").register(meterRegistry);
+        this.journeysDeleted = Counter.builder("flyte.reaper.journeys_deleted").register(meterRegistry);
+        this.messagesDeleted = Counter.builder("flyte.reaper.messages_deleted").register(meterRegistry);
+        this.lockContended = Counter.builder("flyte.reaper.lock_contended")
+                .description("Batches skipped because another instance was reaping").register(meterRegistry);
+        this.batchTimer = Timer.builder("flyte.reaper.batch").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.rooms.reaper.initial-delay-ms:120000}",
+            fixedDelayString = "${app.rooms.reaper.interval-ms:300000}")
+    public void reap() {
+        int total = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int deleted = batchTimer.record(this::reapBatch);
+                if (deleted < 0) {
+                    break;
+                }
+                total += deleted;
+                if (deleted < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Expired room reaper stopped: " + e.getMessage());
+        }
+        if (total > 0) {
+            System.out.println("Expired room reaper deleted " + total + " rooms");
+        }
+    }
+
+    /** @return rooms deleted, or -1 when another instance holds the lock */
+    int reapBatch() {
+        // The grace period keeps late readers and in-flight messages from racing the delete
+        Instant cutoff = Instant.now().minus(grace);
+        List<UUID> roomIds = underLock(() -> roomRepository.findExpiredRoomIds(REAPED_TYPES, cutoff,
+                Limit.of(batchSize)));
+        if (roomIds == null) {
+            return -1;
+        }
+        if (roomIds.isEmpty()) {
+            return 0;
+        }
+
+        Integer messages;
+        do {
+            messages = underLock(() -> messageRepository.deleteChunkByRoomIdIn(roomIds, messageChunkSize));
+            if (messages == null) {
+                return -1;
+            }
+            messagesDeleted.increment(messages);
+        } while (messages == messageChunkSize);
+
+        Integer deleted = underLock(() -> {
+            int journeys = journeyRepository.deleteExpiredByAnyRoomIdIn(roomIds, cutoff);
+            int rooms = roomRepository.deleteAllByIdIn(roomIds);
+            AfterCommit.run(() -> {
+                roomsDeleted.increment(rooms);
+                journeysDeleted.increment(journeys);
+                roomCacheEvictor.roomsDeleted(roomIds);
+            });
+            return rooms;
+        });
+        return deleted == null ? -1 : deleted;
+    }
+
+    // Runs 'work' in its own transaction under the advisory lock; null when another instance holds it
+    private <T> T underLock(Supplier<T> work) {
+        return transactionTemplate.execute(status -> {
+            if (!roomRepository.tryAdvisoryXactLock(ADVISORY_LOCK_KEY)) {
+                lockContended.increment();
+                return null;
+            }
+            return work.get();
+        });
+    }
+}
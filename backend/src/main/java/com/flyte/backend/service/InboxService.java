@@ -0,0 +1,145 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Room.InboxEntryView;
+import com.flyte.backend.DTO.Room.InboxPage;
+import com.flyte.backend.cache.PrimaryPins;
+import com.flyte.backend.cache.RoomActivityTracker;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.model.InboxEntry;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.model.RoomParticipant;
+import com.flyte.backend.repository.InboxEntryRepository;
+import com.flyte.backend.repository.RoomParticipantRepository;
+import com.flyte.backend.util.MessageCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The paginated room list (inbox_entries). Unlike
+ * RoomService.getRoomsAndMessagesByUserId it never reads messages: a page is
+ * one range scan of the user's entries, whatever the rooms' history.
+ */
+@Service
+public class InboxService {
+
+    private final InboxEntryRepository inboxEntryRepository;
+    private final RoomParticipantRepository roomParticipantRepository;
+    private final MessageService messageService;
+    private final RoomActivityTracker roomActivityTracker;
+    private final PrimaryPins primaryPins;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public InboxService(InboxEntryRepository inboxEntryRepository,
+            RoomParticipantRepository roomParticipantRepository,
+            MessageService messageService,
+            RoomActivityTracker roomActivityTracker,
+            PrimaryPins primaryPins,
+            @Value("${app.inbox.page-size:30}") int defaultPageSize,
+            @Value("${app.inbox.max-page-size:100}") int maxPageSize) {
+        this.inboxEntryRepository = inboxEntryRepository;
+        this.roomParticipantRepository = roomParticipantRepository;
+        this.messageService = messageService;
+        this.roomActivityTracker = roomActivityTracker;
+        this.primaryPins = primaryPins;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Creates the inbox row of a participant. Call right after saving the
+     * participant, before anything flushes it: the read cursor is set here
+     * and only written with the insert. The room starts out read up to its
+     * current head, so joining a busy room does not show its history as unread.
+     */
+    public void addEntry(RoomParticipant participant, String displayName) {
+        Room room = participant.getRoom();
+        long head = messageService.getHeadSeqs(List.of(room.getId())).get(room.getId());
+        participant.setLastReadSeq(head);
+
+        InboxEntry entry = new InboxEntry();
+        entry.setParticipant(participant);
+        entry.setUserId(participant.getUser().getId());
+        entry.setRoomId(room.getId());
+        entry.setRoomType(room.getType());
+        entry.setDisplayName(displayName);
+        entry.setLastSeq(head);
+        entry.setExpiryTime(room.getExpiryTime());
+        Instant lastActivity = roomActivityTracker.lastMessageTimestamp(room);
+        entry.setLastActivityAt(lastActivity != null ? lastActivity
+                : room.getCreatedAt() != null ? room.getCreatedAt() : Instant.now());
+        if (head > 0) {
+            List<MessageView> latest = messageService.getLatestMessagesByRoomIds(List.of(room.getId()), 1)
+                    .getOrDefault(room.getId(), List.of());
+            if (!latest.isEmpty()) {
+                entry.setLastMessagePreview(latest.get(0).messageText());
+                entry.setLastSenderName(latest.get(0).senderName());
+            }
+        }
+        inboxEntryRepository.save(entry);
+    }
+
+    /**
+     * One page of the user's rooms, most recently active first. Rooms the user
+     * rejected and expired rooms are left out, as in the full room list.
+     */
+    @Transactional(readOnly = true)
+    public InboxPage getInbox(UUID userId, String before, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        // One extra row tells whether another page exists
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        Instant now = Instant.now();
+
+        List<InboxEntryView> entries;
+        if (before == null) {
+            entries = inboxEntryRepository.findInboxPageLatest(userId, ConnectionStatus.NOT_CONNECTED, now, fetchLimit);
+        } else {
+            // Same (timestamp, id) keyset as message history, over (lastActivityAt, roomId)
+            MessageCursor cursor = MessageCursor.decode(before);
+            entries = inboxEntryRepository.findInboxPageBefore(userId, ConnectionStatus.NOT_CONNECTED, now,
+                    cursor.getCreatedAt(), cursor.getId(), fetchLimit);
+        }
+
+        if (entries.size() <= pageSize) {
+            return new InboxPage(entries, null);
+        }
+        List<InboxEntryView> page = entries.subList(0, pageSize);
+        InboxEntryView last = page.get(pageSize - 1);
+        return new InboxPage(page, new MessageCursor(last.lastActivityAt(), last.roomId()).encode());
+    }
+
+    /**
+     * Moves the user's read cursor in the room up to 'seq', capped at the
+     * room's head. Lower values than the stored one are ignored.
+     */
+    @Transactional
+    public void markRead(UUID userId, UUID roomId, long seq) {
+        if (seq < 0) {
+            throw new IllegalArgumentException("seq must not be negative");
+        }
+        long head = messageService.getHeadSeqs(List.of(roomId)).get(roomId);
+        int updated = roomParticipantRepository.advanceLastReadSeq(roomId, userId, Math.min(seq, head));
+        if (updated == 0 && !roomParticipantRepository.existsByRoomIdAndUserId(roomId, userId)) {
+            throw new IllegalArgumentException("User is not a participant of this room");
+        }
+        // The next inbox read must see the new cursor, not a replica that lags behind it
+        primaryPins.pin(userId);
+    }
+
+    private int resolvePageSize(Integer requested) {
+        if (requested == null) {
+            return defaultPageSize;
+        }
+        if (requested <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(requested, maxPageSize);
+    }
+}
@@ -10,15 +10,19 @@ import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.stereotype.Service;
 
 import com.flyte.backend.DTO.Journey.CreateJourneyRequest;
-import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.DTO.Room.RoomResponse;
+import com.flyte.backend.DTO.Room.SlotKey;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import com.flyte.backend.cache.RoomStatsTracker;
+import com.flyte.backend.cache.UserChangeVersions;
 import com.flyte.backend.model.Journey;
 import com.flyte.backend.model.Room;
 import com.flyte.backend.model.RoomParticipant;
 import com.flyte.backend.model.User;
 import com.flyte.backend.repository.JourneyRepository;
 import com.flyte.backend.repository.RoomParticipantRepository;
-import com.flyte.backend.repository.RoomRepository;
 import com.flyte.backend.repository.UserRepository;
+import com.flyte.backend.util.AfterCommit;
 import com.flyte.backend.util.SlotGenerator;
 import jakarta.transaction.Transactional;
 
@@ -27,21 +31,36 @@ public class JourneyService {
 
         private final JourneyRepository journeyRepository;
         private final UserRepository userRepository;
-        private final RoomRepository roomRepository;
+        private final SlotRoomService slotRoomService;
         private final RoomParticipantRepository roomParticipantRepository;
+        private final UserChangeVersions userChangeVersions;
+        private final SyncPushService syncPushService;
+        private final InboxService inboxService;
+        private final RoomMembershipIndex roomMembershipIndex;
+        private final RoomStatsTracker roomStatsTracker;
         private final int totalSlots;
 
         private static final long EXPIRY_BUFFER_SECONDS = 24 * 60 * 60; // 24 Hours
 
         public JourneyService(JourneyRepository journeyRepository,
                         UserRepository userRepository,
-                        RoomRepository roomRepository,
+                        SlotRoomService slotRoomService,
                         RoomParticipantRepository roomParticipantRepository,
+                        UserChangeVersions userChangeVersions,
+                        SyncPushService syncPushService,
+                        InboxService inboxService,
+                        RoomMembershipIndex roomMembershipIndex,
+                        RoomStatsTracker roomStatsTracker,
                         @Value("${app.num_slots}") int totalSlots) {
                 this.journeyRepository = journeyRepository;
                 this.userRepository = userRepository;
-                this.roomRepository = roomRepository;
+                this.slotRoomService = slotRoomService;
                 this.roomParticipantRepository = roomParticipantRepository;
+                this.userChangeVersions = userChangeVersions;
+                this.syncPushService = syncPushService;
+                this.inboxService = inboxService;
+                this.roomMembershipIndex = roomMembershipIndex;
+                this.roomStatsTracker = roomStatsTracker;
                 this.totalSlots = totalSlots;
         }
 
@@ -83,6 +102,7 @@ public class JourneyService {
                 addUserToRoom(user, savedJourney.getFlightRoom());
                 addUserToRoom(user, savedJourney.getSourceRoom());
                 addUserToRoom(user, savedJourney.getDestinationRoom());
+                userChangeVersions.bump(user.getId());
 
                 return savedJourney;
         }
@@ -108,83 +128,59 @@ public class JourneyService {
                         participant.setRoom(room);
                         participant.setUser(user);
                         roomParticipantRepository.save(participant);
+                        inboxService.addEntry(participant, room.getName());
+                        RoomResponse response = new RoomResponse(room);
+                        AfterCommit.run(() -> {
+                                roomMembershipIndex.invalidate(room.getId());
+                                roomStatsTracker.addParticipants(room.getId(), 1);
+                                syncPushService.roomAdded(user.getId(), response, participant.getStatus());
+                        });
                 }
         }
 
         private void assignFlightRoom(Journey journey, CreateJourneyRequest request, SlotGenerator sourceSlot,
                         SlotGenerator destSlot) {
                 // Flight rooms ARE specific to the flight number.
-                Journey existing = journeyRepository
-                                .findByFlightNumberAndSourceAndSourceSlotAndDestinationAndDestinationSlot(
-                                                request.getFlightNumber(), request.getSource(),
-                                                sourceSlot.getSlotString(), request.getDestination(),
-                                                destSlot.getSlotString())
-                                .stream().findFirst().orElse(null);
-
-                if (existing != null) {
-                        journey.setFlightRoom(existing.getFlightRoom());
-                } else {
-                        String roomName = request.getSource() + "-" + request.getDestination() + "-"
-                                        + request.getFlightNumber();
-                        String description = String.format("Flight %s from %s to %s.",
-                                        request.getFlightNumber(), request.getSource(), request.getDestination());
-
-                        Room newRoom = createRoom(roomName, RoomType.FLIGHT, description, destSlot);
-                        journey.setFlightRoom(newRoom);
-                }
+                SlotKey key = SlotKey.flight(request.getFlightNumber(), request.getSource(),
+                                sourceSlot.getSlotString(), request.getDestination(), destSlot.getSlotString());
+                String roomName = request.getSource() + "-" + request.getDestination() + "-"
+                                + request.getFlightNumber();
+                String description = String.format("Flight %s from %s to %s.",
+                                request.getFlightNumber(), request.getSource(), request.getDestination());
+
+                journey.setFlightRoom(findOrCreateRoom(key, roomName, description, destSlot));
         }
 
         private void assignSourceRoom(Journey journey, CreateJourneyRequest request, SlotGenerator sourceSlot,
                         SlotGenerator destSlot) {
-                // FIX: Look for any journey in this Source + Slot
-                Journey existing = journeyRepository
-                                .findBySourceAndSourceSlot(request.getSource(), sourceSlot.getSlotString())
-                                .stream().findFirst().orElse(null);
-
-                if (existing != null) {
-                        journey.setSourceRoom(existing.getSourceRoom());
-                } else {
-                        // FIX: Name is now GENERIC (Location + Slot), not Flight specific.
-                        String roomName = "Lounge-" + request.getSource() + "-" + sourceSlot.getReadableSlotString();
-                        String description = String.format("Travelers departing from %s during slot %s.",
-                                        request.getSource(), sourceSlot.getReadableSlotString());
-
-                        Room newRoom = createRoom(roomName, RoomType.SOURCE, description, destSlot);
-                        journey.setSourceRoom(newRoom);
-                }
+                // One lounge per Source + Slot, shared by every flight departing in it
+                SlotKey key = SlotKey.source(request.getSource(), sourceSlot.getSlotString());
+                // FIX: Name is now GENERIC (Location + Slot), not Flight specific.
+                String roomName = "Lounge-" + request.getSource() + "-" + sourceSlot.getReadableSlotString();
+                String description = String.format("Travelers departing from %s during slot %s.",
+                                request.getSource(), sourceSlot.getReadableSlotString());
+
+                journey.setSourceRoom(findOrCreateRoom(key, roomName, description, destSlot));
         }
 
         private void assignDestinationRoom(Journey journey, CreateJourneyRequest request, SlotGenerator destSlot) {
-                // FIX: Look for any journey in this Destination + Slot
-                Journey existing = journeyRepository
-                                .findByDestinationAndDestinationSlot(request.getDestination(), destSlot.getSlotString())
-                                .stream().findFirst().orElse(null);
-
-                if (existing != null) {
-                        journey.setDestinationRoom(existing.getDestinationRoom());
-                } else {
-                        // FIX: Name is now GENERIC (Location + Slot)
-                        String roomName = "Lounge-" + request.getDestination() + "-" + destSlot.getReadableSlotString();
-                        String description = String.format("Travelers arriving at %s during slot %s.",
-                                        request.getDestination(), destSlot.getReadableSlotString());
-
-                        Room newRoom = createRoom(roomName, RoomType.DESTINATION, description, destSlot);
-                        journey.setDestinationRoom(newRoom);
-                }
+                // One lounge per Destination + Slot
+                SlotKey key = SlotKey.destination(request.getDestination(), destSlot.getSlotString());
+                // FIX: Name is now GENERIC (Location + Slot)
+                String roomName = "Lounge-" + request.getDestination() + "-" + destSlot.getReadableSlotString();
+                String description = String.format("Travelers arriving at %s during slot %s.",
+                                request.getDestination(), destSlot.getReadableSlotString());
+
+                journey.setDestinationRoom(findOrCreateRoom(key, roomName, description, destSlot));
         }
 
-        // Unified Room Creator
-        private Room createRoom(String name, RoomType type, String description, SlotGenerator expiryReferenceSlot) {
-                Room room = new Room();
-                room.setName(name);
-                room.setType(type);
-
+        // Unified Room Creator: the slot's registered room, or a new one registered under its key
+        private Room findOrCreateRoom(SlotKey key, String name, String description,
+                        SlotGenerator expiryReferenceSlot) {
                 // Expiry is always based on the Destination time (arrival) + buffer
                 Instant expiryTime = expiryReferenceSlot.getSlotEnd().plusSeconds(EXPIRY_BUFFER_SECONDS);
-                room.setExpiryTime(expiryTime);
-                room.setDescription(description + " Room expires at " + expiryTime.toString());
-
-                return roomRepository.save(room);
+                return slotRoomService.findOrCreate(key, name,
+                                description + " Room expires at " + expiryTime.toString(), expiryTime);
         }
 
         private void validateJourneyDoesNotExist(Journey journey) {
@@ -0,0 +1,275 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.DTO.Chat.ClientMessage;
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.cache.InboxTracker;
+import com.flyte.backend.cache.RecentMessageCache;
+import com.flyte.backend.cache.RoomActivityTracker;
+import com.flyte.backend.cache.RoomSequencer;
+import com.flyte.backend.cache.UserChangeVersions;
+import com.flyte.backend.model.Message;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.model.User;
+import com.flyte.backend.repository.MessageBatchRepository;
+import com.flyte.backend.repository.RoomRepository;
+import com.flyte.backend.repository.UserRepository;
+import com.flyte.backend.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Group-commit write path for realtime chat (app.chat.ingest.mode = batched).
+ *
+ * Accepted messages go into a bounded queue. A single worker drains it in
+ * micro-batches of up to batch-size messages, waiting at most max-linger-ms
+ * for a batch to fill, and writes each batch in one transaction with JDBC
+ * batch inserts. Each room's seqs are allocated as one block inside that
+ * transaction and assigned in queue order; a failed batch releases them. Messages are only broadcast once their
+ * batch has committed.
+ */
+@Service
+public class MessageIngestPipeline {
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxLingerNanos;
+    private final BlockingQueue<PendingMessage> queue;
+
+    private final MessageBatchRepository messageBatchRepository;
+    private final RoomRepository roomRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final NotificationService notificationService;
+    private final RecentMessageCache recentMessageCache;
+    private final RoomActivityTracker roomActivityTracker;
+    private final RoomSequencer roomSequencer;
+    private final UserChangeVersions userChangeVersions;
+    private final SyncPushService syncPushService;
+    private final InboxTracker inboxTracker;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public MessageIngestPipeline(MessageBatchRepository messageBatchRepository,
+            RoomRepository roomRepository,
+            UserRepository userRepository,
+            PlatformTransactionManager transactionManager,
+            SimpMessageSendingOperations messagingTemplate,
+            NotificationService notificationService,
+            RecentMessageCache recentMessageCache,
+            RoomActivityTracker roomActivityTracker,
+            RoomSequencer roomSequencer,
+            UserChangeVersions userChangeVersions,
+            SyncPushService syncPushService,
+            InboxTracker inboxTracker,
+            @Value("${app.chat.ingest.mode:direct}") String mode,
+            @Value("${app.chat.ingest.batch-size:200}") int batchSize,
+            @Value("${app.chat.ingest.max-linger-ms:20}") long maxLingerMs,
+            @Value("${app.chat.ingest.queue-capacity:10000}") int queueCapacity) {
+        this.messageBatchRepository = messageBatchRepository;
+        this.roomRepository = roomRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.messagingTemplate = messagingTemplate;
+        this.notificationService = notificationService;
+        this.recentMessageCache = recentMessageCache;
+        this.roomActivityTracker = roomActivityTracker;
+        this.roomSequencer = roomSequencer;
+        this.userChangeVersions = userChangeVersions;
+        this.syncPushService = syncPushService;
+        this.inboxTracker = inboxTracker;
+        this.enabled = "batched".equalsIgnoreCase(mode);
+        this.batchSize = batchSize;
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::runLoop, "chat-ingest");
+        worker.setDaemon(true);
+        worker.start();
+        System.out.println("Chat ingest running in batched mode (batch size " + batchSize + ")");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            // The worker drains whatever is still queued before it exits
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a message that has already passed the membership checks.
+     * Fails fast instead of blocking the STOMP inbound thread when the queue is full.
+     */
+    public void submit(UUID roomId, ClientMessage request) {
+        // Postgres stores microseconds; truncate so the broadcast matches what a later read returns
+        Instant acceptedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        if (!queue.offer(new PendingMessage(roomId, request, acceptedAt))) {
+            throw new IllegalStateException("Chat ingest queue is full, please retry");
+        }
+    }
+
+    private void runLoop() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Linger briefly so a burst lands in one transaction
+                long deadline = System.nanoTime() + maxLingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Chat ingest worker error: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        List<Message> saved;
+        try {
+            saved = transactionTemplate.execute(status -> persist(batch));
+        } catch (RuntimeException e) {
+            // Isolate the bad message(s) so one invalid row doesn't drop the whole batch
+            System.err.println("Batch of " + batch.size() + " messages failed, retrying one by one: " + e.getMessage());
+            saved = new ArrayList<>();
+            for (PendingMessage pending : batch) {
+                try {
+                    saved.addAll(transactionTemplate.execute(status -> persist(List.of(pending))));
+                } catch (RuntimeException single) {
+                    System.err.println("Dropping message for room " + pending.roomId() + ": " + single.getMessage());
+                }
+            }
+        }
+
+        // Committed: now it is safe to fan out
+        Set<UUID> touchedRooms = new HashSet<>();
+        for (Message message : saved) {
+            MessageView view = MessageView.from(message);
+            roomActivityTracker.record(view.roomId(), view.createdAt());
+            messagingTemplate.convertAndSend("/topic/room/" + view.roomId(), view);
+            notificationService.notifyRoomParticipants(view.roomId(), view);
+            touchedRooms.add(view.roomId());
+        }
+        userChangeVersions.roomsChanged(touchedRooms);
+    }
+
+    private List<Message> persist(List<PendingMessage> batch) {
+        Set<UUID> roomIds = new HashSet<>();
+        Set<UUID> userIds = new HashSet<>();
+        for (PendingMessage pending : batch) {
+            roomIds.add(pending.roomId());
+            userIds.add(pending.request().getUserId());
+        }
+
+        Map<UUID, Room> rooms = roomRepository.findAllById(roomIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+        Map<UUID, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        // One allocation per room. Rows are locked in Postgres' uuid order (that of the text form, unlike
+        // UUID.compareTo) like the stats reconciliation does, so the two never deadlock
+        Map<UUID, Integer> countByRoom = new TreeMap<>(Comparator.comparing(UUID::toString));
+        for (PendingMessage pending : batch) {
+            countByRoom.merge(pending.roomId(), 1, Integer::sum);
+        }
+        Map<UUID, Long> nextSeq = new HashMap<>();
+        countByRoom.forEach((roomId, count) -> nextSeq.put(roomId, roomSequencer.allocate(roomId, count)));
+
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            Room room = rooms.get(pending.roomId());
+            if (room == null) {
+                throw new IllegalArgumentException("Room not found");
+            }
+            User user = users.get(pending.request().getUserId());
+            if (user == null) {
+                throw new IllegalArgumentException("User not found");
+            }
+
+            ClientMessage request = pending.request();
+            Message message = new Message();
+            message.setId(UUID.randomUUID());
+            message.setCreatedAt(pending.acceptedAt());
+            message.setUpdatedAt(pending.acceptedAt());
+            message.setRoom(room);
+            message.setUser(user);
+            message.setMessageText(request.getMessageText());
+            message.setMessageHTML(request.getMessageHTML());
+            message.setMediaType(request.getMediaType());
+            message.setMediaLink(request.getMediaLink());
+            // Queue order within the room
+            message.setSeq(nextSeq.merge(room.getId(), 1L, Long::sum) - 1);
+            messages.add(message);
+        }
+
+        messageBatchRepository.insertAll(messages);
+        // Inside the transaction so the buffers have them before their seqs are released (see RoomSequencer)
+        AfterCommit.run(() -> messages.forEach(message -> {
+            MessageView view = MessageView.from(message);
+            recentMessageCache.append(view, message.getRoom().getExpiryTime());
+            syncPushService.messageCommitted(view);
+            inboxTracker.record(view);
+        }));
+        return messages;
+    }
+
+    private record PendingMessage(UUID roomId, ClientMessage request, Instant acceptedAt) {
+    }
+}
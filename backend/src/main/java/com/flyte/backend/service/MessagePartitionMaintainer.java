@@ -0,0 +1,104 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.repository.MessagePartitionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keeps the monthly partitions of the messages table in shape.
+ *
+ * Creates partitions premake-months ahead, so inserts never hit a missing
+ * range. Partitions are not how message storage is reclaimed: DM history
+ * is kept for good, and the messages of expired journey rooms are deleted
+ * row by row by ExpiredRoomReaper. So a month that saw a single DM message
+ * keeps its partition forever. What partitioning buys is per-month indexes
+ * and vacuum work. A partition whose whole range is older than the
+ * retention horizon is dropped once the reaper has emptied it, i.e. for a
+ * month without DM traffic. A retention of 0 days disables dropping.
+ */
+@Service
+public class MessagePartitionMaintainer {
+
+    private static final String PREFIX = "messages_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final MessagePartitionRepository messagePartitionRepository;
+    private final int premakeMonths;
+    private final Duration retention;
+
+    public MessagePartitionMaintainer(MessagePartitionRepository messagePartitionRepository,
+            @Value("${app.messages.partitions.premake-months:3}") int premakeMonths,
+            @Value("${app.messages.partitions.retention-days:30}") long retentionDays) {
+        this.messagePartitionRepository = messagePartitionRepository;
+        this.premakeMonths = premakeMonths;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.messages.partitions.maintenance-cron:0 0 3 * * *}", zone = "UTC")
+    public void maintain() {
+        try {
+            createUpcomingPartitions();
+            dropExpiredPartitions();
+        } catch (RuntimeException e) {
+            System.err.println("Message partition maintenance failed: " + e.getMessage());
+        }
+    }
+
+    void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            messagePartitionRepository.createPartition(nameOf(month), startOf(month), startOf(month.plusMonths(1)));
+        }
+    }
+
+    void dropExpiredPartitions() {
+        if (retention.isZero()) {
+            return;
+        }
+        Instant horizon = Instant.now().minus(retention);
+        for (String name : messagePartitionRepository.findPartitionNames()) {
+            YearMonth month = monthOf(name);
+            // Only whole partitions: the newest row in it must be past the horizon
+            if (month == null || startOf(month.plusMonths(1)).isAfter(horizon)) {
+                continue;
+            }
+            if (messagePartitionRepository.hasMessages(name)) {
+                continue;
+            }
+            messagePartitionRepository.detachAndDropPartition(name);
+            System.out.println("Dropped message partition " + name);
+        }
+    }
+
+    static String nameOf(YearMonth month) {
+        return PREFIX + month.format(SUFFIX);
+    }
+
+    // Null for anything not created by us or V3
+    static YearMonth monthOf(String partitionName) {
+        if (!partitionName.startsWith(PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Instant startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
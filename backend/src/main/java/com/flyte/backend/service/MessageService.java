@@ -1,44 +1,98 @@
 package com.flyte.backend.service;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.flyte.backend.cache.InboxTracker;
+import com.flyte.backend.cache.RecentMessageCache;
+import com.flyte.backend.cache.RoomActivityTracker;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import com.flyte.backend.cache.RoomSequencer;
+import com.flyte.backend.cache.UserChangeVersions;
 import com.flyte.backend.repository.MessageRepository;
+import com.flyte.backend.repository.MessageWindowRepository;
 import com.flyte.backend.repository.RoomRepository;
+import com.flyte.backend.repository.RoomStatsRepository;
 import com.flyte.backend.repository.UserRepository;
 import com.flyte.backend.DTO.Message.CreateMessageRequest;
+import com.flyte.backend.DTO.Message.MessagePage;
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Message.SeqRange;
+import com.flyte.backend.model.RoomStats;
 import com.flyte.backend.model.Message;
 import com.flyte.backend.model.Room;
 import com.flyte.backend.model.User;
-import com.flyte.backend.model.RoomParticipant;
 import com.flyte.backend.enums.RoomType;
 import com.flyte.backend.enums.ConnectionStatus;
-import com.flyte.backend.repository.RoomParticipantRepository;
+import com.flyte.backend.util.AfterCommit;
+import com.flyte.backend.util.MessageCursor;
 
-import java.util.LinkedHashMap;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class MessageService {
 
     private final MessageRepository messageRepository;
+    private final MessageWindowRepository messageWindowRepository;
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
-    private final RoomParticipantRepository roomParticipantRepository;
+    private final RoomMembershipIndex roomMembershipIndex;
+    private final RecentMessageCache recentMessageCache;
+    private final RoomActivityTracker roomActivityTracker;
+    private final RoomStatsRepository roomStatsRepository;
+    private final RoomSequencer roomSequencer;
+    private final UserChangeVersions userChangeVersions;
+    private final SyncPushService syncPushService;
+    private final InboxTracker inboxTracker;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public MessageService(MessageRepository messageRepository, RoomRepository roomRepository,
-            UserRepository userRepository, RoomParticipantRepository roomParticipantRepository) {
+    public MessageService(MessageRepository messageRepository, MessageWindowRepository messageWindowRepository,
+            RoomRepository roomRepository,
+            UserRepository userRepository, RoomMembershipIndex roomMembershipIndex,
+            RecentMessageCache recentMessageCache, RoomActivityTracker roomActivityTracker,
+            RoomStatsRepository roomStatsRepository,
+            RoomSequencer roomSequencer, UserChangeVersions userChangeVersions, SyncPushService syncPushService,
+            InboxTracker inboxTracker,
+            @Value("${app.messages.page-size:50}") int defaultPageSize,
+            @Value("${app.messages.max-page-size:200}") int maxPageSize) {
         this.messageRepository = messageRepository;
+        this.messageWindowRepository = messageWindowRepository;
         this.roomRepository = roomRepository;
         this.userRepository = userRepository;
-        this.roomParticipantRepository = roomParticipantRepository;
+        this.roomMembershipIndex = roomMembershipIndex;
+        this.recentMessageCache = recentMessageCache;
+        this.roomActivityTracker = roomActivityTracker;
+        this.roomStatsRepository = roomStatsRepository;
+        this.roomSequencer = roomSequencer;
+        this.userChangeVersions = userChangeVersions;
+        this.syncPushService = syncPushService;
+        this.inboxTracker = inboxTracker;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @Transactional
-    public Message createMessage(CreateMessageRequest request) {
+    public MessageView createMessage(CreateMessageRequest request) {
+        return createMessage(request, roomMembershipIndex.senderStatusOf(request.getRoomId(), request.getUserId()));
+    }
+
+    /**
+     * For callers that have already looked up the sender with
+     * RoomMembershipIndex.senderStatusOf, so the send path checks once.
+     */
+    @Transactional
+    public MessageView createMessage(CreateMessageRequest request, ConnectionStatus senderStatus) {
         Room room = roomRepository.findById(request.getRoomId())
                 .orElseThrow(() -> new IllegalArgumentException("Room not found"));
 
@@ -46,10 +100,10 @@ public class MessageService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         if (room.getType() == RoomType.DM) {
-            RoomParticipant participant = roomParticipantRepository.findByRoomIdAndUserId(room.getId(), user.getId())
-                    .orElseThrow(() -> new IllegalArgumentException("User is not a participant of this room"));
-
-            if (participant.getStatus() != ConnectionStatus.CONNECTED) {
+            if (senderStatus == null) {
+                throw new IllegalArgumentException("User is not a participant of this room");
+            }
+            if (senderStatus != ConnectionStatus.CONNECTED) {
                 throw new IllegalStateException("You can only send messages when connected.");
             }
         }
@@ -61,33 +115,258 @@ public class MessageService {
         message.setMessageHTML(request.getMessageHTML());
         message.setMediaType(request.getMediaType());
         message.setMediaLink(request.getMediaLink());
+        // Last before the insert and commit: the room's stats row stays locked from here until the transaction ends
+        message.setSeq(roomSequencer.next(room.getId()));
 
         Message savedMessage = messageRepository.save(message);
-        room.setLastMessageTimestamp(savedMessage.getCreatedAt());
-        roomRepository.save(room);
-        return savedMessage;
+        MessageView view = MessageView.from(savedMessage);
+        AfterCommit.run(() -> {
+            recentMessageCache.append(view, room.getExpiryTime());
+            // Not room.setLastMessageTimestamp(): that would lock the rooms row for every sender
+            roomActivityTracker.record(room.getId(), view.createdAt());
+            userChangeVersions.roomsChanged(List.of(room.getId()));
+            syncPushService.messageCommitted(view);
+            inboxTracker.record(view);
+        });
+        return view;
     }
 
-    public List<Message> getMessagesByRoom(UUID roomId) {
-        return messageRepository.findByRoom_IdOrderByCreatedAtDesc(roomId);
+    /**
+     * Returns one page of a room's history, newest first.
+     * Cursors are message seq numbers: with none this is the latest page,
+     * 'before' walks back and 'after' fetches what arrived since a seq the
+     * client has. A client that notices a gap in the seqs it received passes
+     * the last seq it has as 'after' and gets just the missing range.
+     * Only 'before' pages may be read from a replica: the other two seed the
+     * buffer and the room's sequencer, which must see the primary.
+     */
+    public MessagePage getMessagesByRoom(UUID roomId, String before, String after, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        // Fetch one extra row to know whether an older page exists
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        if (before != null && after != null) {
+            throw new IllegalArgumentException("Only one of 'before' and 'after' can be set");
+        }
+        Function<MessageView, String> cursorOf = message -> Long.toString(message.seq());
+
+        // Recent pages come from the in-memory buffer when it covers them
+        if (after != null) {
+            long afterSeq = parseSeq(after);
+            // Nothing past a seq still in flight, or a client could skip it
+            long headSeq = getHeadSeq(roomId);
+            List<MessageView> newer = recentMessageCache.after(roomId, afterSeq, pageSize + 1, headSeq);
+            if (newer == null) {
+                newer = messageRepository.findRoomPageAfter(roomId, afterSeq, headSeq, fetchLimit);
+            }
+            return buildAfterPage(newer, pageSize, after, cursorOf);
+        }
+
+        List<MessageView> older;
+        if (before != null) {
+            long beforeSeq = parseSeq(before);
+            older = recentMessageCache.before(roomId, beforeSeq, pageSize + 1);
+            if (older == null) {
+                older = messageRepository.findRoomPageBefore(roomId, beforeSeq, fetchLimit);
+            }
+        } else {
+            long headSeq = getHeadSeq(roomId);
+            older = recentMessageCache.latest(roomId, pageSize + 1, headSeq);
+            if (older == null) {
+                older = messageRepository.findRoomPageLatest(roomId, headSeq, fetchLimit);
+                // Anchor (or reseed a stale) buffer so the next open of this room skips the query
+                recentMessageCache.seed(roomId, older, older.size() <= pageSize);
+            }
+        }
+        return buildBeforePage(older, pageSize, cursorOf);
     }
 
-    public List<Message> getMessagesByUser(UUID userId) {
-        return messageRepository.findByUser_IdOrderByCreatedAtDesc(userId);
+    /**
+     * Same contract as {@link #getMessagesByRoom}, over everything a user has sent.
+     */
+    @Transactional(readOnly = true)
+    public MessagePage getMessagesByUser(UUID userId, String before, String after, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        if (before != null && after != null) {
+            throw new IllegalArgumentException("Only one of 'before' and 'after' can be set");
+        }
+
+        if (after != null) {
+            MessageCursor cursor = MessageCursor.decode(after);
+            List<MessageView> newer = messageRepository.findUserPageAfter(userId, cursor.getCreatedAt(),
+                    cursor.getId(), fetchLimit);
+            return buildAfterPage(newer, pageSize, after, this::cursorOf);
+        }
+
+        List<MessageView> older;
+        if (before != null) {
+            MessageCursor cursor = MessageCursor.decode(before);
+            older = messageRepository.findUserPageBefore(userId, cursor.getCreatedAt(), cursor.getId(), fetchLimit);
+        } else {
+            older = messageRepository.findUserPageLatest(userId, fetchLimit);
+        }
+        return buildBeforePage(older, pageSize, this::cursorOf);
     }
 
     public Long getMessageCount(UUID roomId) {
-        return messageRepository.countByRoom_Id(roomId);
+        // Kept exact by RoomSequencer, which creates the stats row with the room's first message
+        return roomStatsRepository.findMessageCountByRoomId(roomId)
+                .orElseGet(() -> messageRepository.countByRoom_Id(roomId));
+    }
+
+    /**
+     * The newest 'limit' messages of each room, newest first, for initial
+     * loads; older history is paged through getMessagesByRoom. Rooms whose
+     * buffer covers the window up to the room's head skip the query, the
+     * rest share one windowed statement, so the cost follows rooms x limit
+     * instead of total history.
+     */
+    public Map<UUID, List<MessageView>> getLatestMessagesByRoomIds(List<UUID> roomIds, int limit) {
+        Map<UUID, List<MessageView>> messagesByRoom = new HashMap<>();
+        List<SeqRange> uncached = new ArrayList<>();
+        Map<UUID, Long> heads = getHeadSeqs(roomIds);
+        for (UUID roomId : roomIds) {
+            long headSeq = heads.get(roomId);
+            List<MessageView> cached = recentMessageCache.latest(roomId, limit, headSeq);
+            if (cached == null) {
+                uncached.add(new SeqRange(roomId, 0, headSeq));
+            } else if (!cached.isEmpty()) {
+                messagesByRoom.put(roomId, cached);
+            }
+        }
+        messageWindowRepository.findNewestInRanges(uncached, limit)
+                .forEach(message -> messagesByRoom
+                        .computeIfAbsent(message.roomId(), id -> new ArrayList<>())
+                        .add(message));
+        return messagesByRoom;
+    }
+
+    // Messages created after 'since' for each room, newest first
+    public Map<UUID, List<MessageView>> getMessagesByRoomIdsSince(List<UUID> roomIds, Instant since) {
+        Map<UUID, List<MessageView>> messagesByRoom = new HashMap<>();
+        List<UUID> uncached = new ArrayList<>();
+        Map<UUID, Long> heads = getHeadSeqs(roomIds);
+        for (UUID roomId : roomIds) {
+            List<MessageView> cached = recentMessageCache.since(roomId, since, heads.get(roomId));
+            if (cached == null) {
+                uncached.add(roomId);
+            } else if (!cached.isEmpty()) {
+                messagesByRoom.put(roomId, cached);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            messageRepository.findViewsByRoomIdsSince(uncached, since)
+                    .forEach(message -> messagesByRoom
+                            .computeIfAbsent(message.roomId(), id -> new ArrayList<>())
+                            .add(message));
+        }
+        return messagesByRoom;
+    }
+
+    // getHeadSeqs for one room
+    private long getHeadSeq(UUID roomId) {
+        return roomSequencer.capToVisible(roomId, roomStatsRepository.findLastSeqByRoomId(roomId).orElse(0L));
+    }
+
+    /**
+     * Each room's newest seq a reader may rely on: the committed room_stats
+     * value, capped below any send this instance is still completing.
+     * Rooms without messages map to 0.
+     */
+    public Map<UUID, Long> getHeadSeqs(List<UUID> roomIds) {
+        Map<UUID, Long> stored = roomStatsRepository.findAllById(roomIds).stream()
+                .collect(Collectors.toMap(RoomStats::getRoomId, RoomStats::getLastSeq));
+        Map<UUID, Long> withEmptyRooms = new HashMap<>();
+        for (UUID roomId : roomIds) {
+            withEmptyRooms.put(roomId, stored.getOrDefault(roomId, 0L));
+        }
+        return capHeadSeqs(withEmptyRooms);
     }
 
-    public Map<UUID, List<Message>> getMessagesByRoomIds(List<UUID> roomIds) {
-        List<Message> allMessages = messageRepository.findByRoom_IdInOrderByCreatedAtDesc(roomIds);
+    /** getHeadSeqs for room_stats values the caller has already read. */
+    public Map<UUID, Long> capHeadSeqs(Map<UUID, Long> storedHeads) {
+        Map<UUID, Long> heads = new HashMap<>();
+        storedHeads.forEach((roomId, lastSeq) -> heads.put(roomId, roomSequencer.capToVisible(roomId, lastSeq)));
+        return heads;
+    }
 
-        Map<UUID, List<Message>> messagesByRoom = allMessages.stream()
-                .collect(Collectors.groupingBy(
-                        Message::getRoomId,
-                        LinkedHashMap::new, // Use LinkedHashMap to keep insertion order of keys
-                        Collectors.toList()));
+    /**
+     * The newest 'limit' messages of each range, newest first. Rooms whose
+     * buffer holds the range up to its maxSeq (the room's head) skip the
+     * query; the rest share one statement.
+     */
+    public Map<UUID, List<MessageView>> getNewestMessagesInRanges(List<SeqRange> ranges, int limit) {
+        Map<UUID, List<MessageView>> messagesByRoom = new HashMap<>();
+        List<SeqRange> uncached = new ArrayList<>();
+        for (SeqRange range : ranges) {
+            List<MessageView> cached = recentMessageCache.after(range.roomId(), range.afterSeq(), Integer.MAX_VALUE,
+                    range.maxSeq());
+            if (cached == null) {
+                uncached.add(range);
+            } else if (!cached.isEmpty()) {
+                List<MessageView> newest = new ArrayList<>(cached.subList(Math.max(0, cached.size() - limit),
+                        cached.size()));
+                Collections.reverse(newest);
+                messagesByRoom.put(range.roomId(), newest);
+            }
+        }
+        messageWindowRepository.findNewestInRanges(uncached, limit)
+                .forEach(message -> messagesByRoom
+                        .computeIfAbsent(message.roomId(), id -> new ArrayList<>())
+                        .add(message));
         return messagesByRoom;
     }
+
+    /** The requested page or per-room size, app.messages.page-size when absent, capped at max-page-size. */
+    public int resolvePageSize(Integer requested) {
+        if (requested == null) {
+            return defaultPageSize;
+        }
+        if (requested <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    // 'rows' is newest first and may hold one extra row used as the "has older" probe
+    private MessagePage buildBeforePage(List<MessageView> rows, int pageSize, Function<MessageView, String> cursorOf) {
+        boolean hasOlder = rows.size() > pageSize;
+        List<MessageView> page = hasOlder ? rows.subList(0, pageSize) : rows;
+
+        String beforeCursor = hasOlder ? cursorOf.apply(page.get(page.size() - 1)) : null;
+        String afterCursor = page.isEmpty() ? null : cursorOf.apply(page.get(0));
+        return new MessagePage(page, beforeCursor, afterCursor);
+    }
+
+    // 'rows' is oldest first; the page returned to the client is flipped to newest first
+    private MessagePage buildAfterPage(List<MessageView> rows, int pageSize, String after,
+            Function<MessageView, String> cursorOf) {
+        List<MessageView> page = new ArrayList<>(rows.size() > pageSize ? rows.subList(0, pageSize) : rows);
+        Collections.reverse(page);
+
+        if (page.isEmpty()) {
+            // Nothing new yet, keep polling from the same place
+            return new MessagePage(page, null, after);
+        }
+        // Anything between the cursor and this page has already been seen
+        return new MessagePage(page, null, cursorOf.apply(page.get(0)));
+    }
+
+    private String cursorOf(MessageView message) {
+        return MessageCursor.of(message).encode();
+    }
+
+    private static long parseSeq(String cursor) {
+        try {
+            long seq = Long.parseLong(cursor);
+            if (seq >= 0) {
+                return seq;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
 }
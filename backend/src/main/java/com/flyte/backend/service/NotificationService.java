@@ -2,9 +2,8 @@ package com.flyte.backend.service;
 
 import com.flyte.backend.globalWebsocketHandler.dto.GlobalWebSocketEnvelope;
 import com.flyte.backend.globalWebsocketHandler.enums.GlobalMessageType;
-import com.flyte.backend.model.Message;
-import com.flyte.backend.model.User;
-import com.flyte.backend.repository.RoomParticipantRepository;
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.cache.RoomMembershipIndex;
 import com.flyte.backend.repository.UserDeviceTokenRepository;
 import com.flyte.backend.model.UserDeviceToken;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
@@ -12,32 +11,33 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class NotificationService {
 
     private final SimpMessageSendingOperations messagingTemplate;
-    private final RoomParticipantRepository roomParticipantRepository;
+    private final RoomMembershipIndex roomMembershipIndex;
     private final FcmService fcmService;
     private final UserDeviceTokenRepository userDeviceTokenRepository;
     private final com.fasterxml.jackson.databind.ObjectMapper objectMapper;
 
     public NotificationService(SimpMessageSendingOperations messagingTemplate,
-            RoomParticipantRepository roomParticipantRepository,
+            RoomMembershipIndex roomMembershipIndex,
             FcmService fcmService,
             UserDeviceTokenRepository userDeviceTokenRepository,
             com.fasterxml.jackson.databind.ObjectMapper objectMapper) {
         this.messagingTemplate = messagingTemplate;
-        this.roomParticipantRepository = roomParticipantRepository;
+        this.roomMembershipIndex = roomMembershipIndex;
         this.fcmService = fcmService;
         this.userDeviceTokenRepository = userDeviceTokenRepository;
         this.objectMapper = objectMapper;
     }
 
     @Async
-    public void notifyRoomParticipants(UUID roomId, Message message) {
-        List<User> usersInRoom = roomParticipantRepository.findUsersByRoomId(roomId);
+    public void notifyRoomParticipants(UUID roomId, MessageView message) {
+        Set<UUID> usersInRoom = roomMembershipIndex.memberIds(roomId);
 
         // 1. Create the Standard Envelope
         // We wrap the specific 'Message' object inside our generic Global Envelope
@@ -46,16 +46,16 @@ public class NotificationService {
                 message // This becomes the "payload"
         );
         usersInRoom.stream()
-                .filter(user -> !user.getId().equals(message.getUser().getId()))
-                .forEach(user -> {
+                .filter(userId -> !userId.equals(message.userId()))
+                .forEach(userId -> {
                     // 2. Send the Envelope!
                     // The frontend receives: { "type": "CHAT_NOTIFICATION", "payload": { "id":
                     // "...", "text": "..." } }
-                    messagingTemplate.convertAndSend("/topic/user/" + user.getId(), envelope);
-                    System.out.println("Notification sent to user: " + user.getId());
+                    messagingTemplate.convertAndSend("/topic/user/" + userId, envelope);
+                    System.out.println("Notification sent to user: " + userId);
                     //System.out.println("Notification sent: " + envelope);
                     // 3. Send Push Notification
-                    List<UserDeviceToken> tokens = userDeviceTokenRepository.findByUserId(user.getId());
+                    List<UserDeviceToken> tokens = userDeviceTokenRepository.findByUserId(userId);
                     
                     java.util.Map<String, String> data = new java.util.HashMap<>();
                     data.put("roomId", roomId.toString());
@@ -63,8 +63,8 @@ public class NotificationService {
                     for (UserDeviceToken token : tokens) {
                         fcmService.sendPushNotification(
                             token.getFcmToken(),
-                            message.getUser().getName(),
-                            message.getMessageText(),
+                            message.senderName(),
+                            message.messageText(),
                             data
                         );
                     }
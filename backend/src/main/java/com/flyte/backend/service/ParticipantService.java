@@ -0,0 +1,87 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.DTO.Room.ParticipantPage;
+import com.flyte.backend.DTO.Room.ParticipantView;
+import com.flyte.backend.cache.RoomStatsTracker;
+import com.flyte.backend.repository.RoomParticipantRepository;
+import com.flyte.backend.repository.RoomStatsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Participant lists and counts for rooms of any size. A lounge at a hub
+ * airport can hold thousands of travellers, so the list is paged and
+ * projected to what the member list shows, and the count comes from
+ * room_stats instead of counting the participants.
+ */
+@Service
+public class ParticipantService {
+
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    private final RoomParticipantRepository roomParticipantRepository;
+    private final RoomStatsRepository roomStatsRepository;
+    private final RoomStatsTracker roomStatsTracker;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public ParticipantService(RoomParticipantRepository roomParticipantRepository,
+            RoomStatsRepository roomStatsRepository,
+            RoomStatsTracker roomStatsTracker,
+            @Value("${app.rooms.participants.page-size:50}") int defaultPageSize,
+            @Value("${app.rooms.participants.max-page-size:200}") int maxPageSize) {
+        this.roomParticipantRepository = roomParticipantRepository;
+        this.roomStatsRepository = roomStatsRepository;
+        this.roomStatsTracker = roomStatsTracker;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /** One page of the room's participants, ordered by user id, starting after the 'after' cursor. */
+    @Transactional(readOnly = true)
+    public ParticipantPage getParticipants(UUID roomId, String after, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        UUID afterUserId = after == null ? FIRST_ID : parseCursor(after);
+        // One extra row tells whether another page exists
+        List<ParticipantView> rows = roomParticipantRepository.findParticipantPage(roomId, afterUserId,
+                Limit.of(pageSize + 1));
+
+        if (rows.size() <= pageSize) {
+            return new ParticipantPage(rows, null);
+        }
+        List<ParticipantView> page = rows.subList(0, pageSize);
+        return new ParticipantPage(page, page.get(pageSize - 1).userId().toString());
+    }
+
+    @Transactional(readOnly = true)
+    public long getParticipantCount(UUID roomId) {
+        // Stored counter plus whatever hasn't been flushed yet
+        return roomStatsRepository.findParticipantCountByRoomId(roomId)
+                .map(count -> count + roomStatsTracker.pendingParticipants(roomId))
+                // No stats row until the first flush or reconciliation; the count then includes pending joins
+                .orElseGet(() -> roomParticipantRepository.countByRoomId(roomId));
+    }
+
+    private static UUID parseCursor(String after) {
+        try {
+            return UUID.fromString(after);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private int resolvePageSize(Integer requested) {
+        if (requested == null) {
+            return defaultPageSize;
+        }
+        if (requested <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(requested, maxPageSize);
+    }
+}
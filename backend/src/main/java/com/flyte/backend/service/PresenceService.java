@@ -0,0 +1,137 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.DTO.Room.PresenceUpdate;
+import com.flyte.backend.DTO.Room.RoomPresence;
+import com.flyte.backend.cache.PresenceRegistry;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps PresenceRegistry in step with the STOMP sessions and tells rooms who
+ * came and went.
+ *
+ * A signed-in session counts as present in a room while it is subscribed to
+ * '/topic/room/{id}' and its user is a participant. Changes are not pushed as
+ * they happen: every broadcast-interval-ms each room that changed gets one
+ * PresenceUpdate on '/topic/room/{id}/presence', so a gate change that moves
+ * hundreds of travellers at once costs each subscriber one message per
+ * interval instead of one per traveller.
+ */
+@Service
+public class PresenceService {
+
+    private static final String ROOM_TOPIC_PREFIX = "/topic/room/";
+
+    private final PresenceRegistry presenceRegistry;
+    private final RoomMembershipIndex roomMembershipIndex;
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    public PresenceService(PresenceRegistry presenceRegistry,
+            RoomMembershipIndex roomMembershipIndex,
+            SimpMessageSendingOperations messagingTemplate) {
+        this.presenceRegistry = presenceRegistry;
+        this.roomMembershipIndex = roomMembershipIndex;
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    // CONNECTED rather than CONNECT: the user AuthChannelInterceptor sets is only on the events from here on
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        UUID userId = userIdOf(event.getUser());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (userId != null && sessionId != null) {
+            presenceRegistry.connect(sessionId, userId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        presenceRegistry.disconnect(event.getSessionId());
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        UUID roomId = roomIdOf(accessor.getDestination());
+        UUID userId = userIdOf(event.getUser());
+        if (roomId == null || userId == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        if (roomMembershipIndex.isMember(roomId, userId)) {
+            presenceRegistry.subscribe(accessor.getSessionId(), accessor.getSubscriptionId(), roomId);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        if (accessor.getSubscriptionId() != null) {
+            presenceRegistry.unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+        }
+    }
+
+    // Only participants may see who is in a room, as with subscribing to it (RoomSubscriptionInterceptor)
+    public RoomPresence getRoomPresence(UUID roomId, Principal user) {
+        UUID userId = userIdOf(user);
+        if (userId == null || !roomMembershipIndex.isMember(roomId, userId)) {
+            throw new AccessDeniedException("User is not a participant of this room");
+        }
+        return new RoomPresence(roomId, presenceRegistry.onlineCount(roomId), presenceRegistry.onlineUsers(roomId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.broadcast-interval-ms:1000}")
+    public void broadcast() {
+        for (Map.Entry<UUID, Map<UUID, Boolean>> room : presenceRegistry.drainChanges().entrySet()) {
+            UUID roomId = room.getKey();
+            List<UUID> cameOnline = new ArrayList<>();
+            List<UUID> wentOffline = new ArrayList<>();
+            room.getValue().forEach((userId, online) -> (online ? cameOnline : wentOffline).add(userId));
+            try {
+                messagingTemplate.convertAndSend(ROOM_TOPIC_PREFIX + roomId + "/presence",
+                        new PresenceUpdate(roomId, presenceRegistry.onlineCount(roomId), cameOnline, wentOffline));
+            } catch (RuntimeException e) {
+                // Clients catch up from the next update's onlineCount or GET /api/presence/rooms/{id}
+                System.err.println("Failed to push presence of room " + roomId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /** The room of a '/topic/room/{id}' destination; null for anything else, including '/presence' itself. */
+    static UUID roomIdOf(String destination) {
+        if (destination == null || !destination.startsWith(ROOM_TOPIC_PREFIX)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(destination.substring(ROOM_TOPIC_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // AuthChannelInterceptor and JwtAuthenticationFilter authenticate with the user id as the principal name
+    private static UUID userIdOf(Principal user) {
+        if (user == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(user.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
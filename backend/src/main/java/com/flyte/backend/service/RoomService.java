@@ -1,10 +1,15 @@
 package com.flyte.backend.service;
 
+import com.flyte.backend.DTO.Message.MessageView;
 import com.flyte.backend.DTO.Room.RoomRequest;
 import com.flyte.backend.DTO.Room.RoomResponse;
 import com.flyte.backend.DTO.Room.RoomWithMessages;
 import com.flyte.backend.DTO.User.UserResponse;
-import com.flyte.backend.model.Message;
+import com.flyte.backend.cache.RoomActivityTracker;
+import com.flyte.backend.cache.RoomCacheEvictor;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import com.flyte.backend.cache.RoomStatsTracker;
+import com.flyte.backend.cache.UserChangeVersions;
 import com.flyte.backend.model.Room;
 import com.flyte.backend.model.User;
 import com.flyte.backend.repository.RoomParticipantRepository;
@@ -14,16 +19,21 @@ import com.flyte.backend.DTO.Room.CreateDMRequest;
 import com.flyte.backend.enums.ConnectionStatus;
 import com.flyte.backend.enums.RoomType;
 import com.flyte.backend.model.RoomParticipant;
+import com.flyte.backend.util.AfterCommit;
+import com.flyte.backend.util.DmKey;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.time.Instant;
 
 import org.springframework.stereotype.Service;
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class RoomService {
@@ -33,15 +43,32 @@ public class RoomService {
     private final MessageService messageService;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final RoomCacheEvictor roomCacheEvictor;
+    private final RoomActivityTracker roomActivityTracker;
+    private final RoomStatsTracker roomStatsTracker;
+    private final UserChangeVersions userChangeVersions;
+    private final SyncPushService syncPushService;
+    private final InboxService inboxService;
+    private final RoomMembershipIndex roomMembershipIndex;
 
     public RoomService(RoomRepository roomRepository, RoomParticipantRepository roomParticipantRepository,
             MessageService messageService, UserRepository userRepository,
-            NotificationService notificationService) {
+            NotificationService notificationService, RoomCacheEvictor roomCacheEvictor,
+            RoomActivityTracker roomActivityTracker, RoomStatsTracker roomStatsTracker,
+            UserChangeVersions userChangeVersions, SyncPushService syncPushService,
+            InboxService inboxService, RoomMembershipIndex roomMembershipIndex) {
         this.roomRepository = roomRepository;
         this.roomParticipantRepository = roomParticipantRepository;
         this.messageService = messageService;
         this.userRepository = userRepository;
         this.notificationService = notificationService;
+        this.roomCacheEvictor = roomCacheEvictor;
+        this.roomActivityTracker = roomActivityTracker;
+        this.roomStatsTracker = roomStatsTracker;
+        this.userChangeVersions = userChangeVersions;
+        this.syncPushService = syncPushService;
+        this.inboxService = inboxService;
+        this.roomMembershipIndex = roomMembershipIndex;
     }
 
     @Transactional
@@ -54,88 +81,101 @@ public class RoomService {
         return new RoomResponse(savedRoom);
     }
 
+    @Transactional(readOnly = true)
     public RoomResponse getRoomById(UUID id) {
         return roomRepository.findById(id)
                 .map(RoomResponse::new)
                 .orElse(null);
     }
 
-    public List<RoomWithMessages> getRoomsAndMessagesByUserId(UUID userId) {
-        List<Room> roomsByUser = roomParticipantRepository.findRoomsByUserIdAndStatusExcept(userId,
-                ConnectionStatus.NOT_CONNECTED);
+    // Each room comes with its newest 'messagesPerRoom' messages (page size when null); older ones are paged
+    @Transactional(readOnly = true)
+    public List<RoomWithMessages> getRoomsAndMessagesByUserId(UUID userId, Integer messagesPerRoom) {
+        int perRoom = messageService.resolvePageSize(messagesPerRoom);
+        // Expired rooms are filtered out by the query
+        List<Room> roomsByUser = roomParticipantRepository.findActiveRoomsByUserIdAndStatusExcept(userId,
+                ConnectionStatus.NOT_CONNECTED, Instant.now());
 
         // 1. Collect Unique Rooms using a Map (Key: ID, Value: Room Object)
         Map<UUID, Room> uniqueRoomsMap = new HashMap<>();
 
         for (Room room : roomsByUser) {
             if (room != null) {
-                // Check expiry logic immediately
-                if (room.getExpiryTime() != null && Instant.now().isAfter(room.getExpiryTime())) {
-                    continue;
-                }
                 // Put into map: This acts as the deduplication filter
                 uniqueRoomsMap.put(room.getId(), room);
             }
         }
 
-        // 2. Fetch all messages at once using the unique IDs
-        Map<UUID, List<Message>> allMessagesMap = messageService
-                .getMessagesByRoomIds(new ArrayList<>(uniqueRoomsMap.keySet()));
+        // 2. Fetch the newest messages of every room at once; one extra row per room tells whether older ones remain
+        Map<UUID, List<MessageView>> allMessagesMap = messageService
+                .getLatestMessagesByRoomIds(new ArrayList<>(uniqueRoomsMap.keySet()), perRoom + 1);
 
-        // 3. Build the final response list iterating over the UNIQUE rooms only
+        // 3. Resolve the other side of every DM in one query
+        Map<UUID, User> dmCounterparts = roomParticipantRepository.findDmCounterparts(dmRoomIds(uniqueRoomsMap.values()),
+                userId);
+
+        // 4. Build the final response list iterating over the UNIQUE rooms only
         List<RoomWithMessages> roomsAndMessages = new ArrayList<>();
 
         for (Room room : uniqueRoomsMap.values()) {
             RoomWithMessages item = new RoomWithMessages();
             RoomResponse roomResponse = new RoomResponse(room);
+            roomResponse.setLastMessageTimestamp(roomActivityTracker.lastMessageTimestamp(room));
 
-            if (room.getType() == RoomType.DM) {
-                roomParticipantRepository.findOtherParticipant(room.getId(), userId, RoomType.DM)
-                        .ifPresent(otherParticipant -> {
-                            roomResponse.setName(otherParticipant.getUser().getName());
-                            roomResponse.setOtherUser(new UserResponse(otherParticipant.getUser()));
-                        });
+            User otherUser = dmCounterparts.get(room.getId());
+            if (otherUser != null) {
+                roomResponse.setName(otherUser.getName());
+                roomResponse.setOtherUser(new UserResponse(otherUser));
             }
 
             item.setRoom(roomResponse);
             // Safely get messages or empty list
-            item.setMessages(allMessagesMap.getOrDefault(room.getId(), new ArrayList<>()));
+            List<MessageView> roomMessages = allMessagesMap.getOrDefault(room.getId(), new ArrayList<>());
+            boolean hasMore = roomMessages.size() > perRoom;
+            item.setMessages(hasMore ? roomMessages.subList(0, perRoom) : roomMessages);
+            item.setHasMore(hasMore);
             roomsAndMessages.add(item);
         }
 
+        // Most recently active first; rooms without messages go last
+        roomsAndMessages.sort(Comparator.comparing(item -> item.getRoom().getLastMessageTimestamp(),
+                Comparator.nullsLast(Comparator.<Instant>reverseOrder())));
         return roomsAndMessages;
     }
 
+    @Transactional(readOnly = true)
     public List<User> getParticipantsInRoom(UUID roomId) {
         return roomParticipantRepository.findUsersByRoomId(roomId);
     }
 
     @Transactional
     public RoomResponse findOrCreateDM(CreateDMRequest request) {
-        // 1. Check if DM already exists
-        List<Room> existingRooms = roomParticipantRepository.findRoomForUsers(request.getRequesterId(),
-                request.getTargetUserId(),
-                RoomType.DM);
-        Room existingDM = existingRooms.isEmpty() ? null : existingRooms.get(0);
-        if (existingDM != null) {
-            RoomResponse response = new RoomResponse(existingDM);
-            userRepository.findById(request.getTargetUserId()).ifPresent(user -> {
-                response.setName(user.getName());
-                response.setOtherUser(new UserResponse(user));
-            });
-            return response;
+        // 1. Check if DM already exists: one lookup on the pair's unique key
+        String dmKey = DmKey.of(request.getRequesterId(), request.getTargetUserId());
+        Optional<Room> existingDM = roomRepository.findByDmKey(dmKey);
+        if (existingDM.isPresent()) {
+            return existingDmResponse(existingDM.get(), request.getTargetUserId());
         }
 
-        // 2. Create new Room
-        Room room = new Room();
-        room.setName("DM-" + request.getRequesterId() + "-" + request.getTargetUserId()); // Name can be dynamic or
-                                                                                          // generic
-        room.setType(RoomType.DM);
-        Room savedRoom = roomRepository.save(room);
-
-        // 3. Add Requester (SENT) means the requester has sent the chat request
         User requester = userRepository.findById(request.getRequesterId())
                 .orElseThrow(() -> new IllegalArgumentException("Requester not found"));
+        User target = userRepository.findById(request.getTargetUserId())
+                .orElseThrow(() -> new IllegalArgumentException("Target user not found"));
+
+        // 2. Create new Room. If the other user asked for the same DM at the same time, the insert
+        // waits for their transaction and inserts nothing; their room is the one both get back.
+        UUID roomId = UUID.randomUUID();
+        int inserted = roomRepository.insertDmRoomIfAbsent(roomId,
+                "DM-" + request.getRequesterId() + "-" + request.getTargetUserId(), RoomType.DM.ordinal(), dmKey);
+        if (inserted == 0) {
+            Room concurrentDM = roomRepository.findByDmKey(dmKey)
+                    .orElseThrow(() -> new IllegalStateException("DM room vanished while being created"));
+            return existingDmResponse(concurrentDM, request.getTargetUserId());
+        }
+        Room savedRoom = roomRepository.findById(roomId)
+                .orElseThrow(() -> new IllegalStateException("DM room not found after insert"));
+
+        // 3. Add Requester (SENT) means the requester has sent the chat request
         RoomParticipant requesterParticipant = new RoomParticipant();
         requesterParticipant.setRoom(savedRoom);
         requesterParticipant.setUser(requester);
@@ -143,13 +183,13 @@ public class RoomService {
         roomParticipantRepository.save(requesterParticipant);
 
         // 4. Add Target (RECEIVED) means the target has received the chat request
-        User target = userRepository.findById(request.getTargetUserId())
-                .orElseThrow(() -> new IllegalArgumentException("Target user not found"));
         RoomParticipant targetParticipant = new RoomParticipant();
         targetParticipant.setRoom(savedRoom);
         targetParticipant.setUser(target);
         targetParticipant.setStatus(ConnectionStatus.RECEIVED);
         roomParticipantRepository.save(targetParticipant);
+        inboxService.addEntry(requesterParticipant, target.getName());
+        inboxService.addEntry(targetParticipant, requester.getName());
 
         RoomResponse targetResponse = new RoomResponse(savedRoom);
         targetResponse.setName(requester.getName());
@@ -159,22 +199,42 @@ public class RoomService {
         RoomResponse response = new RoomResponse(savedRoom);
         response.setName(target.getName());
         response.setOtherUser(new UserResponse(target));
+        userChangeVersions.bumpAll(List.of(requester.getId(), target.getId()));
+        AfterCommit.run(() -> {
+            roomMembershipIndex.invalidate(savedRoom.getId());
+            roomStatsTracker.addParticipants(savedRoom.getId(), 2);
+            syncPushService.roomAdded(requester.getId(), response, ConnectionStatus.SENT);
+            syncPushService.roomAdded(target.getId(), targetResponse, ConnectionStatus.RECEIVED);
+        });
         return response;
     }
 
+    private RoomResponse existingDmResponse(Room room, UUID targetUserId) {
+        RoomResponse response = new RoomResponse(room);
+        userRepository.findById(targetUserId).ifPresent(user -> {
+            response.setName(user.getName());
+            response.setOtherUser(new UserResponse(user));
+        });
+        return response;
+    }
+
+    @Transactional(readOnly = true)
     public List<RoomResponse> getReceivedDMs(UUID userId) {
         // Find participants entries where user is RECEIVED (incoming requests)
         List<RoomParticipant> participants = roomParticipantRepository.findByUserIdAndStatus(userId,
                 ConnectionStatus.RECEIVED);
 
+        Map<UUID, User> dmCounterparts = roomParticipantRepository.findDmCounterparts(
+                dmRoomIds(participants.stream().map(RoomParticipant::getRoom).toList()), userId);
+
         List<RoomResponse> responses = new ArrayList<>();
         for (RoomParticipant p : participants) {
             RoomResponse resp = new RoomResponse(p.getRoom());
-            roomParticipantRepository.findOtherParticipant(p.getRoom().getId(), userId, RoomType.DM)
-                    .ifPresent(other -> {
-                        resp.setName(other.getUser().getName());
-                        resp.setOtherUser(new UserResponse(other.getUser()));
-                    });
+            User other = dmCounterparts.get(p.getRoom().getId());
+            if (other != null) {
+                resp.setName(other.getName());
+                resp.setOtherUser(new UserResponse(other));
+            }
             responses.add(resp);
         }
         return responses;
@@ -191,9 +251,19 @@ public class RoomService {
 
         roomParticipantRepository.save(otherParticipant);
         roomParticipantRepository.save(selfParticipant);
+        userChangeVersions.bumpAll(List.of(userId, otherParticipant.getUser().getId()));
         RoomResponse response = new RoomResponse(otherParticipant.getRoom());
         response.setName(otherParticipant.getUser().getName());
         response.setOtherUser(new UserResponse(otherParticipant.getUser()));
+        RoomResponse otherResponse = new RoomResponse(otherParticipant.getRoom());
+        otherResponse.setName(selfParticipant.getUser().getName());
+        otherResponse.setOtherUser(new UserResponse(selfParticipant.getUser()));
+        AfterCommit.run(() -> {
+            roomMembershipIndex.invalidate(roomId);
+            syncPushService.roomStatusChanged(userId, response, ConnectionStatus.CONNECTED);
+            syncPushService.roomStatusChanged(otherParticipant.getUser().getId(), otherResponse,
+                    ConnectionStatus.CONNECTED);
+        });
         return response;
     }
 
@@ -208,12 +278,23 @@ public class RoomService {
 
         roomParticipantRepository.save(otherParticipant);
         roomParticipantRepository.save(selfParticipant);
+        userChangeVersions.bumpAll(List.of(userId, otherParticipant.getUser().getId()));
         RoomResponse response = new RoomResponse(otherParticipant.getRoom());
         response.setName(otherParticipant.getUser().getName());
         response.setOtherUser(new UserResponse(otherParticipant.getUser()));
+        RoomResponse otherResponse = new RoomResponse(otherParticipant.getRoom());
+        otherResponse.setName(selfParticipant.getUser().getName());
+        otherResponse.setOtherUser(new UserResponse(selfParticipant.getUser()));
+        AfterCommit.run(() -> {
+            roomMembershipIndex.invalidate(roomId);
+            syncPushService.roomStatusChanged(userId, response, ConnectionStatus.NOT_CONNECTED);
+            syncPushService.roomStatusChanged(otherParticipant.getUser().getId(), otherResponse,
+                    ConnectionStatus.NOT_CONNECTED);
+        });
         return response;
     }
 
+    @Transactional(readOnly = true)
     public ConnectionStatus getRoomStatus(UUID roomId, UUID userId) {
         return roomParticipantRepository.findByRoomIdAndUserId(roomId, userId)
                 .map(RoomParticipant::getStatus)
@@ -226,10 +307,30 @@ public class RoomService {
                 .orElseThrow(() -> new IllegalArgumentException("Room not found"));
 
         if (room.getType() == RoomType.DM) {
+            // Both sides lose the room; read them before the rows go
+            List<UUID> memberIds = roomParticipantRepository.findUserIdsByRoomIdIn(List.of(roomId));
             roomParticipantRepository.deleteByRoomId(roomId);
             roomRepository.deleteById(roomId);
+            userChangeVersions.bumpAll(memberIds);
+            AfterCommit.run(() -> {
+                roomCacheEvictor.roomsDeleted(List.of(roomId));
+                memberIds.forEach(memberId -> syncPushService.roomRemoved(memberId, roomId));
+            });
         } else {
-            roomParticipantRepository.deleteByRoomIdAndUserId(roomId, userId);
+            long removed = roomParticipantRepository.deleteByRoomIdAndUserId(roomId, userId);
+            userChangeVersions.bump(userId);
+            AfterCommit.run(() -> {
+                roomMembershipIndex.invalidate(roomId);
+                roomStatsTracker.addParticipants(roomId, -removed);
+                syncPushService.roomRemoved(userId, roomId);
+            });
         }
     }
+
+    private static List<UUID> dmRoomIds(Collection<Room> rooms) {
+        return rooms.stream()
+                .filter(room -> room.getType() == RoomType.DM)
+                .map(Room::getId)
+                .toList();
+    }
 }
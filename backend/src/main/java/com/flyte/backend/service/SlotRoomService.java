@@ -0,0 +1,71 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.DTO.Room.SlotKey;
+import com.flyte.backend.cache.SlotRoomCache;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.repository.RoomRepository;
+import com.flyte.backend.repository.SlotRoomRepository;
+import com.flyte.backend.util.AfterCommit;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Finds or creates the room of a journey slot (SOURCE and DESTINATION
+ * lounges, FLIGHT rooms) through the slot_rooms registry. Each call costs at
+ * most one indexed query when the slot already has a room, and bookings
+ * racing for a new slot end up in the same room.
+ */
+@Service
+public class SlotRoomService {
+
+    private final SlotRoomRepository slotRoomRepository;
+    private final RoomRepository roomRepository;
+    private final SlotRoomCache slotRoomCache;
+
+    public SlotRoomService(SlotRoomRepository slotRoomRepository, RoomRepository roomRepository,
+            SlotRoomCache slotRoomCache) {
+        this.slotRoomRepository = slotRoomRepository;
+        this.roomRepository = roomRepository;
+        this.slotRoomCache = slotRoomCache;
+    }
+
+    /**
+     * The slot's room; when it has none yet, a new room with the given name,
+     * description and expiry. Call inside the booking's transaction.
+     */
+    public Room findOrCreate(SlotKey key, String name, String description, Instant expiryTime) {
+        UUID cachedId = slotRoomCache.get(key);
+        if (cachedId != null) {
+            Optional<Room> cached = roomRepository.findById(cachedId);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+            // Deleted since it was cached
+            slotRoomCache.evict(key);
+        }
+
+        Room room = findRegistered(key).orElseGet(() -> create(key, name, description, expiryTime));
+        AfterCommit.run(() -> slotRoomCache.put(key, room.getId(), room.getExpiryTime()));
+        return room;
+    }
+
+    private Room create(SlotKey key, String name, String description, Instant expiryTime) {
+        UUID roomId = UUID.randomUUID();
+        int inserted = slotRoomRepository.insertRoomIfAbsent(roomId, key.roomType().ordinal(), key.location(),
+                key.slot(), key.flightNumber(), name, description, expiryTime);
+        if (inserted == 0) {
+            // Another booking claimed the slot first; the insert waited for it to commit, so its room is visible
+            return findRegistered(key)
+                    .orElseThrow(() -> new IllegalStateException("Slot room vanished while being created"));
+        }
+        return roomRepository.findById(roomId)
+                .orElseThrow(() -> new IllegalStateException("Slot room not found after insert"));
+    }
+
+    private Optional<Room> findRegistered(SlotKey key) {
+        return slotRoomRepository.findRoom(key.roomType(), key.location(), key.slot(), key.flightNumber());
+    }
+}
@@ -0,0 +1,178 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Room.RoomMember;
+import com.flyte.backend.DTO.Room.RoomResponse;
+import com.flyte.backend.DTO.Sync.SyncMessagesDelta;
+import com.flyte.backend.DTO.Sync.SyncRoomDelta;
+import com.flyte.backend.DTO.Sync.SyncRoomRemoved;
+import com.flyte.backend.cache.RoomSequencer;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.globalWebsocketHandler.dto.GlobalWebSocketEnvelope;
+import com.flyte.backend.globalWebsocketHandler.enums.GlobalMessageType;
+import com.flyte.backend.repository.RoomParticipantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes sync deltas to '/topic/user/{id}', so a connected client keeps its
+ * rooms current without polling POST /api/sync.
+ *
+ * Room changes go out as they commit. Committed messages are buffered per
+ * room and flushed every flush-interval-ms, capped at the room's visible
+ * limit (RoomSequencer) so a push never runs ahead of a seq still in flight.
+ * Each push of a room covers (afterSeq, position]: 'afterSeq' is where the
+ * previous push of the room ended, or null when that is not known here (the
+ * first push since startup, after the room was idle for idle-timeout-minutes,
+ * or after a push was lost). Pushes of one room are split into batches of at
+ * most max-messages-per-push messages.
+ *
+ * Messages must be handed over after their transaction commits but before
+ * its seqs are released, i.e. from an AfterCommit callback registered inside
+ * the transaction; otherwise a flush could move past a seq it never saw.
+ */
+@Service
+public class SyncPushService {
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final RoomParticipantRepository roomParticipantRepository;
+    private final RoomSequencer roomSequencer;
+    private final boolean enabled;
+    private final int maxMessagesPerPush;
+    private final Duration idleTimeout;
+
+    // Committed messages waiting for the next flush, per room in seq order; guarded by itself
+    private final Map<UUID, TreeMap<Long, MessageView>> pending = new HashMap<>();
+    private final ConcurrentHashMap<UUID, PushedPosition> pushed = new ConcurrentHashMap<>();
+
+    public SyncPushService(SimpMessageSendingOperations messagingTemplate,
+            RoomParticipantRepository roomParticipantRepository,
+            RoomSequencer roomSequencer,
+            @Value("${app.sync.push.enabled:true}") boolean enabled,
+            @Value("${app.sync.push.max-messages-per-push:100}") int maxMessagesPerPush,
+            @Value("${app.sync.push.idle-timeout-minutes:30}") long idleTimeoutMinutes) {
+        if (maxMessagesPerPush < 1) {
+            throw new IllegalArgumentException("app.sync.push.max-messages-per-push must be at least 1");
+        }
+        this.messagingTemplate = messagingTemplate;
+        this.roomParticipantRepository = roomParticipantRepository;
+        this.roomSequencer = roomSequencer;
+        this.enabled = enabled;
+        this.maxMessagesPerPush = maxMessagesPerPush;
+        this.idleTimeout = Duration.ofMinutes(idleTimeoutMinutes);
+    }
+
+    public void messageCommitted(MessageView message) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (pending) {
+            pending.computeIfAbsent(message.roomId(), id -> new TreeMap<>()).put(message.seq(), message);
+        }
+    }
+
+    public void roomAdded(UUID userId, RoomResponse room, ConnectionStatus status) {
+        send(userId, GlobalMessageType.SYNC_ROOM_ADDED, new SyncRoomDelta(room, status));
+    }
+
+    public void roomStatusChanged(UUID userId, RoomResponse room, ConnectionStatus status) {
+        send(userId, GlobalMessageType.SYNC_ROOM_STATUS_CHANGED, new SyncRoomDelta(room, status));
+    }
+
+    public void roomRemoved(UUID userId, UUID roomId) {
+        send(userId, GlobalMessageType.SYNC_ROOM_REMOVED, new SyncRoomRemoved(roomId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.sync.push.flush-interval-ms:100}")
+    public void flush() {
+        Map<UUID, List<SyncMessagesDelta>> deltas = drainVisible();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<RoomMember> members;
+        try {
+            members = roomParticipantRepository.findMembersByRoomIdIn(deltas.keySet(), ConnectionStatus.NOT_CONNECTED);
+        } catch (RuntimeException e) {
+            // These messages are not pushed; the next push of each room says continuity is unknown
+            System.err.println("Failed to push messages of " + deltas.size() + " rooms: " + e.getMessage());
+            deltas.keySet().forEach(pushed::remove);
+            return;
+        }
+
+        for (RoomMember member : members) {
+            for (SyncMessagesDelta delta : deltas.get(member.roomId())) {
+                send(member.userId(), GlobalMessageType.SYNC_MESSAGES, delta);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.sync.push.sweep-interval-ms:60000}")
+    public void sweep() {
+        Instant idleCutoff = Instant.now().minus(idleTimeout);
+        pushed.entrySet().removeIf(entry -> entry.getValue().at().isBefore(idleCutoff));
+    }
+
+    private Map<UUID, List<SyncMessagesDelta>> drainVisible() {
+        Map<UUID, List<SyncMessagesDelta>> deltas = new HashMap<>();
+        Instant now = Instant.now();
+        synchronized (pending) {
+            Iterator<Map.Entry<UUID, TreeMap<Long, MessageView>>> rooms = pending.entrySet().iterator();
+            while (rooms.hasNext()) {
+                Map.Entry<UUID, TreeMap<Long, MessageView>> entry = rooms.next();
+                UUID roomId = entry.getKey();
+                TreeMap<Long, MessageView> messages = entry.getValue();
+                long position = roomSequencer.capToVisible(roomId, messages.lastKey());
+                SortedMap<Long, MessageView> visible = messages.headMap(position, true);
+                if (visible.isEmpty()) {
+                    continue;
+                }
+
+                PushedPosition previous = pushed.put(roomId, new PushedPosition(position, now));
+                deltas.put(roomId, batches(roomId, previous == null ? null : previous.position(),
+                        new ArrayList<>(visible.values()), position));
+                visible.clear();
+                if (messages.isEmpty()) {
+                    rooms.remove();
+                }
+            }
+        }
+        return deltas;
+    }
+
+    private List<SyncMessagesDelta> batches(UUID roomId, Long afterSeq, List<MessageView> messages, long position) {
+        List<SyncMessagesDelta> batches = new ArrayList<>();
+        for (int from = 0; from < messages.size(); from += maxMessagesPerPush) {
+            int to = Math.min(from + maxMessagesPerPush, messages.size());
+            // The last batch ends at the visible limit, which may sit above its last message
+            long end = to == messages.size() ? position : messages.get(to - 1).seq();
+            batches.add(new SyncMessagesDelta(roomId, afterSeq, end, List.copyOf(messages.subList(from, to))));
+            afterSeq = end;
+        }
+        return batches;
+    }
+
+    private void send(UUID userId, GlobalMessageType type, Object payload) {
+        if (!enabled) {
+            return;
+        }
+        messagingTemplate.convertAndSend("/topic/user/" + userId, new GlobalWebSocketEnvelope(type, payload));
+    }
+
+    private record PushedPosition(long position, Instant at) {
+    }
+}
@@ -1,117 +1,413 @@
 package com.flyte.backend.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Message.SeqRange;
+import com.flyte.backend.DTO.Room.RoomHead;
 import com.flyte.backend.DTO.Room.RoomResponse;
 import com.flyte.backend.DTO.Room.RoomWithMessages;
+import com.flyte.backend.DTO.Sync.SyncResponse;
+import com.flyte.backend.DTO.Sync.SyncStreamLine;
 import com.flyte.backend.DTO.User.UserResponse;
+import com.flyte.backend.cache.RoomActivityTracker;
+import com.flyte.backend.cache.UserChangeVersions;
 import com.flyte.backend.enums.ConnectionStatus;
 import com.flyte.backend.enums.RoomType;
 import com.flyte.backend.model.*;
 import com.flyte.backend.repository.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class SyncService {
 
+    // Wide enough for an FCM registration token
+    private static final int MAX_DEVICE_ID_LENGTH = 255;
+
     private final SyncTimeRepository syncTimeRepository;
     private final RoomParticipantRepository roomParticipantRepository;
-    private final MessageRepository messageRepository;
+    private final RoomRepository roomRepository;
+    private final MessageService messageService;
     private final UserRepository userRepository;
+    private final RoomActivityTracker roomActivityTracker;
+    private final SyncCursorRepository syncCursorRepository;
+    private final MessageWindowRepository messageWindowRepository;
+    private final UserChangeVersions userChangeVersions;
+    private final ObjectWriter lineWriter;
+    private final TransactionTemplate streamTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final int messagesPerRoom;
+    private final int streamFetchSize;
 
     public SyncService(SyncTimeRepository syncTimeRepository,
             RoomParticipantRepository roomParticipantRepository,
-            MessageRepository messageRepository,
-            UserRepository userRepository) {
+            RoomRepository roomRepository,
+            MessageService messageService,
+            UserRepository userRepository,
+            RoomActivityTracker roomActivityTracker,
+            SyncCursorRepository syncCursorRepository,
+            MessageWindowRepository messageWindowRepository,
+            UserChangeVersions userChangeVersions,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.sync.messages-per-room:50}") int messagesPerRoom,
+            @Value("${app.sync.stream-fetch-size:500}") int streamFetchSize) {
         this.syncTimeRepository = syncTimeRepository;
         this.roomParticipantRepository = roomParticipantRepository;
-        this.messageRepository = messageRepository;
+        this.roomRepository = roomRepository;
+        this.messageService = messageService;
         this.userRepository = userRepository;
+        this.roomActivityTracker = roomActivityTracker;
+        this.syncCursorRepository = syncCursorRepository;
+        this.messageWindowRepository = messageWindowRepository;
+        this.userChangeVersions = userChangeVersions;
+        // Flushing after every line would turn each message into its own network write
+        this.lineWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // Not read-only, so it stays off the replica: the sync time then moves to 'now',
+        // and anything the replica had not caught up on would never be sent
+        this.streamTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.messagesPerRoom = messagesPerRoom;
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    /**
+     * Seq based sync. 'positions' maps roomId to the last seq the client holds;
+     * rooms it leaves out fall back to the last acknowledged position. Only
+     * rooms whose head moved past that position, or that the client has never
+     * seen, are returned, each with its newest messages-per-room messages.
+     * Nothing is checkpointed here: the client calls {@link #acknowledge}
+     * once it has stored the data. Acknowledged positions are per device, so
+     * a device that never acknowledged gets each room's newest window only.
+     * Heads are read with the room list, one narrow row per room, and when
+     * none moved the call returns before loading any room, message or DM
+     * counterpart.
+     * Runs on the primary even with a replica configured: heads are capped
+     * in memory and must not run ahead of the messages read with them.
+     */
+    @Transactional
+    public SyncResponse sync(UUID userId, String deviceId, Map<UUID, Long> positions) {
+        String device = deviceKey(deviceId);
+        Map<UUID, Long> known = positions == null ? Map.of() : positions;
+        requireValidPositions(known);
+
+        Map<UUID, Long> storedHeads = new HashMap<>();
+        for (RoomHead head : roomParticipantRepository.findActiveRoomHeadsByUserIdAndStatusExcept(userId,
+                ConnectionStatus.NOT_CONNECTED, Instant.now())) {
+            storedHeads.put(head.roomId(), head.lastSeq());
+        }
+        Set<UUID> active = storedHeads.keySet();
+
+        // Acknowledged positions are only needed for rooms the client didn't send
+        Map<UUID, Long> acknowledged = known.keySet().containsAll(active)
+                ? Map.of()
+                : syncCursorRepository.findByUserIdAndDeviceId(userId, device);
+        Map<UUID, Long> heads = messageService.capHeadSeqs(storedHeads);
+
+        List<UUID> changedRoomIds = new ArrayList<>();
+        List<SeqRange> ranges = new ArrayList<>();
+        heads.forEach((roomId, head) -> {
+            Long position = known.containsKey(roomId) ? known.get(roomId) : acknowledged.get(roomId);
+            if (position != null && head <= position) {
+                return;
+            }
+            // A room the client has never seen is sent even when it has no messages yet
+            long after = position == null ? 0 : position;
+            changedRoomIds.add(roomId);
+            if (head > after) {
+                ranges.add(new SeqRange(roomId, after, head));
+            }
+        });
+
+        List<UUID> removed = known.keySet().stream().filter(roomId -> !active.contains(roomId)).toList();
+        if (changedRoomIds.isEmpty()) {
+            return new SyncResponse(List.of(), removed);
+        }
+        List<Room> changedRooms = roomRepository.findAllById(changedRoomIds);
+
+        // One extra row per room tells whether older unseen messages remain
+        Map<UUID, List<MessageView>> messagesByRoom = messageService.getNewestMessagesInRanges(ranges,
+                messagesPerRoom + 1);
+
+        Map<UUID, User> dmCounterparts = findDmCounterparts(changedRooms, userId);
+
+        List<RoomWithMessages> response = new ArrayList<>();
+        for (Room room : changedRooms) {
+            List<MessageView> roomMessages = messagesByRoom.getOrDefault(room.getId(), List.of());
+            boolean hasMore = roomMessages.size() > messagesPerRoom;
+
+            RoomWithMessages item = new RoomWithMessages();
+            item.setRoom(toRoomResponse(room, dmCounterparts));
+            item.setMessages(hasMore ? roomMessages.subList(0, messagesPerRoom) : roomMessages);
+            item.setHeadSeq(heads.getOrDefault(room.getId(), 0L));
+            item.setHasMore(hasMore);
+            response.add(item);
+        }
+        sortByLastMessage(response);
+        return new SyncResponse(response, removed);
+    }
+
+    /** Commits the device's positions; they only ever move forward. */
+    @Transactional
+    public void acknowledge(UUID userId, String deviceId, Map<UUID, Long> positions) {
+        String device = deviceKey(deviceId);
+        if (positions == null || positions.isEmpty()) {
+            return;
+        }
+        requireValidPositions(positions);
+        syncCursorRepository.advance(userId, device, positions);
+    }
+
+    private static void requireValidPositions(Map<UUID, Long> positions) {
+        positions.forEach((roomId, seq) -> {
+            if (roomId == null || seq == null || seq < 0) {
+                throw new IllegalArgumentException("Invalid sync position for room " + roomId);
+            }
+        });
     }
 
+    /**
+     * Sync for clients that don't send positions yet. The device's checkpoint
+     * is the seq each room had reached when it last synced (its sync_cursors,
+     * moved here without an ack), so a message that commits after a later
+     * one is still sent next time; a wall clock checkpoint taken before the
+     * read would skip it for good. Rooms the device holds no position for:
+     * <ul>
+     * <li>on a first sync, each room's newest 'messagesPerRoom' messages (page
+     * size when null) with hasMore, not its whole history;</li>
+     * <li>rooms created since the last sync, all of their messages;</li>
+     * <li>rooms of a device that last synced before positions were kept, the
+     * messages created since its sync time, once; the positions taken with
+     * them are used from then on.</li>
+     * </ul>
+     */
     @Transactional
-    public List<RoomWithMessages> getSyncData(UUID userId) {
+    public List<RoomWithMessages> getSyncData(UUID userId, String deviceId, Integer messagesPerRoom) {
         Instant now = Instant.now();
+        int perRoom = messageService.resolvePageSize(messagesPerRoom);
+        String device = deviceKey(deviceId);
 
-        // 1. Get last sync time for user
-        SyncTime syncTimeObj = syncTimeRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    SyncTime st = new SyncTime();
-                    st.setUser(userRepository.findById(userId)
-                            .orElseThrow(() -> new IllegalArgumentException("User not found")));
-                    // Default to epoch if first time syncing to get all history
-                    st.setSyncTime(Instant.EPOCH);
-                    return st;
-                });
+        // 1. Get last sync time and positions for the device
+        SyncTime syncTimeObj = findOrCreateSyncTime(userId, device);
 
         Instant since = syncTimeObj.getSyncTime();
         boolean isFirstSync = since.equals(Instant.EPOCH);
+        Map<UUID, Long> positions = isFirstSync
+                ? Map.of()
+                : syncCursorRepository.findByUserIdAndDeviceId(userId, device);
 
-        // 2. Get all active rooms for user
-        List<Room> userRooms = roomParticipantRepository.findRoomsByUserIdAndStatusExcept(userId,
-                ConnectionStatus.NOT_CONNECTED);
-
-        // Filter out expired rooms (unless it's the first sync and they are still
-        // valid)
-        List<Room> activeRooms = userRooms.stream()
-                .filter(room -> room.getExpiryTime() == null || now.isBefore(room.getExpiryTime()))
-                .collect(Collectors.toList());
+        // 2. Get all active (not expired) rooms for user, and how far each has got
+        List<Room> activeRooms = roomParticipantRepository.findActiveRoomsByUserIdAndStatusExcept(userId,
+                ConnectionStatus.NOT_CONNECTED, now);
 
         List<UUID> roomIds = activeRooms.stream().map(Room::getId).toList();
+        Map<UUID, Long> heads = roomIds.isEmpty() ? Map.of() : messageService.getHeadSeqs(roomIds);
 
-        // 3. Get new messages since last sync for those rooms
-        Map<UUID, List<Message>> messagesByRoom = new HashMap<>();
-        if (!roomIds.isEmpty()) {
-            List<Message> newMessages = messageRepository
-                    .findByRoom_IdInAndCreatedAtGreaterThanOrderByCreatedAtDesc(roomIds, since);
-            messagesByRoom = newMessages.stream().collect(Collectors.groupingBy(m -> m.getRoom().getId()));
+        // 3. Split the rooms by what the device already holds (buffered rooms skip the queries)
+        List<SeqRange> windows = new ArrayList<>();
+        List<SeqRange> ranges = new ArrayList<>();
+        List<UUID> unpositioned = new ArrayList<>();
+        Set<UUID> newRoomIds = new HashSet<>();
+        Map<UUID, Long> reached = new HashMap<>();
+        for (Room room : activeRooms) {
+            UUID roomId = room.getId();
+            long head = heads.getOrDefault(roomId, 0L);
+            Long position = positions.get(roomId);
+            if (position != null) {
+                if (head > position) {
+                    ranges.add(new SeqRange(roomId, position, head));
+                    reached.put(roomId, head);
+                }
+                continue;
+            }
+            reached.put(roomId, head);
+            if (!isFirstSync && !room.getCreatedAt().isAfter(since)) {
+                unpositioned.add(roomId);
+                continue;
+            }
+            newRoomIds.add(roomId);
+            if (head > 0) {
+                (isFirstSync ? windows : ranges).add(new SeqRange(roomId, 0, head));
+            }
         }
 
-        // 4. Build response: Rooms created after 'since' OR rooms with new messages
+        // A window takes one row more per room to tell whether older ones remain
+        Map<UUID, List<MessageView>> messagesByRoom = new HashMap<>();
+        messagesByRoom.putAll(messageService.getNewestMessagesInRanges(windows, perRoom + 1));
+        messagesByRoom.putAll(messageService.getNewestMessagesInRanges(ranges, Integer.MAX_VALUE));
+        if (!unpositioned.isEmpty()) {
+            messagesByRoom.putAll(messageService.getMessagesByRoomIdsSince(unpositioned, since));
+        }
+
+        // 4. Other side of every DM, in one query
+        Map<UUID, User> dmCounterparts = findDmCounterparts(activeRooms, userId);
+
+        // 5. Build response: rooms new to the device OR rooms with new messages
         List<RoomWithMessages> response = new ArrayList<>();
         for (Room room : activeRooms) {
-            boolean isNewRoom = isFirstSync || room.getCreatedAt().isAfter(since);
-            List<Message> roomMessages = messagesByRoom.getOrDefault(room.getId(), new ArrayList<>());
+            List<MessageView> roomMessages = messagesByRoom.getOrDefault(room.getId(), new ArrayList<>());
+            boolean hasMore = isFirstSync && roomMessages.size() > perRoom;
 
-            if (isNewRoom || !roomMessages.isEmpty()) {
+            if (newRoomIds.contains(room.getId()) || !roomMessages.isEmpty()) {
                 RoomWithMessages item = new RoomWithMessages();
-                RoomResponse roomResponse = new RoomResponse(room);
-
-                // Handle DM naming (show other participant's name)
-                if (room.getType() == RoomType.DM) {
-                    roomParticipantRepository.findOtherParticipant(room.getId(), userId, RoomType.DM)
-                            .ifPresent(otherParticipant -> {
-                                roomResponse.setName(otherParticipant.getUser().getNickname());
-                                roomResponse.setOtherUser(new UserResponse(otherParticipant.getUser()));
-                            });
-                }
-
-                item.setRoom(roomResponse);
-                item.setMessages(roomMessages);
+                item.setRoom(toRoomResponse(room, dmCounterparts));
+                item.setMessages(hasMore ? roomMessages.subList(0, perRoom) : roomMessages);
+                item.setHasMore(hasMore);
                 response.add(item);
             }
         }
+        sortByLastMessage(response);
 
-        // 5. Update sync time
+        // 6. Move the positions to the heads read above, and the sync time
+        if (!reached.isEmpty()) {
+            syncCursorRepository.advance(userId, device, reached);
+        }
         syncTimeObj.setSyncTime(now);
         syncTimeRepository.save(syncTimeObj);
 
         return response;
     }
 
-    @Transactional
-    public void resetSyncTime(UUID userId) {
-        SyncTime syncTimeObj = syncTimeRepository.findByUserId(userId)
+    /**
+     * Streaming variant of {@link #getSyncData} for first syncs with a long
+     * history. Writes NDJSON while rows are read: a {"room": ...} line before
+     * the first message of each room, one {"message": ...} line per message in
+     * seq order, then lines for new rooms without messages. Messages come
+     * through a cursor of stream-fetch-size rows, so memory per request is
+     * bounded by the room list, not the history. The sync time only moves
+     * once everything has been written.
+     */
+    public void streamSyncData(UUID userId, String deviceId, OutputStream out) throws IOException {
+        Instant now = Instant.now();
+        String device = deviceKey(deviceId);
+        JsonGenerator json = lineWriter.getFactory().createGenerator(out);
+        // Lines are separated by hand below
+        json.setRootValueSeparator(null);
+
+        SyncTime syncTimeObj;
+        try {
+            syncTimeObj = streamTransaction.execute(status -> {
+                SyncTime st = findOrCreateSyncTime(userId, device);
+                Instant since = st.getSyncTime();
+                boolean isFirstSync = since.equals(Instant.EPOCH);
+
+                List<Room> activeRooms = roomParticipantRepository.findActiveRoomsByUserIdAndStatusExcept(userId,
+                        ConnectionStatus.NOT_CONNECTED, now);
+                Map<UUID, Room> roomsById = new LinkedHashMap<>();
+                activeRooms.forEach(room -> roomsById.put(room.getId(), room));
+                Map<UUID, User> dmCounterparts = findDmCounterparts(activeRooms, userId);
+
+                Set<UUID> written = new HashSet<>();
+                messageWindowRepository.streamSince(List.copyOf(roomsById.keySet()), since, streamFetchSize,
+                        message -> {
+                            if (written.add(message.roomId())) {
+                                writeLine(json, SyncStreamLine.of(
+                                        toRoomResponse(roomsById.get(message.roomId()), dmCounterparts)));
+                            }
+                            writeLine(json, SyncStreamLine.of(message));
+                        });
+
+                for (Room room : activeRooms) {
+                    boolean isNewRoom = isFirstSync || room.getCreatedAt().isAfter(since);
+                    if (isNewRoom && written.add(room.getId())) {
+                        writeLine(json, SyncStreamLine.of(toRoomResponse(room, dmCounterparts)));
+                    }
+                }
+                return st;
+            });
+        } catch (UncheckedIOException e) {
+            // The client went away; keep the old sync time so the next call resends
+            throw e.getCause();
+        }
+        json.flush();
+
+        syncTimeObj.setSyncTime(now);
+        writeTransaction.executeWithoutResult(status -> syncTimeRepository.save(syncTimeObj));
+    }
+
+    private void writeLine(JsonGenerator json, SyncStreamLine line) {
+        try {
+            lineWriter.writeValue(json, line);
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private SyncTime findOrCreateSyncTime(UUID userId, String device) {
+        return syncTimeRepository.findByUserIdAndDeviceId(userId, device)
                 .orElseGet(() -> {
                     SyncTime st = new SyncTime();
                     st.setUser(userRepository.findById(userId)
                             .orElseThrow(() -> new IllegalArgumentException("User not found")));
+                    st.setDeviceId(device);
+                    // A device's first sync starts from epoch, which getSyncData bounds to the newest window
+                    st.setSyncTime(Instant.EPOCH);
                     return st;
                 });
+    }
+
+    // For a device that lost its local data; the user's other devices keep their checkpoints
+    @Transactional
+    public void resetSyncTime(UUID userId, String deviceId) {
+        String device = deviceKey(deviceId);
+        SyncTime syncTimeObj = findOrCreateSyncTime(userId, device);
         syncTimeObj.setSyncTime(Instant.EPOCH);
         syncTimeRepository.save(syncTimeObj);
+        // Same for seq based sync: rooms without a client position start from scratch again
+        syncCursorRepository.deleteByUserIdAndDeviceId(userId, device);
+        // A tag from before the reset would otherwise keep answering 304 to the full resync
+        userChangeVersions.bump(userId);
+    }
+
+    // Clients that don't send a device id share the '' checkpoint
+    private static String deviceKey(String deviceId) {
+        if (deviceId == null || deviceId.isBlank()) {
+            return "";
+        }
+        String device = deviceId.trim();
+        if (device.length() > MAX_DEVICE_ID_LENGTH) {
+            throw new IllegalArgumentException("Device ID is longer than " + MAX_DEVICE_ID_LENGTH + " characters");
+        }
+        return device;
+    }
+
+    private Map<UUID, User> findDmCounterparts(List<Room> rooms, UUID userId) {
+        List<UUID> dmRoomIds = rooms.stream()
+                .filter(room -> room.getType() == RoomType.DM)
+                .map(Room::getId)
+                .toList();
+        return roomParticipantRepository.findDmCounterparts(dmRoomIds, userId);
+    }
+
+    private RoomResponse toRoomResponse(Room room, Map<UUID, User> dmCounterparts) {
+        RoomResponse roomResponse = new RoomResponse(room);
+        roomResponse.setLastMessageTimestamp(roomActivityTracker.lastMessageTimestamp(room));
+
+        // Handle DM naming (show other participant's name)
+        User otherUser = dmCounterparts.get(room.getId());
+        if (otherUser != null) {
+            roomResponse.setName(otherUser.getNickname());
+            roomResponse.setOtherUser(new UserResponse(otherUser));
+        }
+        return roomResponse;
+    }
+
+    // Most recently active first; rooms without messages go last
+    private static void sortByLastMessage(List<RoomWithMessages> rooms) {
+        rooms.sort(Comparator.comparing(item -> item.getRoom().getLastMessageTimestamp(),
+                Comparator.nullsLast(Comparator.<Instant>reverseOrder())));
     }
 }
\ No newline at end of file
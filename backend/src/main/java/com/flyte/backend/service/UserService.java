@@ -2,7 +2,9 @@ package com.flyte.backend.service;
 
 import com.flyte.backend.DTO.User.UserRequest;
 import com.flyte.backend.DTO.User.UserResponse;
+import com.flyte.backend.enums.RoomType;
 import com.flyte.backend.model.User;
+import com.flyte.backend.repository.InboxEntryRepository;
 import com.flyte.backend.repository.UserRepository;
 
 import jakarta.transaction.Transactional;
@@ -14,16 +16,23 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final SyncService syncService;
+    private final InboxEntryRepository inboxEntryRepository;
 
-    public UserService(UserRepository userRepository, SyncService syncService) {
+    public UserService(UserRepository userRepository, SyncService syncService,
+            InboxEntryRepository inboxEntryRepository) {
         this.userRepository = userRepository;
         this.syncService = syncService;
+        this.inboxEntryRepository = inboxEntryRepository;
     }
 
     @Transactional
     public UserResponse findOrCreateUser(UserRequest userRequest) {
         User user = userRepository.findByEmail(userRequest.email)
                 .map(existingUser -> {
+                    // DMs are listed under the other member's name, so their inbox rows follow a rename
+                    if (userRequest.name != null && !userRequest.name.equals(existingUser.getName())) {
+                        inboxEntryRepository.renameDmCounterpart(existingUser.getId(), userRequest.name, RoomType.DM);
+                    }
                     // Update existing user's information if needed
                     existingUser.setName(userRequest.name);
                     existingUser.setProfilePictureUrl(userRequest.profilePictureUrl);
@@ -44,7 +53,12 @@ public class UserService {
                     return userRepository.save(newUser);
                 });
 
-        syncService.resetSyncTime(user.getId());
+        // A device that sends its id keeps its sync checkpoint across logins, and a new one starts
+        // from its first sync. Without an id a fresh install can't be told from a known device,
+        // so the shared checkpoint still restarts as it always has
+        if (userRequest.deviceId == null || userRequest.deviceId.isBlank()) {
+            syncService.resetSyncTime(user.getId(), null);
+        }
         return new UserResponse(user);
     }
 
@@ -0,0 +1,21 @@
+package com.flyte.backend.util;
+
+import java.util.UUID;
+
+/**
+ * Canonical key of the DM room between two users (rooms.dm_key): both ids
+ * in their text form, smaller first, so either user asking for the DM gets
+ * the same key. Compared as strings to match the ordering V9 used to
+ * backfill existing rooms.
+ */
+public final class DmKey {
+
+    private DmKey() {
+    }
+
+    public static String of(UUID userId1, UUID userId2) {
+        String a = userId1.toString();
+        String b = userId2.toString();
+        return a.compareTo(b) <= 0 ? a + ":" + b : b + ":" + a;
+    }
+}
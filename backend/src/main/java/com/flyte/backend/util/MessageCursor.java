@@ -0,0 +1,64 @@
+package com.flyte.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+import com.flyte.backend.DTO.Message.MessageView;
+
+import lombok.Data;
+
+/**
+ * Opaque keyset cursor for message history.
+ * A cursor points at one message by its (createdAt, id) pair, which is unique
+ * and matches the sort order of the history queries.
+ * Clients should treat the encoded value as an opaque string.
+ */
+@Data
+public class MessageCursor implements Comparable<MessageCursor> {
+
+    private final Instant createdAt;
+    private final UUID id;
+
+    public static MessageCursor of(MessageView message) {
+        return new MessageCursor(message.createdAt(), message.id());
+    }
+
+    /**
+     * Same order as the SQL keyset. Postgres compares uuids as unsigned bytes,
+     * unlike UUID.compareTo, so ties on createdAt are broken the Postgres way.
+     */
+    @Override
+    public int compareTo(MessageCursor other) {
+        int byTime = createdAt.compareTo(other.createdAt);
+        if (byTime != 0) {
+            return byTime;
+        }
+        int byHigh = Long.compareUnsigned(id.getMostSignificantBits(), other.id.getMostSignificantBits());
+        if (byHigh != 0) {
+            return byHigh;
+        }
+        return Long.compareUnsigned(id.getLeastSignificantBits(), other.id.getLeastSignificantBits());
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MessageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new MessageCursor(Instant.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
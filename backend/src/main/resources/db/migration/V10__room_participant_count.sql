@@ -0,0 +1,9 @@
+-- Participants per room, kept by RoomMessageCounter like message_count:
+-- buffered deltas plus the periodic recount.
+ALTER TABLE room_stats ADD COLUMN IF NOT EXISTS participant_count BIGINT NOT NULL DEFAULT 0;
+
+INSERT INTO room_stats (room_id, message_count, participant_count)
+SELECT p.room_id, 0, COUNT(*)
+FROM dm_participants p
+GROUP BY p.room_id
+ON CONFLICT (room_id) DO UPDATE SET participant_count = EXCLUDED.participant_count;
@@ -0,0 +1,40 @@
+-- Registry of journey rooms: one room per (type, location, slot, flight number),
+-- so concurrent bookings for the same slot share one room. Lounges use an empty
+-- flight number; FLIGHT rooms use 'SRC-DST' as location and 'srcSlot-dstSlot' as slot.
+-- Goes away with the room, so the reaper needs no extra work.
+CREATE TABLE IF NOT EXISTS slot_rooms (
+    room_id       UUID PRIMARY KEY,
+    room_type     SMALLINT     NOT NULL CHECK (room_type BETWEEN 0 AND 2),
+    location      VARCHAR(255) NOT NULL,
+    slot          VARCHAR(255) NOT NULL,
+    flight_number VARCHAR(255) NOT NULL DEFAULT '',
+    CONSTRAINT fk_slot_rooms_room FOREIGN KEY (room_id) REFERENCES rooms (id) ON DELETE CASCADE,
+    -- SlotRoomRepository.findRoom, and the conflict target of insertRoomIfAbsent
+    CONSTRAINT uq_slot_rooms_key UNIQUE (room_type, location, slot, flight_number)
+);
+
+-- Existing rooms, from the journeys that point at them. Where concurrent bookings
+-- already created several rooms for one slot, the room of the oldest journey is kept.
+INSERT INTO slot_rooms (room_id, room_type, location, slot, flight_number)
+SELECT DISTINCT ON (source, source_slot) source_room_id, 0, source, source_slot, ''
+FROM journeys
+WHERE source IS NOT NULL AND source_slot IS NOT NULL
+ORDER BY source, source_slot, created_at
+ON CONFLICT DO NOTHING;
+
+INSERT INTO slot_rooms (room_id, room_type, location, slot, flight_number)
+SELECT DISTINCT ON (destination, destination_slot) destination_room_id, 1, destination, destination_slot, ''
+FROM journeys
+WHERE destination IS NOT NULL AND destination_slot IS NOT NULL
+ORDER BY destination, destination_slot, created_at
+ON CONFLICT DO NOTHING;
+
+INSERT INTO slot_rooms (room_id, room_type, location, slot, flight_number)
+SELECT DISTINCT ON (source, destination, source_slot, destination_slot, COALESCE(flight_number, ''))
+       flight_room_id, 2, source || '-' || destination, source_slot || '-' || destination_slot,
+       COALESCE(flight_number, '')
+FROM journeys
+WHERE source IS NOT NULL AND destination IS NOT NULL
+  AND source_slot IS NOT NULL AND destination_slot IS NOT NULL
+ORDER BY source, destination, source_slot, destination_slot, COALESCE(flight_number, ''), created_at
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,16 @@
+-- Seqs are now allocated from room_stats.last_seq inside the inserting transaction
+-- (RoomSequencer), and message_count is bumped in the same statement. Bring both up
+-- to date first: until now they were flushed asynchronously and may lag the messages.
+INSERT INTO room_stats (room_id, message_count, last_seq)
+SELECT m.room_id, COUNT(*), MAX(m.seq)
+FROM messages m
+GROUP BY m.room_id
+ON CONFLICT (room_id) DO UPDATE SET message_count = EXCLUDED.message_count,
+                                    last_seq = GREATEST(room_stats.last_seq, EXCLUDED.last_seq);
+
+-- Postgres only accepts unique indexes on a partitioned table when they contain the
+-- partition key. This one therefore only rejects a duplicate seq written in the same
+-- microsecond; RoomSequencer checks for a taken seq before using it. It also serves
+-- every lookup the old (room_id, seq) index did.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_messages_room_seq ON messages (room_id, seq, created_at);
+DROP INDEX IF EXISTS idx_messages_room_seq;
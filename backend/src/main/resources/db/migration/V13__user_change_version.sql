@@ -0,0 +1,3 @@
+-- Per-user version behind the room list and sync ETags (UserChangeVersions).
+-- Moved in the transaction of every membership change, so all instances see it with the change.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS change_version BIGINT NOT NULL DEFAULT 0;
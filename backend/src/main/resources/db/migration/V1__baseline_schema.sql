@@ -0,0 +1,101 @@
+-- Schema as Hibernate's ddl-auto used to create it. IF NOT EXISTS everywhere so
+-- databases that were managed by ddl-auto can run this as a no-op.
+
+CREATE TABLE IF NOT EXISTS users (
+    id                  UUID PRIMARY KEY,
+    created_at          TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at          TIMESTAMP WITH TIME ZONE,
+    name                VARCHAR(255) NOT NULL,
+    email               VARCHAR(255) NOT NULL UNIQUE,
+    phone_number        VARCHAR(255),
+    profile_picture_url VARCHAR(255),
+    nickname            VARCHAR(255) UNIQUE
+);
+
+CREATE INDEX IF NOT EXISTS idx_nickname ON users (nickname);
+
+CREATE TABLE IF NOT EXISTS rooms (
+    id                     UUID PRIMARY KEY,
+    created_at             TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at             TIMESTAMP WITH TIME ZONE,
+    name                   VARCHAR(255) NOT NULL,
+    description            VARCHAR(255),
+    type                   SMALLINT NOT NULL CHECK (type BETWEEN 0 AND 3),
+    expiry_time            TIMESTAMP(6) WITH TIME ZONE,
+    last_message_timestamp TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE TABLE IF NOT EXISTS messages (
+    id           UUID PRIMARY KEY,
+    created_at   TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at   TIMESTAMP WITH TIME ZONE,
+    room_id      UUID NOT NULL,
+    user_id      UUID NOT NULL,
+    message_text VARCHAR(255) NOT NULL,
+    messagehtml  VARCHAR(255) NOT NULL,
+    media_type   SMALLINT NOT NULL CHECK (media_type BETWEEN 0 AND 3),
+    media_link   VARCHAR(255),
+    CONSTRAINT fk_room_id FOREIGN KEY (room_id) REFERENCES rooms (id) ON DELETE CASCADE,
+    CONSTRAINT fk_user_id FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_messages_room_created ON messages (room_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_messages_user_created ON messages (user_id, created_at, id);
+
+CREATE TABLE IF NOT EXISTS dm_participants (
+    id         UUID PRIMARY KEY,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE,
+    room_id    UUID NOT NULL,
+    user_id    UUID NOT NULL,
+    status     VARCHAR(255) NOT NULL
+        CHECK (status IN ('CONNECTED', 'SENT', 'RECEIVED', 'NOT_CONNECTED')),
+    UNIQUE (room_id, user_id),
+    CONSTRAINT fk_dm_room FOREIGN KEY (room_id) REFERENCES rooms (id) ON DELETE CASCADE,
+    CONSTRAINT fk_dm_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS journeys (
+    id                  UUID PRIMARY KEY,
+    created_at          TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at          TIMESTAMP WITH TIME ZONE,
+    name                VARCHAR(255),
+    source              VARCHAR(255),
+    destination         VARCHAR(255),
+    depart_time         TIMESTAMP WITH TIME ZONE NOT NULL,
+    arrival_time        TIMESTAMP WITH TIME ZONE NOT NULL,
+    destination_slot    VARCHAR(255),
+    source_slot         VARCHAR(255),
+    flight_number       VARCHAR(255),
+    user_id             UUID NOT NULL,
+    source_room_id      UUID NOT NULL,
+    destination_room_id UUID NOT NULL,
+    flight_room_id      UUID NOT NULL,
+    CONSTRAINT fk_journey_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_journey_source_room FOREIGN KEY (source_room_id) REFERENCES rooms (id),
+    CONSTRAINT fk_journey_destination_room FOREIGN KEY (destination_room_id) REFERENCES rooms (id),
+    CONSTRAINT fk_journey_flight_room FOREIGN KEY (flight_room_id) REFERENCES rooms (id)
+);
+
+CREATE TABLE IF NOT EXISTS sync_time (
+    id         UUID PRIMARY KEY,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE,
+    user_id    UUID NOT NULL UNIQUE,
+    sync_time  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT fk_user_id FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS user_device_tokens (
+    id         UUID PRIMARY KEY,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE,
+    user_id    UUID NOT NULL REFERENCES users (id),
+    fcm_token  VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS room_stats (
+    room_id       UUID PRIMARY KEY,
+    message_count BIGINT NOT NULL,
+    CONSTRAINT fk_room_stats_room FOREIGN KEY (room_id) REFERENCES rooms (id) ON DELETE CASCADE
+);
@@ -0,0 +1,48 @@
+-- One index per repository query that had none. Column order follows the
+-- WHERE clause (equality columns first); INCLUDE columns let the planner
+-- answer from the index alone. QueryPlanTest fails if any of these queries
+-- falls back to a sequential scan.
+
+-- RoomParticipantRepository.findByUserId, findByUserIdAndStatus,
+-- findRoomsByUserIdAndStatusExcept, findRoomForUsers
+CREATE INDEX IF NOT EXISTS idx_dm_participants_user_status
+    ON dm_participants (user_id, status) INCLUDE (room_id);
+
+-- findByRoomId, existsByRoomIdAndUserId, findByRoomIdAndUserId and deletes by
+-- room use the (room_id, user_id) unique constraint.
+
+-- JourneyRepository.findBySourceAndSourceSlot
+CREATE INDEX IF NOT EXISTS idx_journeys_source_slot
+    ON journeys (source, source_slot);
+
+-- JourneyRepository.findByDestinationAndDestinationSlot
+CREATE INDEX IF NOT EXISTS idx_journeys_destination_slot
+    ON journeys (destination, destination_slot);
+
+-- JourneyRepository.findByFlightNumber and the full flight/slot lookup
+CREATE INDEX IF NOT EXISTS idx_journeys_flight
+    ON journeys (flight_number, source, source_slot, destination, destination_slot);
+
+-- JourneyRepository.findByUserId
+CREATE INDEX IF NOT EXISTS idx_journeys_user
+    ON journeys (user_id);
+
+-- RoomRepository.findByName
+CREATE INDEX IF NOT EXISTS idx_rooms_name
+    ON rooms (name);
+
+-- RoomRepository.findByType, findByTypeAndExpiryTimeGreaterThan
+CREATE INDEX IF NOT EXISTS idx_rooms_type_expiry
+    ON rooms (type, expiry_time);
+
+-- RoomRepository.findByExpiryTimeGreaterThan
+CREATE INDEX IF NOT EXISTS idx_rooms_expiry
+    ON rooms (expiry_time);
+
+-- UserRepository.findByPhoneNumber
+CREATE INDEX IF NOT EXISTS idx_users_phone_number
+    ON users (phone_number);
+
+-- UserDeviceTokenRepository.findByUserId
+CREATE INDEX IF NOT EXISTS idx_user_device_tokens_user
+    ON user_device_tokens (user_id) INCLUDE (fcm_token);
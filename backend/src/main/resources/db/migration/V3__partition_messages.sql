@@ -0,0 +1,52 @@
+-- Range-partition messages by created_at, one partition per calendar month (UTC).
+-- Partitions are named messages_pYYYYMM; MessagePartitionMaintainer creates the
+-- upcoming ones and drops those past the retention horizon.
+--
+-- Postgres requires the partition key in the primary key, so it becomes
+-- (id, created_at). Ids are random UUIDs, and nothing references messages by FK.
+
+ALTER TABLE messages RENAME TO messages_unpartitioned;
+ALTER TABLE messages_unpartitioned RENAME CONSTRAINT messages_pkey TO messages_unpartitioned_pkey;
+ALTER INDEX idx_messages_room_created RENAME TO idx_messages_unpartitioned_room;
+ALTER INDEX idx_messages_user_created RENAME TO idx_messages_unpartitioned_user;
+
+CREATE TABLE messages (
+    id           UUID NOT NULL,
+    created_at   TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at   TIMESTAMP WITH TIME ZONE,
+    room_id      UUID NOT NULL,
+    user_id      UUID NOT NULL,
+    message_text VARCHAR(255) NOT NULL,
+    messagehtml  VARCHAR(255) NOT NULL,
+    media_type   SMALLINT NOT NULL CHECK (media_type BETWEEN 0 AND 3),
+    media_link   VARCHAR(255),
+    CONSTRAINT messages_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_room_id FOREIGN KEY (room_id) REFERENCES rooms (id) ON DELETE CASCADE,
+    CONSTRAINT fk_user_id FOREIGN KEY (user_id) REFERENCES users (id)
+) PARTITION BY RANGE (created_at);
+
+-- Declared on the parent, so every partition gets its own copy
+CREATE INDEX idx_messages_room_created ON messages (room_id, created_at, id);
+CREATE INDEX idx_messages_user_created ON messages (user_id, created_at, id);
+
+-- Partitions from the oldest existing message up to three months ahead
+DO $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month',
+            COALESCE((SELECT MIN(created_at) FROM messages_unpartitioned), now()) AT TIME ZONE 'UTC');
+    last_month  TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '3 months';
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF messages FOR VALUES FROM (%L) TO (%L)',
+                'messages_p' || to_char(month_start, 'YYYYMM'),
+                month_start AT TIME ZONE 'UTC',
+                (month_start + INTERVAL '1 month') AT TIME ZONE 'UTC');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO messages (id, created_at, updated_at, room_id, user_id, message_text, messagehtml, media_type, media_link)
+SELECT id, created_at, updated_at, room_id, user_id, message_text, messagehtml, media_type, media_link
+FROM messages_unpartitioned;
+
+DROP TABLE messages_unpartitioned;
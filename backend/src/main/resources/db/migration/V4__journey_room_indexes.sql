@@ -0,0 +1,5 @@
+-- ExpiredRoomReaper deletes journeys by any of their three rooms
+-- (JourneyRepository.deleteByAnyRoomIdIn); without these each batch scans journeys.
+CREATE INDEX IF NOT EXISTS idx_journeys_source_room ON journeys (source_room_id);
+CREATE INDEX IF NOT EXISTS idx_journeys_destination_room ON journeys (destination_room_id);
+CREATE INDEX IF NOT EXISTS idx_journeys_flight_room ON journeys (flight_room_id);
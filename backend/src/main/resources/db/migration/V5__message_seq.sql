@@ -0,0 +1,18 @@
+-- Per-room message sequence numbers, allocated by RoomSequencer.
+-- Existing history is numbered 1..n per room in (created_at, id) order.
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS seq BIGINT;
+
+UPDATE messages m
+SET seq = numbered.seq
+FROM (SELECT id, created_at,
+             row_number() OVER (PARTITION BY room_id ORDER BY created_at, id) AS seq
+      FROM messages) numbered
+WHERE m.id = numbered.id
+  AND m.created_at = numbered.created_at;
+
+ALTER TABLE messages ALTER COLUMN seq SET NOT NULL;
+
+-- Room pages, gap fills and the sequencer's MAX(seq) seed.
+-- Not UNIQUE: a unique index on a partitioned table must include created_at,
+-- which would not stop duplicates anyway; the sequencer is the only writer of seq.
+CREATE INDEX IF NOT EXISTS idx_messages_room_seq ON messages (room_id, seq);
@@ -0,0 +1,24 @@
+-- Each room's newest seq, kept next to message_count by RoomMessageCounter.
+-- Sync compares it with the client's positions without touching messages.
+ALTER TABLE room_stats ADD COLUMN IF NOT EXISTS last_seq BIGINT NOT NULL DEFAULT 0;
+
+INSERT INTO room_stats (room_id, message_count, last_seq)
+SELECT m.room_id, COUNT(*), MAX(m.seq)
+FROM messages m
+GROUP BY m.room_id
+ON CONFLICT (room_id) DO UPDATE SET last_seq = EXCLUDED.last_seq;
+
+-- Acknowledged sync positions: the last seq per room a user has confirmed receiving.
+-- Used for rooms the client does not send a position for.
+CREATE TABLE IF NOT EXISTS sync_cursors (
+    user_id    UUID        NOT NULL,
+    room_id    UUID        NOT NULL,
+    last_seq   BIGINT      NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (user_id, room_id),
+    CONSTRAINT fk_sync_cursors_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_sync_cursors_room FOREIGN KEY (room_id) REFERENCES rooms (id) ON DELETE CASCADE
+);
+
+-- Serves the cascade when ExpiredRoomReaper deletes rooms
+CREATE INDEX IF NOT EXISTS idx_sync_cursors_room ON sync_cursors (room_id);
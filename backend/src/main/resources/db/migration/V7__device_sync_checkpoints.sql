@@ -0,0 +1,33 @@
+-- Sync checkpoints per device instead of per user, so signing in on one device
+-- no longer restarts sync on the others. device_id is chosen by the client
+-- (a generated install id, or its FCM token); '' is the checkpoint shared by
+-- clients that do not send one, which is what every existing row becomes.
+
+ALTER TABLE sync_time ADD COLUMN IF NOT EXISTS device_id VARCHAR(255) NOT NULL DEFAULT '';
+
+-- The unique constraint on user_id alone has a generated name on databases
+-- created by the old ddl-auto: update, so it is found by its column
+DO $$
+DECLARE
+    old_constraint TEXT;
+BEGIN
+    FOR old_constraint IN
+        SELECT c.conname
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)
+        WHERE c.conrelid = 'sync_time'::regclass AND c.contype = 'u'
+        GROUP BY c.conname
+        HAVING array_agg(a.attname::TEXT) = ARRAY['user_id']
+    LOOP
+        EXECUTE format('ALTER TABLE sync_time DROP CONSTRAINT %I', old_constraint);
+    END LOOP;
+END $$;
+
+-- SyncTimeRepository.findByUserIdAndDeviceId, and the user FK cascade
+ALTER TABLE sync_time ADD CONSTRAINT uq_sync_time_user_device UNIQUE (user_id, device_id);
+
+ALTER TABLE sync_cursors ADD COLUMN IF NOT EXISTS device_id VARCHAR(255) NOT NULL DEFAULT '';
+
+-- SyncCursorRepository reads and writes by (user_id, device_id)
+ALTER TABLE sync_cursors DROP CONSTRAINT IF EXISTS sync_cursors_pkey;
+ALTER TABLE sync_cursors ADD PRIMARY KEY (user_id, device_id, room_id);
@@ -0,0 +1,62 @@
+-- Per-participant read cursor: the newest seq of the room the user has read.
+-- Unread count = room's last seq - last_read_seq.
+ALTER TABLE dm_participants ADD COLUMN IF NOT EXISTS last_read_seq BIGINT NOT NULL DEFAULT 0;
+
+-- Everything sent before the cursors existed counts as read
+UPDATE dm_participants p
+SET last_read_seq = s.last_seq
+FROM room_stats s
+WHERE s.room_id = p.room_id AND p.last_read_seq < s.last_seq;
+
+-- Inbox read model: one row per participant with what the room list shows,
+-- kept current by InboxTracker from the message write path. Goes away with
+-- the participant, so leaving, deleting a room or the reaper need no extra work.
+CREATE TABLE IF NOT EXISTS inbox_entries (
+    participant_id       UUID PRIMARY KEY,
+    user_id              UUID         NOT NULL,
+    room_id              UUID         NOT NULL,
+    room_type            SMALLINT     NOT NULL CHECK (room_type BETWEEN 0 AND 3),
+    display_name         VARCHAR(255) NOT NULL,
+    last_message_preview VARCHAR(255),
+    last_sender_name     VARCHAR(255),
+    last_activity_at     TIMESTAMPTZ  NOT NULL,
+    last_seq             BIGINT       NOT NULL DEFAULT 0,
+    expiry_time          TIMESTAMPTZ,
+    CONSTRAINT fk_inbox_entries_participant FOREIGN KEY (participant_id)
+        REFERENCES dm_participants (id) ON DELETE CASCADE
+);
+
+-- InboxEntryRepository pages: one range scan per page, newest activity first
+CREATE INDEX IF NOT EXISTS idx_inbox_entries_user_activity
+    ON inbox_entries (user_id, last_activity_at DESC, room_id DESC);
+
+-- InboxBatchRepository.advanceRooms updates every member's row of a room
+CREATE INDEX IF NOT EXISTS idx_inbox_entries_room
+    ON inbox_entries (room_id);
+
+-- DMs are shown under the other member's name, like the room list does
+INSERT INTO inbox_entries (participant_id, user_id, room_id, room_type, display_name, last_message_preview,
+                           last_sender_name, last_activity_at, last_seq, expiry_time)
+SELECT p.id, p.user_id, p.room_id, r.type,
+       CASE WHEN r.type = 3 THEN COALESCE(other.name, r.name) ELSE r.name END,
+       last_message.message_text, last_message.sender_name,
+       COALESCE(r.last_message_timestamp, r.created_at), COALESCE(s.last_seq, 0), r.expiry_time
+FROM dm_participants p
+JOIN rooms r ON r.id = p.room_id
+LEFT JOIN room_stats s ON s.room_id = p.room_id
+LEFT JOIN LATERAL (
+    SELECT u.name
+    FROM dm_participants o
+    JOIN users u ON u.id = o.user_id
+    WHERE o.room_id = p.room_id AND o.user_id <> p.user_id
+    LIMIT 1
+) other ON r.type = 3
+LEFT JOIN LATERAL (
+    SELECT m.message_text, COALESCE(u.nickname, u.name) AS sender_name
+    FROM messages m
+    JOIN users u ON u.id = m.user_id
+    WHERE m.room_id = p.room_id
+    ORDER BY m.seq DESC
+    LIMIT 1
+) last_message ON TRUE
+ON CONFLICT (participant_id) DO NOTHING;
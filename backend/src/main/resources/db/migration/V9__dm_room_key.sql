@@ -0,0 +1,28 @@
+-- Canonical key of a DM room: its two user ids as text, smaller first,
+-- joined by ':' (DmKey). NULL for every other room type.
+ALTER TABLE rooms ADD COLUMN IF NOT EXISTS dm_key VARCHAR(73);
+
+-- Existing DMs get the key of their two members. Where concurrent requests
+-- already created several DMs for the same pair, the oldest one keeps the key
+-- and is the one returned from now on.
+WITH pairs AS (
+    SELECT p.room_id,
+           MIN(p.user_id::text COLLATE "C") || ':' || MAX(p.user_id::text COLLATE "C") AS dm_key,
+           r.created_at
+    FROM dm_participants p
+    JOIN rooms r ON r.id = p.room_id
+    WHERE r.type = 3
+    GROUP BY p.room_id, r.created_at
+    HAVING COUNT(*) = 2
+), ranked AS (
+    SELECT room_id, dm_key,
+           ROW_NUMBER() OVER (PARTITION BY dm_key ORDER BY created_at, room_id) AS rank
+    FROM pairs
+)
+UPDATE rooms r
+SET dm_key = ranked.dm_key
+FROM ranked
+WHERE ranked.room_id = r.id AND ranked.rank = 1 AND r.dm_key IS NULL;
+
+-- RoomRepository.findByDmKey, and the conflict target of insertDmRoomIfAbsent
+CREATE UNIQUE INDEX IF NOT EXISTS ux_rooms_dm_key ON rooms (dm_key);
@@ -0,0 +1,118 @@
+package com.flyte.backend.DTO.Message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.flyte.backend.DTO.Room.RoomResponse;
+import com.flyte.backend.DTO.Room.RoomWithMessages;
+import com.flyte.backend.enums.MediaType;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.model.Message;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Size and time of a 1,000-message room payload, entity graph vs MessageView.
+ * Numbers are printed for comparison; the assertions only guard the direction.
+ */
+class MessageViewSerializationTest {
+
+    private static final int MESSAGES = 1_000;
+    private static final int ROUNDS = 50;
+
+    // Same setup as Spring Boot's auto-configured mapper
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    void roomWithMessages_IsSmallerWithViews() throws Exception {
+        Room room = room();
+        List<User> senders = List.of(user("Alice", "alice"), user("Bob", null), user("Carol", "carol"));
+        List<Message> entities = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            entities.add(message(room, senders.get(i % senders.size()), i));
+        }
+
+        // Before: what RoomWithMessages carried when it held entities
+        Map<String, Object> before = new LinkedHashMap<>();
+        before.put("room", new RoomResponse(room));
+        before.put("messages", entities);
+
+        RoomWithMessages after = new RoomWithMessages();
+        after.setRoom(new RoomResponse(room));
+        after.setMessages(entities.stream().map(MessageView::from).toList());
+
+        byte[] entityJson = objectMapper.writeValueAsBytes(before);
+        byte[] viewJson = objectMapper.writeValueAsBytes(after);
+        long entityNanos = time(before);
+        long viewNanos = time(after);
+
+        System.out.printf("Entity payload: %,d bytes, %.2f ms%n", entityJson.length, entityNanos / 1e6);
+        System.out.printf("View payload:   %,d bytes, %.2f ms%n", viewJson.length, viewNanos / 1e6);
+
+        assertTrue(viewJson.length < entityJson.length);
+        String viewText = new String(viewJson);
+        assertFalse(viewText.contains("@example.com"), "Sender emails must not leak into message payloads");
+        assertFalse(viewText.contains("phoneNumber"));
+    }
+
+    // Average over several rounds after a warm-up so JIT noise doesn't dominate
+    private long time(Object payload) throws Exception {
+        for (int i = 0; i < ROUNDS; i++) {
+            objectMapper.writeValueAsBytes(payload);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            objectMapper.writeValueAsBytes(payload);
+        }
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+
+    private Room room() {
+        Room room = new Room();
+        room.setId(UUID.randomUUID());
+        room.setName("Gate B12 departures");
+        room.setDescription("Passengers on the evening flight");
+        room.setType(RoomType.FLIGHT);
+        room.setCreatedAt(Instant.parse("2026-01-01T00:00:00Z"));
+        room.setExpiryTime(Instant.parse("2026-01-02T00:00:00Z"));
+        return room;
+    }
+
+    private User user(String name, String nickname) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setName(name);
+        user.setNickname(nickname);
+        user.setEmail(name.toLowerCase() + "@example.com");
+        user.setPhoneNumber("+15550100");
+        user.setProfilePictureUrl("https://cdn.example.com/avatars/" + user.getId() + ".png");
+        return user;
+    }
+
+    private Message message(Room room, User sender, int i) {
+        Message message = new Message();
+        message.setId(UUID.randomUUID());
+        message.setRoom(room);
+        message.setSeq((long) i + 1);
+        message.setUser(sender);
+        message.setMessageText("Message number " + i);
+        message.setMessageHTML("<p>Message number " + i + "</p>");
+        message.setMediaType(MediaType.TEXT);
+        message.setCreatedAt(room.getCreatedAt().plusSeconds(i));
+        message.setUpdatedAt(message.getCreatedAt());
+        return message;
+    }
+}
@@ -0,0 +1,26 @@
+package com.flyte.backend;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+/**
+ * A throwaway Postgres for slice tests that need the real schema. Use with
+ * {@code @AutoConfigureTestDatabase(replace = NONE)}; Flyway migrates it on startup.
+ */
+@TestConfiguration
+public class EmbeddedDatabaseConfig {
+
+    @Bean(destroyMethod = "close")
+    EmbeddedPostgres embeddedPostgres() throws IOException {
+        return EmbeddedPostgres.start();
+    }
+
+    @Bean
+    DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+        return embeddedPostgres.getPostgresDatabase();
+    }
+}
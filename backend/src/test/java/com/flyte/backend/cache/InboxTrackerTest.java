@@ -0,0 +1,93 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Room.RoomMember;
+import com.flyte.backend.enums.MediaType;
+import com.flyte.backend.repository.InboxBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InboxTrackerTest {
+
+    @Mock
+    private InboxBatchRepository inboxBatchRepository;
+
+    private InboxTracker tracker;
+    private UUID roomId;
+    private UUID alice;
+    private UUID bob;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new InboxTracker(inboxBatchRepository, new SimpleMeterRegistry());
+        roomId = UUID.randomUUID();
+        alice = UUID.randomUUID();
+        bob = UUID.randomUUID();
+    }
+
+    @Test
+    void flush_WritesTheNewestMessagePerRoomAndEachSendersReadCursor() {
+        tracker.record(message(2, alice));
+        tracker.record(message(3, bob));
+        tracker.record(message(1, alice)); // committed late
+
+        tracker.flush();
+
+        assertEquals(List.of(3L), flushedSeqs());
+        verify(inboxBatchRepository).advanceReadCursors(Map.of(
+                new RoomMember(roomId, alice), 2L,
+                new RoomMember(roomId, bob), 3L));
+    }
+
+    @Test
+    void flush_ClearsWhatItWrote() {
+        tracker.record(message(1, alice));
+
+        tracker.flush();
+        tracker.flush();
+
+        verify(inboxBatchRepository, times(1)).advanceRooms(any());
+        verify(inboxBatchRepository, times(1)).advanceReadCursors(anyMap());
+    }
+
+    @Test
+    void flush_KeepsPendingMessagesWhenTheWriteFails() {
+        tracker.record(message(1, alice));
+        doThrow(new RuntimeException("connection refused")).doNothing().when(inboxBatchRepository).advanceRooms(any());
+
+        tracker.flush();
+        tracker.flush();
+
+        verify(inboxBatchRepository, times(2)).advanceRooms(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> flushedSeqs() {
+        ArgumentCaptor<Collection<MessageView>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(inboxBatchRepository).advanceRooms(captor.capture());
+        return captor.getValue().stream().map(MessageView::seq).toList();
+    }
+
+    private MessageView message(long seq, UUID senderId) {
+        Instant at = Instant.parse("2026-01-01T00:00:00Z").plusSeconds(seq);
+        return new MessageView(UUID.randomUUID(), roomId, seq, senderId, "Traveller", "Message " + seq, null,
+                MediaType.TEXT, null, at, at);
+    }
+}
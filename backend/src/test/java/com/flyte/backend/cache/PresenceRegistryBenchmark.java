@@ -0,0 +1,83 @@
+package com.flyte.backend.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sessions spread over rooms, connected, subscribed and torn down from
+ * several threads at once; prints the time per phase.
+ *
+ * Runs with {@code mvn -Pbenchmark test}. Scale it with -Dbenchmark.sessions,
+ * -Dbenchmark.rooms and -Dbenchmark.threads.
+ */
+class PresenceRegistryBenchmark {
+
+    private static final int SESSIONS = Integer.getInteger("benchmark.sessions", 100_000);
+    private static final int ROOMS = Integer.getInteger("benchmark.rooms", 1_000);
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 8);
+
+    @Test
+    void sessionsConnectAndLeaveConcurrently() throws Exception {
+        PresenceRegistry registry = new PresenceRegistry(new SimpleMeterRegistry());
+        List<UUID> rooms = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            rooms.add(UUID.randomUUID());
+        }
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            users.add(UUID.randomUUID());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            runStriped(pool, i -> {
+                registry.connect("s" + i, users.get(i));
+                registry.subscribe("s" + i, "sub-0", rooms.get(i % ROOMS));
+            });
+            long joinedMicros = (System.nanoTime() - start) / 1_000;
+            assertEquals(SESSIONS, registry.sessionCount());
+
+            start = System.nanoTime();
+            Map<UUID, Map<UUID, Boolean>> changes = registry.drainChanges();
+            long drainMicros = (System.nanoTime() - start) / 1_000;
+            assertEquals(ROOMS, changes.size());
+
+            start = System.nanoTime();
+            runStriped(pool, i -> registry.disconnect("s" + i));
+            long leftMicros = (System.nanoTime() - start) / 1_000;
+            assertEquals(0, registry.sessionCount());
+
+            System.out.printf("Presence, %d sessions in %d rooms on %d threads: join %d ms, drain %d ms, leave %d ms%n",
+                    SESSIONS, ROOMS, THREADS, joinedMicros / 1_000, drainMicros / 1_000, leftMicros / 1_000);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void runStriped(ExecutorService pool, IntConsumer task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int first = t;
+            futures.add(pool.submit(() -> {
+                for (int i = first; i < SESSIONS; i += THREADS) {
+                    task.accept(i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.flyte.backend.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresenceRegistryTest {
+
+    private PresenceRegistry registry;
+    private UUID lounge;
+    private UUID alice;
+    private UUID bob;
+
+    @BeforeEach
+    void setUp() {
+        registry = new PresenceRegistry(new SimpleMeterRegistry());
+        lounge = UUID.randomUUID();
+        alice = UUID.randomUUID();
+        bob = UUID.randomUUID();
+    }
+
+    @Test
+    void subscribe_CountsAUserWithTwoDevicesOnce() {
+        registry.connect("phone", alice);
+        registry.connect("tablet", alice);
+        registry.subscribe("phone", "sub-0", lounge);
+        registry.subscribe("tablet", "sub-0", lounge);
+
+        registry.disconnect("phone");
+
+        assertEquals(1, registry.onlineCount(lounge));
+        assertTrue(registry.isOnline(alice));
+        assertEquals(Map.of(lounge, Map.of(alice, true)), registry.drainChanges());
+    }
+
+    @Test
+    void disconnect_TakesTheUserOutOfEveryRoom() {
+        UUID gate = UUID.randomUUID();
+        registry.connect("phone", alice);
+        registry.subscribe("phone", "sub-0", lounge);
+        registry.subscribe("phone", "sub-1", gate);
+        registry.drainChanges();
+
+        registry.disconnect("phone");
+
+        assertEquals(0, registry.onlineCount(lounge));
+        assertEquals(0, registry.onlineCount(gate));
+        assertFalse(registry.isOnline(alice));
+        assertEquals(Map.of(lounge, Map.of(alice, false), gate, Map.of(alice, false)), registry.drainChanges());
+    }
+
+    @Test
+    void drainChanges_KeepsTheLatestStatePerUser() {
+        registry.connect("alice", alice);
+        registry.connect("bob", bob);
+        registry.subscribe("alice", "sub-0", lounge);
+        registry.subscribe("bob", "sub-0", lounge);
+        registry.unsubscribe("alice", "sub-0");
+
+        assertEquals(Map.of(lounge, Map.of(alice, false, bob, true)), registry.drainChanges());
+        assertTrue(registry.drainChanges().isEmpty());
+    }
+
+    @Test
+    void subscribe_IgnoresUnknownSessions() {
+        registry.subscribe("never-connected", "sub-0", lounge);
+
+        assertEquals(0, registry.onlineCount(lounge));
+        assertTrue(registry.drainChanges().isEmpty());
+    }
+
+    @Test
+    void sessionsConnectAndLeaveConcurrently_KeepTheCountsExact() throws Exception {
+        int sessions = 10_000;
+        int roomCount = 100;
+        int threads = 8;
+        List<UUID> rooms = new ArrayList<>();
+        for (int i = 0; i < roomCount; i++) {
+            rooms.add(UUID.randomUUID());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            runStriped(pool, threads, sessions, i -> {
+                registry.connect("s" + i, UUID.randomUUID());
+                registry.subscribe("s" + i, "sub-0", rooms.get(i % roomCount));
+            });
+            assertEquals(sessions, registry.sessionCount());
+            assertEquals(sessions / roomCount, registry.onlineCount(rooms.get(0)));
+            assertEquals(roomCount, registry.drainChanges().size());
+
+            runStriped(pool, threads, sessions, i -> registry.disconnect("s" + i));
+            assertEquals(0, registry.sessionCount());
+            assertEquals(0, registry.onlineCount(rooms.get(0)));
+            assertEquals(roomCount, registry.drainChanges().size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void runStriped(ExecutorService pool, int threads, int count, IntConsumer task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            futures.add(pool.submit(() -> {
+                for (int i = first; i < count; i += threads) {
+                    task.accept(i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.DTO.Message.MessageView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentMessageCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RecentMessageCache cache;
+    private UUID roomId;
+    private Instant base;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RecentMessageCache(meterRegistry, 3, 10, 30);
+        roomId = UUID.randomUUID();
+        base = Instant.parse("2026-01-01T00:00:00Z");
+    }
+
+    @Test
+    void unanchoredBuffer_DoesNotServeReads() {
+        cache.append(message(1), null);
+
+        assertNull(cache.latest(roomId, 1, 1));
+        assertEquals(1.0, meterRegistry.get("flyte.recent_messages.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void seededBuffer_ServesLatestAndKeepsAppends() {
+        cache.seed(roomId, List.of(message(2), message(1)), true);
+        MessageView newest = message(3);
+        cache.append(newest, null);
+
+        List<MessageView> latest = cache.latest(roomId, 5, 3);
+
+        assertNotNull(latest);
+        assertEquals(3, latest.size());
+        assertEquals(newest.id(), latest.get(0).id());
+    }
+
+    @Test
+    void overflow_DropsOldestAndStopsBeingExhaustive() {
+        MessageView second = message(2);
+        cache.seed(roomId, List.of(second, message(1)), true);
+        cache.append(message(3), null);
+        cache.append(message(4), null);
+
+        // Only 3 of 4 messages are held now
+        assertNull(cache.all(roomId));
+        assertNull(cache.before(roomId, second.seq(), 2));
+        assertEquals(3, cache.latest(roomId, 3, 4).size());
+    }
+
+    @Test
+    void after_RequiresWindowToReachCursor() {
+        cache.seed(roomId, List.of(message(4), message(3), message(2)), false);
+
+        assertEquals(2, cache.after(roomId, 2, 10, 4).size());
+        // The window starts right after the cursor, so nothing can be missing
+        assertEquals(3, cache.after(roomId, 1, 10, 4).size());
+        // Seq 1 is not buffered: it may exist in the database
+        assertNull(cache.after(roomId, 0, 10, 4));
+    }
+
+    @Test
+    void reads_MissWhenAnotherInstanceMovedTheHeadUntilReseeded() {
+        cache.seed(roomId, List.of(message(2), message(1)), true);
+
+        // Seq 3 was sent through another instance and never appended here
+        assertNull(cache.latest(roomId, 5, 3));
+        assertNull(cache.after(roomId, 2, 10, 3));
+        assertNull(cache.since(roomId, base, 3));
+        // The buffer stays unanchored even for reads it could still answer
+        assertNull(cache.latest(roomId, 5, 2));
+
+        cache.seed(roomId, List.of(message(3), message(2), message(1)), true);
+        assertEquals(List.of(3L, 2L, 1L), cache.latest(roomId, 5, 3).stream().map(MessageView::seq).toList());
+    }
+
+    @Test
+    void reads_MissOnAGapInTheBuffer() {
+        cache.seed(roomId, List.of(message(2), message(1)), true);
+        // Seq 3 went through another instance, seq 4 through this one
+        cache.append(message(4), null);
+
+        assertNull(cache.latest(roomId, 5, 4));
+        assertNull(cache.after(roomId, 1, 10, 4));
+    }
+
+    @Test
+    void seed_DropsBufferedMessagesTheSeedAlreadyCovers() {
+        cache.seed(roomId, List.of(message(2), message(1)), true);
+        cache.append(message(5), null);
+
+        cache.seed(roomId, List.of(message(4), message(3), message(2)), false);
+
+        assertEquals(List.of(5L, 4L, 3L, 2L), cache.latest(roomId, 4, 5).stream().map(MessageView::seq).toList());
+    }
+
+    @Test
+    void reads_StopAtVisibleLimit() {
+        cache.seed(roomId, List.of(message(2), message(1)), true);
+        // Seq 3 is still in flight when seq 4 commits
+        cache.append(message(4), null);
+
+        assertEquals(List.of(2L, 1L), cache.latest(roomId, 5, 2).stream().map(MessageView::seq).toList());
+        assertTrue(cache.after(roomId, 2, 10, 2).isEmpty());
+    }
+
+    @Test
+    void expiredRoom_IsNotBuffered() {
+        Instant expiryTime = Instant.now().minusSeconds(60);
+        cache.append(message(1), expiryTime);
+
+        assertNull(cache.latest(roomId, 1, 1));
+    }
+
+    // Seq and timestamp both follow 'second'
+    private MessageView message(int second) {
+        Instant createdAt = base.plusSeconds(second);
+        return new MessageView(UUID.randomUUID(), roomId, second, UUID.randomUUID(), "sender", "text", null,
+                null, null, createdAt, createdAt);
+    }
+}
@@ -0,0 +1,196 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.BenchmarkDatabaseConfig;
+import com.flyte.backend.DTO.Message.CreateMessageRequest;
+import com.flyte.backend.enums.MediaType;
+import com.flyte.backend.repository.MessageBatchRepository;
+import com.flyte.backend.repository.MessageWindowRepository;
+import com.flyte.backend.repository.RoomStatsBatchRepository;
+import com.flyte.backend.service.MessageService;
+import com.flyte.backend.service.SyncPushService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 200 writers sending into one room against embedded Postgres, the case
+ * RoomActivityTracker exists for. Compares bumping rooms.last_message_timestamp
+ * in every message transaction with recording it here and flushing once a
+ * second. Both run the real MessageService.createMessage, so both also hold
+ * the room's room_stats row lock while allocating the seq; the difference is
+ * what the rooms row lock adds on top of that.
+ *
+ * Runs with {@code mvn -Pbenchmark test}. Scale it with -Dbenchmark.writers,
+ * -Dbenchmark.messages-per-writer and -Dbenchmark.pool-size.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ BenchmarkDatabaseConfig.class, MessageService.class, RoomActivityTracker.class, RoomSequencer.class,
+        MessageBatchRepository.class, MessageWindowRepository.class, RoomStatsBatchRepository.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RoomActivityBenchmark {
+
+    private static final int WRITERS = Integer.getInteger("benchmark.writers", 200);
+    private static final int MESSAGES_PER_WRITER = Integer.getInteger("benchmark.messages-per-writer", 50);
+
+    @MockitoBean
+    private RoomMembershipIndex roomMembershipIndex;
+    @MockitoBean
+    private RecentMessageCache recentMessageCache;
+    @MockitoBean
+    private UserChangeVersions userChangeVersions;
+    @MockitoBean
+    private SyncPushService syncPushService;
+    @MockitoBean
+    private InboxTracker inboxTracker;
+
+    @Autowired
+    private MessageService messageService;
+    @Autowired
+    private RoomActivityTracker roomActivityTracker;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UUID userId;
+    private final List<UUID> roomIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, created_at, name, email) VALUES (?, now(), 'bench', ?)",
+                userId, userId + "@example.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Cascades to the messages and room_stats rows
+        for (UUID roomId : roomIds) {
+            jdbcTemplate.update("DELETE FROM rooms WHERE id = ?", roomId);
+        }
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    void perMessageUpdateAgainstDeferredFlush() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // Warm up: JIT, connection pool, plans
+        UUID warmUp = room();
+        run(warmUp, () -> messageService.createMessage(request(warmUp)));
+
+        // How sends worked before the tracker: the rooms row is updated inside the message transaction
+        UUID perMessage = room();
+        Run inline = run(perMessage, () -> transaction.executeWithoutResult(status -> {
+            messageService.createMessage(request(perMessage));
+            jdbcTemplate.update("UPDATE rooms SET last_message_timestamp = ? WHERE id = ?",
+                    new Timestamp(System.currentTimeMillis()), perMessage);
+        }));
+        report("per-message UPDATE rooms", inline);
+
+        // Now: createMessage records into the tracker after commit; a background flush writes the room
+        UUID deferred = room();
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+        try {
+            flusher.scheduleWithFixedDelay(roomActivityTracker::flush, 1, 1, TimeUnit.SECONDS);
+            report("deferred flush", run(deferred, () -> messageService.createMessage(request(deferred))));
+        } finally {
+            flusher.shutdown();
+            assertTrue(flusher.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        roomActivityTracker.flush();
+
+        for (UUID roomId : List.of(perMessage, deferred)) {
+            assertNotNull(jdbcTemplate.queryForObject("SELECT last_message_timestamp FROM rooms WHERE id = ?",
+                    Timestamp.class, roomId));
+        }
+    }
+
+    // Every writer sends MESSAGES_PER_WRITER messages to the room
+    private Run run(UUID roomId, Runnable send) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] latencies = new long[WRITERS * MESSAGES_PER_WRITER];
+        long elapsed;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int offset = w * MESSAGES_PER_WRITER;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < MESSAGES_PER_WRITER; i++) {
+                        long started = System.nanoTime();
+                        send.run();
+                        latencies[offset + i] = System.nanoTime() - started;
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsed = System.nanoTime() - started;
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(latencies.length, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM messages WHERE room_id = ?", Long.class, roomId));
+        return new Run(elapsed, latencies);
+    }
+
+    private UUID room() {
+        UUID roomId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO rooms (id, created_at, name, type) VALUES (?, now(), 'Bench', 0)", roomId);
+        roomIds.add(roomId);
+        return roomId;
+    }
+
+    private CreateMessageRequest request(UUID roomId) {
+        CreateMessageRequest request = new CreateMessageRequest();
+        request.setRoomId(roomId);
+        request.setUserId(userId);
+        request.setMessageText("hello");
+        request.setMessageHTML("hello");
+        request.setMediaType(MediaType.TEXT);
+        return request;
+    }
+
+    private static void report(String mode, Run run) {
+        long[] nanos = run.latencies();
+        double averageMs = Arrays.stream(nanos).average().orElse(0) / 1_000_000;
+        Arrays.sort(nanos);
+        System.out.printf("%-25s %d writers, one room: %.0f messages/s, send avg %.2f ms, p99 %.2f ms%n",
+                mode, WRITERS, nanos.length / (run.elapsedNanos() / 1e9), averageMs,
+                nanos[(int) (nanos.length * 0.99)] / 1e6);
+    }
+
+    private record Run(long elapsedNanos, long[] latencies) {
+    }
+}
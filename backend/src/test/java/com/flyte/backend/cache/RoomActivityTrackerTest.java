@@ -0,0 +1,102 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.model.Room;
+import com.flyte.backend.repository.MessageBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomActivityTrackerTest {
+
+    @Mock
+    private MessageBatchRepository messageBatchRepository;
+
+    private RoomActivityTracker tracker;
+    private Room room;
+    private Instant base;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new RoomActivityTracker(messageBatchRepository, new SimpleMeterRegistry());
+        room = new Room();
+        room.setId(UUID.randomUUID());
+        base = Instant.parse("2026-01-01T00:00:00Z");
+    }
+
+    @Test
+    void record_OnlyMovesForward() {
+        tracker.record(room.getId(), base.plusSeconds(5));
+        tracker.record(room.getId(), base.plusSeconds(3));
+
+        assertEquals(base.plusSeconds(5), tracker.lastMessageTimestamp(room));
+    }
+
+    @Test
+    void lastMessageTimestamp_PrefersNewerStoredValue() {
+        room.setLastMessageTimestamp(base.plusSeconds(10));
+        tracker.record(room.getId(), base.plusSeconds(5));
+
+        assertEquals(base.plusSeconds(10), tracker.lastMessageTimestamp(room));
+    }
+
+    @Test
+    void flush_WritesPendingRoomsInOneBatchAndClearsThem() {
+        tracker.record(room.getId(), base.plusSeconds(1));
+
+        tracker.flush();
+        tracker.flush();
+
+        verify(messageBatchRepository, times(1)).touchRooms(Map.of(room.getId(), base.plusSeconds(1)));
+        assertNull(tracker.lastMessageTimestamp(room));
+    }
+
+    @Test
+    void flush_KeepsPendingValuesWhenTheWriteFails() {
+        tracker.record(room.getId(), base.plusSeconds(1));
+        doThrow(new RuntimeException("connection refused")).when(messageBatchRepository).touchRooms(anyMap());
+
+        tracker.flush();
+
+        assertEquals(base.plusSeconds(1), tracker.lastMessageTimestamp(room));
+    }
+
+    @Test
+    void record_KeepsTheNewestTimestampUnderConcurrentSenders() throws Exception {
+        int senders = 50;
+        int messagesPerSender = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(senders);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int s = 0; s < senders; s++) {
+            int sender = s;
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < messagesPerSender; i++) {
+                    tracker.record(room.getId(), base.plusNanos((long) i * senders + sender));
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(base.plusNanos((long) messagesPerSender * senders - 1), tracker.lastMessageTimestamp(room));
+    }
+}
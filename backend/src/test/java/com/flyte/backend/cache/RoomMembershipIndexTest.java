@@ -0,0 +1,143 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.DTO.Room.MemberStatus;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.repository.RoomParticipantRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomMembershipIndexTest {
+
+    @Mock
+    private RoomParticipantRepository roomParticipantRepository;
+
+    private RoomMembershipIndex index;
+    private UUID roomId;
+    private UUID alice;
+    private UUID bob;
+
+    @BeforeEach
+    void setUp() {
+        index = new RoomMembershipIndex(roomParticipantRepository, new SimpleMeterRegistry(), 100, 30);
+        roomId = UUID.randomUUID();
+        alice = UUID.randomUUID();
+        bob = UUID.randomUUID();
+    }
+
+    @Test
+    void statusOf_LoadsTheRoomOnce() {
+        when(roomParticipantRepository.findMemberStatusesByRoomId(roomId)).thenReturn(List.of(
+                new MemberStatus(alice, ConnectionStatus.CONNECTED, RoomType.DM, null),
+                new MemberStatus(bob, ConnectionStatus.RECEIVED, RoomType.DM, null)));
+
+        assertEquals(ConnectionStatus.CONNECTED, index.statusOf(roomId, alice));
+        assertEquals(ConnectionStatus.RECEIVED, index.statusOf(roomId, bob));
+        assertNull(index.statusOf(roomId, UUID.randomUUID()));
+        assertEquals(RoomType.DM, index.roomType(roomId));
+        assertEquals(Set.of(alice, bob), index.memberIds(roomId));
+
+        verify(roomParticipantRepository, times(1)).findMemberStatusesByRoomId(roomId);
+    }
+
+    @Test
+    void invalidate_ReloadsTheRoomOnTheNextCheck() {
+        when(roomParticipantRepository.findMemberStatusesByRoomId(roomId))
+                .thenReturn(List.of(new MemberStatus(alice, ConnectionStatus.CONNECTED, RoomType.SOURCE, null)))
+                .thenReturn(List.of(
+                        new MemberStatus(alice, ConnectionStatus.CONNECTED, RoomType.SOURCE, null),
+                        new MemberStatus(bob, ConnectionStatus.CONNECTED, RoomType.SOURCE, null)));
+
+        assertFalse(index.isMember(roomId, bob));
+        index.invalidate(roomId);
+
+        assertTrue(index.isMember(roomId, bob));
+        verify(roomParticipantRepository, times(2)).findMemberStatusesByRoomId(roomId);
+    }
+
+    @Test
+    void statusOf_ReloadsARoomPastItsTtlHoweverOftenItIsRead() {
+        RoomMembershipIndex noTtl = new RoomMembershipIndex(roomParticipantRepository, new SimpleMeterRegistry(),
+                100, 0);
+        when(roomParticipantRepository.findMemberStatusesByRoomId(roomId))
+                .thenReturn(List.of(new MemberStatus(alice, ConnectionStatus.CONNECTED, RoomType.SOURCE, null)))
+                // Alice left through another instance, whose invalidation never reached this one
+                .thenReturn(List.of());
+
+        assertTrue(noTtl.isMember(roomId, alice));
+        assertFalse(noTtl.isMember(roomId, alice));
+    }
+
+    @Test
+    void currentStatusOf_ReadsTheRowAndDropsACachedRoomThatDisagrees() {
+        when(roomParticipantRepository.findMemberStatusesByRoomId(roomId))
+                .thenReturn(List.of(new MemberStatus(alice, ConnectionStatus.CONNECTED, RoomType.DM, null)));
+        when(roomParticipantRepository.findStatusByRoomIdAndUserId(roomId, alice))
+                .thenReturn(Optional.of(ConnectionStatus.NOT_CONNECTED));
+
+        index.statusOf(roomId, alice);
+        assertEquals(ConnectionStatus.NOT_CONNECTED, index.currentStatusOf(roomId, alice));
+        index.statusOf(roomId, alice);
+
+        verify(roomParticipantRepository, times(2)).findMemberStatusesByRoomId(roomId);
+    }
+
+    @Test
+    void senderStatusOf_AnswersGroupRoomsFromTheIndex() {
+        when(roomParticipantRepository.findMemberStatusesByRoomId(roomId))
+                .thenReturn(List.of(new MemberStatus(alice, ConnectionStatus.CONNECTED, RoomType.FLIGHT, null)));
+
+        assertEquals(ConnectionStatus.CONNECTED, index.senderStatusOf(roomId, alice));
+        assertEquals(ConnectionStatus.CONNECTED, index.senderStatusOf(roomId, alice));
+
+        verify(roomParticipantRepository, times(1)).findMemberStatusesByRoomId(roomId);
+        verify(roomParticipantRepository, never()).findStatusByRoomIdAndUserId(any(), any());
+    }
+
+    @Test
+    void senderStatusOf_ReadsTheRowForDmsAndUnlistedUsers() {
+        UUID group = UUID.randomUUID();
+        when(roomParticipantRepository.findMemberStatusesByRoomId(roomId))
+                .thenReturn(List.of(new MemberStatus(alice, ConnectionStatus.CONNECTED, RoomType.DM, null)));
+        when(roomParticipantRepository.findMemberStatusesByRoomId(group))
+                .thenReturn(List.of(new MemberStatus(alice, ConnectionStatus.CONNECTED, RoomType.FLIGHT, null)));
+        when(roomParticipantRepository.findStatusByRoomIdAndUserId(roomId, alice))
+                .thenReturn(Optional.of(ConnectionStatus.CONNECTED));
+        // Bob joined the flight room through another instance
+        when(roomParticipantRepository.findStatusByRoomIdAndUserId(group, bob))
+                .thenReturn(Optional.of(ConnectionStatus.CONNECTED));
+
+        assertEquals(ConnectionStatus.CONNECTED, index.senderStatusOf(roomId, alice));
+        assertEquals(ConnectionStatus.CONNECTED, index.senderStatusOf(group, bob));
+
+        verify(roomParticipantRepository).findStatusByRoomIdAndUserId(roomId, alice);
+        verify(roomParticipantRepository).findStatusByRoomIdAndUserId(group, bob);
+    }
+
+    @Test
+    void sweep_DropsExpiredRooms() {
+        when(roomParticipantRepository.findMemberStatusesByRoomId(roomId)).thenReturn(List.of(
+                new MemberStatus(alice, ConnectionStatus.CONNECTED, RoomType.FLIGHT, Instant.now().minusSeconds(1))));
+
+        index.isMember(roomId, alice);
+        index.sweep();
+        index.isMember(roomId, alice);
+
+        verify(roomParticipantRepository, times(2)).findMemberStatusesByRoomId(roomId);
+    }
+}
@@ -0,0 +1,155 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.EmbeddedDatabaseConfig;
+import com.flyte.backend.enums.MediaType;
+import com.flyte.backend.model.BaseEntity;
+import com.flyte.backend.model.Message;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.model.User;
+import com.flyte.backend.repository.MessageBatchRepository;
+import com.flyte.backend.repository.MessageRepository;
+import com.flyte.backend.repository.RoomStatsBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two sequencers on one database stand in for two app instances: whatever
+ * each of them has in memory, seqs must come out unique and gap-free.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ EmbeddedDatabaseConfig.class, RoomStatsBatchRepository.class, MessageBatchRepository.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RoomSequencerDatabaseTest {
+
+    @Autowired
+    private RoomStatsBatchRepository roomStatsBatchRepository;
+    @Autowired
+    private MessageBatchRepository messageBatchRepository;
+    @Autowired
+    private MessageRepository messageRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private UUID roomId;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        roomId = UUID.randomUUID();
+        userId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, created_at, name, email) VALUES (?, now(), 'sender', ?)",
+                userId, userId + "@example.com");
+        jdbcTemplate.update("INSERT INTO rooms (id, created_at, name, type) VALUES (?, now(), 'Lounge-HYD', 0)",
+                roomId);
+    }
+
+    @Test
+    void twoInstances_NeverHandOutTheSameSeq() throws Exception {
+        List<RoomSequencer> instances = List.of(sequencer(), sequencer());
+        int threads = 8;
+        int perThread = 50;
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                RoomSequencer sequencer = instances.get(t % instances.size());
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        assertTrue(seen.add(send(sequencer)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long total = (long) threads * perThread;
+        assertEquals(total, seen.size());
+        assertEquals(total, seen.stream().mapToLong(Long::longValue).max().orElse(0));
+        assertEquals(total, jdbcTemplate.queryForObject(
+                "SELECT message_count FROM room_stats WHERE room_id = ?", Long.class, roomId));
+    }
+
+    @Test
+    void rolledBackSend_GivesItsSeqBack() {
+        RoomSequencer sequencer = sequencer();
+        send(sequencer);
+
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            sequencer.next(roomId);
+            throw new IllegalStateException("insert failed");
+        }));
+
+        assertEquals(2L, send(sequencer));
+    }
+
+    @Test
+    void next_RefusesASeqThatIsAlreadyStored() {
+        RoomSequencer sequencer = sequencer();
+        send(sequencer);
+        // As if room_stats had been restored from an older backup
+        jdbcTemplate.update("UPDATE room_stats SET last_seq = 0 WHERE room_id = ?", roomId);
+
+        assertThrows(IllegalStateException.class, () -> send(sequencer));
+        assertEquals(1, messageRepository.countByRoom_Id(roomId));
+    }
+
+    private RoomSequencer sequencer() {
+        return new RoomSequencer(roomStatsBatchRepository, messageRepository, new SimpleMeterRegistry());
+    }
+
+    // One send in its own transaction, like MessageService.createMessage
+    private long send(RoomSequencer sequencer) {
+        return transaction.execute(status -> {
+            Message message = new Message();
+            message.setId(UUID.randomUUID());
+            message.setCreatedAt(Instant.now().truncatedTo(ChronoUnit.MICROS));
+            message.setRoom(reference(new Room(), roomId));
+            message.setUser(reference(new User(), userId));
+            message.setMessageText("hi");
+            message.setMessageHTML("hi");
+            message.setMediaType(MediaType.TEXT);
+            message.setSeq(sequencer.next(roomId));
+            messageBatchRepository.insertAll(List.of(message));
+            return message.getSeq();
+        });
+    }
+
+    private static <T extends BaseEntity> T reference(T entity, UUID id) {
+        entity.setId(id);
+        return entity;
+    }
+}
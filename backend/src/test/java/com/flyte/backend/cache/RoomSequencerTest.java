@@ -0,0 +1,119 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.repository.MessageRepository;
+import com.flyte.backend.repository.RoomStatsBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomSequencerTest {
+
+    @Mock
+    private RoomStatsBatchRepository roomStatsBatchRepository;
+    @Mock
+    private MessageRepository messageRepository;
+
+    private RoomSequencer sequencer;
+    private UUID roomId;
+
+    @BeforeEach
+    void setUp() {
+        sequencer = new RoomSequencer(roomStatsBatchRepository, messageRepository, new SimpleMeterRegistry());
+        roomId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void allocate_ReturnsTheFirstSeqOfTheBlockReservedInRoomStats() {
+        when(roomStatsBatchRepository.allocateSeqs(roomId, 3)).thenReturn(45L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(43L, sequencer.allocate(roomId, 3));
+        verify(messageRepository).existsByRoom_IdAndSeqGreaterThanEqual(roomId, 43L);
+    }
+
+    @Test
+    void allocate_ChecksTheMessagesOnlyOnTheFirstAllocationInARoom() {
+        when(roomStatsBatchRepository.allocateSeqs(roomId, 1)).thenReturn(1L, 2L, 3L);
+
+        allocate();
+        allocate();
+        allocate();
+
+        verify(messageRepository, times(1)).existsByRoom_IdAndSeqGreaterThanEqual(eq(roomId), anyLong());
+    }
+
+    @Test
+    void allocate_FailsWhenTheSeqIsAlreadyTaken() {
+        when(roomStatsBatchRepository.allocateSeqs(roomId, 1)).thenReturn(7L);
+        when(messageRepository.existsByRoom_IdAndSeqGreaterThanEqual(roomId, 7L)).thenReturn(true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertThrows(IllegalStateException.class, () -> sequencer.next(roomId));
+        // Nothing was tracked, so readers are not held back by the failed send
+        assertEquals(Long.MAX_VALUE, sequencer.visibleLimit(roomId));
+    }
+
+    @Test
+    void next_FailsOutsideTransaction() {
+        assertThrows(IllegalStateException.class, () -> sequencer.next(roomId));
+        verifyNoInteractions(roomStatsBatchRepository);
+    }
+
+    @Test
+    void visibleLimit_StaysBelowTheOldestAllocationStillCompleting() {
+        when(roomStatsBatchRepository.allocateSeqs(eq(roomId), anyInt())).thenReturn(1L, 2L);
+
+        List<TransactionSynchronization> first = allocate();
+        List<TransactionSynchronization> second = allocate();
+        // Seq 2's transaction completes while seq 1's AfterCommit callbacks are still running
+        complete(second);
+        assertEquals(0L, sequencer.visibleLimit(roomId));
+        assertEquals(0L, sequencer.capToVisible(roomId, 2L));
+
+        complete(first);
+        assertEquals(Long.MAX_VALUE, sequencer.visibleLimit(roomId));
+        assertEquals(2L, sequencer.capToVisible(roomId, 2L));
+    }
+
+    @Test
+    void capToVisible_LeavesRoomsWithoutAllocationsAlone() {
+        assertEquals(5L, sequencer.capToVisible(roomId, 5L));
+        verify(messageRepository, never()).existsByRoom_IdAndSeqGreaterThanEqual(eq(roomId), anyLong());
+    }
+
+    // Allocates inside a simulated transaction and returns its completion callbacks
+    private List<TransactionSynchronization> allocate() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            sequencer.next(roomId);
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void complete(List<TransactionSynchronization> synchronizations) {
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+}
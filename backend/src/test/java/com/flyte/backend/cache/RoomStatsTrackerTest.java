@@ -0,0 +1,76 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.repository.RoomStatsBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomStatsTrackerTest {
+
+    @Mock
+    private RoomStatsBatchRepository roomStatsBatchRepository;
+
+    private RoomStatsTracker tracker;
+    private UUID roomId;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new RoomStatsTracker(roomStatsBatchRepository, new SimpleMeterRegistry(), 2);
+        roomId = UUID.randomUUID();
+    }
+
+    @Test
+    void flush_SendsSummedParticipantDeltaOnce() {
+        tracker.addParticipants(roomId, 1);
+        tracker.addParticipants(roomId, 1);
+        tracker.addParticipants(roomId, -1);
+
+        assertEquals(1, tracker.pendingParticipants(roomId));
+        tracker.flush();
+        tracker.flush();
+
+        verify(roomStatsBatchRepository, times(1)).addParticipantCounts(Map.of(roomId, 1L));
+        assertEquals(0, tracker.pendingParticipants(roomId));
+    }
+
+    @Test
+    void flush_RestoresDeltasWhenTheWriteFails() {
+        tracker.addParticipants(roomId, 2);
+        doThrow(new RuntimeException("connection refused")).when(roomStatsBatchRepository)
+                .addParticipantCounts(anyMap());
+
+        tracker.flush();
+        tracker.addParticipants(roomId, 1);
+
+        assertEquals(3, tracker.pendingParticipants(roomId));
+    }
+
+    @Test
+    void reconcile_DropsPendingDeltasOfRecountedRooms() {
+        UUID otherRoom = UUID.randomUUID();
+        tracker.addParticipants(roomId, 5);
+        when(roomStatsBatchRepository.findRoomIdsAfter(any(), anyInt())).thenReturn(List.of(roomId));
+        when(roomStatsBatchRepository.reconcileMessageCounts(List.of(roomId))).thenReturn(1);
+        tracker.addParticipants(otherRoom, 1);
+
+        tracker.reconcile();
+
+        // The recount already includes those participants
+        assertEquals(0, tracker.pendingParticipants(roomId));
+        assertEquals(1, tracker.pendingParticipants(otherRoom));
+    }
+}
@@ -0,0 +1,92 @@
+package com.flyte.backend.cache;
+
+import com.flyte.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserChangeVersionsTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private RoomMembershipIndex roomMembershipIndex;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final PrimaryPins primaryPins = new PrimaryPins("jdbc:postgresql://replica/flyte", 5);
+    private UserChangeVersions versions;
+    private UUID alice;
+    private UUID bob;
+
+    @BeforeEach
+    void setUp() {
+        versions = new UserChangeVersions(userRepository, roomMembershipIndex, primaryPins, transactionManager,
+                60_000);
+        alice = UUID.randomUUID();
+        bob = UUID.randomUUID();
+    }
+
+    @Test
+    void bump_StoresTheNewVersionAndPinsTheUserToThePrimary() {
+        versions.bump(alice);
+
+        verify(userRepository).incrementChangeVersions(List.of(alice));
+        assertTrue(primaryPins.isPinned(alice));
+        assertFalse(primaryPins.isPinned(bob));
+    }
+
+    @Test
+    void etag_IsReadOnceAndKeptUntilTheUserIsBumped() {
+        when(userRepository.findChangeTag(eq(alice), eq("NOT_CONNECTED"), any()))
+                .thenReturn(Optional.of("0-2-17"), Optional.of("1-2-17"));
+
+        assertEquals("0-2-17", versions.etag(alice));
+        assertEquals("0-2-17", versions.etag(alice));
+        verify(userRepository, times(1)).findChangeTag(eq(alice), any(), any());
+
+        versions.bump(alice);
+        assertEquals("1-2-17", versions.etag(alice));
+    }
+
+    @Test
+    void etag_FollowsChangesMadeByOtherInstancesOnceTheCopyRunsOut() {
+        UserChangeVersions uncached = new UserChangeVersions(userRepository, roomMembershipIndex, primaryPins,
+                transactionManager, 0);
+        // A message committed elsewhere moved one of alice's rooms
+        when(userRepository.findChangeTag(eq(alice), any(), any()))
+                .thenReturn(Optional.of("0-2-17"), Optional.of("0-2-18"));
+
+        assertEquals("0-2-17", uncached.etag(alice));
+        assertEquals("0-2-18", uncached.etag(alice));
+    }
+
+    @Test
+    void roomsChanged_DropsEveryMembersTagWithoutWriting() {
+        UUID room = UUID.randomUUID();
+        when(roomMembershipIndex.memberIds(room)).thenReturn(Set.of(alice, bob));
+        when(userRepository.findChangeTag(eq(alice), any(), any()))
+                .thenReturn(Optional.of("0-1-4"), Optional.of("0-1-5"));
+        versions.etag(alice);
+
+        versions.roomsChanged(List.of(room));
+
+        assertEquals("0-1-5", versions.etag(alice));
+        assertTrue(primaryPins.isPinned(bob));
+        verify(userRepository, never()).incrementChangeVersions(any());
+    }
+}
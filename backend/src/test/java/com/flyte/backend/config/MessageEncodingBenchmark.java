@@ -0,0 +1,81 @@
+package com.flyte.backend.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.flyte.backend.DTO.Room.RoomWithMessages;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.AbstractJackson2HttpMessageConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static com.flyte.backend.config.MessageEncodingConfigTest.*;
+
+/**
+ * Encode and decode time of a first-sync sized room list in each encoding a
+ * client can ask for, next to its size. Same payload as
+ * MessageEncodingConfigTest, which pins the sizes.
+ *
+ * Runs with {@code mvn -Pbenchmark test}. Scale it with -Dbenchmark.rounds.
+ */
+class MessageEncodingBenchmark {
+
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 1_000);
+
+    private final Map<String, AbstractJackson2HttpMessageConverter> converters = converters();
+    private final List<RoomWithMessages> rooms = fixtures();
+
+    @Test
+    void encodeAndDecodeEachFormat() throws IOException {
+        report("json", () -> write(converters, rooms, "application/json"),
+                bytes -> read("application/json", bytes));
+        report("json+gzip", () -> gzip(write(converters, rooms, "application/json")),
+                bytes -> read("application/json", gunzip(bytes)));
+        report("cbor", () -> write(converters, rooms, "application/cbor"),
+                bytes -> read("application/cbor", bytes));
+        report("smile", () -> write(converters, rooms, "application/x-jackson-smile"),
+                bytes -> read("application/x-jackson-smile", bytes));
+    }
+
+    private interface Encoding {
+        byte[] run() throws IOException;
+    }
+
+    private interface Decoding {
+        JsonNode run(byte[] bytes) throws IOException;
+    }
+
+    private void report(String name, Encoding encode, Decoding decode) throws IOException {
+        byte[] body = encode.run();
+        // Warm up: JIT
+        for (int i = 0; i < ROUNDS / 10; i++) {
+            decode.run(encode.run());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            encode.run();
+        }
+        long encodeMicros = (System.nanoTime() - start) / 1_000 / ROUNDS;
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            decode.run(body);
+        }
+        long decodeMicros = (System.nanoTime() - start) / 1_000 / ROUNDS;
+        System.out.printf("%d rooms x %d messages as %-9s %8d bytes, encode %6d us, decode %6d us%n",
+                ROOMS, MESSAGES_PER_ROOM, name, body.length, encodeMicros, decodeMicros);
+    }
+
+    private JsonNode read(String mediaType, byte[] bytes) throws IOException {
+        return converters.get(mediaType).getObjectMapper().readTree(bytes);
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}
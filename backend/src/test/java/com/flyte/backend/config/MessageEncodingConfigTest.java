@@ -0,0 +1,161 @@
+package com.flyte.backend.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Room.RoomResponse;
+import com.flyte.backend.DTO.Room.RoomWithMessages;
+import com.flyte.backend.DTO.User.UserResponse;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Size of a first-sync sized room list in each encoding a client can ask
+ * for, and that each decodes to the same document. MessageEncodingBenchmark
+ * times encoding and decoding the same payload.
+ */
+class MessageEncodingConfigTest {
+
+    static final int ROOMS = 20;
+    static final int MESSAGES_PER_ROOM = 50;
+
+    private Map<String, AbstractJackson2HttpMessageConverter> converters;
+    private List<RoomWithMessages> rooms;
+
+    @BeforeEach
+    void setUp() {
+        converters = converters();
+        rooms = fixtures();
+    }
+
+    @Test
+    void binaryEncodingsAndGzipAreSmallerThanJson() throws IOException {
+        assertEquals(List.of("application/json", "application/cbor", "application/x-jackson-smile"),
+                List.copyOf(converters.keySet()));
+
+        byte[] json = write("application/json");
+        byte[] gzippedJson = gzip(json);
+        byte[] cbor = write("application/cbor");
+        byte[] smile = write("application/x-jackson-smile");
+
+        assertTrue(cbor.length < json.length, "cbor " + cbor.length + " vs json " + json.length);
+        assertTrue(smile.length < json.length, "smile " + smile.length + " vs json " + json.length);
+        assertTrue(gzippedJson.length < json.length / 3, "gzip " + gzippedJson.length + " vs json " + json.length);
+
+        // Same document in every encoding; the binary ones carry UUIDs as raw bytes
+        JsonNode fromCbor = read("application/cbor", cbor);
+        assertEquals(ROOMS, fromCbor.size());
+        assertEquals(MESSAGES_PER_ROOM, fromCbor.get(0).get("messages").size());
+        assertTrue(fromCbor.get(0).get("room").get("id").isBinary());
+        assertEquals(read("application/json", json).get(0).get("messages").get(0).get("createdAt"),
+                read("application/x-jackson-smile", smile).get(0).get("messages").get(0).get("createdAt"));
+    }
+
+    private byte[] write(String mediaType) throws IOException {
+        return write(converters, rooms, mediaType);
+    }
+
+    private JsonNode read(String mediaType, byte[] bytes) throws IOException {
+        return converters.get(mediaType).getObjectMapper().readTree(bytes);
+    }
+
+    // JSON as Spring Boot configures it, followed by what MessageEncodingConfig adds; keyed by media type
+    static Map<String, AbstractJackson2HttpMessageConverter> converters() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        List<HttpMessageConverter<?>> list = new ArrayList<>();
+        list.add(new MappingJackson2HttpMessageConverter(objectMapper));
+        new MessageEncodingConfig(objectMapper).extendMessageConverters(list);
+        Map<String, AbstractJackson2HttpMessageConverter> converters = new LinkedHashMap<>();
+        for (HttpMessageConverter<?> converter : list) {
+            AbstractJackson2HttpMessageConverter jackson = (AbstractJackson2HttpMessageConverter) converter;
+            converters.put(jackson.getSupportedMediaTypes().get(0).toString(), jackson);
+        }
+        return converters;
+    }
+
+    static byte[] write(Map<String, AbstractJackson2HttpMessageConverter> converters, List<RoomWithMessages> rooms,
+            String mediaType) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converters.get(mediaType).write(rooms, MediaType.parseMediaType(mediaType), output);
+        return output.getBodyAsBytes();
+    }
+
+    static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // A first sync: a mix of DMs and journey rooms, each with a full page of messages
+    static List<RoomWithMessages> fixtures() {
+        Instant start = Instant.parse("2026-01-01T08:00:00Z");
+        List<UUID> senders = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            senders.add(UUID.randomUUID());
+        }
+
+        List<RoomWithMessages> rooms = new ArrayList<>();
+        for (int r = 0; r < ROOMS; r++) {
+            Room room = new Room();
+            room.setId(UUID.randomUUID());
+            room.setName(r % 2 == 0 ? "DM-" + UUID.randomUUID() + "-" + UUID.randomUUID() : "Flight LH" + (400 + r));
+            room.setDescription(r % 2 == 0 ? null : "Frankfurt to New York, departing 10:35");
+            room.setType(r % 2 == 0 ? RoomType.DM : RoomType.FLIGHT);
+            room.setLastMessageTimestamp(start.plusSeconds(MESSAGES_PER_ROOM * 30L));
+            RoomResponse response = new RoomResponse(room);
+            if (room.getType() == RoomType.DM) {
+                User other = new User();
+                other.setId(UUID.randomUUID());
+                other.setName("Traveller " + r);
+                other.setEmail("traveller" + r + "@example.com");
+                response.setName(other.getName());
+                response.setOtherUser(new UserResponse(other));
+            }
+
+            List<MessageView> messages = new ArrayList<>();
+            for (int m = MESSAGES_PER_ROOM; m > 0; m--) {
+                Instant createdAt = start.plusSeconds(m * 30L);
+                messages.add(new MessageView(UUID.randomUUID(), room.getId(), m, senders.get(m % senders.size()),
+                        "Traveller " + (m % senders.size()),
+                        "Anyone else stuck at gate B" + m + "? Boarding looks delayed",
+                        null, null, null, createdAt, createdAt));
+            }
+
+            RoomWithMessages item = new RoomWithMessages();
+            item.setRoom(response);
+            item.setMessages(messages);
+            item.setHasMore(true);
+            rooms.add(item);
+        }
+        return rooms;
+    }
+}
@@ -0,0 +1,143 @@
+package com.flyte.backend.config;
+
+import com.flyte.backend.cache.PrimaryPins;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two embedded Postgres servers stand in for the primary and the replica;
+ * each statement reports the port of the server it ran on.
+ */
+class ReplicaRoutingTest {
+
+    private static EmbeddedPostgres primary;
+    private static EmbeddedPostgres replica;
+
+    private PrimaryPins primaryPins;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate writeTransaction;
+
+    @BeforeAll
+    static void start() throws Exception {
+        primary = EmbeddedPostgres.start();
+        replica = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        primary.close();
+        replica.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        primaryPins = new PrimaryPins("jdbc:postgresql://replica/flyte", 5);
+        DataSource dataSource = ReplicaRoutingDataSource.wrap(primary.getPostgresDatabase(),
+                replica.getPostgresDatabase(), primaryPins);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertEquals(replica.getPort(), portIn(readOnlyTransaction));
+        assertEquals(primary.getPort(), portIn(writeTransaction));
+        // Outside a transaction nothing says the statement is a read
+        assertEquals(primary.getPort(), port());
+    }
+
+    @Test
+    void pinnedUsersReadFromThePrimary() {
+        UUID userId = UUID.randomUUID();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userId.toString(), null, List.of()));
+        assertEquals(replica.getPort(), portIn(readOnlyTransaction));
+
+        primaryPins.pin(userId);
+
+        assertEquals(primary.getPort(), portIn(readOnlyTransaction));
+    }
+
+    @Test
+    void pinSentBackByTheClientHoldsOnAnotherInstance() {
+        UUID userId = UUID.randomUUID();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userId.toString(), null, List.of()));
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest(), writeResponse));
+
+        // The write lands on another instance, whose pin this process never sees
+        new PrimaryPins("jdbc:postgresql://replica/flyte", 5).pin(userId);
+        String pin = writeResponse.getHeader(PrimaryPins.HEADER);
+        assertNotNull(pin);
+
+        MockHttpServletRequest read = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(read));
+        assertEquals(replica.getPort(), portIn(readOnlyTransaction));
+
+        read.addHeader(PrimaryPins.HEADER, pin);
+        assertEquals(primary.getPort(), portIn(readOnlyTransaction));
+
+        // Run out, or not a number: back to the replica
+        MockHttpServletRequest expired = new MockHttpServletRequest();
+        expired.addHeader(PrimaryPins.HEADER, Long.toString(System.currentTimeMillis() - 1));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(expired));
+        assertEquals(replica.getPort(), portIn(readOnlyTransaction));
+        MockHttpServletRequest garbled = new MockHttpServletRequest();
+        garbled.addHeader(PrimaryPins.HEADER, "soon");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(garbled));
+        assertEquals(replica.getPort(), portIn(readOnlyTransaction));
+    }
+
+    @Test
+    void pinsOfOtherUsersAreNotSentToTheCaller() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(UUID.randomUUID().toString(), null, List.of()));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest(), response));
+
+        // A room member bumped by the caller's message
+        primaryPins.pin(UUID.randomUUID());
+
+        assertNull(response.getHeader(PrimaryPins.HEADER));
+    }
+
+    private int portIn(TransactionTemplate transaction) {
+        return transaction.execute(status -> port());
+    }
+
+    private int port() {
+        return jdbcTemplate.queryForObject("SELECT current_setting('port')::int", Integer.class);
+    }
+}
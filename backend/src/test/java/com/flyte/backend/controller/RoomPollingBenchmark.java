@@ -0,0 +1,180 @@
+package com.flyte.backend.controller;
+
+import com.flyte.backend.EmbeddedDatabaseConfig;
+import com.flyte.backend.DTO.Room.RoomWithMessages;
+import com.flyte.backend.cache.PrimaryPins;
+import com.flyte.backend.cache.RoomCacheEvictor;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import com.flyte.backend.cache.RoomActivityTracker;
+import com.flyte.backend.cache.RoomStatsTracker;
+import com.flyte.backend.cache.UserChangeVersions;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.model.RoomParticipant;
+import com.flyte.backend.model.User;
+import com.flyte.backend.service.MessageService;
+import com.flyte.backend.service.NotificationService;
+import com.flyte.backend.service.RoomService;
+import com.flyte.backend.service.InboxService;
+import com.flyte.backend.service.ParticipantService;
+import com.flyte.backend.service.SyncPushService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Time and statements per unchanged poll of the room list, with and without
+ * the ETag; RoomPollingCostTest pins the statement counts.
+ *
+ * Runs with {@code mvn -Pbenchmark test}. Scale it with -Dbenchmark.dms and
+ * -Dbenchmark.polls.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Times the tag query itself rather than the in-memory copy
+        "app.sync.change-tag-cache-ms=0" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ RoomController.class, RoomService.class, UserChangeVersions.class, PrimaryPins.class,
+        EmbeddedDatabaseConfig.class })
+class RoomPollingBenchmark {
+
+    private static final int DM_COUNT = Integer.getInteger("benchmark.dms", 200);
+    private static final int POLLS = Integer.getInteger("benchmark.polls", 1_000);
+
+    @MockitoBean
+    private MessageService messageService;
+    @MockitoBean
+    private NotificationService notificationService;
+    @MockitoBean
+    private RoomCacheEvictor roomCacheEvictor;
+    @MockitoBean
+    private RoomActivityTracker roomActivityTracker;
+    @MockitoBean
+    private RoomStatsTracker roomStatsTracker;
+    @MockitoBean
+    private SyncPushService syncPushService;
+    @MockitoBean
+    private InboxService inboxService;
+    @MockitoBean
+    private ParticipantService participantService;
+    @MockitoBean
+    private RoomMembershipIndex roomMembershipIndex;
+
+    @Autowired
+    private RoomController roomController;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User self;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        self = user("self");
+        for (int i = 0; i < DM_COUNT; i++) {
+            dm(user("friend" + i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        when(messageService.resolvePageSize(null)).thenReturn(50);
+        when(messageService.getLatestMessagesByRoomIds(anyList(), anyInt())).thenReturn(Map.of());
+    }
+
+    @Test
+    void unchangedPollWithAndWithoutETag() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertEquals(DM_COUNT, rooms(poll(null, first)).size());
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        // Warm up: JIT, plans
+        measure(null);
+        measure(etag);
+
+        Cost full = measure(null);
+        Cost conditional = measure(etag);
+        System.out.printf("Polling %d rooms: %.1f statements, %d us per poll; "
+                + "with If-None-Match %.1f statements, %d us%n", DM_COUNT, full.statementsPerPoll(), full.microsPerPoll(),
+                conditional.statementsPerPoll(), conditional.microsPerPoll());
+    }
+
+    private record Cost(double statementsPerPoll, long microsPerPoll) {
+    }
+
+    private Cost measure(String ifNoneMatch) {
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < POLLS; i++) {
+            poll(ifNoneMatch, new MockHttpServletResponse());
+            // Every request gets a fresh persistence context in the app
+            entityManager.clear();
+        }
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+        return new Cost((double) statistics.getPrepareStatementCount() / POLLS, elapsedMicros / POLLS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<RoomWithMessages> rooms(ResponseEntity<?> response) {
+        return (List<RoomWithMessages>) response.getBody();
+    }
+
+    private ResponseEntity<?> poll(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/rooms/getRoomsAndMessagesByUserId");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return roomController.getRoomsAndMessagesByUserId(self.getId(), null,
+                new ServletWebRequest(request, response));
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setNickname(name);
+        user.setEmail(name + "@example.com");
+        user.setCreatedAt(Instant.now());
+        return entityManager.persist(user);
+    }
+
+    private void dm(User other) {
+        Room room = new Room();
+        room.setName("DM-" + self.getId() + "-" + other.getId());
+        room.setType(RoomType.DM);
+        room.setCreatedAt(Instant.now());
+        entityManager.persist(room);
+        for (User user : List.of(self, other)) {
+            RoomParticipant participant = new RoomParticipant();
+            participant.setRoom(room);
+            participant.setUser(user);
+            participant.setStatus(ConnectionStatus.CONNECTED);
+            participant.setCreatedAt(Instant.now());
+            entityManager.persist(participant);
+        }
+    }
+}
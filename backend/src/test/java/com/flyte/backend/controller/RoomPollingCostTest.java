@@ -0,0 +1,188 @@
+package com.flyte.backend.controller;
+
+import com.flyte.backend.EmbeddedDatabaseConfig;
+import com.flyte.backend.DTO.Room.RoomWithMessages;
+import com.flyte.backend.cache.PrimaryPins;
+import com.flyte.backend.cache.RoomCacheEvictor;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import com.flyte.backend.cache.RoomActivityTracker;
+import com.flyte.backend.cache.RoomStatsTracker;
+import com.flyte.backend.cache.UserChangeVersions;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.model.RoomParticipant;
+import com.flyte.backend.model.User;
+import com.flyte.backend.service.MessageService;
+import com.flyte.backend.service.NotificationService;
+import com.flyte.backend.service.RoomService;
+import com.flyte.backend.service.InboxService;
+import com.flyte.backend.service.ParticipantService;
+import com.flyte.backend.service.SyncPushService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Statements per unchanged poll of the room list, with and without the
+ * ETag. RoomPollingBenchmark times the same polls.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // No cached tags: every poll pays for reading its tag
+        "app.sync.change-tag-cache-ms=0" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ RoomController.class, RoomService.class, UserChangeVersions.class, PrimaryPins.class,
+        EmbeddedDatabaseConfig.class })
+class RoomPollingCostTest {
+
+    private static final int DM_COUNT = 200;
+    private static final int POLLS = 10;
+
+    @MockitoBean
+    private MessageService messageService;
+    @MockitoBean
+    private NotificationService notificationService;
+    @MockitoBean
+    private RoomCacheEvictor roomCacheEvictor;
+    @MockitoBean
+    private RoomActivityTracker roomActivityTracker;
+    @MockitoBean
+    private RoomStatsTracker roomStatsTracker;
+    @MockitoBean
+    private SyncPushService syncPushService;
+    @MockitoBean
+    private InboxService inboxService;
+    @MockitoBean
+    private ParticipantService participantService;
+    @MockitoBean
+    private RoomMembershipIndex roomMembershipIndex;
+
+    @Autowired
+    private RoomController roomController;
+    @Autowired
+    private UserChangeVersions userChangeVersions;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User self;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        self = user("self");
+        for (int i = 0; i < DM_COUNT; i++) {
+            dm(user("friend" + i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        when(messageService.resolvePageSize(null)).thenReturn(50);
+        when(messageService.getLatestMessagesByRoomIds(anyList(), anyInt())).thenReturn(Map.of());
+    }
+
+    @Test
+    void unchangedPoll_WithETagReadsOnlyTheTag() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertEquals(DM_COUNT, rooms(poll(null, first)).size());
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        assertEquals(3.0, statementsPerPoll(null));
+        assertEquals(1.0, statementsPerPoll(etag));
+
+        // Once something changes the old tag gets the full list again
+        userChangeVersions.bump(self.getId());
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        assertEquals(DM_COUNT, rooms(poll(etag, changed)).size());
+        String bumped = changed.getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, bumped);
+
+        // A message sent through another instance reaches this one only through the room's head
+        entityManager.getEntityManager().createNativeQuery("INSERT INTO room_stats (room_id, message_count, last_seq) "
+                + "SELECT room_id, 1, 1 FROM dm_participants WHERE user_id = ?1 LIMIT 1")
+                .setParameter(1, self.getId())
+                .executeUpdate();
+        MockHttpServletResponse messaged = new MockHttpServletResponse();
+        assertEquals(DM_COUNT, rooms(poll(bumped, messaged)).size());
+        assertNotEquals(bumped, messaged.getHeader(HttpHeaders.ETAG));
+    }
+
+    private double statementsPerPoll(String ifNoneMatch) {
+        statistics.clear();
+        for (int i = 0; i < POLLS; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            ResponseEntity<?> result = poll(ifNoneMatch, response);
+            if (ifNoneMatch != null) {
+                assertNull(result);
+                assertEquals(304, response.getStatus());
+            }
+            // Every request gets a fresh persistence context in the app
+            entityManager.clear();
+        }
+        return (double) statistics.getPrepareStatementCount() / POLLS;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<RoomWithMessages> rooms(ResponseEntity<?> response) {
+        return (List<RoomWithMessages>) response.getBody();
+    }
+
+    private ResponseEntity<?> poll(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/rooms/getRoomsAndMessagesByUserId");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return roomController.getRoomsAndMessagesByUserId(self.getId(), null,
+                new ServletWebRequest(request, response));
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setNickname(name);
+        user.setEmail(name + "@example.com");
+        user.setCreatedAt(Instant.now());
+        return entityManager.persist(user);
+    }
+
+    private void dm(User other) {
+        Room room = new Room();
+        room.setName("DM-" + self.getId() + "-" + other.getId());
+        room.setType(RoomType.DM);
+        room.setCreatedAt(Instant.now());
+        entityManager.persist(room);
+        for (User user : List.of(self, other)) {
+            RoomParticipant participant = new RoomParticipant();
+            participant.setRoom(room);
+            participant.setUser(user);
+            participant.setStatus(ConnectionStatus.CONNECTED);
+            participant.setCreatedAt(Instant.now());
+            entityManager.persist(participant);
+        }
+    }
+}
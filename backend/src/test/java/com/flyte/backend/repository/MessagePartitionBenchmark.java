@@ -0,0 +1,148 @@
+package com.flyte.backend.repository;
+
+import com.flyte.backend.EmbeddedDatabaseConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Partitioned messages against the same rows in one plain table: single-row
+ * insert latency and the latest page of a room, the two hot paths.
+ *
+ * Runs with {@code mvn -Pbenchmark test}, not with the tests. The defaults
+ * are scaled down to finish in a minute or two; for production-sized numbers
+ * pass e.g. {@code -Dbenchmark.rows=50000000 -Dbenchmark.rooms=200000}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ EmbeddedDatabaseConfig.class, MessagePartitionRepository.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MessagePartitionBenchmark {
+
+    private static final long ROWS = Long.getLong("benchmark.rows", 200_000);
+    private static final int ROOMS = Integer.getInteger("benchmark.rooms", 1_000);
+    private static final int SAMPLES = Integer.getInteger("benchmark.samples", 2_000);
+    private static final int MONTHS = 12;
+    private static final int PAGE = 51;
+
+    @Autowired
+    private MessagePartitionRepository messagePartitionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID userId;
+    private List<UUID> roomIds;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, created_at, name, email) VALUES (?, now(), 'bench', ?)",
+                userId, userId + "@example.com");
+        jdbcTemplate.execute("CREATE TABLE benchmark_rooms (idx INT PRIMARY KEY, id UUID NOT NULL)");
+        jdbcTemplate.update("INSERT INTO benchmark_rooms SELECT g, gen_random_uuid() FROM generate_series(0, ? - 1) g",
+                ROOMS);
+        jdbcTemplate.update("INSERT INTO rooms (id, created_at, name, type) "
+                + "SELECT id, now(), 'Bench-' || idx, 0 FROM benchmark_rooms");
+        roomIds = jdbcTemplate.queryForList("SELECT id FROM benchmark_rooms ORDER BY idx", UUID.class);
+
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        DateTimeFormatter suffix = DateTimeFormatter.ofPattern("yyyyMM");
+        for (int i = -MONTHS; i <= 1; i++) {
+            YearMonth month = current.plusMonths(i);
+            messagePartitionRepository.createPartition("messages_p" + month.format(suffix),
+                    month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC),
+                    month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+        }
+
+        // Spread evenly over the last twelve months; a room's seq grows with created_at
+        long started = System.nanoTime();
+        jdbcTemplate.update("INSERT INTO messages (id, created_at, room_id, user_id, message_text, messagehtml, "
+                + "media_type, seq) "
+                + "SELECT gen_random_uuid(), now() - make_interval(secs => (? - g) * 360 * 86400.0 / ?), r.id, ?, "
+                + "'hello', 'hello', 0, g / ? + 1 "
+                + "FROM generate_series(0, ? - 1) g JOIN benchmark_rooms r ON r.idx = g % ?",
+                ROWS, ROWS, userId, ROOMS, ROWS, ROOMS);
+        jdbcTemplate.execute("CREATE TABLE messages_flat (LIKE messages INCLUDING ALL)");
+        jdbcTemplate.execute("ALTER TABLE messages_flat "
+                + "ADD FOREIGN KEY (room_id) REFERENCES rooms (id) ON DELETE CASCADE, "
+                + "ADD FOREIGN KEY (user_id) REFERENCES users (id)");
+        jdbcTemplate.update("INSERT INTO messages_flat SELECT * FROM messages WHERE user_id = ?", userId);
+        jdbcTemplate.execute("ANALYZE messages");
+        jdbcTemplate.execute("ANALYZE messages_flat");
+        System.out.printf("Loaded %d messages into %d rooms in %d s%n",
+                ROWS, ROOMS, (System.nanoTime() - started) / 1_000_000_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS messages_flat");
+        // Cascades to the messages
+        jdbcTemplate.update("DELETE FROM rooms WHERE id IN (SELECT id FROM benchmark_rooms)");
+        jdbcTemplate.execute("DROP TABLE benchmark_rooms");
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    void partitionedAgainstPlainTable() {
+        for (String table : List.of("messages", "messages_flat")) {
+            // Warm up caches and plans before measuring
+            insert(table, 0);
+            latestPage(table);
+
+            long[] inserts = new long[SAMPLES];
+            long[] pages = new long[SAMPLES];
+            for (int i = 0; i < SAMPLES; i++) {
+                long started = System.nanoTime();
+                insert(table, i + 1);
+                inserts[i] = System.nanoTime() - started;
+
+                started = System.nanoTime();
+                assertEquals(PAGE, latestPage(table));
+                pages[i] = System.nanoTime() - started;
+            }
+            report(table, "insert", inserts);
+            report(table, "latest page", pages);
+        }
+    }
+
+    // Seqs above the loaded ones, so the unique (room_id, seq, created_at) index never clashes
+    private void insert(String table, int sample) {
+        jdbcTemplate.update("INSERT INTO " + table + " (id, created_at, room_id, user_id, message_text, messagehtml, "
+                + "media_type, seq) VALUES (?, now(), ?, ?, 'hello', 'hello', 0, ?)",
+                UUID.randomUUID(), randomRoom(), userId, ROWS + sample);
+    }
+
+    private int latestPage(String table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE room_id = ? ORDER BY seq DESC LIMIT ?",
+                UUID.class, randomRoom(), PAGE).size();
+    }
+
+    private UUID randomRoom() {
+        return roomIds.get(ThreadLocalRandom.current().nextInt(roomIds.size()));
+    }
+
+    private static void report(String table, String operation, long[] nanos) {
+        Arrays.sort(nanos);
+        double averageMs = Arrays.stream(nanos).average().orElse(0) / 1_000_000;
+        double p99Ms = nanos[(int) (nanos.length * 0.99)] / 1_000_000.0;
+        System.out.printf("%-13s %-11s avg %.3f ms, p99 %.3f ms over %d runs%n",
+                table, operation, averageMs, p99Ms, nanos.length);
+    }
+}
@@ -0,0 +1,469 @@
+package com.flyte.backend.repository;
+
+import com.flyte.backend.EmbeddedDatabaseConfig;
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Message.SeqRange;
+import com.flyte.backend.DTO.Room.RoomMember;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.enums.MediaType;
+import com.flyte.backend.enums.RoomType;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EXPLAINs the SQL the repositories actually send. Every statement a
+ * repository call issues, Hibernate's and JdbcTemplate's alike, is caught at
+ * the JDBC layer and explained on its own connection with its own bind values
+ * just before it runs, so nothing here is copied from the mappings by hand.
+ *
+ * The planner runs with its default settings against tables seeded with tens
+ * of thousands of rows and analyzed, so it weighs indexes the way it would in
+ * production. A "Seq Scan" on any table of that size means the query has no
+ * usable index. Tables below MIN_ROWS, such as empty future partitions, are
+ * cheapest to scan and are left alone. Add a call here with every new
+ * repository method.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ EmbeddedDatabaseConfig.class, QueryPlanTest.ExplainConfig.class, InboxBatchRepository.class,
+        MessageBatchRepository.class, MessageWindowRepository.class, RoomStatsBatchRepository.class,
+        SyncCursorRepository.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryPlanTest {
+
+    private static final int ROWS = 20_000;
+    private static final long MIN_ROWS = 1_000;
+
+    // Set while a repository call runs; migrations and fixtures are not explained
+    private static final ThreadLocal<List<Plan>> PLANS = new ThreadLocal<>();
+
+    @Autowired
+    private MessageRepository messageRepository;
+    @Autowired
+    private RoomParticipantRepository roomParticipantRepository;
+    @Autowired
+    private InboxEntryRepository inboxEntryRepository;
+    @Autowired
+    private InboxBatchRepository inboxBatchRepository;
+    @Autowired
+    private JourneyRepository journeyRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private SlotRoomRepository slotRoomRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserDeviceTokenRepository userDeviceTokenRepository;
+    @Autowired
+    private SyncTimeRepository syncTimeRepository;
+    @Autowired
+    private RoomStatsRepository roomStatsRepository;
+    @Autowired
+    private RoomStatsBatchRepository roomStatsBatchRepository;
+    @Autowired
+    private SyncCursorRepository syncCursorRepository;
+    @Autowired
+    private MessageBatchRepository messageBatchRepository;
+    @Autowired
+    private MessageWindowRepository messageWindowRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, Long> rowsByTable = new HashMap<>();
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueries() {
+        seed();
+        Map<String, Object> dm = jdbcTemplate.queryForMap("SELECT p.room_id, p.user_id FROM dm_participants p "
+                + "JOIN rooms r ON r.id = p.room_id WHERE r.type = 3 AND p.status = 'CONNECTED' LIMIT 1");
+        UUID room = (UUID) dm.get("room_id");
+        UUID user = (UUID) dm.get("user_id");
+        UUID otherRoom = jdbcTemplate.queryForObject("SELECT id FROM rooms WHERE type = 3 AND id <> ? LIMIT 1",
+                UUID.class, room);
+        List<UUID> rooms = List.of(room, otherRoom);
+        Instant now = Instant.now();
+        // Where the seeded messages start
+        Instant monthStart = YearMonth.now(ZoneOffset.UTC).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        // Past every seeded expiry but the last few
+        Instant lateExpiry = now.plus(Duration.ofHours(890));
+        MessageView view = new MessageView(UUID.randomUUID(), room, 99, user, "Alice", "hi", "hi",
+                MediaType.TEXT, null, now, now);
+
+        return Stream.of(
+                query("MessageRepository.countByRoom_Id", () -> messageRepository.countByRoom_Id(room)),
+                query("MessageRepository.findViewsByRoomIdsSince",
+                        () -> messageRepository.findViewsByRoomIdsSince(rooms, monthStart)),
+                query("MessageRepository.existsByRoom_IdAndSeqGreaterThanEqual",
+                        () -> messageRepository.existsByRoom_IdAndSeqGreaterThanEqual(room, 100L)),
+                query("MessageRepository.findRoomPageLatest",
+                        () -> messageRepository.findRoomPageLatest(room, 100, Limit.of(51))),
+                query("MessageRepository.findRoomPageBefore",
+                        () -> messageRepository.findRoomPageBefore(room, 100, Limit.of(51))),
+                query("MessageRepository.findRoomPageAfter",
+                        () -> messageRepository.findRoomPageAfter(room, 5, 100, Limit.of(51))),
+                query("MessageRepository.findUserPageLatest",
+                        () -> messageRepository.findUserPageLatest(user, Limit.of(51))),
+                query("MessageRepository.findUserPageBefore",
+                        () -> messageRepository.findUserPageBefore(user, now, room, Limit.of(51))),
+                query("MessageRepository.findUserPageAfter",
+                        () -> messageRepository.findUserPageAfter(user, monthStart, room, Limit.of(51))),
+                query("MessageRepository.deleteChunkByRoomIdIn",
+                        () -> messageRepository.deleteChunkByRoomIdIn(List.of(room), 5000)),
+
+                query("RoomParticipantRepository.findByRoomId", () -> roomParticipantRepository.findByRoomId(room)),
+                query("RoomParticipantRepository.findByUserId", () -> roomParticipantRepository.findByUserId(user)),
+                query("RoomParticipantRepository.existsByRoomIdAndUserId",
+                        () -> roomParticipantRepository.existsByRoomIdAndUserId(room, user)),
+                query("RoomParticipantRepository.deleteByRoomIdAndUserId",
+                        () -> roomParticipantRepository.deleteByRoomIdAndUserId(room, user)),
+                query("RoomParticipantRepository.deleteByRoomId", () -> roomParticipantRepository.deleteByRoomId(room)),
+                query("RoomParticipantRepository.findUsersByRoomId",
+                        () -> roomParticipantRepository.findUsersByRoomId(room)),
+                query("RoomParticipantRepository.findActiveRoomsByUserIdAndStatusExcept",
+                        () -> roomParticipantRepository.findActiveRoomsByUserIdAndStatusExcept(user,
+                                ConnectionStatus.NOT_CONNECTED, now)),
+                query("RoomParticipantRepository.findOtherParticipants",
+                        () -> roomParticipantRepository.findOtherParticipants(room, user)),
+                query("RoomParticipantRepository.findOtherParticipant",
+                        () -> roomParticipantRepository.findOtherParticipant(room, user, RoomType.DM)),
+                query("RoomParticipantRepository.findOtherParticipantsInRooms",
+                        () -> roomParticipantRepository.findOtherParticipantsInRooms(rooms, user, RoomType.DM)),
+                query("RoomParticipantRepository.findUserIdsByRoomIdIn",
+                        () -> roomParticipantRepository.findUserIdsByRoomIdIn(rooms)),
+                query("RoomParticipantRepository.findMembersByRoomIdIn",
+                        () -> roomParticipantRepository.findMembersByRoomIdIn(rooms, ConnectionStatus.NOT_CONNECTED)),
+                query("RoomParticipantRepository.findByUserIdAndStatus",
+                        () -> roomParticipantRepository.findByUserIdAndStatus(user, ConnectionStatus.RECEIVED)),
+                query("RoomParticipantRepository.findByRoomIdAndUserId",
+                        () -> roomParticipantRepository.findByRoomIdAndUserId(room, user)),
+                query("RoomParticipantRepository.findMemberStatusesByRoomId",
+                        () -> roomParticipantRepository.findMemberStatusesByRoomId(room)),
+                query("RoomParticipantRepository.advanceLastReadSeq",
+                        () -> roomParticipantRepository.advanceLastReadSeq(room, user, 5)),
+                query("RoomParticipantRepository.findParticipantPage",
+                        () -> roomParticipantRepository.findParticipantPage(room, new UUID(0, 0), Limit.of(51))),
+                query("RoomParticipantRepository.countByRoomId", () -> roomParticipantRepository.countByRoomId(room)),
+                query("RoomParticipantRepository.findActiveRoomHeadsByUserIdAndStatusExcept",
+                        () -> roomParticipantRepository.findActiveRoomHeadsByUserIdAndStatusExcept(user,
+                                ConnectionStatus.NOT_CONNECTED, now)),
+                query("RoomParticipantRepository.findStatusByRoomIdAndUserId",
+                        () -> roomParticipantRepository.findStatusByRoomIdAndUserId(room, user)),
+
+                query("InboxEntryRepository.findInboxPageLatest",
+                        () -> inboxEntryRepository.findInboxPageLatest(user, ConnectionStatus.NOT_CONNECTED, now,
+                                Limit.of(31))),
+                query("InboxEntryRepository.findInboxPageBefore",
+                        () -> inboxEntryRepository.findInboxPageBefore(user, ConnectionStatus.NOT_CONNECTED, now,
+                                now, room, Limit.of(31))),
+                query("InboxEntryRepository.renameDmCounterpart",
+                        () -> inboxEntryRepository.renameDmCounterpart(user, "Alice", RoomType.DM)),
+                query("InboxBatchRepository.advanceRooms", () -> inboxBatchRepository.advanceRooms(List.of(view))),
+                query("InboxBatchRepository.advanceReadCursors",
+                        () -> inboxBatchRepository.advanceReadCursors(Map.of(new RoomMember(room, user), 5L))),
+
+                query("JourneyRepository.findByFlightNumber", () -> journeyRepository.findByFlightNumber("FL7")),
+                query("JourneyRepository.findBySourceAndSourceSlot",
+                        () -> journeyRepository.findBySourceAndSourceSlot("S7", "slot7")),
+                query("JourneyRepository.findByDestinationAndDestinationSlot",
+                        () -> journeyRepository.findByDestinationAndDestinationSlot("D7", "slot7")),
+                query("JourneyRepository.findByFlightNumberAndSourceAndSourceSlotAndDestinationAndDestinationSlot",
+                        () -> journeyRepository
+                                .findByFlightNumberAndSourceAndSourceSlotAndDestinationAndDestinationSlot(
+                                        "FL7", "S7", "slot7", "D7", "slot7")),
+                query("JourneyRepository.findByUserId", () -> journeyRepository.findByUserId(user)),
+                query("JourneyRepository.deleteExpiredByAnyRoomIdIn",
+                        () -> journeyRepository.deleteExpiredByAnyRoomIdIn(List.of(room), now)),
+
+                query("RoomRepository.findByName", () -> roomRepository.findByName("Room 7")),
+                query("RoomRepository.findByType", () -> roomRepository.findByType(RoomType.FLIGHT)),
+                query("RoomRepository.findByExpiryTimeGreaterThan",
+                        () -> roomRepository.findByExpiryTimeGreaterThan(lateExpiry)),
+                query("RoomRepository.findByTypeAndExpiryTimeGreaterThan",
+                        () -> roomRepository.findByTypeAndExpiryTimeGreaterThan(RoomType.FLIGHT, lateExpiry)),
+                query("RoomRepository.findExpiredRoomIds",
+                        () -> roomRepository.findExpiredRoomIds(List.of(RoomType.SOURCE, RoomType.DESTINATION,
+                                RoomType.FLIGHT), now, Limit.of(50))),
+                // A room no journey points at, so the delete goes through
+                query("RoomRepository.deleteAllByIdIn",
+                        () -> roomRepository.deleteAllByIdIn(List.of(UUID.randomUUID()))),
+                query("RoomRepository.findByDmKey", () -> roomRepository.findByDmKey("dm7")),
+                query("RoomRepository.insertDmRoomIfAbsent",
+                        () -> roomRepository.insertDmRoomIfAbsent(UUID.randomUUID(), "DM", 3, "dm7")),
+
+                query("SlotRoomRepository.findRoom",
+                        () -> slotRoomRepository.findRoom(RoomType.SOURCE, "L7", "slot7", "")),
+                query("SlotRoomRepository.insertRoomIfAbsent",
+                        () -> slotRoomRepository.insertRoomIfAbsent(UUID.randomUUID(), 0, "L7", "slot7", "",
+                                "Lounge", null, now)),
+
+                query("UserRepository.findByEmail", () -> userRepository.findByEmail("user7@example.com")),
+                query("UserRepository.existsByEmail", () -> userRepository.existsByEmail("user7@example.com")),
+                query("UserRepository.findByPhoneNumber", () -> userRepository.findByPhoneNumber("+15550000007")),
+                query("UserRepository.existsByNickname", () -> userRepository.existsByNickname("nick7")),
+                query("UserRepository.incrementChangeVersions",
+                        () -> userRepository.incrementChangeVersions(List.of(user))),
+                query("UserRepository.findChangeTag",
+                        () -> userRepository.findChangeTag(user, ConnectionStatus.NOT_CONNECTED.name(), now)),
+
+                query("UserDeviceTokenRepository.findByUserId", () -> userDeviceTokenRepository.findByUserId(user)),
+                query("UserDeviceTokenRepository.findByFcmToken",
+                        () -> userDeviceTokenRepository.findByFcmToken("token-7")),
+                query("UserDeviceTokenRepository.deleteByFcmToken",
+                        () -> userDeviceTokenRepository.deleteByFcmToken("token-7")),
+
+                query("SyncTimeRepository.findByUserIdAndDeviceId",
+                        () -> syncTimeRepository.findByUserIdAndDeviceId(user, "phone")),
+
+                query("RoomStatsRepository.findMessageCountByRoomId",
+                        () -> roomStatsRepository.findMessageCountByRoomId(room)),
+                query("RoomStatsRepository.findLastSeqByRoomId", () -> roomStatsRepository.findLastSeqByRoomId(room)),
+                query("RoomStatsRepository.findParticipantCountByRoomId",
+                        () -> roomStatsRepository.findParticipantCountByRoomId(room)),
+                query("RoomStatsRepository.findAllById", () -> roomStatsRepository.findAllById(rooms)),
+                query("RoomStatsBatchRepository.allocateSeqs", () -> roomStatsBatchRepository.allocateSeqs(room, 1)),
+                query("RoomStatsBatchRepository.addParticipantCounts",
+                        () -> roomStatsBatchRepository.addParticipantCounts(Map.of(room, 1L))),
+                query("RoomStatsBatchRepository.findRoomIdsAfter",
+                        () -> roomStatsBatchRepository.findRoomIdsAfter(room, 500)),
+                query("RoomStatsBatchRepository.reconcileMessageCounts",
+                        () -> roomStatsBatchRepository.reconcileMessageCounts(rooms)),
+
+                query("SyncCursorRepository.findByUserIdAndDeviceId",
+                        () -> syncCursorRepository.findByUserIdAndDeviceId(user, "phone")),
+                query("SyncCursorRepository.advance",
+                        () -> syncCursorRepository.advance(user, "phone", Map.of(room, 7L))),
+                query("SyncCursorRepository.deleteByUserIdAndDeviceId",
+                        () -> syncCursorRepository.deleteByUserIdAndDeviceId(user, "phone")),
+
+                query("MessageBatchRepository.touchRooms", () -> messageBatchRepository.touchRooms(Map.of(room, now))),
+                query("MessageWindowRepository.findNewestInRanges",
+                        () -> messageWindowRepository.findNewestInRanges(List.of(new SeqRange(room, 0, 10),
+                                new SeqRange(otherRoom, 0, 10)), 51)),
+                query("MessageWindowRepository.streamSince",
+                        () -> messageWindowRepository.streamSince(rooms, monthStart, 100, message -> {
+                        })));
+    }
+
+    private DynamicTest query(String name, Runnable call) {
+        return DynamicTest.dynamicTest(name, () -> {
+            List<Plan> plans = explain(call);
+
+            assertFalse(plans.isEmpty(), name + " sent no statement");
+            for (Plan plan : plans) {
+                assertTrue(plan.lines().stream().noneMatch(this::scansALargeTable),
+                        () -> name + " falls back to a sequential scan:\n" + plan.sql() + "\n"
+                                + String.join("\n", plan.lines()));
+            }
+        });
+    }
+
+    // Runs the call in a transaction that is rolled back, so every call sees the same data
+    private List<Plan> explain(Runnable call) {
+        List<Plan> plans = new ArrayList<>();
+        PLANS.set(plans);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                call.run();
+                // Derived deletes only reach the database on flush
+                entityManager.flush();
+                status.setRollbackOnly();
+            });
+        } finally {
+            PLANS.remove();
+        }
+        return plans;
+    }
+
+    private boolean scansALargeTable(String planLine) {
+        int at = planLine.indexOf("Seq Scan on ");
+        if (at < 0) {
+            return false;
+        }
+        String table = planLine.substring(at + "Seq Scan on ".length()).split(" ")[0];
+        return rowsByTable.getOrDefault(table, 0L) >= MIN_ROWS;
+    }
+
+    // ROWS users, rooms (mostly DMs), journeys and slot rooms; ten messages and two participants per room
+    private void seed() {
+        String ids = "WITH u AS (SELECT array_agg(id ORDER BY id) AS ids FROM users), "
+                + "r AS (SELECT array_agg(id ORDER BY id) AS ids FROM rooms) ";
+        jdbcTemplate.update("INSERT INTO users (id, created_at, name, email, phone_number, nickname) "
+                + "SELECT gen_random_uuid(), now(), 'User ' || g, 'user' || g || '@example.com', "
+                + "'+1555' || lpad(g::text, 7, '0'), 'nick' || g FROM generate_series(1, ?) g", ROWS);
+        // 1% each of source, destination and flight rooms, expiring over the next 1000 hours; the rest are DMs
+        jdbcTemplate.update("INSERT INTO rooms (id, created_at, name, type, expiry_time, last_message_timestamp, "
+                + "dm_key) SELECT gen_random_uuid(), now(), 'Room ' || g, "
+                + "CASE WHEN g % 100 < 3 THEN g % 100 ELSE 3 END, "
+                + "CASE WHEN g % 100 < 3 THEN now() + (g % 1000 - 5) * interval '1 hour' END, "
+                + "now() - g * interval '1 second', CASE WHEN g % 100 >= 3 THEN 'dm' || g END "
+                + "FROM generate_series(1, ?) g", ROWS);
+        jdbcTemplate.update(ids + "INSERT INTO messages (id, created_at, room_id, user_id, message_text, messagehtml, "
+                + "media_type, seq) SELECT gen_random_uuid(), "
+                + "date_trunc('month', now() AT TIME ZONE 'UTC') AT TIME ZONE 'UTC' + g * interval '1 second', "
+                + "r.ids[1 + g % ?], u.ids[1 + g * 7 % ?], 'hello', 'hello', 0, g / ? + 1 "
+                + "FROM generate_series(0, ? * 10 - 1) g, u, r", ROWS, ROWS, ROWS, ROWS);
+        jdbcTemplate.update(ids + "INSERT INTO dm_participants (id, created_at, room_id, user_id, status) "
+                + "SELECT gen_random_uuid(), now(), r.ids[1 + g / 2], u.ids[1 + (g / 2 + g % 2 * 7919) % ?], "
+                + "CASE g % 20 WHEN 0 THEN 'NOT_CONNECTED' WHEN 1 THEN 'RECEIVED' ELSE 'CONNECTED' END "
+                + "FROM generate_series(0, ? * 2 - 1) g, u, r", ROWS, ROWS);
+        jdbcTemplate.update("INSERT INTO inbox_entries (participant_id, user_id, room_id, room_type, display_name, "
+                + "last_activity_at, last_seq, expiry_time) SELECT p.id, p.user_id, p.room_id, r.type, r.name, "
+                + "r.last_message_timestamp, 10, r.expiry_time "
+                + "FROM dm_participants p JOIN rooms r ON r.id = p.room_id");
+        jdbcTemplate.update("INSERT INTO room_stats (room_id, message_count, last_seq, participant_count) "
+                + "SELECT id, 10, 10, 2 FROM rooms");
+        jdbcTemplate.update(ids + "INSERT INTO journeys (id, created_at, name, source, destination, depart_time, "
+                + "arrival_time, destination_slot, source_slot, flight_number, user_id, source_room_id, "
+                + "destination_room_id, flight_room_id) SELECT gen_random_uuid(), now(), 'Trip ' || g, 'S' || g % 500, "
+                + "'D' || g % 499, now(), now() + interval '2 hours', 'slot' || g % 40, 'slot' || g % 41, "
+                + "'FL' || g % 2000, u.ids[1 + g], r.ids[1 + g], r.ids[1 + (g + 1) % ?], r.ids[1 + (g + 2) % ?] "
+                + "FROM generate_series(0, ? - 1) g, u, r", ROWS, ROWS, ROWS);
+        jdbcTemplate.update(ids + "INSERT INTO slot_rooms (room_id, room_type, location, slot, flight_number) "
+                + "SELECT r.ids[1 + g], g % 3, 'L' || g, 'slot' || g % 30, '' FROM generate_series(0, ? - 1) g, r",
+                ROWS);
+        jdbcTemplate.update("INSERT INTO sync_time (id, created_at, user_id, device_id, sync_time) "
+                + "SELECT gen_random_uuid(), now(), id, 'phone', now() FROM users");
+        jdbcTemplate.update("INSERT INTO user_device_tokens (id, created_at, user_id, fcm_token) "
+                + "SELECT gen_random_uuid(), now(), id, 'token-' || id FROM users");
+        jdbcTemplate.update("INSERT INTO sync_cursors (user_id, device_id, room_id, last_seq, updated_at) "
+                + "SELECT user_id, 'phone', room_id, 5, now() FROM dm_participants");
+        jdbcTemplate.execute("ANALYZE");
+
+        jdbcTemplate.query("SELECT relname, reltuples::bigint AS rows FROM pg_class WHERE relkind = 'r'",
+                rs -> {
+                    rowsByTable.put(rs.getString("relname"), rs.getLong("rows"));
+                });
+    }
+
+    private record Plan(String sql, List<String> lines) {
+    }
+
+    private record Binding(Method method, Object[] args) {
+    }
+
+    /**
+     * Wraps the DataSource so that, while a call runs, each prepared statement
+     * is EXPLAINed with the values bound to it right before it executes. A
+     * batch is explained once, with the values of its first row.
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    static class ExplainConfig {
+
+        @Bean
+        static BeanPostProcessor explainingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? explaining(dataSource) : bean;
+                }
+            };
+        }
+
+        private static DataSource explaining(DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (method, args) -> {
+                Object result = method.invoke(dataSource, args);
+                return result instanceof Connection connection ? explaining(connection) : result;
+            });
+        }
+
+        private static Connection explaining(Connection connection) {
+            return proxy(Connection.class, connection, (method, args) -> {
+                Object result = method.invoke(connection, args);
+                if (method.getName().equals("prepareStatement")) {
+                    return explaining((PreparedStatement) result, connection, (String) args[0]);
+                }
+                return result;
+            });
+        }
+
+        private static PreparedStatement explaining(PreparedStatement statement, Connection connection, String sql) {
+            List<Binding> bindings = new ArrayList<>();
+            List<Binding> firstRow = new ArrayList<>();
+            return proxy(PreparedStatement.class, statement, (method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    bindings.add(new Binding(method, args));
+                } else if (name.equals("addBatch") && firstRow.isEmpty()) {
+                    firstRow.addAll(bindings);
+                } else if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                    explain(connection, sql, firstRow.isEmpty() ? bindings : firstRow);
+                }
+                return method.invoke(statement, args);
+            });
+        }
+
+        private static void explain(Connection connection, String sql, List<Binding> bindings) throws Exception {
+            List<Plan> plans = PLANS.get();
+            if (plans == null) {
+                return;
+            }
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (Binding binding : bindings) {
+                    binding.method().invoke(explain, binding.args());
+                }
+                List<String> lines = new ArrayList<>();
+                try (ResultSet rs = explain.executeQuery()) {
+                    while (rs.next()) {
+                        lines.add(rs.getString(1));
+                    }
+                }
+                plans.add(new Plan(sql, lines));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+                try {
+                    return handler.invoke(method, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+
+        @FunctionalInterface
+        private interface Handler {
+            Object invoke(Method method, Object[] args) throws Exception;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.flyte.backend.security;
+
+import com.flyte.backend.cache.RoomMembershipIndex;
+import com.flyte.backend.enums.ConnectionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomSubscriptionInterceptorTest {
+
+    @Mock
+    private RoomMembershipIndex roomMembershipIndex;
+
+    private RoomSubscriptionInterceptor interceptor;
+    private UUID roomId;
+    private UUID alice;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new RoomSubscriptionInterceptor(roomMembershipIndex);
+        roomId = UUID.randomUUID();
+        alice = UUID.randomUUID();
+    }
+
+    @Test
+    void preSend_LetsAParticipantSubscribeToTheRoomAndItsPresence() {
+        when(roomMembershipIndex.isMember(roomId, alice)).thenReturn(true);
+
+        Message<?> room = frame(StompCommand.SUBSCRIBE, "/topic/room/" + roomId, alice);
+        Message<?> presence = frame(StompCommand.SUBSCRIBE, "/topic/room/" + roomId + "/presence", alice);
+
+        assertSame(room, interceptor.preSend(room, null));
+        assertSame(presence, interceptor.preSend(presence, null));
+        verify(roomMembershipIndex, never()).currentStatusOf(any(), any());
+    }
+
+    @Test
+    void preSend_RefusesOthersEvenForPresenceOnly() {
+        UUID stranger = UUID.randomUUID();
+
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(
+                frame(StompCommand.SUBSCRIBE, "/topic/room/" + roomId + "/presence", stranger), null));
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(
+                frame(StompCommand.SUBSCRIBE, "/topic/room/" + roomId, null), null));
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(
+                frame(StompCommand.SUBSCRIBE, "/topic/room/not-a-room", stranger), null));
+    }
+
+    @Test
+    void preSend_ChecksTheRowBeforeRefusingSomeoneTheIndexDoesNotList() {
+        // Alice joined through another instance
+        when(roomMembershipIndex.currentStatusOf(roomId, alice)).thenReturn(ConnectionStatus.CONNECTED);
+
+        Message<?> room = frame(StompCommand.SUBSCRIBE, "/topic/room/" + roomId, alice);
+
+        assertSame(room, interceptor.preSend(room, null));
+    }
+
+    @Test
+    void preSend_IgnoresOtherDestinationsAndCommands() {
+        Message<?> user = frame(StompCommand.SUBSCRIBE, "/topic/user/" + alice, alice);
+        Message<?> send = frame(StompCommand.SEND, "/topic/room/" + roomId, alice);
+
+        assertSame(user, interceptor.preSend(user, null));
+        assertSame(send, interceptor.preSend(send, null));
+        verifyNoInteractions(roomMembershipIndex);
+    }
+
+    private static Message<?> frame(StompCommand command, String destination, UUID userId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        if (userId != null) {
+            accessor.setUser(new UsernamePasswordAuthenticationToken(userId.toString(), null, List.of()));
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
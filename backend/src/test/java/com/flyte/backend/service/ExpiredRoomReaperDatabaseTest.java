@@ -0,0 +1,132 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.EmbeddedDatabaseConfig;
+import com.flyte.backend.cache.RoomCacheEvictor;
+import com.flyte.backend.repository.JourneyRepository;
+import com.flyte.backend.repository.MessageRepository;
+import com.flyte.backend.repository.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the reaper's queries against Postgres: which rooms a journey keeps
+ * alive, and that messages go in chunks before their room.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedDatabaseConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExpiredRoomReaperDatabaseTest {
+
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private JourneyRepository journeyRepository;
+    @Autowired
+    private MessageRepository messageRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final RoomCacheEvictor roomCacheEvictor = mock(RoomCacheEvictor.class);
+    private ExpiredRoomReaper reaper;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        // Chunks of two messages, no grace period
+        reaper = new ExpiredRoomReaper(roomRepository, journeyRepository, messageRepository, roomCacheEvictor,
+                transactionManager, new SimpleMeterRegistry(), 50, 2, 5, 0, 0);
+        userId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, created_at, name, email) VALUES (?, now(), 'traveller', ?)",
+                userId, userId + "@example.com");
+    }
+
+    @Test
+    void reap_KeepsExpiredRoomsWhileTheirJourneyStillHasALiveRoom() {
+        Instant past = Instant.now().minus(Duration.ofHours(2));
+        UUID source = room(0, past);
+        UUID destination = room(1, Instant.now().plus(Duration.ofDays(1)));
+        UUID flight = room(2, past);
+        UUID journey = journey(source, destination, flight);
+
+        reaper.reap();
+
+        assertEquals(3, count("SELECT COUNT(*) FROM rooms WHERE id IN (?, ?, ?)", source, destination, flight));
+        assertEquals(1, count("SELECT COUNT(*) FROM journeys WHERE id = ?", journey));
+        verifyNoInteractions(roomCacheEvictor);
+    }
+
+    @Test
+    void reap_DeletesTheJourneyAndMessagesOnceAllItsRoomsExpired() {
+        Instant past = Instant.now().minus(Duration.ofHours(2));
+        UUID source = room(0, past);
+        UUID destination = room(1, past);
+        UUID flight = room(2, past);
+        UUID journey = journey(source, destination, flight);
+        for (int seq = 1; seq <= 5; seq++) {
+            message(source, seq);
+        }
+
+        reaper.reap();
+
+        assertEquals(0, count("SELECT COUNT(*) FROM rooms WHERE id IN (?, ?, ?)", source, destination, flight));
+        assertEquals(0, count("SELECT COUNT(*) FROM journeys WHERE id = ?", journey));
+        assertEquals(0, count("SELECT COUNT(*) FROM messages WHERE room_id = ?", source));
+        verify(roomCacheEvictor).roomsDeleted(argThat(ids -> ids.containsAll(List.of(source, destination, flight))));
+    }
+
+    @Test
+    void deleteChunkByRoomIdIn_DeletesAtMostTheLimit() {
+        UUID room = room(0, Instant.now().plus(Duration.ofDays(1)));
+        for (int seq = 1; seq <= 3; seq++) {
+            message(room, seq);
+        }
+
+        assertEquals(2, messageRepository.deleteChunkByRoomIdIn(List.of(room), 2));
+        assertEquals(1, count("SELECT COUNT(*) FROM messages WHERE room_id = ?", room));
+    }
+
+    private UUID room(int type, Instant expiryTime) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO rooms (id, created_at, name, type, expiry_time) VALUES (?, now(), 'r', ?, ?)",
+                id, type, Timestamp.from(expiryTime));
+        return id;
+    }
+
+    private UUID journey(UUID source, UUID destination, UUID flight) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO journeys (id, created_at, depart_time, arrival_time, user_id, "
+                + "source_room_id, destination_room_id, flight_room_id) VALUES (?, now(), now(), now(), ?, ?, ?, ?)",
+                id, userId, source, destination, flight);
+        return id;
+    }
+
+    private void message(UUID roomId, long seq) {
+        jdbcTemplate.update("INSERT INTO messages (id, created_at, room_id, user_id, message_text, messagehtml, "
+                + "media_type, seq) VALUES (?, now(), ?, ?, 'hi', 'hi', 0, ?)", UUID.randomUUID(), roomId, userId, seq);
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
@@ -0,0 +1,86 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.cache.RoomCacheEvictor;
+import com.flyte.backend.repository.JourneyRepository;
+import com.flyte.backend.repository.MessageRepository;
+import com.flyte.backend.repository.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExpiredRoomReaperTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+    @Mock
+    private JourneyRepository journeyRepository;
+    @Mock
+    private MessageRepository messageRepository;
+    @Mock
+    private RoomCacheEvictor roomCacheEvictor;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiredRoomReaper reaper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reaper = new ExpiredRoomReaper(roomRepository, journeyRepository, messageRepository, roomCacheEvictor,
+                transactionManager, meterRegistry, 2, 100, 5, 0, 60);
+    }
+
+    @Test
+    void reap_DeletesMessagesInChunksThenJourneysThenRoomsUntilABatchComesBackShort() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(roomRepository.tryAdvisoryXactLock(ExpiredRoomReaper.ADVISORY_LOCK_KEY)).thenReturn(true);
+        when(roomRepository.findExpiredRoomIds(anyList(), any(), eq(Limit.of(2))))
+                .thenReturn(List.of(first, second), List.of(third));
+        when(messageRepository.deleteChunkByRoomIdIn(List.of(first, second), 100)).thenReturn(100, 40);
+        when(messageRepository.deleteChunkByRoomIdIn(List.of(third), 100)).thenReturn(0);
+        when(roomRepository.deleteAllByIdIn(anyList())).thenReturn(2, 1);
+
+        reaper.reap();
+
+        InOrder order = inOrder(messageRepository, journeyRepository, roomRepository, roomCacheEvictor);
+        order.verify(messageRepository, times(2)).deleteChunkByRoomIdIn(List.of(first, second), 100);
+        order.verify(journeyRepository).deleteExpiredByAnyRoomIdIn(eq(List.of(first, second)), any());
+        order.verify(roomRepository).deleteAllByIdIn(List.of(first, second));
+        order.verify(roomCacheEvictor).roomsDeleted(List.of(first, second));
+        order.verify(journeyRepository).deleteExpiredByAnyRoomIdIn(eq(List.of(third)), any());
+        order.verify(roomRepository).deleteAllByIdIn(List.of(third));
+        order.verify(roomCacheEvictor).roomsDeleted(List.of(third));
+        verify(roomRepository, times(2)).findExpiredRoomIds(anyList(), any(), any());
+        assertEquals(3.0, meterRegistry.get("flyte.reaper.rooms_deleted").counter().count());
+        assertEquals(140.0, meterRegistry.get("flyte.reaper.messages_deleted").counter().count());
+    }
+
+    @Test
+    void reap_BacksOffWhenAnotherInstanceHoldsTheLock() {
+        when(roomRepository.tryAdvisoryXactLock(ExpiredRoomReaper.ADVISORY_LOCK_KEY)).thenReturn(false);
+
+        reaper.reap();
+
+        verify(roomRepository, never()).findExpiredRoomIds(anyList(), any(), any());
+        verifyNoInteractions(journeyRepository, messageRepository, roomCacheEvictor);
+        assertEquals(1.0, meterRegistry.get("flyte.reaper.lock_contended").counter().count());
+    }
+}
@@ -1,6 +1,12 @@
 package com.flyte.backend.service;
 
 import com.flyte.backend.DTO.Journey.CreateJourneyRequest;
+import com.flyte.backend.DTO.Room.SlotKey;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import com.flyte.backend.cache.RoomStatsTracker;
+import com.flyte.backend.cache.SlotRoomCache;
+import com.flyte.backend.cache.UserChangeVersions;
+import com.flyte.backend.enums.RoomType;
 import com.flyte.backend.model.Journey;
 import com.flyte.backend.model.Room;
 import com.flyte.backend.model.RoomParticipant;
@@ -8,22 +14,25 @@ import com.flyte.backend.model.User;
 import com.flyte.backend.repository.JourneyRepository;
 import com.flyte.backend.repository.RoomParticipantRepository;
 import com.flyte.backend.repository.RoomRepository;
+import com.flyte.backend.repository.SlotRoomRepository;
 import com.flyte.backend.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Example;
 
 import java.time.Instant;
-import java.util.Collections;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -35,21 +44,38 @@ class JourneyServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private RoomRepository roomRepository;
+    private SlotRoomService slotRoomService;
     @Mock
     private RoomParticipantRepository roomParticipantRepository; // Added this
+    @Mock
+    private UserChangeVersions userChangeVersions;
+    @Mock
+    private SyncPushService syncPushService;
+    @Mock
+    private InboxService inboxService;
+    @Mock
+    private RoomMembershipIndex roomMembershipIndex;
+    @Mock
+    private RoomStatsTracker roomStatsTracker;
+    @Mock
+    private SlotRoomRepository slotRoomRepository;
+    @Mock
+    private RoomRepository roomRepository;
+    @Mock
+    private SlotRoomCache slotRoomCache;
 
     private JourneyService journeyService;
 
     @BeforeEach
     void setUp() {
         // Updated constructor with new repo
-        journeyService = new JourneyService(journeyRepository, userRepository, roomRepository,
-                roomParticipantRepository, 24);
+        journeyService = new JourneyService(journeyRepository, userRepository, slotRoomService,
+                roomParticipantRepository, userChangeVersions, syncPushService, inboxService,
+                roomMembershipIndex, roomStatsTracker, 24);
     }
 
     @Test
-    void createJourney_Success_CreatesRoomsAndAddsParticipant() {
+    void createJourney_Success_ResolvesTheThreeSlotRoomsAndAddsParticipant() {
         // 1. Arrange
         UUID userId = UUID.randomUUID();
         User mockUser = new User();
@@ -65,16 +91,14 @@ class JourneyServiceTest {
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(mockUser));
 
-        // Mock finding NO existing rooms (force creation)
-        when(journeyRepository.findByFlightNumberAndSourceAndSourceSlotAndDestinationAndDestinationSlot(anyString(),
-                anyString(), anyString(), anyString(), anyString()))
-                .thenReturn(Collections.emptyList());
-        when(journeyRepository.findBySourceAndSourceSlot(anyString(), anyString())).thenReturn(Collections.emptyList());
-        when(journeyRepository.findByDestinationAndDestinationSlot(anyString(), anyString()))
-                .thenReturn(Collections.emptyList());
-
-        // Mock Saves
-        when(roomRepository.save(any(Room.class))).thenAnswer(i -> i.getArgument(0)); // Return what is passed
+        // Each slot gets its own room, whether it already existed or not
+        when(slotRoomService.findOrCreate(any(SlotKey.class), anyString(), anyString(), any(Instant.class)))
+                .thenAnswer(i -> {
+                    Room room = new Room();
+                    room.setId(UUID.randomUUID());
+                    room.setType(i.getArgument(0, SlotKey.class).roomType());
+                    return room;
+                });
         when(journeyRepository.save(any(Journey.class))).thenAnswer(i -> {
             Journey j = i.getArgument(0);
             // Simulate DB assigning ID
@@ -86,10 +110,17 @@ class JourneyServiceTest {
         Journey result = journeyService.createJourney(request);
 
         // 3. Assert
-        assertNotNull(result);
-
-        // Verify 3 Rooms Created
-        verify(roomRepository, times(3)).save(any(Room.class));
+        assertEquals(RoomType.FLIGHT, result.getFlightRoom().getType());
+        assertEquals(RoomType.SOURCE, result.getSourceRoom().getType());
+        assertEquals(RoomType.DESTINATION, result.getDestinationRoom().getType());
+
+        ArgumentCaptor<SlotKey> keys = ArgumentCaptor.forClass(SlotKey.class);
+        verify(slotRoomService, times(3)).findOrCreate(keys.capture(), anyString(), anyString(), any(Instant.class));
+        SlotKey flightKey = keys.getAllValues().get(0);
+        assertEquals("JFK-LHR", flightKey.location());
+        assertEquals("BA123", flightKey.flightNumber());
+        assertEquals("JFK", keys.getAllValues().get(1).location());
+        assertEquals("", keys.getAllValues().get(1).flightNumber());
 
         // Verify User Added to 3 Rooms (CRITICAL CHECK)
         verify(roomParticipantRepository, times(3)).save(any(RoomParticipant.class));
@@ -110,36 +141,43 @@ class JourneyServiceTest {
         request.setDepartureTime(Instant.now());
         request.setArrivalTime(Instant.now().plusSeconds(3600));
 
-        // Mock Existing Data
+        // The real slot lookup over a registry where every slot already has the same room
+        journeyService = new JourneyService(journeyRepository, userRepository,
+                new SlotRoomService(slotRoomRepository, roomRepository, slotRoomCache),
+                roomParticipantRepository, userChangeVersions, syncPushService, inboxService,
+                roomMembershipIndex, roomStatsTracker, 24);
         Room existingRoom = new Room();
         existingRoom.setId(UUID.randomUUID());
-        Journey existingJourney = new Journey();
-        existingJourney.setFlightRoom(existingRoom);
-        existingJourney.setSourceRoom(existingRoom);
-        existingJourney.setDestinationRoom(existingRoom);
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(mockUser));
-
-        // Return existing journeys for all room searches
-        when(journeyRepository.findByFlightNumberAndSourceAndSourceSlotAndDestinationAndDestinationSlot(anyString(),
-                anyString(), anyString(), anyString(), anyString()))
-                .thenReturn(List.of(existingJourney));
-        when(journeyRepository.findBySourceAndSourceSlot(anyString(), anyString()))
-                .thenReturn(List.of(existingJourney));
-        when(journeyRepository.findByDestinationAndDestinationSlot(anyString(), anyString()))
-                .thenReturn(List.of(existingJourney));
-
+        when(slotRoomRepository.findRoom(any(RoomType.class), anyString(), anyString(), anyString()))
+                .thenReturn(Optional.of(existingRoom));
+
+        // Membership as the database would report it once the participant row is saved
+        Set<UUID> joinedRooms = new HashSet<>();
+        when(roomParticipantRepository.existsByRoomIdAndUserId(existingRoom.getId(), userId))
+                .thenAnswer(i -> joinedRooms.contains(existingRoom.getId()));
+        when(roomParticipantRepository.save(any(RoomParticipant.class))).thenAnswer(i -> {
+            RoomParticipant participant = i.getArgument(0);
+            joinedRooms.add(participant.getRoom().getId());
+            return participant;
+        });
         when(journeyRepository.save(any(Journey.class))).thenAnswer(i -> i.getArgument(0));
 
         // 2. Act
         Journey result = journeyService.createJourney(request);
 
         // 3. Assert
+        assertSame(existingRoom, result.getFlightRoom());
+        assertSame(existingRoom, result.getSourceRoom());
+        assertSame(existingRoom, result.getDestinationRoom());
+
         // Verify NO new rooms created
-        verify(roomRepository, never()).save(any(Room.class));
+        verify(slotRoomRepository, never()).insertRoomIfAbsent(any(), anyInt(), any(), any(), any(), any(), any(),
+                any());
 
-        // Verify User STILL Added to the 3 EXISTING Rooms
-        verify(roomParticipantRepository, times(3)).save(any(RoomParticipant.class));
+        // Verify User added to the EXISTING Room exactly once
+        verify(roomParticipantRepository, times(1)).save(any(RoomParticipant.class));
     }
 
     @Test
@@ -150,7 +188,7 @@ class JourneyServiceTest {
         when(userRepository.findById(any())).thenReturn(Optional.empty());
 
         assertThrows(RuntimeException.class, () -> journeyService.createJourney(request));
-        verifyNoInteractions(roomRepository, roomParticipantRepository);
+        verifyNoInteractions(slotRoomService, roomParticipantRepository);
     }
 
     @Test
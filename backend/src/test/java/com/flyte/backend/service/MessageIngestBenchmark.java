@@ -0,0 +1,214 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.BenchmarkDatabaseConfig;
+import com.flyte.backend.DTO.Chat.ClientMessage;
+import com.flyte.backend.DTO.Message.CreateMessageRequest;
+import com.flyte.backend.cache.InboxTracker;
+import com.flyte.backend.cache.RecentMessageCache;
+import com.flyte.backend.cache.RoomActivityTracker;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import com.flyte.backend.cache.RoomSequencer;
+import com.flyte.backend.cache.UserChangeVersions;
+import com.flyte.backend.enums.MediaType;
+import com.flyte.backend.repository.MessageBatchRepository;
+import com.flyte.backend.repository.MessageWindowRepository;
+import com.flyte.backend.repository.RoomStatsBatchRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Messages per second through the two chat write paths against embedded
+ * Postgres: one transaction per message (MessageService.createMessage, the
+ * 'direct' ingest mode) and the group-commit MessageIngestPipeline.
+ * Concurrent writers spread their messages over a set of rooms. Both paths
+ * allocate seqs and insert for real; broadcasting and the in-memory caches
+ * are mocked out.
+ *
+ * Runs with {@code mvn -Pbenchmark test}. Scale it with -Dbenchmark.messages,
+ * -Dbenchmark.writers and -Dbenchmark.rooms.
+ */
+@DataJpaTest(properties = {
+        "app.chat.ingest.mode=batched",
+        "app.chat.ingest.batch-size=200",
+        "app.chat.ingest.max-linger-ms=20"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ BenchmarkDatabaseConfig.class, MessageService.class, MessageIngestPipeline.class, RoomSequencer.class,
+        MessageBatchRepository.class, MessageWindowRepository.class, RoomStatsBatchRepository.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MessageIngestBenchmark {
+
+    private static final int MESSAGES = Integer.getInteger("benchmark.messages", 20_000);
+    private static final int WRITERS = Integer.getInteger("benchmark.writers", 50);
+    private static final int ROOMS = Integer.getInteger("benchmark.rooms", 50);
+
+    @MockitoBean
+    private RoomMembershipIndex roomMembershipIndex;
+    @MockitoBean
+    private RecentMessageCache recentMessageCache;
+    @MockitoBean
+    private RoomActivityTracker roomActivityTracker;
+    @MockitoBean
+    private UserChangeVersions userChangeVersions;
+    @MockitoBean
+    private SyncPushService syncPushService;
+    @MockitoBean
+    private InboxTracker inboxTracker;
+    @MockitoBean
+    private NotificationService notificationService;
+    @MockitoBean
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @Autowired
+    private MessageService messageService;
+    @Autowired
+    private MessageIngestPipeline messageIngestPipeline;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID userId;
+    private List<UUID> roomIds;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, created_at, name, email) VALUES (?, now(), 'bench', ?)",
+                userId, userId + "@example.com");
+        roomIds = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            UUID roomId = UUID.randomUUID();
+            jdbcTemplate.update("INSERT INTO rooms (id, created_at, name, type) VALUES (?, now(), ?, 0)",
+                    roomId, "Bench-" + i);
+            roomIds.add(roomId);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Cascades to the messages and room_stats rows
+        for (UUID roomId : roomIds) {
+            jdbcTemplate.update("DELETE FROM rooms WHERE id = ?", roomId);
+        }
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    void directAgainstBatchedIngest() throws Exception {
+        // Warm up both paths: JIT, connection pool, plans
+        send(roomId -> messageService.createMessage(request(roomId)), 1_000);
+        send(this::submit, 1_000);
+        awaitStored(2_000);
+
+        long direct = send(roomId -> messageService.createMessage(request(roomId)), MESSAGES);
+        report("direct", direct);
+
+        long started = System.nanoTime();
+        send(this::submit, MESSAGES);
+        awaitStored(2_000 + 2L * MESSAGES);
+        report("batched", System.nanoTime() - started);
+
+        // Every room's seqs stayed gap-free on both paths
+        assertEquals(2_000 + 2L * MESSAGES, jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(s.last_seq), 0) FROM room_stats s JOIN rooms r ON r.id = s.room_id "
+                        + "WHERE r.name LIKE 'Bench-%'", Long.class));
+    }
+
+    // Runs 'messages' sends over WRITERS threads, round-robin over the rooms; returns the elapsed nanos
+    private long send(Send send, int messages) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                int count = messages / WRITERS + (writer < messages % WRITERS ? 1 : 0);
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < count; i++) {
+                        send.send(roomIds.get((writer + i) % roomIds.size()));
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - started;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Backs off while the queue is full, like a client retrying after the error
+    private void submit(UUID roomId) throws InterruptedException {
+        ClientMessage message = new ClientMessage();
+        message.setUserId(userId);
+        message.setMessageText("hello");
+        message.setMessageHTML("hello");
+        message.setMediaType(MediaType.TEXT);
+        while (true) {
+            try {
+                messageIngestPipeline.submit(roomId, message);
+                return;
+            } catch (IllegalStateException e) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private CreateMessageRequest request(UUID roomId) {
+        CreateMessageRequest request = new CreateMessageRequest();
+        request.setRoomId(roomId);
+        request.setUserId(userId);
+        request.setMessageText("hello");
+        request.setMessageHTML("hello");
+        request.setMediaType(MediaType.TEXT);
+        return request;
+    }
+
+    private void awaitStored(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
+        while (count() < expected) {
+            assertTrue(System.nanoTime() < deadline, "Batched ingest did not store every message in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM messages WHERE user_id = ?", Long.class, userId);
+    }
+
+    private static void report(String path, long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        System.out.printf("%-8s %d messages, %d writers, %d rooms: %.0f messages/s%n",
+                path, MESSAGES, WRITERS, ROOMS, MESSAGES / seconds);
+    }
+
+    @FunctionalInterface
+    private interface Send {
+        void send(UUID roomId) throws Exception;
+    }
+}
@@ -0,0 +1,65 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.repository.MessagePartitionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessagePartitionMaintainerTest {
+
+    @Mock
+    private MessagePartitionRepository messagePartitionRepository;
+
+    @Test
+    void maintain_CreatesCurrentAndUpcomingMonths() {
+        MessagePartitionMaintainer maintainer = new MessagePartitionMaintainer(messagePartitionRepository, 2, 0);
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+
+        maintainer.maintain();
+
+        for (int i = 0; i <= 2; i++) {
+            verify(messagePartitionRepository).createPartition(
+                    eq(MessagePartitionMaintainer.nameOf(current.plusMonths(i))), any(), any());
+        }
+        // Retention 0 never drops
+        verify(messagePartitionRepository, never()).findPartitionNames();
+    }
+
+    @Test
+    void maintain_DropsOnlyOldPartitionsTheReaperHasEmptied() {
+        MessagePartitionMaintainer maintainer = new MessagePartitionMaintainer(messagePartitionRepository, 0, 30);
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        String expired = MessagePartitionMaintainer.nameOf(current.minusMonths(3));
+        String holdsDms = MessagePartitionMaintainer.nameOf(current.minusMonths(4));
+        String recent = MessagePartitionMaintainer.nameOf(current);
+        when(messagePartitionRepository.findPartitionNames()).thenReturn(List.of(expired, holdsDms, recent, "other"));
+        when(messagePartitionRepository.hasMessages(expired)).thenReturn(false);
+        when(messagePartitionRepository.hasMessages(holdsDms)).thenReturn(true);
+
+        maintainer.maintain();
+
+        verify(messagePartitionRepository).detachAndDropPartition(expired);
+        verify(messagePartitionRepository, never()).detachAndDropPartition(holdsDms);
+        verify(messagePartitionRepository, never()).hasMessages(recent);
+        verify(messagePartitionRepository, times(1)).detachAndDropPartition(anyString());
+    }
+
+    @Test
+    void monthOf_IgnoresForeignTables() {
+        assertEquals(YearMonth.of(2026, 3), MessagePartitionMaintainer.monthOf("messages_p202603"));
+        assertNull(MessagePartitionMaintainer.monthOf("messages_legacy"));
+        assertNull(MessagePartitionMaintainer.monthOf("rooms"));
+    }
+}
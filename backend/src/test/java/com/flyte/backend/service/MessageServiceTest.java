@@ -0,0 +1,215 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.DTO.Message.MessagePage;
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Message.SeqRange;
+import com.flyte.backend.cache.InboxTracker;
+import com.flyte.backend.cache.RecentMessageCache;
+import com.flyte.backend.cache.RoomActivityTracker;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import com.flyte.backend.cache.RoomSequencer;
+import com.flyte.backend.cache.UserChangeVersions;
+import com.flyte.backend.model.RoomStats;
+import com.flyte.backend.repository.MessageRepository;
+import com.flyte.backend.repository.MessageWindowRepository;
+import com.flyte.backend.repository.RoomRepository;
+import com.flyte.backend.repository.RoomStatsRepository;
+import com.flyte.backend.repository.UserRepository;
+import com.flyte.backend.util.MessageCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageServiceTest {
+
+    @Mock
+    private MessageRepository messageRepository;
+    @Mock
+    private MessageWindowRepository messageWindowRepository;
+    @Mock
+    private RoomRepository roomRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private RoomMembershipIndex roomMembershipIndex;
+    @Mock
+    private RoomActivityTracker roomActivityTracker;
+    @Mock
+    private RoomStatsRepository roomStatsRepository;
+    @Mock
+    private RoomSequencer roomSequencer;
+    @Mock
+    private UserChangeVersions userChangeVersions;
+    @Mock
+    private SyncPushService syncPushService;
+    @Mock
+    private InboxTracker inboxTracker;
+
+    private MessageService messageService;
+
+    @BeforeEach
+    void setUp() {
+        // Real cache: it starts empty, so every read below falls through to the repository
+        RecentMessageCache recentMessageCache = new RecentMessageCache(new SimpleMeterRegistry(), 50, 100, 30);
+        messageService = new MessageService(messageRepository, messageWindowRepository, roomRepository, userRepository,
+                roomMembershipIndex, recentMessageCache, roomActivityTracker, roomStatsRepository, roomSequencer,
+                userChangeVersions, syncPushService, inboxTracker, 2, 10);
+    }
+
+    @Test
+    void getMessagesByRoom_LatestPage_ReturnsBeforeCursorWhenOlderExists() {
+        UUID roomId = UUID.randomUUID();
+        // Newest first, one more row than the page size
+        List<MessageView> rows = List.of(message(12), message(11), message(10));
+
+        when(roomStatsRepository.findLastSeqByRoomId(roomId)).thenReturn(Optional.of(12L));
+        when(roomSequencer.capToVisible(roomId, 12L)).thenReturn(12L);
+        when(messageRepository.findRoomPageLatest(roomId, 12L, Limit.of(3))).thenReturn(rows);
+
+        MessagePage page = messageService.getMessagesByRoom(roomId, null, null, null);
+
+        assertEquals(2, page.getMessages().size());
+        assertEquals("11", page.getBeforeCursor());
+        assertEquals("12", page.getAfterCursor());
+    }
+
+    @Test
+    void getMessagesByRoom_LatestPage_ReseedsWhenAnotherInstanceMovedTheHead() {
+        UUID roomId = UUID.randomUUID();
+        when(roomStatsRepository.findLastSeqByRoomId(roomId)).thenReturn(Optional.of(12L), Optional.of(12L),
+                Optional.of(13L));
+        when(roomSequencer.capToVisible(eq(roomId), anyLong())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(messageRepository.findRoomPageLatest(roomId, 12L, Limit.of(3)))
+                .thenReturn(List.of(message(roomId, 12), message(roomId, 11), message(roomId, 10)));
+        when(messageRepository.findRoomPageLatest(roomId, 13L, Limit.of(3)))
+                .thenReturn(List.of(message(roomId, 13), message(roomId, 12), message(roomId, 11)));
+
+        messageService.getMessagesByRoom(roomId, null, null, null);
+        // Served from the buffer seeded by the first read
+        messageService.getMessagesByRoom(roomId, null, null, null);
+        MessagePage page = messageService.getMessagesByRoom(roomId, null, null, null);
+
+        assertEquals("13", page.getAfterCursor());
+        verify(messageRepository, times(1)).findRoomPageLatest(roomId, 12L, Limit.of(3));
+    }
+
+    @Test
+    void getMessagesByRoom_BeforeCursor_LastPageHasNoBeforeCursor() {
+        UUID roomId = UUID.randomUUID();
+        List<MessageView> rows = List.of(message(1));
+
+        when(messageRepository.findRoomPageBefore(roomId, 2L, Limit.of(3))).thenReturn(rows);
+
+        MessagePage page = messageService.getMessagesByRoom(roomId, "2", null, null);
+
+        assertEquals(1, page.getMessages().size());
+        assertNull(page.getBeforeCursor());
+    }
+
+    @Test
+    void getMessagesByRoom_AfterCursor_ReturnsNewestFirstUpToVisibleLimit() {
+        UUID roomId = UUID.randomUUID();
+        // Oldest first, as the repository returns them
+        List<MessageView> rows = new ArrayList<>(List.of(message(6), message(7)));
+
+        // Seq 8 is still being written
+        when(roomStatsRepository.findLastSeqByRoomId(roomId)).thenReturn(Optional.of(8L));
+        when(roomSequencer.capToVisible(roomId, 8L)).thenReturn(7L);
+        when(messageRepository.findRoomPageAfter(roomId, 5L, 7L, Limit.of(3))).thenReturn(rows);
+
+        MessagePage page = messageService.getMessagesByRoom(roomId, null, "5", null);
+
+        assertEquals(7L, page.getMessages().get(0).seq());
+        assertEquals("7", page.getAfterCursor());
+    }
+
+    @Test
+    void getUserMessages_UsesOpaqueCursors() {
+        UUID userId = UUID.randomUUID();
+        List<MessageView> rows = List.of(message(3), message(2), message(1));
+
+        when(messageRepository.findUserPageLatest(userId, Limit.of(3))).thenReturn(rows);
+
+        MessagePage page = messageService.getMessagesByUser(userId, null, null, null);
+
+        assertEquals(rows.get(1).id(), MessageCursor.decode(page.getBeforeCursor()).getId());
+    }
+
+    @Test
+    void getMessagesByRoom_Fails_OnMalformedCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> messageService.getMessagesByRoom(UUID.randomUUID(), "not-a-cursor", null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> messageService.getMessagesByRoom(UUID.randomUUID(), null, "-1", null));
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void getMessageCount_ReadsTheStoredCounter() {
+        UUID roomId = UUID.randomUUID();
+        when(roomStatsRepository.findMessageCountByRoomId(roomId)).thenReturn(Optional.of(42L));
+
+        assertEquals(42L, messageService.getMessageCount(roomId));
+        verify(messageRepository, never()).countByRoom_Id(roomId);
+    }
+
+    @Test
+    void getMessageCount_FallsBackToCountWithoutStatsRow() {
+        UUID roomId = UUID.randomUUID();
+        when(roomStatsRepository.findMessageCountByRoomId(roomId)).thenReturn(Optional.empty());
+        when(messageRepository.countByRoom_Id(roomId)).thenReturn(7L);
+
+        assertEquals(7L, messageService.getMessageCount(roomId));
+    }
+
+    @Test
+    void getLatestMessagesByRoomIds_ReadsEveryRoomWindowInOneQueryUpToVisibleLimit() {
+        UUID busy = UUID.randomUUID();
+        UUID quiet = UUID.randomUUID();
+        when(roomStatsRepository.findAllById(List.of(busy, quiet)))
+                .thenReturn(List.of(stats(busy, 8), stats(quiet, 1)));
+        when(roomSequencer.capToVisible(busy, 8L)).thenReturn(7L);
+        when(roomSequencer.capToVisible(quiet, 1L)).thenReturn(1L);
+        when(messageWindowRepository.findNewestInRanges(
+                List.of(new SeqRange(busy, 0, 7), new SeqRange(quiet, 0, 1)), 3))
+                .thenReturn(List.of(message(busy, 7), message(busy, 6), message(busy, 5), message(quiet, 1)));
+
+        Map<UUID, List<MessageView>> latest = messageService.getLatestMessagesByRoomIds(List.of(busy, quiet), 3);
+
+        assertEquals(List.of(7L, 6L, 5L), latest.get(busy).stream().map(MessageView::seq).toList());
+        assertEquals(List.of(1L), latest.get(quiet).stream().map(MessageView::seq).toList());
+        verify(messageWindowRepository, times(1)).findNewestInRanges(anyList(), anyInt());
+    }
+
+    private static RoomStats stats(UUID roomId, long lastSeq) {
+        RoomStats stats = new RoomStats();
+        stats.setRoomId(roomId);
+        stats.setLastSeq(lastSeq);
+        return stats;
+    }
+
+    private MessageView message(long seq) {
+        return message(UUID.randomUUID(), seq);
+    }
+
+    private MessageView message(UUID roomId, long seq) {
+        Instant createdAt = Instant.parse("2026-01-01T00:00:00Z").plusSeconds(seq);
+        return new MessageView(UUID.randomUUID(), roomId, seq, UUID.randomUUID(), "sender", "text", null,
+                null, null, createdAt, createdAt);
+    }
+}
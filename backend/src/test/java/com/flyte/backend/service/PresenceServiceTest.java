@@ -0,0 +1,75 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.DTO.Room.RoomPresence;
+import com.flyte.backend.cache.PresenceRegistry;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceServiceTest {
+
+    @Mock
+    private RoomMembershipIndex roomMembershipIndex;
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+
+    private PresenceRegistry presenceRegistry;
+    private PresenceService presenceService;
+    private UUID lounge;
+    private UUID alice;
+
+    @BeforeEach
+    void setUp() {
+        presenceRegistry = new PresenceRegistry(new SimpleMeterRegistry());
+        presenceService = new PresenceService(presenceRegistry, roomMembershipIndex, messagingTemplate);
+        lounge = UUID.randomUUID();
+        alice = UUID.randomUUID();
+        presenceRegistry.connect("phone", alice);
+        presenceRegistry.subscribe("phone", "sub-0", lounge);
+    }
+
+    @Test
+    void getRoomPresence_ReturnsOnlineUsersToAParticipant() {
+        UUID bob = UUID.randomUUID();
+        when(roomMembershipIndex.isMember(lounge, bob)).thenReturn(true);
+
+        RoomPresence presence = presenceService.getRoomPresence(lounge, principal(bob));
+
+        assertEquals(1, presence.onlineCount());
+        assertEquals(Set.of(alice), presence.onlineUserIds());
+    }
+
+    @Test
+    void getRoomPresence_Fails_WhenCallerIsNotAParticipant() {
+        UUID stranger = UUID.randomUUID();
+        when(roomMembershipIndex.isMember(lounge, stranger)).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class, () -> presenceService.getRoomPresence(lounge, principal(stranger)));
+    }
+
+    @Test
+    void getRoomPresence_Fails_WhenCallerIsAnonymous() {
+        assertThrows(AccessDeniedException.class, () -> presenceService.getRoomPresence(lounge, null));
+        verifyNoInteractions(roomMembershipIndex);
+    }
+
+    private static Principal principal(UUID userId) {
+        return new UsernamePasswordAuthenticationToken(userId.toString(), null, List.of());
+    }
+}
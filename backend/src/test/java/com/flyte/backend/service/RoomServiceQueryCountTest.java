@@ -0,0 +1,150 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.EmbeddedDatabaseConfig;
+import com.flyte.backend.DTO.Room.RoomResponse;
+import com.flyte.backend.DTO.Room.RoomWithMessages;
+import com.flyte.backend.cache.RoomCacheEvictor;
+import com.flyte.backend.cache.RoomActivityTracker;
+import com.flyte.backend.cache.RoomMembershipIndex;
+import com.flyte.backend.cache.RoomStatsTracker;
+import com.flyte.backend.cache.UserChangeVersions;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.model.RoomParticipant;
+import com.flyte.backend.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts the JDBC statements behind the room list endpoints against the real
+ * schema. DM names come from the other participant, which used to be looked
+ * up once per DM; the count must not grow with the number of rooms.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ RoomService.class, EmbeddedDatabaseConfig.class })
+class RoomServiceQueryCountTest {
+
+    private static final int DM_COUNT = 200;
+
+    @MockitoBean
+    private MessageService messageService;
+    @MockitoBean
+    private NotificationService notificationService;
+    @MockitoBean
+    private RoomCacheEvictor roomCacheEvictor;
+    @MockitoBean
+    private RoomActivityTracker roomActivityTracker;
+    @MockitoBean
+    private RoomStatsTracker roomStatsTracker;
+    @MockitoBean
+    private SyncPushService syncPushService;
+    @MockitoBean
+    private InboxService inboxService;
+    @MockitoBean
+    private RoomMembershipIndex roomMembershipIndex;
+    @MockitoBean
+    private UserChangeVersions userChangeVersions;
+
+    @Autowired
+    private RoomService roomService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getRoomsAndMessagesByUserId_ResolvesEveryDmInConstantStatements() {
+        User self = user("self");
+        for (int i = 0; i < DM_COUNT; i++) {
+            dm(self, ConnectionStatus.CONNECTED, user("friend" + i), ConnectionStatus.CONNECTED);
+        }
+        when(messageService.resolvePageSize(null)).thenReturn(50);
+        when(messageService.getLatestMessagesByRoomIds(anyList(), anyInt())).thenReturn(Map.of());
+        startCounting();
+
+        List<RoomWithMessages> rooms = roomService.getRoomsAndMessagesByUserId(self.getId(), null);
+
+        assertEquals(DM_COUNT, rooms.size());
+        assertTrue(rooms.stream().allMatch(item -> item.getRoom().getName().startsWith("friend")));
+        // The rooms, then every counterpart at once
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getReceivedDMs_ResolvesEveryRequesterInConstantStatements() {
+        User self = user("self");
+        for (int i = 0; i < DM_COUNT; i++) {
+            dm(self, ConnectionStatus.RECEIVED, user("requester" + i), ConnectionStatus.SENT);
+        }
+        startCounting();
+
+        List<RoomResponse> requests = roomService.getReceivedDMs(self.getId());
+
+        assertEquals(DM_COUNT, requests.size());
+        assertTrue(requests.stream().allMatch(room -> room.getOtherUser() != null));
+        // The participant rows with their rooms, then every requester at once
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    // Writes the fixtures and empties the persistence context, so nothing is served from memory
+    private void startCounting() {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setNickname(name);
+        user.setEmail(name + "@example.com");
+        user.setCreatedAt(Instant.now());
+        return entityManager.persist(user);
+    }
+
+    private void dm(User self, ConnectionStatus selfStatus, User other, ConnectionStatus otherStatus) {
+        Room room = new Room();
+        room.setName("DM-" + self.getId() + "-" + other.getId());
+        room.setType(RoomType.DM);
+        room.setCreatedAt(Instant.now());
+        entityManager.persist(room);
+        participant(room, self, selfStatus);
+        participant(room, other, otherStatus);
+    }
+
+    private void participant(Room room, User user, ConnectionStatus status) {
+        RoomParticipant participant = new RoomParticipant();
+        participant.setRoom(room);
+        participant.setUser(user);
+        participant.setStatus(status);
+        participant.setCreatedAt(Instant.now());
+        entityManager.persist(participant);
+    }
+}
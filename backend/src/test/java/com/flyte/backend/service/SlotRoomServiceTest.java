@@ -0,0 +1,107 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.DTO.Room.SlotKey;
+import com.flyte.backend.cache.SlotRoomCache;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.repository.RoomRepository;
+import com.flyte.backend.repository.SlotRoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SlotRoomServiceTest {
+
+    private static final SlotKey LOUNGE = SlotKey.source("HYD", "S16T20D06012026");
+    private static final Instant EXPIRY = Instant.parse("2026-01-07T20:00:00Z");
+
+    @Mock
+    private SlotRoomRepository slotRoomRepository;
+    @Mock
+    private RoomRepository roomRepository;
+    @Mock
+    private SlotRoomCache slotRoomCache;
+
+    private SlotRoomService slotRoomService;
+    private Room lounge;
+
+    @BeforeEach
+    void setUp() {
+        slotRoomService = new SlotRoomService(slotRoomRepository, roomRepository, slotRoomCache);
+        lounge = new Room();
+        lounge.setId(UUID.randomUUID());
+        lounge.setType(RoomType.SOURCE);
+        lounge.setExpiryTime(EXPIRY);
+    }
+
+    @Test
+    void findOrCreate_LoadsACachedRoomByIdOnly() {
+        when(slotRoomCache.get(LOUNGE)).thenReturn(lounge.getId());
+        when(roomRepository.findById(lounge.getId())).thenReturn(Optional.of(lounge));
+
+        assertSame(lounge, slotRoomService.findOrCreate(LOUNGE, "Lounge-HYD", "Lounge", EXPIRY));
+
+        verifyNoInteractions(slotRoomRepository);
+    }
+
+    @Test
+    void findOrCreate_ReusesTheRegisteredRoomWithoutInserting() {
+        when(slotRoomRepository.findRoom(RoomType.SOURCE, "HYD", "S16T20D06012026", ""))
+                .thenReturn(Optional.of(lounge));
+
+        assertSame(lounge, slotRoomService.findOrCreate(LOUNGE, "Lounge-HYD", "Lounge", EXPIRY));
+
+        verify(slotRoomRepository, never()).insertRoomIfAbsent(any(), anyInt(), any(), any(), any(), any(), any(),
+                any());
+        verify(slotRoomCache).put(LOUNGE, lounge.getId(), EXPIRY);
+    }
+
+    @Test
+    void findOrCreate_CreatesAndRegistersANewRoom() {
+        when(slotRoomRepository.findRoom(any(), anyString(), anyString(), anyString())).thenReturn(Optional.empty());
+        when(slotRoomRepository.insertRoomIfAbsent(any(), eq(RoomType.SOURCE.ordinal()), eq("HYD"),
+                eq("S16T20D06012026"), eq(""), eq("Lounge-HYD"), eq("Lounge"), eq(EXPIRY))).thenReturn(1);
+        when(roomRepository.findById(any())).thenReturn(Optional.of(lounge));
+
+        assertSame(lounge, slotRoomService.findOrCreate(LOUNGE, "Lounge-HYD", "Lounge", EXPIRY));
+    }
+
+    @Test
+    void findOrCreate_ReturnsTheWinnersRoomWhenAConcurrentBookingClaimedTheSlot() {
+        when(slotRoomRepository.findRoom(any(), anyString(), anyString(), anyString()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(lounge));
+        when(slotRoomRepository.insertRoomIfAbsent(any(), anyInt(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(0);
+
+        assertSame(lounge, slotRoomService.findOrCreate(LOUNGE, "Lounge-HYD", "Lounge", EXPIRY));
+
+        verify(roomRepository, never()).findById(any());
+    }
+
+    @Test
+    void findOrCreate_EvictsACachedRoomThatWasDeleted() {
+        UUID deleted = UUID.randomUUID();
+        when(slotRoomCache.get(LOUNGE)).thenReturn(deleted);
+        when(roomRepository.findById(deleted)).thenReturn(Optional.empty());
+        when(slotRoomRepository.findRoom(any(), anyString(), anyString(), anyString())).thenReturn(Optional.of(lounge));
+
+        assertSame(lounge, slotRoomService.findOrCreate(LOUNGE, "Lounge-HYD", "Lounge", EXPIRY));
+
+        verify(slotRoomCache).evict(LOUNGE);
+    }
+}
@@ -0,0 +1,130 @@
+package com.flyte.backend.service;
+
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Room.RoomMember;
+import com.flyte.backend.DTO.Sync.SyncMessagesDelta;
+import com.flyte.backend.cache.RoomSequencer;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.globalWebsocketHandler.dto.GlobalWebSocketEnvelope;
+import com.flyte.backend.globalWebsocketHandler.enums.GlobalMessageType;
+import com.flyte.backend.repository.RoomParticipantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SyncPushServiceTest {
+
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+    @Mock
+    private RoomParticipantRepository roomParticipantRepository;
+    @Mock
+    private RoomSequencer roomSequencer;
+
+    private SyncPushService syncPushService;
+    private UUID roomId;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        syncPushService = new SyncPushService(messagingTemplate, roomParticipantRepository, roomSequencer, true, 2, 30);
+        roomId = UUID.randomUUID();
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void flush_StopsAtTheVisibleLimitAndResumesFromTheLastPosition() {
+        when(roomParticipantRepository.findMembersByRoomIdIn(Set.of(roomId), ConnectionStatus.NOT_CONNECTED))
+                .thenReturn(List.of(new RoomMember(roomId, userId)));
+        syncPushService.messageCommitted(message(2));
+        syncPushService.messageCommitted(message(1));
+        syncPushService.messageCommitted(message(4));
+        // Seq 3 is still in flight
+        when(roomSequencer.capToVisible(roomId, 4)).thenReturn(2L);
+
+        syncPushService.flush();
+
+        when(roomSequencer.capToVisible(roomId, 4)).thenReturn(4L);
+        syncPushService.flush();
+
+        List<SyncMessagesDelta> deltas = pushedDeltas(2);
+        assertDelta(deltas.get(0), null, 2, 1, 2);
+        assertDelta(deltas.get(1), 2L, 4, 4);
+    }
+
+    @Test
+    void flush_SplitsARoomIntoBatchesThatChainTheirPositions() {
+        when(roomParticipantRepository.findMembersByRoomIdIn(Set.of(roomId), ConnectionStatus.NOT_CONNECTED))
+                .thenReturn(List.of(new RoomMember(roomId, userId)));
+        for (long seq = 1; seq <= 4; seq++) {
+            syncPushService.messageCommitted(message(seq));
+        }
+        // Seq 5 was rolled back, so the limit sits above the last message
+        when(roomSequencer.capToVisible(roomId, 4)).thenReturn(5L);
+
+        syncPushService.flush();
+
+        List<SyncMessagesDelta> deltas = pushedDeltas(2);
+        assertDelta(deltas.get(0), null, 2, 1, 2);
+        assertDelta(deltas.get(1), 2L, 5, 3, 4);
+    }
+
+    @Test
+    void flush_ForgetsThePositionWhenMembersCannotBeRead() {
+        when(roomSequencer.capToVisible(eq(roomId), anyLong())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(roomParticipantRepository.findMembersByRoomIdIn(any(), eq(ConnectionStatus.NOT_CONNECTED)))
+                .thenReturn(List.of(new RoomMember(roomId, userId)))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(List.of(new RoomMember(roomId, userId)));
+        syncPushService.messageCommitted(message(1));
+        syncPushService.flush();
+        syncPushService.messageCommitted(message(2));
+        syncPushService.flush();
+        syncPushService.messageCommitted(message(3));
+
+        syncPushService.flush();
+
+        // Seq 2 was never delivered, so the next push must not claim to follow seq 1
+        List<SyncMessagesDelta> deltas = pushedDeltas(2);
+        assertDelta(deltas.get(0), null, 1, 1);
+        assertDelta(deltas.get(1), null, 3, 3);
+    }
+
+    private List<SyncMessagesDelta> pushedDeltas(int expected) {
+        ArgumentCaptor<GlobalWebSocketEnvelope> envelopes = ArgumentCaptor.forClass(GlobalWebSocketEnvelope.class);
+        verify(messagingTemplate, times(expected)).convertAndSend(eq("/topic/user/" + userId), envelopes.capture());
+        return envelopes.getAllValues().stream()
+                .peek(envelope -> assertEquals(GlobalMessageType.SYNC_MESSAGES, envelope.getType()))
+                .map(envelope -> (SyncMessagesDelta) envelope.getPayload())
+                .toList();
+    }
+
+    private void assertDelta(SyncMessagesDelta delta, Long afterSeq, long position, long... seqs) {
+        assertEquals(roomId, delta.roomId());
+        assertEquals(afterSeq, delta.afterSeq());
+        assertEquals(position, delta.position());
+        assertArrayEquals(seqs, delta.messages().stream().mapToLong(MessageView::seq).toArray());
+    }
+
+    private MessageView message(long seq) {
+        Instant createdAt = Instant.parse("2026-01-01T00:00:00Z").plusSeconds(seq);
+        return new MessageView(UUID.randomUUID(), roomId, seq, UUID.randomUUID(), "sender", "text", null,
+                null, null, createdAt, createdAt);
+    }
+}
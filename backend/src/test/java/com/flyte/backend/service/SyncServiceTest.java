@@ -0,0 +1,269 @@
+package com.flyte.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.flyte.backend.DTO.Message.MessageView;
+import com.flyte.backend.DTO.Message.SeqRange;
+import com.flyte.backend.DTO.Room.RoomHead;
+import com.flyte.backend.DTO.Room.RoomWithMessages;
+import com.flyte.backend.DTO.Sync.SyncResponse;
+import com.flyte.backend.cache.RoomActivityTracker;
+import com.flyte.backend.cache.UserChangeVersions;
+import com.flyte.backend.enums.ConnectionStatus;
+import com.flyte.backend.enums.RoomType;
+import com.flyte.backend.model.Room;
+import com.flyte.backend.model.SyncTime;
+import com.flyte.backend.repository.MessageWindowRepository;
+import com.flyte.backend.repository.RoomParticipantRepository;
+import com.flyte.backend.repository.RoomRepository;
+import com.flyte.backend.repository.SyncCursorRepository;
+import com.flyte.backend.repository.SyncTimeRepository;
+import com.flyte.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SyncServiceTest {
+
+    @Mock
+    private SyncTimeRepository syncTimeRepository;
+    @Mock
+    private RoomParticipantRepository roomParticipantRepository;
+    @Mock
+    private RoomRepository roomRepository;
+    @Mock
+    private MessageService messageService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private RoomActivityTracker roomActivityTracker;
+    @Mock
+    private SyncCursorRepository syncCursorRepository;
+    @Mock
+    private MessageWindowRepository messageWindowRepository;
+    @Mock
+    private UserChangeVersions userChangeVersions;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private SyncService syncService;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        syncService = new SyncService(syncTimeRepository, roomParticipantRepository, roomRepository, messageService,
+                userRepository, roomActivityTracker, syncCursorRepository, messageWindowRepository, userChangeVersions, objectMapper,
+                transactionManager, 2, 100);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void sync_ReturnsOnlyRoomsWhoseHeadMovedPastTheClientPosition() {
+        Room quiet = room();
+        Room busy = room();
+        Map<UUID, Long> heads = Map.of(quiet.getId(), 4L, busy.getId(), 9L);
+        when(roomParticipantRepository.findActiveRoomHeadsByUserIdAndStatusExcept(eq(userId),
+                eq(ConnectionStatus.NOT_CONNECTED), any())).thenReturn(roomHeads(heads));
+        when(messageService.capHeadSeqs(heads)).thenReturn(heads);
+        when(roomRepository.findAllById(List.of(busy.getId()))).thenReturn(List.of(busy));
+        when(messageService.getNewestMessagesInRanges(List.of(new SeqRange(busy.getId(), 5, 9)), 3))
+                .thenReturn(Map.of(busy.getId(), List.of(message(busy, 9), message(busy, 8), message(busy, 7))));
+
+        SyncResponse response = syncService.sync(userId, null, Map.of(quiet.getId(), 4L, busy.getId(), 5L));
+
+        assertEquals(1, response.getRooms().size());
+        RoomWithMessages item = response.getRooms().get(0);
+        assertEquals(busy.getId(), item.getRoom().getId());
+        assertEquals(9L, item.getHeadSeq());
+        // Two per room, and seq 6 is still unseen below them
+        assertEquals(2, item.getMessages().size());
+        assertTrue(item.isHasMore());
+        // Every room had a client position, and nothing is checkpointed before the ack
+        verifyNoInteractions(syncCursorRepository);
+    }
+
+    @Test
+    void sync_FallsBackToTheDevicesAcknowledgedPositionsAndReportsRemovedRooms() {
+        Room acked = room();
+        Room unseen = room();
+        UUID gone = UUID.randomUUID();
+        Map<UUID, Long> heads = Map.of(acked.getId(), 3L, unseen.getId(), 0L);
+        when(roomParticipantRepository.findActiveRoomHeadsByUserIdAndStatusExcept(eq(userId),
+                eq(ConnectionStatus.NOT_CONNECTED), any())).thenReturn(roomHeads(heads));
+        when(syncCursorRepository.findByUserIdAndDeviceId(userId, "phone-1")).thenReturn(Map.of(acked.getId(), 3L));
+        when(messageService.capHeadSeqs(heads)).thenReturn(heads);
+        when(roomRepository.findAllById(List.of(unseen.getId()))).thenReturn(List.of(unseen));
+        when(messageService.getNewestMessagesInRanges(eq(List.of()), anyInt())).thenReturn(Map.of());
+
+        SyncResponse response = syncService.sync(userId, " phone-1 ", Map.of(gone, 12L));
+
+        // The acknowledged room is up to date; the unseen one is sent even without messages
+        assertEquals(List.of(unseen.getId()), response.getRooms().stream().map(r -> r.getRoom().getId()).toList());
+        assertEquals(List.of(gone), response.getRemovedRoomIds());
+    }
+
+    @Test
+    void sync_ReturnsBeforeLoadingAnyRoomWhenNoHeadMoved() {
+        UUID quiet = UUID.randomUUID();
+        UUID gone = UUID.randomUUID();
+        Map<UUID, Long> heads = Map.of(quiet, 4L);
+        when(roomParticipantRepository.findActiveRoomHeadsByUserIdAndStatusExcept(eq(userId),
+                eq(ConnectionStatus.NOT_CONNECTED), any())).thenReturn(roomHeads(heads));
+        when(messageService.capHeadSeqs(heads)).thenReturn(heads);
+
+        SyncResponse response = syncService.sync(userId, null, Map.of(quiet, 4L, gone, 2L));
+
+        assertTrue(response.getRooms().isEmpty());
+        assertEquals(List.of(gone), response.getRemovedRoomIds());
+        verifyNoInteractions(roomRepository, syncCursorRepository);
+        verify(messageService, never()).getNewestMessagesInRanges(any(), anyInt());
+        verify(roomParticipantRepository, never()).findDmCounterparts(any(), any());
+    }
+
+    @Test
+    void getSyncData_SendsEverythingPastTheDevicePositionsAndMovesThemToTheHeads() {
+        Room quiet = room();
+        Room busy = room();
+        SyncTime syncTime = new SyncTime();
+        syncTime.setSyncTime(Instant.parse("2026-03-01T00:00:00Z"));
+        when(syncTimeRepository.findByUserIdAndDeviceId(userId, "phone-1")).thenReturn(Optional.of(syncTime));
+        when(syncCursorRepository.findByUserIdAndDeviceId(userId, "phone-1"))
+                .thenReturn(Map.of(quiet.getId(), 4L, busy.getId(), 5L));
+        when(roomParticipantRepository.findActiveRoomsByUserIdAndStatusExcept(eq(userId),
+                eq(ConnectionStatus.NOT_CONNECTED), any())).thenReturn(List.of(quiet, busy));
+        when(messageService.getHeadSeqs(List.of(quiet.getId(), busy.getId())))
+                .thenReturn(Map.of(quiet.getId(), 4L, busy.getId(), 9L));
+        // Seq 6 was created before the last sync time but committed after it
+        when(messageService.getNewestMessagesInRanges(List.of(new SeqRange(busy.getId(), 5, 9)), Integer.MAX_VALUE))
+                .thenReturn(Map.of(busy.getId(), List.of(message(busy, 9), message(busy, 8), message(busy, 7),
+                        message(busy, 6))));
+
+        List<RoomWithMessages> response = syncService.getSyncData(userId, "phone-1", null);
+
+        assertEquals(List.of(busy.getId()), response.stream().map(r -> r.getRoom().getId()).toList());
+        // Not a first sync, so nothing is held back by the per-room size
+        assertEquals(4, response.get(0).getMessages().size());
+        assertFalse(response.get(0).isHasMore());
+        verify(syncCursorRepository).advance(userId, "phone-1", Map.of(busy.getId(), 9L));
+        verify(messageService, never()).getMessagesByRoomIdsSince(any(), any());
+        verify(syncTimeRepository).save(syncTime);
+    }
+
+    @Test
+    void getSyncData_FallsBackToTheSyncTimeOnceForRoomsWithoutAPosition() {
+        Instant since = Instant.parse("2026-03-01T00:00:00Z");
+        Room old = room();
+        Room created = room();
+        created.setCreatedAt(since.plusSeconds(60));
+        SyncTime syncTime = new SyncTime();
+        syncTime.setSyncTime(since);
+        when(syncTimeRepository.findByUserIdAndDeviceId(userId, "")).thenReturn(Optional.of(syncTime));
+        when(roomParticipantRepository.findActiveRoomsByUserIdAndStatusExcept(eq(userId),
+                eq(ConnectionStatus.NOT_CONNECTED), any())).thenReturn(List.of(old, created));
+        when(messageService.getHeadSeqs(List.of(old.getId(), created.getId())))
+                .thenReturn(Map.of(old.getId(), 3L, created.getId(), 0L));
+        when(messageService.getMessagesByRoomIdsSince(List.of(old.getId()), since))
+                .thenReturn(Map.of(old.getId(), List.of(message(old, 3))));
+
+        List<RoomWithMessages> response = syncService.getSyncData(userId, null, null);
+
+        // The room created since the last sync comes through without messages
+        assertEquals(2, response.size());
+        verify(syncCursorRepository).advance(userId, "", Map.of(old.getId(), 3L, created.getId(), 0L));
+    }
+
+    private static List<RoomHead> roomHeads(Map<UUID, Long> heads) {
+        return heads.entrySet().stream().map(head -> new RoomHead(head.getKey(), head.getValue())).toList();
+    }
+
+    @Test
+    void streamSyncData_WritesRoomBeforeItsMessagesAndMovesSyncTimeAfterwards() throws Exception {
+        Room busy = room();
+        Room empty = room();
+        SyncTime syncTime = new SyncTime();
+        syncTime.setSyncTime(Instant.EPOCH);
+        when(syncTimeRepository.findByUserIdAndDeviceId(userId, "")).thenReturn(Optional.of(syncTime));
+        when(roomParticipantRepository.findActiveRoomsByUserIdAndStatusExcept(eq(userId),
+                eq(ConnectionStatus.NOT_CONNECTED), any())).thenReturn(List.of(busy, empty));
+        doAnswer(invocation -> {
+            Consumer<MessageView> action = invocation.getArgument(3);
+            action.accept(message(busy, 1));
+            action.accept(message(busy, 2));
+            return null;
+        }).when(messageWindowRepository).streamSince(eq(List.of(busy.getId(), empty.getId())), eq(Instant.EPOCH),
+                eq(100), any());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        syncService.streamSyncData(userId, null, out);
+
+        List<JsonNode> lines = out.toString(StandardCharsets.UTF_8).lines()
+                .map(line -> assertDoesNotThrow(() -> objectMapper.readTree(line)))
+                .toList();
+        assertEquals(4, lines.size());
+        assertEquals(busy.getId().toString(), lines.get(0).get("room").get("id").asText());
+        assertEquals(2, lines.get(2).get("message").get("seq").asLong());
+        // First sync: the room without messages still comes through, after the stream
+        assertEquals(empty.getId().toString(), lines.get(3).get("room").get("id").asText());
+        assertTrue(syncTime.getSyncTime().isAfter(Instant.EPOCH));
+        verify(syncTimeRepository).save(syncTime);
+    }
+
+    @Test
+    void acknowledge_RejectsNegativePositions() {
+        assertThrows(IllegalArgumentException.class,
+                () -> syncService.acknowledge(userId, null, Map.of(UUID.randomUUID(), -1L)));
+        verifyNoInteractions(syncCursorRepository);
+    }
+
+    @Test
+    void resetSyncTime_RestartsOnlyTheGivenDevice() {
+        SyncTime syncTime = new SyncTime();
+        syncTime.setDeviceId("tablet");
+        syncTime.setSyncTime(Instant.parse("2026-03-01T00:00:00Z"));
+        when(syncTimeRepository.findByUserIdAndDeviceId(userId, "tablet")).thenReturn(Optional.of(syncTime));
+
+        syncService.resetSyncTime(userId, "tablet");
+
+        assertEquals(Instant.EPOCH, syncTime.getSyncTime());
+        verify(syncTimeRepository).save(syncTime);
+        verify(syncCursorRepository).deleteByUserIdAndDeviceId(userId, "tablet");
+        verifyNoMoreInteractions(syncTimeRepository, syncCursorRepository);
+    }
+
+    private static Room room() {
+        Room room = new Room();
+        room.setId(UUID.randomUUID());
+        room.setName("room");
+        room.setType(RoomType.FLIGHT);
+        room.setCreatedAt(Instant.parse("2026-01-01T00:00:00Z"));
+        return room;
+    }
+
+    private static MessageView message(Room room, long seq) {
+        Instant createdAt = room.getCreatedAt().plusSeconds(seq);
+        return new MessageView(UUID.randomUUID(), room.getId(), seq, UUID.randomUUID(), "sender", "text", null,
+                null, null, createdAt, createdAt);
+    }
+}
@@ -0,0 +1,28 @@
+package com.flyte.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DmKeyTest {
+
+    @Test
+    void of_IsTheSameWhicheverUserAsks() {
+        UUID alice = UUID.fromString("00000000-0000-0000-0000-000000000003");
+        UUID bob = UUID.fromString("f0000000-0000-0000-0000-000000000004");
+
+        assertEquals(DmKey.of(alice, bob), DmKey.of(bob, alice));
+        assertEquals(alice + ":" + bob, DmKey.of(bob, alice));
+    }
+
+    @Test
+    void of_OrdersByTextNotBySignedUuidComparison() {
+        // UUID.compareTo treats the high bits as signed and would put this one first
+        UUID high = UUID.fromString("ffffffff-0000-0000-0000-000000000000");
+        UUID low = UUID.fromString("00000000-0000-0000-0000-000000000000");
+
+        assertEquals(low + ":" + high, DmKey.of(high, low));
+    }
+}
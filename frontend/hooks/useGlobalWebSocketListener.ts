@@ -24,12 +24,12 @@ export const useGlobalWebSocketListener = () => {
               m._raw.id = event.payload.id;
               m.text = event.payload.messageText;
               m.timestamp = new Date(event.payload.createdAt);
-              m.senderId = event.payload.user.id;
-              m.senderName = event.payload.user.name;
-              m.room.id = event.payload.room.id;
+              m.senderId = event.payload.userId;
+              m.senderName = event.payload.senderName;
+              m.room.id = event.payload.roomId;
             });
 
-            const roomToUpdate = await roomsCollection.find(event.payload.room.id);
+            const roomToUpdate = await roomsCollection.find(event.payload.roomId);
             await roomToUpdate.update((r) => {
               // Ensure you convert to number if your schema uses number
               r.lastMessageTimestamp = new Date(event.payload.createdAt);
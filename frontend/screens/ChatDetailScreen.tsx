@@ -163,8 +163,8 @@ const ChatDetailScreen = ({ room, messages, route }: ChatDetailProps) => {
         m._raw.id = backendMsg.id;
         m.text = backendMsg.messageText;
         m.timestamp = new Date(backendMsg.createdAt);
-        m.senderId = backendMsg.user.id;
-        m.senderName = backendMsg.user.nickname;
+        m.senderId = backendMsg.userId;
+        m.senderName = backendMsg.senderName;
         m.room.id = room.id;
       });
 
@@ -1,25 +1,35 @@
 // src/services/messageService.ts
-import { BackendMessage } from "../types/message";
+import { MessagePage } from "../types/message";
 import { RequestExecutor } from "./RequestExecutor";
 
 // Adjust base path if needed, e.g., just "" if controller is at root /room
 const ROOM_MESSAGES_ENDPOINT = "/api/messages/room";
 
+export interface RoomMessagesQuery {
+  before?: string; // beforeCursor of the previous page, for older messages
+  after?: string; // afterCursor (or the last seq we have), for newer messages
+  limit?: number;
+}
+
 /**
- * Fetches all past messages for a specific chat room.
- * GET /api/room/{roomId}
+ * Fetches one page of a room's messages, newest first.
+ * GET /api/messages/room/{roomId}?before=&after=&limit=
+ * Without a cursor this is the latest page.
  */
 export const fetchRoomMessagesService = async (
-  roomId: string
-): Promise<BackendMessage[]> => {
+  roomId: string,
+  query: RoomMessagesQuery = {}
+): Promise<MessagePage> => {
   try {
     console.log(`Fetching messages for room: ${roomId}`);
 
     // Construct the URL with the path parameter
     const url = `${ROOM_MESSAGES_ENDPOINT}/${roomId}`;
 
-    // Execute GET request expecting an array of BackendMessage
-    const apiResponse = await RequestExecutor.get<BackendMessage[]>(url);
+    // Execute GET request expecting a page of BackendMessage
+    const apiResponse = await RequestExecutor.get<MessagePage>(url, {
+      params: query,
+    });
 
     if (!apiResponse.success) {
       throw new Error(apiResponse.error || "Failed to fetch messages");
@@ -23,6 +23,10 @@ export class RequestExecutor {
     headers: { "Content-Type": "application/json" },
   });
 
+  // Epoch millis until which our reads must come from the primary database,
+  // handed out by the backend right after we write (X-Primary-Until)
+  private static primaryUntil = 0;
+
   // --- THE FIX: AXIOS INTERCEPTOR ---
   // This static block runs once when the class is loaded.
   // It sets up a listener that runs BEFORE every request.
@@ -37,6 +41,14 @@ export class RequestExecutor {
           if (token) {
             config.headers.Authorization = `Bearer ${token}`;
           }
+
+          // Send the pin back so any backend instance reads our own writes;
+          // the backend judges expiry by its own clock, not the device's
+          if (RequestExecutor.primaryUntil > 0) {
+            config.headers["X-Primary-Until"] = String(
+              RequestExecutor.primaryUntil,
+            );
+          }
         } catch (error) {
           console.error("Error reading token in interceptor", error);
         }
@@ -46,6 +58,14 @@ export class RequestExecutor {
         return Promise.reject(error);
       },
     );
+
+    this.client.interceptors.response.use((response) => {
+      const until = Number(response.headers["x-primary-until"]);
+      if (until > RequestExecutor.primaryUntil) {
+        RequestExecutor.primaryUntil = until;
+      }
+      return response;
+    });
   }
 
   // --- Core Methods ---
@@ -20,9 +20,9 @@ interface ApiMessage {
   createdAt: string;
   mediaType: string;
   mediaLink?: string;
-  user: ApiUser;
+  userId: string;
+  senderName: string;
   roomId: string;
-  room?: ApiRoomDetails;
 }
 
 interface ApiRoomDetails {
@@ -142,9 +142,8 @@ export class SyncService {
                 messagesCollection.prepareCreate((m) => {
                   m._raw.id = msg.id;
                   m.room.id = apiRoom.id;
-                  m.senderId = msg.user.id;
-                  m.senderName =
-                    msg.user.name || msg.user.nickname || "Unknown";
+                  m.senderId = msg.userId;
+                  m.senderName = msg.senderName || "Unknown";
                   m.text = msg.messageText;
                   m.timestamp = parseDate(msg.createdAt);
                   m.mediaType = msg.mediaType;
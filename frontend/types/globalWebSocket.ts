@@ -7,6 +7,10 @@ export enum WSMessageType {
   NOTIFICATION = "NOTIFICATION",
   TYPING_INDICATOR = "TYPING_INDICATOR",
   FRIEND_REQUEST_NOTIFICATION = "FRIEND_REQUEST_NOTIFICATION",
+  SYNC_ROOM_ADDED = "SYNC_ROOM_ADDED",
+  SYNC_ROOM_STATUS_CHANGED = "SYNC_ROOM_STATUS_CHANGED",
+  SYNC_ROOM_REMOVED = "SYNC_ROOM_REMOVED",
+  SYNC_MESSAGES = "SYNC_MESSAGES",
 }
 
 export interface UserStatusPayload {
@@ -38,12 +42,32 @@ export interface RoomResponsePayload {
   };
 }
 
+export type ConnectionStatus = "CONNECTED" | "SENT" | "RECEIVED" | "NOT_CONNECTED";
+
+export interface SyncRoomPayload {
+  room: RoomResponsePayload;
+  status: ConnectionStatus;
+}
+
+// Covers (afterSeq, position] of the room; a null afterSeq, or one above the
+// client's position, means the room has to be caught up through POST /api/sync
+export interface SyncMessagesPayload {
+  roomId: string;
+  afterSeq: number | null;
+  position: number;
+  messages: BackendMessage[];
+}
+
 // 3. The Discriminated Union: This is the magic part
 export type WebSocketEvent =
   | { type: WSMessageType.CHAT_NOTIFICATION; payload: BackendMessage }
   | { type: WSMessageType.USER_STATUS; payload: UserStatusPayload }
   | { type: WSMessageType.NOTIFICATION; payload: NotificationPayload }
   | { type: WSMessageType.FRIEND_REQUEST_NOTIFICATION; payload: RoomResponsePayload }
+  | { type: WSMessageType.SYNC_ROOM_ADDED; payload: SyncRoomPayload }
+  | { type: WSMessageType.SYNC_ROOM_STATUS_CHANGED; payload: SyncRoomPayload }
+  | { type: WSMessageType.SYNC_ROOM_REMOVED; payload: { roomId: string } }
+  | { type: WSMessageType.SYNC_MESSAGES; payload: SyncMessagesPayload }
   | {
       type: WSMessageType.TYPING_INDICATOR;
       payload: { roomId: string; userId: string };
@@ -1,26 +1,33 @@
 // src/models/message.ts
 
-import { JourneyRoom, JourneyUser } from "./journey";
-
 // Assuming you already have User defined in 'src/models/user.ts'
 // If not, define a basic shape here:
 
 // Matches com.flyte.backend.enums.MediaType
 export type MediaType = "TEXT" | "IMAGE" | "VIDEO" | "FILE";
 
-// Matches your backend 'Message' entity structure
+// Matches the backend 'MessageView' record
 export interface BackendMessage {
   id: string;
   createdAt: string; // ISO timestamp from BaseEntity
   updatedAt: string;
-  room: JourneyRoom; // We don't strictly need the full room object in the message list
-  user: JourneyUser; // The sender
+  roomId: string;
+  seq: number; // Per-room position; a jump of more than 1 means messages were missed
+  userId: string; // The sender
+  senderName: string; // Nickname when set, otherwise the account name
   messageText: string;
   messageHTML: string; // Not used in UI currently, but good to have
   mediaType: MediaType;
   mediaLink: string | null;
 }
 
+// Matches the backend 'MessagePage': one page of a room's history
+export interface MessagePage {
+  messages: BackendMessage[]; // Newest first
+  beforeCursor: string | null; // Pass as 'before' for older messages; null when there are none
+  afterCursor: string | null; // Pass as 'after' for newer messages; null when the page is empty
+}
+
 // --- UI Specific Model ---
 // This is the simplified shape your ChatDetailScreen's renderItem expects.
 // We will map the BackendMessage to this shape.